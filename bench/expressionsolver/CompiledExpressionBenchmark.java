@@ -0,0 +1,120 @@
+package expressionsolver;
+
+import jadd.JADD;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tool.BenchmarkModels;
+import tool.analyzers.buildingblocks.Component;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.strategies.FeatureBasedFirstPhase;
+import tool.stats.NoopFormulaCollector;
+
+/**
+ * Per-product evaluation of the reliability expressions of every RDG node
+ * of the {@code model_<features>_behavioral_model.xml} series (as done by
+ * the feature-product-based strategy), through JEP and through
+ * {@link CompiledExpression}. Each invocation evaluates all expressions
+ * for one interpretation of their variables; the batch variant evaluates
+ * them for all interpretations at once, column-wise, and its time is
+ * normalized per interpretation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompiledExpressionBenchmark {
+    private static final int INTERPRETATIONS = 64;
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private List<Expression<Double>> parsedExpressions = new ArrayList<Expression<Double>>();
+    private List<CompiledExpression> compiledExpressions = new ArrayList<CompiledExpression>();
+    private List<Map<String, Double>> interpretations = new ArrayList<Map<String, Double>>();
+    private List<double[][]> slotValues = new ArrayList<double[][]>();
+    private List<double[][]> columns = new ArrayList<double[][]>();
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ExpressionSolver expressionSolver = new ExpressionSolver(new JADD());
+        FeatureBasedFirstPhase firstPhase = new FeatureBasedFirstPhase(BenchmarkModels.createModelChecker("STATE_ELIMINATION"),
+                                                                       new NoopFormulaCollector());
+        List<Component<String>> expressions = firstPhase.getReliabilityExpressions(BenchmarkModels.buildRDG(features).getDependenciesTransitiveClosure(),
+                                                                                   ConcurrencyStrategy.SEQUENTIAL);
+        Random random = new Random(42);
+        for (int i = 0; i < INTERPRETATIONS; i++) {
+            interpretations.add(new HashMap<String, Double>());
+        }
+        for (Component<String> expression : expressions) {
+            parsedExpressions.add(expressionSolver.parseExpression(expression.getAsset()));
+            CompiledExpression compiled = expressionSolver.compileExpression(expression.getAsset());
+            compiledExpressions.add(compiled);
+
+            double[][] values = new double[INTERPRETATIONS][compiled.getVariables().size()];
+            for (int i = 0; i < INTERPRETATIONS; i++) {
+                for (int slot = 0; slot < values[i].length; slot++) {
+                    values[i][slot] = random.nextDouble();
+                    interpretations.get(i).put(compiled.getVariables().get(slot), values[i][slot]);
+                }
+            }
+            slotValues.add(values);
+
+            double[][] transposed = new double[values[0].length][INTERPRETATIONS];
+            for (int i = 0; i < INTERPRETATIONS; i++) {
+                for (int slot = 0; slot < transposed.length; slot++) {
+                    transposed[slot][i] = values[i][slot];
+                }
+            }
+            columns.add(transposed);
+        }
+    }
+
+    @Benchmark
+    public void jep(Blackhole blackhole) {
+        Map<String, Double> interpretation = interpretations.get(next);
+        for (Expression<Double> expression : parsedExpressions) {
+            blackhole.consume(expression.solve(interpretation));
+        }
+        next = (next + 1) % INTERPRETATIONS;
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (int i = 0; i < compiledExpressions.size(); i++) {
+            blackhole.consume(compiledExpressions.get(i).evaluate(slotValues.get(i)[next]));
+        }
+        next = (next + 1) % INTERPRETATIONS;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INTERPRETATIONS)
+    public void compiledBatch(Blackhole blackhole) {
+        for (int i = 0; i < compiledExpressions.size(); i++) {
+            blackhole.consume(compiledExpressions.get(i).evaluate(columns.get(i), INTERPRETATIONS));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package expressionsolver;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tool.BenchmarkModels;
+
+/**
+ * Encoding of the {@code cnf_<features>.txt} feature models as ADDs.
+ *
+ * The ADD manager is shared by all invocations of a trial, so only the
+ * first one creates the variables (as when the analyzer is set up).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionSolverBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private String featureModel;
+    private ExpressionSolver expressionSolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        featureModel = BenchmarkModels.readFeatureModel(features);
+        expressionSolver = new ExpressionSolver(new JADD());
+    }
+
+    @Benchmark
+    public ADD encodeFormula() {
+        return expressionSolver.encodeFormula(featureModel);
+    }
+}
@@ -0,0 +1,52 @@
+package modeling;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parsing.exceptions.InvalidTagException;
+import parsing.exceptions.UnsupportedFragmentTypeException;
+import tool.BenchmarkModels;
+
+/**
+ * Parsing of the bundled MagicDraw models.
+ *
+ * These models are not part of the generated series, so they are
+ * parameterized by file name rather than by number of features. Parsing
+ * some of them takes seconds, hence single-shot measurements.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiagramAPIBenchmark {
+
+    @Param({"Email.xml", "MinePump.xml", "LiftSystem.xml", "TankWar.xml", "CloudComputing.xml", "BSN_models_without_File.xml"})
+    public String umlModels;
+
+    private File umlModelsFile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        umlModelsFile = BenchmarkModels.getFile(umlModels);
+    }
+
+    @Benchmark
+    public DiagramAPI parsing() throws UnsupportedFragmentTypeException, InvalidTagException {
+        return new DiagramAPI(umlModelsFile);
+    }
+}
@@ -0,0 +1,248 @@
+package paramwrapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tool.BenchmarkModels;
+import tool.RDGNode;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.strategies.FamilyBasedFirstPhase;
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * Compares the former String-concatenation serialization of PARAM models
+ * (followed by the {@code replace("param", "const")} pass for Prism) with
+ * the streaming one, on the 150% models derived from the
+ * {@code model_<features>_behavioral_model.xml} series.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class ParamModelSerializationBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    @Param({"PARAM", "PRISM"})
+    public String dialectName;
+
+    private ParamModel.Dialect dialect;
+    private FDTMC model150;
+    private ScratchFiles scratchFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dialect = ParamModel.Dialect.valueOf(dialectName);
+        RDGNode root = BenchmarkModels.buildRDG(features);
+        // Captures the 150% model instead of checking it.
+        FDTMC[] derived = new FDTMC[1];
+        new FamilyBasedFirstPhase(fdtmc -> {
+            derived[0] = fdtmc;
+            return "";
+        }).getReliabilityExpression(root.getDependenciesTransitiveClosure(), ConcurrencyStrategy.SEQUENTIAL);
+        model150 = derived[0];
+        scratchFiles = new ScratchFiles();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        scratchFiles.close();
+    }
+
+    @Benchmark
+    public String concatenation() {
+        String modelString = new LegacyParamModel(model150).toString();
+        if (dialect == ParamModel.Dialect.PRISM) {
+            modelString = modelString.replace("param", "const");
+        }
+        return modelString;
+    }
+
+    @Benchmark
+    public String streamingToString() {
+        return new ParamModel(model150).toString(dialect);
+    }
+
+    @Benchmark
+    public long streamingToScratchFile() throws IOException {
+        ScratchFiles.ChannelWriter writer = scratchFiles.openWriter(scratchFiles.getModelFile());
+        try (Writer out = writer) {
+            new ParamModel(model150).writeTo(out, dialect);
+        }
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * Verbatim copy of the serialization which preceded
+     * {@link ParamModel#writeTo(Appendable, ParamModel.Dialect)}, as a baseline.
+     */
+    private static class LegacyParamModel {
+        private String stateVariable = "s";
+        private String moduleName = "dummyModule";
+        private int initialState = 0;
+
+        private Set<String> parameters;
+        private Map<String, Set<Integer>> labels;
+        private Map<Integer, LegacyCommand> commands;
+
+        private int stateRangeStart;
+        private int stateRangeEnd;
+
+        LegacyParamModel(FDTMC fdtmc) {
+            if (fdtmc.getVariableName() != null) {
+                stateVariable = fdtmc.getVariableName();
+            }
+            initialState = fdtmc.getInitialState().getIndex();
+            commands = getCommands(fdtmc);
+            labels = getLabels(fdtmc);
+            stateRangeStart = Collections.min(commands.keySet());
+            stateRangeEnd = Math.max(stateRangeStart + 1,
+                                     Collections.max(commands.keySet()));
+            parameters = getParameters(commands.values());
+        }
+
+        private Map<String, Set<Integer>> getLabels(FDTMC fdtmc) {
+            Map<String, Set<Integer>> labeledStates = new TreeMap<String, Set<Integer>>();
+            Collection<State> states = fdtmc.getStates();
+            for (State s : states) {
+                String label = s.getLabel();
+                if (label != null && !label.isEmpty()) {
+                    if (!labeledStates.containsKey(label)) {
+                        labeledStates.put(label, new TreeSet<Integer>());
+                    }
+                    labeledStates.get(label).add(s.getIndex());
+                }
+            }
+            return labeledStates;
+        }
+
+        private Map<Integer, LegacyCommand> getCommands(FDTMC fdtmc) {
+            Map<Integer, LegacyCommand> tmpCommands = new TreeMap<Integer, LegacyCommand>();
+            for (Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
+                int initState = entry.getKey().getIndex();
+                LegacyCommand command = new LegacyCommand(initState);
+                if (entry.getValue() != null) {
+                    for (Transition transition : entry.getValue()) {
+                        command.addUpdate(transition.getProbability(),
+                                          transition.getTarget().getIndex());
+                    }
+                } else {
+                    command.addUpdate("1", initState);
+                }
+                tmpCommands.put(initState, command);
+            }
+            return tmpCommands;
+        }
+
+        private Set<String> getParameters(Collection<LegacyCommand> commands) {
+            Set<String> tmpParameters = new HashSet<String>();
+
+            Pattern validIdentifier = Pattern.compile("(^|\\d+-)([A-Za-z_][A-Za-z0-9_]*)");
+            for (LegacyCommand command : commands) {
+                for (String probability : command.updatesProbabilities) {
+                    Matcher m = validIdentifier.matcher(probability);
+                    while (m.find()) {
+                        tmpParameters.add(m.group(2));
+                    }
+                }
+            }
+            return tmpParameters;
+        }
+
+        @Override
+        public String toString() {
+            String params = "";
+            for (String parameter : parameters) {
+                params += "param double "+parameter+";\n";
+            }
+            String module =
+                    "dtmc\n" +
+                    "\n" +
+                    params +
+                    "\n" +
+                    "module " + moduleName + "\n" +
+                    "	"+stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";" +
+                    "\n";
+            for (LegacyCommand command : commands.values()) {
+                module += "	"+command.makeString(stateVariable) + "\n";
+            }
+            module += "endmodule\n\n";
+            for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
+                String label = entry.getKey();
+                module += "label \""+label+"\" = ";
+
+                Set<Integer> states = entry.getValue();
+                int count = 1;
+                for (Integer state : states) {
+                    module += stateVariable+"="+state;
+                    if (count < states.size()) {
+                        module += " | ";
+                    }
+                    count++;
+                }
+                module += ";\n";
+            }
+            return module;
+        }
+    }
+
+    private static class LegacyCommand {
+        private int initialState;
+        private List<String> updatesProbabilities = new LinkedList<String>();
+        private List<Integer> updatesActions = new LinkedList<Integer>();
+
+        LegacyCommand(int initialState) {
+            this.initialState = initialState;
+        }
+
+        void addUpdate(String probability, int update) {
+            updatesProbabilities.add(probability);
+            updatesActions.add(update);
+        }
+
+        String makeString(String stateVariable) {
+            String command = "[] "+stateVariable+"="+initialState+" -> ";
+            boolean needsPlus = false;
+            for (int i = 0; i < updatesProbabilities.size(); i++) {
+                if (needsPlus) {
+                    command += " + ";
+                } else {
+                    needsPlus = true;
+                }
+                command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+updatesActions.get(i)+")";
+            }
+            return command+";";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package parsing;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
+import parsing.exceptions.InvalidNodeClassException;
+import parsing.exceptions.InvalidNodeType;
+import parsing.exceptions.InvalidNumberOfOperandsException;
+import tool.BenchmarkModels;
+import tool.RDGNode;
+
+/**
+ * Parsing of the {@code model_<features>_behavioral_model.xml} series and
+ * construction of the corresponding RDGs.
+ *
+ * Note that RDG nodes are registered globally (see
+ * {@link RDGNode#getSimilarNode(RDGNode)}), so RDG construction after the
+ * first invocation measures the steady state in which every node is found
+ * to be similar to a previously built one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SplGeneratorModelingAPIBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private File behavioralModel;
+    private SplGeneratorModelingAPI parsedModel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        behavioralModel = BenchmarkModels.getBehavioralModel(features);
+        parsedModel = new SplGeneratorModelingAPI(behavioralModel);
+    }
+
+    @Benchmark
+    public SplGeneratorModelingAPI parsing() {
+        return new SplGeneratorModelingAPI(behavioralModel);
+    }
+
+    @Benchmark
+    public RDGNode rdgConstruction() throws InvalidNumberOfOperandsException, InvalidNodeClassException, InvalidNodeType {
+        return parsedModel.transform();
+    }
+}
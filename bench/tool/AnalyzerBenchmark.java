@@ -0,0 +1,91 @@
+package tool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import paramwrapper.ParametricModelChecker;
+import tool.analyzers.AnalysisStrategy;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+
+/**
+ * End-to-end analysis of the {@code cnf_<features>.txt} /
+ * {@code model_<features>_behavioral_model.xml} series with each
+ * {@link AnalysisStrategy}, in the same way as the command-line interface
+ * analyzes all valid configurations: from parsing the models up to the
+ * reliability of every configuration.
+ *
+ * Uses the in-process model checker by default, so that no external tool
+ * is needed; other ones may be chosen with {@code -p modelChecker=...}.
+ *
+ * Beware that, as with the command-line interface, the largest members
+ * of the series need more heap than the JVM's default.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    @Param({"FEATURE_FAMILY", "FEATURE_PRODUCT", "PRODUCT", "FAMILY", "FAMILY_PRODUCT"})
+    public String analysisStrategy;
+
+    @Param({"STATE_ELIMINATION"})
+    public String modelChecker;
+
+    @Param({"PARALLEL", "SEQUENTIAL"})
+    public String concurrencyStrategy;
+
+    private ParametricModelChecker checker;
+    private String featureModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        checker = BenchmarkModels.createModelChecker(modelChecker);
+        featureModel = BenchmarkModels.readFeatureModel(features);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        checker.close();
+    }
+
+    @Benchmark
+    public IReliabilityAnalysisResults analysis() throws Exception {
+        RDGNode rdgRoot = BenchmarkModels.buildRDG(features);
+        Analyzer analyzer = new Analyzer(featureModel, checker, null, null);
+        analyzer.setConcurrencyStrategy(ConcurrencyStrategy.valueOf(concurrencyStrategy));
+
+        switch (AnalysisStrategy.valueOf(analysisStrategy)) {
+        case FEATURE_PRODUCT:
+            return analyzer.evaluateFeatureProductBasedReliability(rdgRoot, analyzer.getValidConfigurations());
+        case PRODUCT:
+            return analyzer.evaluateProductBasedReliability(rdgRoot, analyzer.getValidConfigurations());
+        case FAMILY:
+            return analyzer.evaluateFamilyBasedReliability(rdgRoot, analyzer.getValidConfigurations());
+        case FAMILY_PRODUCT:
+            return analyzer.evaluateFamilyProductBasedReliability(rdgRoot, analyzer.getValidConfigurations());
+        case FEATURE_FAMILY:
+        default:
+            return analyzer.evaluateFeatureFamilyBasedReliability(rdgRoot);
+        }
+    }
+}
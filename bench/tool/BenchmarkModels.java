@@ -0,0 +1,62 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import paramwrapper.ParametricModelChecker;
+import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
+import parsing.exceptions.InvalidNodeClassException;
+import parsing.exceptions.InvalidNodeType;
+import parsing.exceptions.InvalidNumberOfOperandsException;
+
+/**
+ * Locates the bundled {@code cnf_<features>.txt} and
+ * {@code model_<features>_behavioral_model.xml} series (as well as other
+ * models) for the benchmarks.
+ *
+ * Models are looked up in the directory given by the {@code reana.models}
+ * system property (defaults to the working directory). Benchmarks which
+ * resort to PARAM find it at the path given by the {@code reana.param}
+ * system property (defaults to the same as {@code --param-path}).
+ */
+public final class BenchmarkModels {
+
+    private BenchmarkModels() {
+        // NO-OP
+    }
+
+    public static File getFile(String name) {
+        return new File(System.getProperty("reana.models", "."), name);
+    }
+
+    public static File getBehavioralModel(int features) {
+        return getFile("model_" + features + "_behavioral_model.xml");
+    }
+
+    public static File getFeatureModel(int features) {
+        return getFile("cnf_" + features + ".txt");
+    }
+
+    /**
+     * @return the CNF feature model, as read by the command-line interface.
+     */
+    public static String readFeatureModel(int features) throws IOException {
+        return new String(Files.readAllBytes(getFeatureModel(features).toPath()),
+                          StandardCharsets.UTF_8);
+    }
+
+    public static RDGNode buildRDG(int features) throws InvalidNumberOfOperandsException, InvalidNodeClassException, InvalidNodeType {
+        return new SplGeneratorModelingAPI(getBehavioralModel(features)).transform();
+    }
+
+    /**
+     * @param strategyName Name of a {@link ModelCheckingStrategy}.
+     */
+    public static ParametricModelChecker createModelChecker(String strategyName) {
+        return ModelCheckerFactory.createModelChecker(ModelCheckingStrategy.valueOf(strategyName),
+                                                      System.getProperty("reana.param", "/opt/param-2-3-64"),
+                                                      null);
+    }
+}
@@ -0,0 +1,64 @@
+package tool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Topological sorting and path counting over the RDGs of the
+ * {@code model_<features>_behavioral_model.xml} series, both through
+ * {@link RDGNode} and over a {@link FrozenRDG} snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RDGTraversalBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private RDGNode root;
+    private FrozenRDG frozenRDG;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = BenchmarkModels.buildRDG(features);
+        frozenRDG = FrozenRDG.of(root);
+    }
+
+    @Benchmark
+    public List<RDGNode> getDependenciesTransitiveClosure() throws CyclicRdgException {
+        return root.getDependenciesTransitiveClosure();
+    }
+
+    @Benchmark
+    public Map<RDGNode, Integer> getNumberOfPaths() throws CyclicRdgException {
+        return root.getNumberOfPaths();
+    }
+
+    @Benchmark
+    public FrozenRDG freeze() throws CyclicRdgException {
+        return FrozenRDG.of(root);
+    }
+
+    @Benchmark
+    public int[] getNumberOfPathsFrozen() {
+        return frozenRDG.getNumberOfPaths();
+    }
+}
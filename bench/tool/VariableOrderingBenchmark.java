@@ -0,0 +1,95 @@
+package tool;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tool.ordering.IVariableOrdering;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Static variable orderings ({@link VariableOrderingStrategy}) against
+ * sifting the feature model ADD, over the {@code cnf_<features>.txt} series,
+ * as done upon creation of an {@link Analyzer}: from a fresh ADD manager up
+ * to the feature model ADD with its variables ordered.
+ *
+ * Besides the time of the whole process, reports (as auxiliary counters)
+ * the time spent on ordering alone and the final number of nodes of the
+ * feature model ADD.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariableOrderingBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    @Param({"SIFTING", "FEATURE_TREE", "FORCE", "BANDWIDTH"})
+    public String variableOrdering;
+
+    private String featureModel;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OrderingCounters {
+        public long orderingMicros;
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            orderingMicros = 0;
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        featureModel = BenchmarkModels.readFeatureModel(features);
+    }
+
+    @Benchmark
+    public ADD orderVariables(OrderingCounters counters) {
+        JADD jadd = new JADD();
+        ExpressionSolver expressionSolver = new ExpressionSolver(jadd);
+        IVariableOrdering ordering = VariableOrderingFactory.createVariableOrdering(VariableOrderingStrategy.valueOf(variableOrdering));
+
+        long start = System.nanoTime();
+        List<String> variableOrder = (ordering != null) ? ordering.getVariableOrder(featureModel) : null;
+        long orderingTime = System.nanoTime() - start;
+
+        ADD encoded = expressionSolver.encodeFormula(featureModel);
+
+        start = System.nanoTime();
+        if (variableOrder != null) {
+            jadd.applyVariableOrder(variableOrder);
+        } else {
+            jadd.reorderVariables();
+        }
+        orderingTime += System.nanoTime() - start;
+
+        counters.orderingMicros += TimeUnit.NANOSECONDS.toMicros(orderingTime);
+        counters.nodes += encoded.getNodeCount();
+        return encoded;
+    }
+
+}
@@ -0,0 +1,71 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tool.BenchmarkModels;
+import tool.analyzers.strategies.FeatureBasedFirstPhase;
+import tool.stats.NoopFormulaCollector;
+import expressionsolver.Expression;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Lifting of the reliability expressions of every RDG node of the
+ * {@code model_<features>_behavioral_model.xml} series into expressions
+ * over ADDs, as done by the feature-family-based strategy.
+ *
+ * The expressions are computed once per trial by the in-process model checker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FamilyBasedHelperBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private FamilyBasedHelper helper;
+    private List<Component<String>> expressions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JADD jadd = new JADD();
+        ExpressionSolver expressionSolver = new ExpressionSolver(jadd);
+        // Variables are created in the same order as by the analyzer.
+        expressionSolver.encodeFormula(BenchmarkModels.readFeatureModel(features));
+        jadd.reorderVariables();
+        helper = new FamilyBasedHelper(expressionSolver);
+
+        FeatureBasedFirstPhase firstPhase = new FeatureBasedFirstPhase(BenchmarkModels.createModelChecker("STATE_ELIMINATION"),
+                                                                       new NoopFormulaCollector());
+        expressions = firstPhase.getReliabilityExpressions(BenchmarkModels.buildRDG(features).getDependenciesTransitiveClosure(),
+                                                           ConcurrencyStrategy.SEQUENTIAL);
+    }
+
+    @Benchmark
+    public List<Component<Expression<ADD>>> lift() {
+        return expressions.stream()
+                .map(helper::lift)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,92 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tool.BenchmarkModels;
+import tool.RDGNode;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Presence checking of every RDG node of the
+ * {@code model_<features>_behavioral_model.xml} series in a valid
+ * configuration, as done for each product by the product-based strategies:
+ * encoding the presence conditions anew each time vs. through the
+ * {@link PresenceConditionCache}. Each invocation checks all nodes
+ * in one configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PresenceConditionsBenchmark {
+    private static final int CONFIGURATIONS = 256;
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache cache;
+    private List<String> presenceConditions;
+    private List<Collection<String>> configurations;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JADD jadd = new JADD();
+        expressionSolver = new ExpressionSolver(jadd);
+        ADD featureModel = expressionSolver.encodeFormula(BenchmarkModels.readFeatureModel(features));
+        jadd.reorderVariables();
+        cache = new PresenceConditionCache(expressionSolver);
+
+        presenceConditions = BenchmarkModels.buildRDG(features).getDependenciesTransitiveClosure().stream()
+                .map(RDGNode::getPresenceCondition)
+                .collect(Collectors.toList());
+        configurations = featureModel.getExpandedConfigurations()
+                .limit(CONFIGURATIONS)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void encoding(Blackhole blackhole) {
+        Collection<String> configuration = nextConfiguration();
+        for (String presenceCondition : presenceConditions) {
+            blackhole.consume(PresenceConditions.isPresent(presenceCondition, configuration, expressionSolver));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        Collection<String> configuration = nextConfiguration();
+        for (String presenceCondition : presenceConditions) {
+            blackhole.consume(cache.isPresent(presenceCondition, configuration));
+        }
+    }
+
+    private Collection<String> nextConfiguration() {
+        Collection<String> configuration = configurations.get(next);
+        next = (next + 1) % configurations.size();
+        return configuration;
+    }
+}
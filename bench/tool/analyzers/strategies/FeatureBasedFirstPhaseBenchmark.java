@@ -0,0 +1,74 @@
+package tool.analyzers.strategies;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import paramwrapper.ParametricModelChecker;
+import tool.BenchmarkModels;
+import tool.RDGNode;
+import tool.analyzers.buildingblocks.Component;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.stats.NoopFormulaCollector;
+
+/**
+ * Model checking of every RDG node of the
+ * {@code model_<features>_behavioral_model.xml} series, i.e., the first
+ * phase of the feature-based strategies.
+ *
+ * Uses the in-process model checker by default, so that no external tool
+ * is needed; other ones may be chosen with {@code -p modelChecker=...}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeatureBasedFirstPhaseBenchmark {
+
+    @Param({"12", "14", "16", "18", "20", "22", "24", "26", "28", "30"})
+    public int features;
+
+    @Param({"STATE_ELIMINATION"})
+    public String modelChecker;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public String concurrencyStrategyName;
+
+    private ParametricModelChecker checker;
+    private FeatureBasedFirstPhase firstPhase;
+    private ConcurrencyStrategy concurrencyStrategy;
+    private List<RDGNode> nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        nodes = BenchmarkModels.buildRDG(features).getDependenciesTransitiveClosure();
+        checker = BenchmarkModels.createModelChecker(modelChecker);
+        firstPhase = new FeatureBasedFirstPhase(checker, new NoopFormulaCollector());
+        concurrencyStrategy = ConcurrencyStrategy.valueOf(concurrencyStrategyName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        checker.close();
+    }
+
+    @Benchmark
+    public List<Component<String>> getReliabilityExpressions() {
+        return firstPhase.getReliabilityExpressions(nodes, concurrencyStrategy);
+    }
+}
@@ -0,0 +1,399 @@
+package expressionsolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.function.Add;
+import org.nfunk.jep.function.Divide;
+import org.nfunk.jep.function.Modulus;
+import org.nfunk.jep.function.Multiply;
+import org.nfunk.jep.function.Not;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.function.Power;
+import org.nfunk.jep.function.Subtract;
+import org.nfunk.jep.function.UMinus;
+
+/**
+ * Floating-point expression compiled into a flat postfix program, which is
+ * evaluated over an array of variable values (slots) instead of a JEP symbol
+ * table.
+ *
+ * A compiled expression is immutable, so it may be evaluated concurrently
+ * and reused for any number of interpretations. Evaluation does not allocate:
+ * each thread keeps its own operand stack.
+ *
+ * Operations are performed in the same order as JEP's, so results are
+ * the same as those of {@link Expression#solve(Map)}.
+ */
+public final class CompiledExpression {
+    private static final Logger LOGGER = Logger.getLogger(CompiledExpression.class.getName());
+
+    private static final int PUSH_CONSTANT = 0;
+    private static final int PUSH_VARIABLE = 1;
+    private static final int ADD = 2;
+    private static final int SUBTRACT = 3;
+    private static final int MULTIPLY = 4;
+    private static final int DIVIDE = 5;
+    private static final int POWER = 6;
+    private static final int MODULUS = 7;
+    private static final int NEGATE = 8;
+    private static final int NOT = 9;
+
+    private static final int OPCODE_BITS = 4;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    private static final ThreadLocal<double[]> OPERAND_STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    /**
+     * Each instruction holds an opcode in its lower bits and, for pushes,
+     * the index of the constant or variable in its upper bits.
+     */
+    private final int[] program;
+    private final double[] constants;
+    private final List<String> variables;
+    private final Map<String, Integer> variableIndices;
+    private final int maxStackDepth;
+
+    private CompiledExpression(int[] program, double[] constants, List<String> variables, int maxStackDepth) {
+        this.program = program;
+        this.constants = constants;
+        this.variables = Collections.unmodifiableList(variables);
+        this.variableIndices = new HashMap<String, Integer>();
+        for (int i = 0; i < variables.size(); i++) {
+            variableIndices.put(variables.get(i), i);
+        }
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    /**
+     * Compiles the expression rooted at the given node of a JEP parse tree.
+     *
+     * @throws IllegalArgumentException if the expression uses an operation
+     *      other than arithmetic and logical negation.
+     */
+    static CompiledExpression compile(Node root) {
+        Compiler compiler = new Compiler();
+        for (Node node : ExpressionParser.postOrder(root)) {
+            compiler.emit(node);
+        }
+        return compiler.build();
+    }
+
+    /**
+     * @return the names of the variables in the expression, in the order
+     *      in which their values are expected by {@link #evaluate(double[])}.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the slot of the given variable, or -1 if it does not occur
+     *      in the expression.
+     */
+    public int getVariableIndex(String variable) {
+        Integer index = variableIndices.get(variable);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values Values of the variables, indexed as in {@link #getVariables()}.
+     */
+    public double evaluate(double[] values) {
+        double[] stack = OPERAND_STACK.get();
+        if (stack.length < maxStackDepth) {
+            stack = new double[maxStackDepth];
+            OPERAND_STACK.set(stack);
+        }
+        int top = -1;
+        for (int instruction : program) {
+            switch (instruction & OPCODE_MASK) {
+            case PUSH_CONSTANT:
+                stack[++top] = constants[instruction >>> OPCODE_BITS];
+                break;
+            case PUSH_VARIABLE:
+                stack[++top] = values[instruction >>> OPCODE_BITS];
+                break;
+            case ADD:
+                top--;
+                stack[top] = stack[top] + stack[top + 1];
+                break;
+            case SUBTRACT:
+                top--;
+                stack[top] = stack[top] - stack[top + 1];
+                break;
+            case MULTIPLY:
+                top--;
+                stack[top] = stack[top] * stack[top + 1];
+                break;
+            case DIVIDE:
+                top--;
+                stack[top] = stack[top] / stack[top + 1];
+                break;
+            case POWER:
+                top--;
+                stack[top] = Math.pow(stack[top], stack[top + 1]);
+                break;
+            case MODULUS:
+                top--;
+                stack[top] = stack[top] % stack[top + 1];
+                break;
+            case NEGATE:
+                stack[top] = -stack[top];
+                break;
+            case NOT:
+                stack[top] = (stack[top] == 0) ? 1 : 0;
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + (instruction & OPCODE_MASK));
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates the expression for a batch of interpretations at once, in a
+     * single pass over the program. Each operation is thus dispatched once
+     * per batch, instead of once per interpretation.
+     *
+     * @param columns Values of the variables, indexed as in {@link #getVariables()}.
+     *      Each column holds the values of a variable for all interpretations
+     *      in the batch.
+     * @param count Number of interpretations in the batch.
+     * @return the results for each interpretation.
+     */
+    public double[] evaluate(double[][] columns, int count) {
+        double[][] stack = new double[maxStackDepth][count];
+        int top = -1;
+        for (int instruction : program) {
+            int opcode = instruction & OPCODE_MASK;
+            double[] operand;
+            double[] left;
+            switch (opcode) {
+            case PUSH_CONSTANT:
+                Arrays.fill(stack[++top], 0, count, constants[instruction >>> OPCODE_BITS]);
+                break;
+            case PUSH_VARIABLE:
+                System.arraycopy(columns[instruction >>> OPCODE_BITS], 0, stack[++top], 0, count);
+                break;
+            case NEGATE:
+                operand = stack[top];
+                for (int i = 0; i < count; i++) {
+                    operand[i] = -operand[i];
+                }
+                break;
+            case NOT:
+                operand = stack[top];
+                for (int i = 0; i < count; i++) {
+                    operand[i] = (operand[i] == 0) ? 1 : 0;
+                }
+                break;
+            default:
+                operand = stack[top--];
+                left = stack[top];
+                applyBinary(opcode, left, operand, count);
+            }
+        }
+        return stack[0];
+    }
+
+    private static void applyBinary(int opcode, double[] left, double[] right, int count) {
+        switch (opcode) {
+        case ADD:
+            for (int i = 0; i < count; i++) {
+                left[i] = left[i] + right[i];
+            }
+            break;
+        case SUBTRACT:
+            for (int i = 0; i < count; i++) {
+                left[i] = left[i] - right[i];
+            }
+            break;
+        case MULTIPLY:
+            for (int i = 0; i < count; i++) {
+                left[i] = left[i] * right[i];
+            }
+            break;
+        case DIVIDE:
+            for (int i = 0; i < count; i++) {
+                left[i] = left[i] / right[i];
+            }
+            break;
+        case POWER:
+            for (int i = 0; i < count; i++) {
+                left[i] = Math.pow(left[i], right[i]);
+            }
+            break;
+        case MODULUS:
+            for (int i = 0; i < count; i++) {
+                left[i] = left[i] % right[i];
+            }
+            break;
+        default:
+            throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Solves the expression with respect to the given interpretation of variables.
+     *
+     * @see Expression#solve(Map)
+     */
+    public Double solve(Map<String, Double> interpretation) {
+        double[] values = new double[variables.size()];
+        boolean missingVariables = false;
+        for (int i = 0; i < values.length; i++) {
+            Double value = interpretation.get(variables.get(i));
+            if (value != null) {
+                values[i] = value;
+            } else {
+                LOGGER.warning("No interpretation for variable <"+variables.get(i)+"> was provided");
+                missingVariables = true;
+            }
+        }
+        if (missingVariables) {
+            return null;
+        }
+        return evaluate(values);
+    }
+
+    /**
+     * Batch counterpart of {@link #solve(Map)}.
+     *
+     * @param interpretation A map from variable names to the respective
+     *          values (one for each interpretation in the batch).
+     * @param count Number of interpretations in the batch.
+     * @return the results for each interpretation, or {@code null} if
+     *          some variable has no interpretation.
+     */
+    public double[] solve(Map<String, double[]> interpretation, int count) {
+        double[][] columns = new double[variables.size()][];
+        boolean missingVariables = false;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = interpretation.get(variables.get(i));
+            if (columns[i] == null) {
+                LOGGER.warning("No interpretation for variable <"+variables.get(i)+"> was provided");
+                missingVariables = true;
+            }
+        }
+        if (missingVariables) {
+            return null;
+        }
+        return evaluate(columns, count);
+    }
+
+    /**
+     * Accumulates the program for a post-order traversal of a parse tree.
+     */
+    private static class Compiler {
+        private int[] program = new int[16];
+        private int programLength = 0;
+        private double[] constants = new double[16];
+        private int constantsLength = 0;
+        private List<String> variables = new ArrayList<String>();
+        private Map<String, Integer> variableIndices = new HashMap<String, Integer>();
+        private int stackDepth = 0;
+        private int maxStackDepth = 0;
+
+        void emit(Node node) {
+            if (node instanceof ASTConstant) {
+                emitPush(PUSH_CONSTANT, addConstant(((ASTConstant) node).getValue()));
+            } else if (node instanceof ASTVarNode) {
+                emitPush(PUSH_VARIABLE, addVariable(((ASTVarNode) node).getName()));
+            } else if (node instanceof ASTFunNode) {
+                emitOperation((ASTFunNode) node);
+            } else if (node.jjtGetNumChildren() != 1) {
+                // Any other node (e.g., the start node) must be a mere wrapper.
+                throw new IllegalArgumentException("Unsupported expression node: " + node);
+            }
+        }
+
+        private void emitOperation(ASTFunNode node) {
+            PostfixMathCommandI function = node.getPFMC();
+            int arity = node.jjtGetNumChildren();
+            int opcode;
+            if (function instanceof UMinus) {
+                opcode = NEGATE;
+            } else if (function instanceof Not) {
+                opcode = NOT;
+            } else if (function instanceof Add) {
+                opcode = ADD;
+            } else if (function instanceof Subtract) {
+                opcode = SUBTRACT;
+            } else if (function instanceof Multiply) {
+                opcode = MULTIPLY;
+            } else if (function instanceof Divide) {
+                opcode = DIVIDE;
+            } else if (function instanceof Power) {
+                opcode = POWER;
+            } else if (function instanceof Modulus) {
+                opcode = MODULUS;
+            } else {
+                throw new IllegalArgumentException("Unsupported operation: " + node.getName());
+            }
+            boolean unary = opcode == NEGATE || opcode == NOT;
+            if (unary ? arity != 1 : arity != 2) {
+                throw new IllegalArgumentException("Unexpected number of operands for " + node.getName() + ": " + arity);
+            }
+            append(opcode);
+            if (!unary) {
+                stackDepth--;
+            }
+        }
+
+        private void emitPush(int opcode, int operand) {
+            append(opcode | (operand << OPCODE_BITS));
+            stackDepth++;
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+        }
+
+        private void append(int instruction) {
+            if (programLength == program.length) {
+                program = Arrays.copyOf(program, 2 * programLength);
+            }
+            program[programLength++] = instruction;
+        }
+
+        private int addConstant(Object value) {
+            if (!(value instanceof Number)) {
+                throw new IllegalArgumentException("Unsupported constant: " + value);
+            }
+            if (constantsLength == constants.length) {
+                constants = Arrays.copyOf(constants, 2 * constantsLength);
+            }
+            constants[constantsLength] = ((Number) value).doubleValue();
+            return constantsLength++;
+        }
+
+        private int addVariable(String name) {
+            Integer index = variableIndices.get(name);
+            if (index == null) {
+                index = variables.size();
+                variables.add(name);
+                variableIndices.put(name, index);
+            }
+            return index;
+        }
+
+        CompiledExpression build() {
+            if (programLength == 0) {
+                throw new IllegalArgumentException("Empty expression");
+            }
+            return new CompiledExpression(Arrays.copyOf(program, programLength),
+                                          Arrays.copyOf(constants, constantsLength),
+                                          variables,
+                                          maxStackDepth);
+        }
+    }
+}
@@ -1,49 +1,328 @@
 package expressionsolver;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
 import java.util.logging.Logger;
 
-import org.nfunk.jep.JEP;
-import org.nfunk.jep.SymbolTable;
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.function.PostfixMathCommandI;
 
+import expressionsolver.functions.ADDAdd;
+import expressionsolver.functions.ADDDivide;
+import expressionsolver.functions.ADDMultiply;
+import expressionsolver.functions.ADDPower;
+import expressionsolver.functions.ADDSubtract;
+import expressionsolver.functions.LogicalAnd;
+import expressionsolver.functions.LogicalNot;
+import expressionsolver.functions.LogicalOr;
+import expressionsolver.functions.UnaryMinus;
+import jadd.ADD;
+import jadd.ADDBackend.Operator;
+import jadd.ADDExpression;
+import jadd.UnrecognizedVariableException;
+
+/**
+ * Handle to a parsed expression.
+ *
+ * The parse tree is flattened (in post-order) when the handle is created,
+ * and each evaluation keeps its operands and variable bindings to itself.
+ * Thus, an Expression is immutable and the same parse may be solved by
+ * many threads at once.
+ *
+ * Intermediate results which are {@link AutoCloseable} (e.g., ADDs) are
+ * closed as soon as they have been consumed by the next operation. Constants
+ * and the values given for variables are never closed.
+ *
+ * Expressions over ADDs which only use the ADD operations known to
+ * {@link ADDExpression} are solved as a whole, by a single call into the
+ * ADD manager, so there are no intermediate results at all.
+ */
 public class Expression<T> {
     private static final Logger LOGGER = Logger.getLogger(Expression.class.getName());
 
-    private JEP parser;
-    private Class<? extends T> type;
+    /**
+     * Parse tree in post-order. Each element is either a constant value,
+     * a variable name ({@link Variable}) or the function to be applied
+     * ({@link Function}).
+     */
+    private final Object[] program;
+    private final Set<String> variables;
+    private final Class<? extends T> type;
 
     /**
-     * Creates a new Expression with the underlying {@code parser},
+     * The same program over ADDs, as evaluated by the ADD manager itself, or
+     * {@code null} if it cannot be fused. Its operands are the values of
+     * {@link #fusedVariables}, followed by {@link #fusedConstants}.
+     */
+    private final ADDExpression fused;
+    private final String[] fusedVariables;
+    private final ADD[] fusedConstants;
+
+    /**
+     * Creates a new Expression from the parse tree held by {@code parser},
      * which operates on the given {@code type} (e.g., Double, ADD).
-     * @param parser
+     * The parser itself is not kept.
      */
-    public Expression(JEP parser, Class<? extends T> type) {
-        this.parser = parser;
+    Expression(ExpressionParser parser, Class<? extends T> type) {
+        List<Node> nodes = ExpressionParser.postOrder(parser.getTopNode());
+        Object[] program = new Object[nodes.size()];
+        Set<String> variables = new LinkedHashSet<String>();
+        int length = 0;
+        for (Node node : nodes) {
+            if (node instanceof ASTConstant) {
+                program[length++] = ((ASTConstant) node).getValue();
+            } else if (node instanceof ASTVarNode) {
+                String name = ((ASTVarNode) node).getName();
+                variables.add(name);
+                program[length++] = new Variable(name);
+            } else if (node instanceof ASTFunNode) {
+                program[length++] = new Function(parser.getFunction((ASTFunNode) node),
+                                                 node.jjtGetNumChildren());
+            }
+            // Any other node (e.g., the start node) is a mere wrapper.
+        }
+        this.program = new Object[length];
+        System.arraycopy(program, 0, this.program, 0, length);
+        this.variables = Collections.unmodifiableSet(variables);
         this.type = type;
+
+        this.fusedVariables = variables.toArray(new String[variables.size()]);
+        List<ADD> constants = new ArrayList<ADD>();
+        this.fused = (type == ADD.class) ? fuse(this.program, fusedVariables, constants) : null;
+        this.fusedConstants = constants.toArray(new ADD[constants.size()]);
+    }
+
+    /**
+     * Compiles a program over ADDs into an {@link ADDExpression}, adding its
+     * constants to {@code constants} as operands (after the variables).
+     *
+     * @return the compiled expression or {@code null} if some operation is not
+     *      supported, in which case the program is to be solved step by step.
+     */
+    private static ADDExpression fuse(Object[] program, String[] variables, List<ADD> constants) {
+        ADDExpression.Builder builder = new ADDExpression.Builder();
+        int numberOfFunctions = 0;
+        for (int i = 0; i < program.length; i++) {
+            Object instruction = program[i];
+            if (instruction instanceof Variable) {
+                builder.operand(Arrays.asList(variables).indexOf(((Variable) instruction).name));
+            } else if (instruction instanceof ADD) {
+                if (i + 1 < program.length && isPower(program[i + 1])) {
+                    // Powers are supported for literal positive exponents only,
+                    // which are then part of the program instead of operands.
+                    long exponent = exponentOf((ADD) instruction);
+                    if (exponent < 1 || exponent > Integer.MAX_VALUE) {
+                        return null;
+                    }
+                    builder.power((int) exponent);
+                    numberOfFunctions++;
+                    i++;
+                } else {
+                    builder.operand(variables.length + constants.size());
+                    constants.add((ADD) instruction);
+                }
+            } else if (instruction instanceof Function) {
+                Function function = (Function) instruction;
+                PostfixMathCommandI command = function.command;
+                int arity = function.numberOfParameters;
+                if (command instanceof UnaryMinus && arity == 1) {
+                    builder.negate();
+                } else if (command instanceof LogicalNot && arity == 1) {
+                    builder.complement();
+                } else if (arity != 2) {
+                    return null;
+                } else if (command instanceof ADDAdd) {
+                    builder.apply(Operator.PLUS);
+                } else if (command instanceof ADDSubtract) {
+                    builder.apply(Operator.MINUS);
+                } else if (command instanceof ADDMultiply || command instanceof LogicalAnd) {
+                    builder.apply(Operator.TIMES);
+                } else if (command instanceof ADDDivide) {
+                    builder.apply(Operator.DIVIDE);
+                } else if (command instanceof LogicalOr) {
+                    builder.apply(Operator.OR);
+                } else {
+                    return null;
+                }
+                numberOfFunctions++;
+            } else {
+                return null;
+            }
+        }
+        // Programs without operations amount to one of their operands, which
+        // is returned as is.
+        return (numberOfFunctions == 0) ? null : builder.build();
+    }
+
+    private static boolean isPower(Object instruction) {
+        return instruction instanceof Function
+                && ((Function) instruction).command instanceof ADDPower
+                && ((Function) instruction).numberOfParameters == 2;
+    }
+
+    /**
+     * @return the exponent (rounded, as by {@link ADDPower}) or 0 if it is
+     *      not constant.
+     */
+    private static long exponentOf(ADD exponent) {
+        if (!exponent.isConstant()) {
+            return 0;
+        }
+        try {
+            return Math.round(exponent.eval(new String[]{}));
+        } catch (UnrecognizedVariableException e) {
+            // Unreachable
+            return 0;
+        }
+    }
+
+    /**
+     * @return the names of the variables in this expression.
+     */
+    public Set<String> getVariables() {
+        return variables;
     }
 
     /**
      * Solves an expression with respect to the given interpretation of variables.
      * Here, variables are interpreted in the algebraic sense, not as boolean ADD-variables.
-     * @param <T>
      *
-     * @param expression
      * @param interpretation A map from variable names to the respective values
      *          to be considered during evaluation.
      * @return the result of applying the operations in the expression as defined
-     *          for type {@code T}.
+     *          for type {@code T}, or {@code null} if some variable has no
+     *          interpretation or an operation fails.
      */
     public T solve(Map<String, T> interpretation) {
-        SymbolTable symbolTable = parser.getSymbolTable();
-        for (Object var: symbolTable.keySet()) {
-            String varName = (String)var;
-            if (interpretation.containsKey(varName)) {
-                parser.addVariableAsObject(varName, interpretation.get(varName));
+        boolean missingVariables = false;
+        for (String variable : variables) {
+            if (!interpretation.containsKey(variable)) {
+                LOGGER.warning("No interpretation for variable <"+variable+"> was provided");
+                missingVariables = true;
+            }
+        }
+        if (missingVariables) {
+            return null;
+        }
+        if (fused != null) {
+            return solveFused(interpretation);
+        }
+
+        Stack<Object> operands = new Stack<Object>();
+        // Whether each operand is an intermediate result, owned by this evaluation.
+        Stack<Boolean> owned = new Stack<Boolean>();
+        try {
+            for (Object instruction : program) {
+                if (instruction instanceof Function) {
+                    Function function = (Function) instruction;
+                    int first = operands.size() - function.numberOfParameters;
+                    Object[] arguments = operands.subList(first, operands.size()).toArray();
+                    boolean[] ownedArguments = new boolean[arguments.length];
+                    for (int i = arguments.length - 1; i >= 0; i--) {
+                        ownedArguments[i] = owned.pop();
+                    }
+                    Object result = null;
+                    try {
+                        function.apply(operands);
+                        result = operands.peek();
+                    } finally {
+                        for (int i = 0; i < arguments.length; i++) {
+                            if (ownedArguments[i] && arguments[i] != result) {
+                                release(arguments[i]);
+                            }
+                        }
+                    }
+                    // An operation may yield one of its operands (e.g., x^1),
+                    // in which case ownership is unchanged.
+                    boolean ownedResult = true;
+                    for (int i = 0; i < arguments.length; i++) {
+                        if (arguments[i] == result) {
+                            ownedResult = ownedArguments[i];
+                        }
+                    }
+                    owned.push(ownedResult);
+                } else if (instruction instanceof Variable) {
+                    operands.push(interpretation.get(((Variable) instruction).name));
+                    owned.push(false);
+                } else {
+                    operands.push(instruction);
+                    owned.push(false);
+                }
+            }
+        } catch (ParseException e) {
+            LOGGER.warning("Evaluation error: " + e.getMessage());
+            // Operands below the failed operation are left untouched.
+            for (int i = 0; i < owned.size(); i++) {
+                if (owned.get(i)) {
+                    release(operands.get(i));
+                }
+            }
+            return null;
+        }
+        return type.cast(operands.pop());
+    }
+
+    private T solveFused(Map<String, T> interpretation) {
+        ADD[] operands = new ADD[fusedVariables.length + fusedConstants.length];
+        for (int i = 0; i < fusedVariables.length; i++) {
+            operands[i] = (ADD) interpretation.get(fusedVariables[i]);
+            if (operands[i] == null) {
+                LOGGER.warning("Evaluation error: Invalid parameter type");
+                return null;
+            }
+        }
+        System.arraycopy(fusedConstants, 0, operands, fusedVariables.length, fusedConstants.length);
+        return type.cast(ADD.apply(fused, operands));
+    }
+
+    private static void release(Object intermediate) {
+        if (intermediate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) intermediate).close();
+            } catch (Exception e) {
+                LOGGER.warning("Could not release intermediate result: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Variable {
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Function {
+        private final PostfixMathCommandI command;
+        private final int numberOfParameters;
+
+        Function(PostfixMathCommandI command, int numberOfParameters) {
+            this.command = command;
+            this.numberOfParameters = numberOfParameters;
+        }
+
+        void apply(Stack<Object> operands) throws ParseException {
+            if (command.getNumberOfParameters() == -1) {
+                // Functions with variable arity are told how many operands
+                // to take through their (shared) state.
+                synchronized (command) {
+                    command.setCurNumberOfParameters(numberOfParameters);
+                    command.run(operands);
+                }
             } else {
-                LOGGER.warning("No interpretation for variable <"+varName+"> was provided");
+                command.run(operands);
             }
         }
-        Object result = parser.getValueAsObject();
-        return type.cast(result);
     }
 }
@@ -0,0 +1,67 @@
+package expressionsolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.type.NumberFactory;
+
+/**
+ * JEP parser which also exposes what is needed to evaluate its parse trees
+ * outside of it, i.e., without JEP's (mutable) symbol table and evaluator.
+ */
+class ExpressionParser extends JEP {
+
+    ExpressionParser(boolean traverse, boolean allowUndeclared, boolean implicitMul, NumberFactory numberFactory) {
+        super(traverse, allowUndeclared, implicitMul, numberFactory);
+    }
+
+    /**
+     * Resolves the function to be applied for the given node in the same
+     * way as JEP's evaluator does, i.e., giving precedence to the functions
+     * added to this parser (by name and arity, then by name only).
+     */
+    PostfixMathCommandI getFunction(ASTFunNode node) {
+        PostfixMathCommandI function = node.getPFMC();
+        String nameWithArity = node.getName() + ":" + function.getNumberOfParameters();
+        if (funTab.containsKey(nameWithArity)) {
+            return (PostfixMathCommandI) funTab.get(nameWithArity);
+        } else if (funTab.containsKey(node.getName())) {
+            return (PostfixMathCommandI) funTab.get(node.getName());
+        }
+        return function;
+    }
+
+    /**
+     * Lists the nodes of a parse tree in post-order, i.e., in the order
+     * in which a stack machine would evaluate them.
+     *
+     * The tree is traversed iteratively, so that arbitrarily long formulas
+     * (which JEP parses into deeply nested trees) can be handled.
+     */
+    static List<Node> postOrder(Node root) {
+        List<Node> nodes = new ArrayList<Node>();
+        Deque<Node> pending = new ArrayDeque<Node>();
+        Deque<Integer> nextChild = new ArrayDeque<Integer>();
+        pending.push(root);
+        nextChild.push(0);
+        while (!pending.isEmpty()) {
+            Node node = pending.peek();
+            int child = nextChild.pop();
+            if (child < node.jjtGetNumChildren()) {
+                nextChild.push(child + 1);
+                pending.push(node.jjtGetChild(child));
+                nextChild.push(0);
+            } else {
+                pending.pop();
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+}
@@ -4,13 +4,9 @@ import jadd.ADD;
 import jadd.JADD;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Logger;
 
-import org.nfunk.jep.JEP;
-import org.nfunk.jep.SymbolTable;
 import org.nfunk.jep.type.DoubleNumberFactory;
 
 import expressionsolver.functions.ADDAdd;
@@ -80,11 +76,15 @@ public class ExpressionSolver {
      * @return a floating-point result for the evaluated expression.
      */
     public Double solveExpression(String expression, Map<String, Double> interpretation) {
-        Expression<Double> parsedExpression = parseExpression(expression);
-        if (parsedExpression == null) {
+        ExpressionParser parser = parseFloatingPoint(expression);
+        if (parser == null) {
             return null;
         }
-        return parsedExpression.solve(interpretation);
+        CompiledExpression compiledExpression = compile(parser);
+        if (compiledExpression == null) {
+            return new Expression<Double>(parser, Double.class).solve(interpretation);
+        }
+        return compiledExpression.solve(interpretation);
     }
 
     /**
@@ -97,6 +97,33 @@ public class ExpressionSolver {
         return solveExpression(expression, new HashMap<String, Double>());
     }
 
+    /**
+     * Solves an expression with respect to a batch of interpretations of
+     * variables at once. The expression is walked only once for the whole
+     * batch, which is given column-wise (i.e., each variable is mapped to
+     * its values in all interpretations).
+     *
+     * @param expression
+     * @param interpretations
+     *            A map from variable names to the respective values to be
+     *            considered during evaluation, one for each interpretation.
+     * @param count
+     *            Number of interpretations in the batch.
+     * @return the floating-point results for each interpretation, or
+     *         {@code null} if the expression could not be evaluated.
+     */
+    public double[] solveExpressionForBatch(String expression, Map<String, double[]> interpretations, int count) {
+        ExpressionParser parser = parseFloatingPoint(expression);
+        if (parser == null) {
+            return null;
+        }
+        CompiledExpression compiledExpression = compile(parser);
+        if (compiledExpression == null) {
+            return solveForBatch(new Expression<Double>(parser, Double.class), interpretations, count);
+        }
+        return compiledExpression.solve(interpretations, count);
+    }
+
     /**
      * Encodes a propositional logic formula as a 0,1-ADD, which is roughly
      * equivalent to a BDD, but better suited to representing boolean functions
@@ -112,45 +139,45 @@ public class ExpressionSolver {
      * @return
      */
     public ADD encodeFormula(String formula) {
-        JEP parser = makeADDParser(jadd);
-        parser.parseExpression(formula);
-        if (parser.hasError()) {
-            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+        Expression<ADD> parsedFormula = parseExpressionForFunctions(formula);
+        if (parsedFormula == null) {
             return null;
         }
 
-        parser.addVariableAsObject("true", jadd.makeConstant(1));
-        parser.addVariableAsObject("True", jadd.makeConstant(1));
-        parser.addVariableAsObject("false", jadd.makeConstant(0));
-        parser.addVariableAsObject("False", jadd.makeConstant(0));
-        SymbolTable symbolTable = parser.getSymbolTable();
-        @SuppressWarnings("unchecked")
-        Set<String> variables = new HashSet<String>(symbolTable.keySet());
-        variables.remove("true");
-        variables.remove("True");
-        variables.remove("false");
-        variables.remove("False");
-
-        for (Object var : variables) {
-            String varName = (String) var;
-            ADD variable = jadd.getVariable(varName);
-            parser.addVariableAsObject(varName, variable);
+        Map<String, ADD> interpretation = new HashMap<String, ADD>();
+        for (String varName : parsedFormula.getVariables()) {
+            if (varName.equals("true") || varName.equals("True")) {
+                interpretation.put(varName, jadd.makeConstant(1));
+            } else if (varName.equals("false") || varName.equals("False")) {
+                interpretation.put(varName, jadd.makeConstant(0));
+            } else {
+                interpretation.put(varName, jadd.getVariable(varName));
+            }
         }
-        return (ADD) parser.getValueAsObject();
+        ADD encoded = parsedFormula.solve(interpretation);
+        // Variables and constants are no longer needed, unless the formula
+        // amounts to one of them.
+        for (ADD value : interpretation.values()) {
+            if (value != encoded) {
+                value.close();
+            }
+        }
+        return encoded;
     }
 
     /**
      * Lower level alternative for {@link solveExpression(String)}.
      *
      * It returns a handle to an already parsed expression, in case it
-     * must be evaluated more than once.
+     * must be evaluated more than once. The handle is immutable, so it
+     * may be shared among threads.
      *
      * @param expression
      * @return A handle to the parsed expression or {@code null} if there
      *      is a parsing error.
      */
     public Expression<Double> parseExpression(String expression) {
-        JEP parser = makeFloatingPointParser();
+        ExpressionParser parser = makeFloatingPointParser();
         parser.parseExpression(expression);
         if (parser.hasError()) {
             LOGGER.warning("Parser error: " + parser.getErrorInfo());
@@ -159,6 +186,30 @@ public class ExpressionSolver {
         return new Expression<Double>(parser, Double.class);
     }
 
+    /**
+     * Alternative to {@link parseExpression(String)} for expressions which
+     * must be evaluated many times (e.g., once per configuration).
+     *
+     * The returned handle evaluates the expression without going through
+     * JEP, and it may be shared among threads.
+     *
+     * @param expression
+     * @return A handle to the compiled expression or {@code null} if there
+     *      is a parsing error or an operation which is not supported by
+     *      the compiler.
+     */
+    public CompiledExpression compileExpression(String expression) {
+        ExpressionParser parser = parseFloatingPoint(expression);
+        if (parser == null) {
+            return null;
+        }
+        CompiledExpression compiledExpression = compile(parser);
+        if (compiledExpression == null) {
+            LOGGER.warning("Compilation error: unsupported operation in " + expression);
+        }
+        return compiledExpression;
+    }
+
     /**
      * Lower level alternative for {@link solveExpressionAsFunction(String)}.
      *
@@ -169,7 +220,7 @@ public class ExpressionSolver {
      *      is a parsing error.
      */
     public Expression<ADD> parseExpressionForFunctions(String expression) {
-        JEP parser = makeADDParser(jadd);
+        ExpressionParser parser = makeADDParser(jadd);
         parser.parseExpression(expression);
         if (parser.hasError()) {
             LOGGER.warning("Parser error: " + parser.getErrorInfo());
@@ -181,8 +232,8 @@ public class ExpressionSolver {
     /**
      * @param jadd
      */
-    private JEP makeADDParser(JADD jadd) {
-        JEP parser = new JEP(false, true, true, new ADDNumberFactory(jadd));
+    private ExpressionParser makeADDParser(JADD jadd) {
+        ExpressionParser parser = new ExpressionParser(false, true, true, new ADDNumberFactory(jadd));
         parser.addFunction("\"+\"", new ADDAdd());
         parser.addFunction("\"-\":2", new ADDSubtract());
         parser.addFunction("\"-\":1", new UnaryMinus());
@@ -196,11 +247,59 @@ public class ExpressionSolver {
         return parser;
     }
 
+    /**
+     * @return a floating-point-based parser holding the parse tree of
+     *      {@code expression}, or {@code null} if there is a parsing error.
+     */
+    private ExpressionParser parseFloatingPoint(String expression) {
+        ExpressionParser parser = makeFloatingPointParser();
+        parser.parseExpression(expression);
+        if (parser.hasError()) {
+            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+            return null;
+        }
+        return parser;
+    }
+
+    /**
+     * @return the compiled form of the parse tree held by {@code parser}, or
+     *      {@code null} if it uses an operation which is not supported by the
+     *      compiler (e.g., logical or relational ones), so that JEP must
+     *      evaluate it instead.
+     */
+    private static CompiledExpression compile(ExpressionParser parser) {
+        try {
+            return CompiledExpression.compile(parser.getTopNode());
+        } catch (IllegalArgumentException e) {
+            LOGGER.fine("Falling back to JEP: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates {@code expression} through JEP once for each interpretation in the batch.
+     */
+    private static double[] solveForBatch(Expression<Double> expression, Map<String, double[]> interpretations, int count) {
+        double[] results = new double[count];
+        Map<String, Double> interpretation = new HashMap<String, Double>();
+        for (int i = 0; i < count; i++) {
+            for (Map.Entry<String, double[]> variable : interpretations.entrySet()) {
+                interpretation.put(variable.getKey(), variable.getValue()[i]);
+            }
+            Double result = expression.solve(interpretation);
+            if (result == null) {
+                return null;
+            }
+            results[i] = result;
+        }
+        return results;
+    }
+
     /**
      * Makes a standard floating-point-based parser.
      */
-    private JEP makeFloatingPointParser() {
-        JEP parser = new JEP(false, true, true, new DoubleNumberFactory());
+    private ExpressionParser makeFloatingPointParser() {
+        ExpressionParser parser = new ExpressionParser(false, true, true, new DoubleNumberFactory());
         parser.setAllowUndeclared(true);
         return parser;
     }
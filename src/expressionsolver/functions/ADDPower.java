@@ -45,12 +45,18 @@ public class ADDPower extends org.nfunk.jep.function.Power {
 
     private ADD nTimes(ADD base, long exponentValue) {
         if (exponentValue == 0) {
-            return base.ifThenElse(jadd.makeConstant(1),
-                                   jadd.makeConstant(0));
+            try (ADD one = jadd.makeConstant(1);
+                 ADD zero = jadd.makeConstant(0)) {
+                return base.ifThenElse(one, zero);
+            }
         }
         ADD result = base;
         for (int i = 1; i < exponentValue; i++) {
+            ADD partial = result;
             result = result.times(base);
+            if (partial != base) {
+                partial.close();
+            }
         }
         return result;
     }
@@ -1,5 +1,6 @@
 package fdtmc;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,6 +10,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class FDTMC {
@@ -25,6 +27,8 @@ public class FDTMC {
 	private int index;
 	private Map<State, List<Transition>> transitionSystem;
 	private Map<String, List<Interface>> interfaces;
+	// Run whenever this model changes, if any
+	private List<Runnable> changeListeners;
 
 
 	public FDTMC() {
@@ -66,6 +70,7 @@ public class FDTMC {
 		if (index == 0)
 			setInitialState(state);
 		incrementIndex();	
+		notifyChange();
 	}
 	
 	private int incrementIndex(){
@@ -90,6 +95,7 @@ public class FDTMC {
         }
         this.initialState = initialState;
         initialState.setLabel(INITIAL_LABEL);
+        notifyChange();
     }
 
     public State getInitialState() {
@@ -105,6 +111,7 @@ public class FDTMC {
     private void setSuccessState(State successState) {
         this.successState = successState;
         successState.setLabel(SUCCESS_LABEL);
+        notifyChange();
     }
 
     public State getSuccessState() {
@@ -120,6 +127,7 @@ public class FDTMC {
     private void setErrorState(State errorState) {
         this.errorState = errorState;
         errorState.setLabel(ERROR_LABEL);
+        notifyChange();
     }
 
     public State getErrorState() {
@@ -142,6 +150,7 @@ public class FDTMC {
 	private Transition verifySucess(State sourceState, List<Transition> listOfTransitions, Transition newTransition) {
 		boolean success = listOfTransitions.add(newTransition);
 		transitionSystem.put(sourceState, listOfTransitions);
+		notifyChange();
 		return success ? newTransition : null;
 	}
 	
@@ -208,8 +217,29 @@ public class FDTMC {
 	        interfaces.put(id, interfaceOccurrences);
 	    }
 	    interfaceOccurrences.add(interfaceToBeAdd);
+	    notifyChange();
 	}
 
+    /**
+     * Registers a listener to be run whenever a state, a transition or an
+     * interface is added to this FDTMC, e.g., so that whatever was derived
+     * from it may be recomputed.
+     */
+    public void addChangeListener(Runnable listener) {
+        if (changeListeners == null) {
+            changeListeners = new ArrayList<Runnable>(1);
+        }
+        changeListeners.add(listener);
+    }
+
+    private void notifyChange() {
+        if (changeListeners != null) {
+            for (Runnable listener : changeListeners) {
+                listener.run();
+            }
+        }
+    }
+
 	public State getStateByLabel(String label) {
 		Iterator <State> it = states.iterator();
 		while (it.hasNext()){
@@ -283,9 +313,10 @@ public class FDTMC {
             LinkedList<List<Interface>> otherInterfaces = new LinkedList<List<Interface>>(other.interfaces.values());
             
             final boolean equalStates = states.equals(other.states);
-            final boolean equalInitialState = getInitialState().equals(other.getInitialState());
-            final boolean equalSucessState = getSuccessState().equals(other.getSuccessState());
-            final boolean equalErrorState = getErrorState().equals(other.getErrorState());
+            // Models under construction may lack some of these states.
+            final boolean equalInitialState = Objects.equals(getInitialState(), other.getInitialState());
+            final boolean equalSucessState = Objects.equals(getSuccessState(), other.getSuccessState());
+            final boolean equalErrorState = Objects.equals(getErrorState(), other.getErrorState());
             final boolean equalTrasitionSystem = transitionSystem.equals(other.transitionSystem);
             final boolean equalInterfaces = thisInterfaces.equals(otherInterfaces);
             
@@ -0,0 +1,171 @@
+package fdtmc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical, content-based digest of an FDTMC.
+ *
+ * Two FDTMCs with the same states (indices and labels), the same initial,
+ * success and error states and the same transitions (targets and probability
+ * strings) yield the same fingerprint, regardless of the order in which
+ * transitions were created. Action names and the state variable name are
+ * irrelevant to reliability analysis and thus are not taken into account.
+ */
+public class FDTMCFingerprint {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int NULL_LENGTH = -1;
+
+    private FDTMCFingerprint() {
+        // NO-OP
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 fingerprint of {@code fdtmc}.
+     */
+    public static String of(FDTMC fdtmc) {
+        MessageDigest digest = newDigest();
+
+        List<State> states = new ArrayList<State>(fdtmc.getStates());
+        states.sort(Comparator.comparingInt(State::getIndex));
+        update(digest, "states");
+        for (State state : states) {
+            update(digest, Integer.toString(state.getIndex()));
+            update(digest, state.getLabel());
+        }
+        update(digest, "initial");
+        update(digest, indexOf(fdtmc.getInitialState()));
+        update(digest, "success");
+        update(digest, indexOf(fdtmc.getSuccessState()));
+        update(digest, "error");
+        update(digest, indexOf(fdtmc.getErrorState()));
+
+        update(digest, "transitions");
+        Map<State, List<Transition>> transitions = fdtmc.getTransitions();
+        for (State state : states) {
+            List<Transition> outgoing = transitions.get(state);
+            if (outgoing == null) {
+                continue;
+            }
+            List<Transition> sorted = new ArrayList<Transition>(outgoing);
+            sorted.sort(Comparator.comparingInt((Transition t) -> t.getTarget().getIndex())
+                        .thenComparing(t -> String.valueOf(t.getProbability())));
+            for (Transition transition : sorted) {
+                update(digest, Integer.toString(state.getIndex()));
+                update(digest, Integer.toString(transition.getTarget().getIndex()));
+                update(digest, transition.getProbability());
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Coarser digest than {@link #of(FDTMC)}, which is the same for any FDTMCs
+     * which are equal as in {@link FDTMC#equals(Object)}. Thus, state labels are
+     * left out, and so are interfaces (their states and transitions are digested
+     * along with the other ones). Numeric probabilities are digested by value and
+     * all the other ones (i.e., those with variables) as 0, since equals() takes
+     * them to be equal to each other and to 0.
+     *
+     * Distinct FDTMCs may share such a digest, so it is only suitable for
+     * narrowing down candidates for equals().
+     *
+     * @return the hexadecimal SHA-256 digest of the structure of {@code fdtmc}.
+     */
+    public static String ofStructure(FDTMC fdtmc) {
+        MessageDigest digest = newDigest();
+
+        List<State> states = new ArrayList<State>(fdtmc.getStates());
+        states.sort(Comparator.comparingInt(State::getIndex));
+        update(digest, "states");
+        for (State state : states) {
+            update(digest, Integer.toString(state.getIndex()));
+        }
+        update(digest, "initial");
+        update(digest, indexOf(fdtmc.getInitialState()));
+        update(digest, "success");
+        update(digest, indexOf(fdtmc.getSuccessState()));
+        update(digest, "error");
+        update(digest, indexOf(fdtmc.getErrorState()));
+
+        update(digest, "transitions");
+        Map<State, List<Transition>> transitions = fdtmc.getTransitions();
+        for (State state : states) {
+            List<Transition> outgoing = transitions.get(state);
+            if (outgoing == null) {
+                continue;
+            }
+            List<String> sorted = new ArrayList<String>(outgoing.size());
+            for (Transition transition : outgoing) {
+                sorted.add(transition.getTarget().getIndex() + " " + normalizeProbability(transition.getProbability()));
+            }
+            sorted.sort(null);
+            for (String transition : sorted) {
+                update(digest, Integer.toString(state.getIndex()));
+                update(digest, transition);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String normalizeProbability(String probability) {
+        double value;
+        try {
+            value = Double.parseDouble(probability);
+        } catch (NumberFormatException e) {
+            value = 0;
+        }
+        // Adding 0.0 turns -0.0 into 0.0, which are equal probabilities.
+        return Double.toString(value + 0.0);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Digests {@code value} prefixed by its length in bytes, which is
+     * {@link #NULL_LENGTH} for null. Thus, null and the empty string yield
+     * different digests, and so do sequences which differ only in where
+     * one value ends and the next one begins.
+     */
+    static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            updateLength(digest, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateLength(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateLength(MessageDigest digest, int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String indexOf(State state) {
+        return (state == null) ? null : Integer.toString(state.getIndex());
+    }
+}
@@ -1,103 +1,133 @@
 package jadd;
 
+import java.lang.ref.Cleaner;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators.AbstractSpliterator;
-import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-import org.bridj.Pointer;
-
+import jadd.ADDBackend.Operator;
 import tool.UnknownFeatureException;
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
-import bigcudd.BigcuddLibrary.DdGen;
-import bigcudd.BigcuddLibrary.DdManager;
-import bigcudd.DdNode;
 
 /**
  * ADD - constant, variable or function alike.
+ *
+ * Backends are not thread-safe, so every call into one is serialized by the
+ * backend itself, which all ADDs of a {@link JADD} share. Thus, ADDs may be
+ * operated on from many threads, although not in parallel.
+ *
+ * Each ADD holds a reference to its backend node, which is released when the
+ * ADD is closed or, failing that, once it becomes unreachable. Intermediate
+ * results should be closed as soon as they are no longer needed, so that
+ * the backend may reclaim their nodes upon garbage collection. Closing an ADD
+ * does not affect other ADDs, even if they share the same node.
  * @author thiago
  *
  */
-public class ADD {
+public class ADD implements AutoCloseable {
     private static double FLOATING_POINT_PRECISION = 1E-14;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final ADDExpression ITE_TIMES = ADDExpression.iteTimes();
 
-    private Pointer<DdNode> function;
-    private Pointer<DdManager> dd;
+    private long function;
+    private ADDBackend backend;
     private VariableStore variableStore;
 
-    ADD(Pointer<DdManager> dd, Pointer<DdNode> function, VariableStore variableStore) {
-        this.dd = dd;
+    private Reference reference;
+    private Cleaner.Cleanable cleanable;
+
+    ADD(ADDBackend backend, long function, VariableStore variableStore) {
+        this.backend = backend;
         this.function = function;
         this.variableStore = variableStore;
-        BigcuddLibrary.Cudd_Ref(this.function);
+        synchronized (backend) {
+            backend.ref(function);
+        }
+        // The reference must not point back to this ADD, otherwise it would never
+        // become unreachable.
+        this.reference = new Reference(backend, function);
+        this.cleanable = CLEANER.register(this, reference);
     }
 
     /**
-     * Overriding finalize in order to free CUDD allocated memory.
+     * Releases the underlying node. Subsequent operations on this
+     * ADD throw an {@link IllegalStateException}. Closing an already
+     * closed ADD has no effect.
      */
     @Override
-    protected void finalize() throws Throwable {
-//        BigcuddLibrary.Cudd_Deref(function);
-        super.finalize();
+    public void close() {
+        cleanable.clean();
+    }
+
+    /**
+     * @return the underlying node, if not yet released.
+     */
+    private long node() {
+        if (reference.released) {
+            throw new IllegalStateException("ADD has already been closed");
+        }
+        return function;
     }
 
     public ADD plus(ADD other) {
-        return apply(other, PLUS);
+        return apply(other, Operator.PLUS);
     }
 
     public ADD minus(ADD other) {
-        return apply(other, MINUS);
+        return apply(other, Operator.MINUS);
     }
 
     public ADD times(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operator.TIMES);
     }
 
     public ADD dividedBy(ADD other) {
-        return apply(other, DIVIDE);
+        return apply(other, Operator.DIVIDE);
     }
 
     public ADD and(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operator.TIMES);
     }
 
     public ADD or(ADD other) {
-        return apply(other, LOGICAL_OR);
+        return apply(other, Operator.OR);
     }
 
-    private ADD apply(ADD other, Cudd_addApply_arg1_callback operation) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addApply(dd,
-                                                              Pointer.getPointer(operation),
-                                                              this.function,
-                                                              other.function);
-        return new ADD(dd, result, variableStore);
+    private ADD apply(ADD other, Operator operator) {
+        synchronized (backend) {
+            long result = backend.apply(operator, this.node(), other.node());
+            return new ADD(backend, result, variableStore);
+        }
     }
 
     /**
      * @return negated form (corresponding to unary minus).
      */
     public ADD negate() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addNegate(dd, this.function),
-                       variableStore);
+        synchronized (backend) {
+            return new ADD(backend,
+                           backend.negate(this.node()),
+                           variableStore);
+        }
     }
 
     /**
      * @return complemented form (corresponding to logical not).
      */
     public ADD complement() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addCmpl(dd, this.function),
-                       variableStore);
+        synchronized (backend) {
+            return new ADD(backend,
+                           backend.complement(this.node()),
+                           variableStore);
+        }
     }
 
     /**
@@ -105,23 +135,28 @@ public class ADD {
      * as the conditional.
      */
     public ADD ifThenElse(ADD ifTrue, ADD ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            ifFalse.function);
-        return new ADD(dd, result, variableStore);
+        synchronized (backend) {
+            long result = backend.ite(this.node(),
+                                      ifTrue.node(),
+                                      ifFalse.node());
+            return new ADD(backend, result, variableStore);
+        }
     }
 
     /**
      * Overloading for constant fallbacks.
      */
     public ADD ifThenElse(ADD ifTrue, double ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            BigcuddLibrary.Cudd_addConst(dd,
-                                                                                         ifFalse));
-        return new ADD(dd, result, variableStore);
+        // The constant must be referenced while the operation takes place.
+        try (ADD fallback = constant(ifFalse)) {
+            return ifThenElse(ifTrue, fallback);
+        }
+    }
+
+    private ADD constant(double value) {
+        synchronized (backend) {
+            return new ADD(backend, backend.constant(value), variableStore);
+        }
     }
 
     /**
@@ -131,14 +166,57 @@ public class ADD {
         return condition.ifThenElse(ifTrue, ifFalse);
     }
 
+    /**
+     * Implements {@code ite(condition, ifTrue, ifFalse) * factor} as a
+     * single operation.
+     */
+    public static ADD iteTimes(ADD condition, ADD ifTrue, ADD ifFalse, ADD factor) {
+        return apply(ITE_TIMES, condition, ifTrue, ifFalse, factor);
+    }
+
+    /**
+     * Multiplies all factors (from left to right) as a single operation.
+     */
+    public static ADD multiplyAll(List<ADD> factors) {
+        if (factors.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one factor");
+        }
+        return apply(ADDExpression.product(factors.size()), factors.toArray(new ADD[factors.size()]));
+    }
+
+    /**
+     * Evaluates a whole expression over the given ADDs in a single call
+     * into the backend, instead of one call (and one ADD) for each
+     * intermediate result. The pure-Java backend goes further and
+     * traverses all operands at once, so intermediate nodes are not even
+     * created.
+     *
+     * @param operands ADDs of the same manager, as indexed in the expression.
+     */
+    public static ADD apply(ADDExpression expression, ADD... operands) {
+        if (operands.length < expression.getNumberOfOperands()) {
+            throw new IllegalArgumentException("Expected " + expression.getNumberOfOperands()
+                    + " operands, but got " + operands.length);
+        }
+        ADDBackend backend = operands[0].backend;
+        synchronized (backend) {
+            long[] nodes = new long[operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                nodes[i] = operands[i].node();
+            }
+            return new ADD(backend, backend.evaluate(expression, nodes), operands[0].variableStore);
+        }
+    }
+
     public Set<String> getVariables() {
         Set<String> variables = new HashSet<String>();
 
-        Pointer<Integer> variablesPtr = BigcuddLibrary.Cudd_SupportIndex(dd, this.function);
-        int numVars = BigcuddLibrary.Cudd_ReadSize(dd);
-        int[] variablesPresence = variablesPtr.getInts(numVars);
-        for (short i = 0; i < numVars; i++) {
-            if (variablesPresence[i] == 1) {
+        boolean[] support;
+        synchronized (backend) {
+            support = backend.support(this.node());
+        }
+        for (short i = 0; i < support.length; i++) {
+            if (support[i]) {
                 variables.add(variableStore.getName(i));
             }
         }
@@ -147,27 +225,80 @@ public class ADD {
 
     public List<String> getVariableOrder() {
         List<String> variables = new ArrayList<String>();
-        for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
-            int varIndex = BigcuddLibrary.Cudd_ReadInvPerm(dd, pos);
-            String varName = variableStore.getName((short)varIndex);
-            variables.add(varName);
+        synchronized (backend) {
+            for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
+                int varIndex = backend.getVariableAtLevel(pos);
+                String varName = variableStore.getName((short)varIndex);
+                variables.add(varName);
+            }
         }
         return variables;
     }
 
     public double eval(String[] variables) throws UnrecognizedVariableException {
         int[] presenceVector = variableStore.toPresenceVector(variables);
-        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
-                                                            function,
-                                                            Pointer.pointerToInts(presenceVector));
-        DdNode terminalNode = terminal.get();
-        return terminalNode.type().value();
+        return eval(presenceVector);
     }
 
     public double eval(List<String> variables) throws UnrecognizedVariableException {
         return eval(variables.toArray(new String[variables.size()]));
     }
 
+    /**
+     * Evaluates this ADD for an already encoded configuration, sparing
+     * the lookup of each feature by name (unless the configuration was
+     * encoded by another ADD manager).
+     */
+    public double eval(Configuration configuration) throws UnrecognizedVariableException {
+        if (!configuration.getDictionary().isTakenFrom(variableStore)) {
+            return eval(configuration.toArray(new String[configuration.size()]));
+        }
+        int[] presenceVector = configuration.toPresenceVector(variableStore.getNumberOfVariables());
+        return eval(presenceVector);
+    }
+
+    private double eval(int[] presenceVector) {
+        synchronized (backend) {
+            return backend.eval(node(), presenceVector);
+        }
+    }
+
+    /**
+     * Compiles this (0,1-)ADD into a predicate which tells the configurations
+     * for which it evaluates to 1 without resorting to the backend.
+     */
+    public ConfigurationPredicate toPredicate() {
+        synchronized (backend) {
+            return ConfigurationPredicate.compile(backend, node(), variableStore);
+        }
+    }
+
+    /**
+     * @return the distribution of this ADD's values over configurations,
+     *      all of them being equally likely.
+     */
+    public ValueDistribution getDistribution() {
+        try {
+            return getDistribution(Collections.<String, Double>emptyMap());
+        } catch (UnrecognizedVariableException e) {
+            // Unreachable, since no feature is given.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param selectionProbabilities Probability of each feature (by name)
+     *      being selected. Features not mapped are selected with probability 1/2.
+     * @return the distribution of this ADD's values over configurations,
+     *      whose features are selected independently of each other.
+     * @throws UnrecognizedVariableException if a feature is unknown to the manager.
+     */
+    public ValueDistribution getDistribution(Map<String, Double> selectionProbabilities) throws UnrecognizedVariableException {
+        synchronized (backend) {
+            return ValueDistribution.compute(backend, node(), variableStore, selectionProbabilities);
+        }
+    }
+
     /**
      * Checks if a configuration is valid (non-zero).
      * @param configuration
@@ -177,7 +308,11 @@ public class ADD {
     public boolean isValidConfiguration(Collection<String> configuration) throws UnknownFeatureException {
         double validity;
         try {
-            validity = eval(configuration.toArray(new String[configuration.size()]));
+            if (configuration instanceof Configuration) {
+                validity = eval((Configuration) configuration);
+            } else {
+                validity = eval(configuration.toArray(new String[configuration.size()]));
+            }
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
         }
@@ -190,10 +325,36 @@ public class ADD {
      *
      * For instance, the configuration ["A", "(B)", "C"] would be returned as
      * two different configurations: ["A", "B", "C"] and ["A", "C"].
+     *
+     * Configurations are streamed lazily, as {@link Configuration}s, by an
+     * exactly sized and splittable stream (see {@link ConfigurationPredicate#getSatisfyingConfigurations()}).
+     * They are taken from a snapshot of this ADD, so the stream is not affected
+     * by later operations on the manager (e.g., reordering).
      * @return
      */
     public Stream<Collection<String>> getExpandedConfigurations() {
-        return StreamSupport.stream(new CubeSpliterator(), true);
+        ConfigurationPredicate nonZero;
+        synchronized (backend) {
+            nonZero = ConfigurationPredicate.compile(backend, node(), variableStore, value -> value != 0);
+        }
+        return nonZero.getSatisfyingConfigurations();
+    }
+
+    /**
+     * Returns a stream of the configurations for which this ADD yields a
+     * value accepted by {@code accepts}, in increasing order of value (and
+     * in no particular order among configurations with the same value).
+     *
+     * Configurations are found by a best-first search over the paths of a
+     * snapshot of this ADD, so taking the first few of them does not take
+     * enumerating the others.
+     */
+    public Stream<Collection<String>> getConfigurationsByValue(DoublePredicate accepts) {
+        ValueOrderedSpliterator spliterator;
+        synchronized (backend) {
+            spliterator = ValueOrderedSpliterator.compile(backend, node(), variableStore, accepts);
+        }
+        return StreamSupport.stream(spliterator, false);
     }
 
     /**
@@ -201,7 +362,9 @@ public class ADD {
     * @return
     */
     public int getNodeCount() {
-        return BigcuddLibrary.Cudd_DagSize(function);
+        synchronized (backend) {
+            return backend.dagSize(node());
+        }
     }
 
     /**
@@ -209,7 +372,9 @@ public class ADD {
      * @return
      */
     public boolean isConstant() {
-        return 1 != BigcuddLibrary.Cudd_IsNonConstant(function);
+        synchronized (backend) {
+            return backend.isConstant(node());
+        }
     }
 
     static Collection<List<String>> expandDontCares(List<String> config) {
@@ -265,158 +430,93 @@ public class ADD {
             return false;
         }
         ADD other = (ADD) obj;
-        return this.function.equals(other.function)
-                || (BigcuddLibrary.Cudd_EqualSupNorm(dd,
-                                                     this.function,
-                                                     other.function,
-                                                     ADD.FLOATING_POINT_PRECISION,
-                                                     1) == 1);
+        if (this.function == other.function) {
+            return true;
+        }
+        synchronized (backend) {
+            return backend.equalSupNorm(this.node(),
+                                        other.node(),
+                                        ADD.FLOATING_POINT_PRECISION);
+        }
     }
 
     public int getDeadNodesCount() {
-    	return BigcuddLibrary.Cudd_ReadDead(dd);
+    	synchronized (backend) {
+    		return backend.getDeadNodesCount();
+    	}
     }
 
     public int getTerminalsDifferentThanZeroCount() {
-    	return BigcuddLibrary.Cudd_CountLeaves(function) - 1;
+    	synchronized (backend) {
+    		return backend.countLeaves(node()) - 1;
+    	}
     }
 
     public double getPathsToNonZeroTerminalsCount() {
-    	return BigcuddLibrary.Cudd_CountPathsToNonZero(function);
+    	synchronized (backend) {
+    		return backend.countPathsToNonZero(node());
+    	}
     }
 
     public double getPathsToZeroTerminalCount() {
-    	return BigcuddLibrary.Cudd_CountPath(function) - getPathsToNonZeroTerminalsCount();
+    	synchronized (backend) {
+    		return backend.countPaths(node()) - getPathsToNonZeroTerminalsCount();
+    	}
     }
 
     public int getReorderingsCount() {
-    	return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    	synchronized (backend) {
+    		return backend.getReorderingsCount();
+    	}
     }
 
     public int getGarbageCollectionsCount() {
-    	return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    	synchronized (backend) {
+    		return backend.getGarbageCollectionsCount();
+    	}
+    }
+
+    public long getReorderingTime() {
+    	synchronized (backend) {
+    		return backend.getReorderingTime();
+    	}
     }
 
     public long getAddSizeInBytes() {
-    	return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    	synchronized (backend) {
+    		return backend.getMemoryInUse();
+    	}
     }
 
     @Override
     public int hashCode() {
-        return this.function.hashCode();
+        return Long.hashCode(this.function);
     }
 
-    Pointer<DdNode> getUnderlyingNode() {
-        return this.function;
+    long getUnderlyingNode() {
+        return node();
     }
 
-    /**************************************************************
-     *** Operators definitions
-     *************************************************************/
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
-        }
-    };
-
-    private class CubeSpliterator extends AbstractSpliterator<Collection<String>> {
-
-        private Pointer<Pointer<Integer>> cubePtr;
-        private Pointer<Double> valuePtr;
-        private Pointer<DdGen> generator;
-        private int numVars;
-        private Iterator<List<String>> expandedIterator;
-
-        protected CubeSpliterator() {
-            super((long) BigcuddLibrary.Cudd_CountPathsToNonZero(function),
-                  Spliterator.SIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED);
-
-            Pointer<Integer> dummy = Pointer.allocateInt();
-            // A pointer to a freshly allocated pointer to int.
-            // As Cudd_FirstCube and Cudd_NextCube allocate the returned cubes,
-            // allocating a whole int[] here makes no sense. Thus, we allocate
-            // only the position where the address to the generated cubes are
-            // to be stored.
-            cubePtr = Pointer.pointerToPointer(dummy);
-            // A pointer to a freshly allocated double.
-            valuePtr = Pointer.pointerToDouble(0);
-
-            // So let's start the iteration!
-            generator = BigcuddLibrary.Cudd_FirstCube(dd,
-                                                      function,
-                                                      cubePtr,
-                                                      valuePtr);
-            numVars = BigcuddLibrary.Cudd_ReadSize(dd);
-
+    /**
+     * Action which releases a backend node on behalf of an ADD.
+     */
+    private static class Reference implements Runnable {
+        private final ADDBackend backend;
+        private final long function;
+        private volatile boolean released;
+
+        Reference(ADDBackend backend, long function) {
+            this.backend = backend;
+            this.function = function;
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super Collection<String>> action) {
-            if (expandedIterator == null || !expandedIterator.hasNext()) {
-                if (BigcuddLibrary.Cudd_IsGenEmpty(generator) == 0) {
-                    Pointer<Integer> cube = cubePtr.getPointer(Integer.class);
-                    int[] presenceVector = cube.getInts(numVars);
-                    List<String> configuration = variableStore.fromPresenceVector(presenceVector);
-
-                    Collection<List<String>> expanded = expandDontCares(configuration);
-                    expandedIterator = expanded.iterator();
-
-                    BigcuddLibrary.Cudd_NextCube(generator,
-                            cubePtr,
-                            valuePtr);
-                } else {
-                    if (generator != null) {
-                        BigcuddLibrary.Cudd_GenFree(generator);
-                        generator = null;
-                    }
-                    return false;
-                }
+        public void run() {
+            synchronized (backend) {
+                released = true;
+                backend.deref(function);
             }
-
-            action.accept(expandedIterator.next());
-            return true;
         }
-
     }
 
 }
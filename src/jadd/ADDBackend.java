@@ -0,0 +1,180 @@
+package jadd;
+
+/**
+ * Engine which stores and operates on the decision diagrams of a
+ * {@link JADD} manager.
+ *
+ * Nodes are identified by opaque {@code long} handles, which stay valid
+ * (i.e., denote the same function) for as long as the node is referenced,
+ * even across garbage collections and reorderings. Handles of unreferenced
+ * nodes must not be used after any other operation, since their nodes
+ * may be reclaimed meanwhile.
+ *
+ * Implementations need not be thread-safe: {@link JADD} and {@link ADD}
+ * serialize all calls into a backend by synchronizing on it.
+ *
+ * @see ADDBackendType
+ */
+public interface ADDBackend {
+
+    /**
+     * Pointwise binary operations, as in {@code Cudd_addApply}.
+     */
+    public enum Operator {
+        PLUS,
+        MINUS,
+        TIMES,
+        DIVIDE,
+        /**
+         * Logical or of 0,1-ADDs.
+         */
+        OR
+    }
+
+    /**
+     * @return the (unreferenced) terminal node for the given value.
+     */
+    public long constant(double value);
+
+    /**
+     * Creates a new variable, which is placed at the bottom of the order
+     * and whose index is the number of variables created before it.
+     *
+     * @return the (unreferenced) 0,1-ADD for the new variable.
+     */
+    public long newVariable();
+
+    public long apply(Operator operator, long f, long g);
+
+    /**
+     * @return the additive inverse of {@code f}.
+     */
+    public long negate(long f);
+
+    /**
+     * @return the logical complement of {@code f}, i.e., 1 where {@code f}
+     *      is 0 and 0 everywhere else.
+     */
+    public long complement(long f);
+
+    /**
+     * @return {@code g} where {@code f} is not 0, {@code h} otherwise.
+     */
+    public long ite(long f, long g, long h);
+
+    /**
+     * Evaluates a whole expression over the given operands (by index)
+     * in a single call, without referencing intermediate results on
+     * behalf of the caller.
+     *
+     * @return the (unreferenced) result.
+     */
+    public long evaluate(ADDExpression expression, long[] operands);
+
+    /**
+     * Protects a node (and the nodes it depends on) from garbage collection.
+     */
+    public void ref(long node);
+
+    /**
+     * Releases a reference taken by {@link #ref(long)}.
+     */
+    public void deref(long node);
+
+    public boolean isConstant(long node);
+
+    /**
+     * @return the value of a terminal node.
+     */
+    public double value(long node);
+
+    /**
+     * @return the index of the variable of an internal node.
+     */
+    public int variableIndex(long node);
+
+    public long thenChild(long node);
+
+    public long elseChild(long node);
+
+    /**
+     * @param presenceVector 1 for selected variables and 0 for the others,
+     *      by variable index.
+     * @return the value of {@code f} for the given assignment.
+     */
+    public double eval(long f, int[] presenceVector);
+
+    /**
+     * @return whether each variable (by index) is in the support of {@code f}.
+     */
+    public boolean[] support(long f);
+
+    /**
+     * @return the number of nodes (including terminals) of {@code f}.
+     */
+    public int dagSize(long f);
+
+    /**
+     * @return the number of distinct terminals of {@code f}.
+     */
+    public int countLeaves(long f);
+
+    public double countPaths(long f);
+
+    public double countPathsToNonZero(long f);
+
+    /**
+     * @return whether {@code f} and {@code g} differ by at most
+     *      {@code tolerance} for every assignment.
+     */
+    public boolean equalSupNorm(long f, long g, double tolerance);
+
+    public int getNumberOfVariables();
+
+    /**
+     * @return the index of the variable at the given level (0 is the top).
+     */
+    public int getVariableAtLevel(int level);
+
+    /**
+     * Reorders variables so that the variable with index
+     * {@code permutation[i]} goes to level {@code i}.
+     */
+    public void shuffle(int[] permutation);
+
+    /**
+     * Sets how (and whether) variables are reordered dynamically.
+     */
+    public void setReorderingPolicy(ReorderingPolicy policy);
+
+    /**
+     * Reorders variables once, according to the given policy's heuristic
+     * and within its time limit.
+     */
+    public void reorder(ReorderingPolicy policy);
+
+    public int getReorderingsCount();
+
+    /**
+     * @return the time spent reordering variables so far, in milliseconds.
+     */
+    public long getReorderingTime();
+
+    public int getGarbageCollectionsCount();
+
+    /**
+     * @return the number of nodes which are no longer referenced, but
+     *      have not been reclaimed yet.
+     */
+    public int getDeadNodesCount();
+
+    public long getMemoryInUse();
+
+    /**
+     * Writes the given functions to a file in Graphviz's DOT format.
+     *
+     * @param variableNames Names of the variables, by index.
+     */
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName);
+
+}
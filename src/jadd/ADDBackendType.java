@@ -0,0 +1,44 @@
+package jadd;
+
+/**
+ * Available implementations of {@link ADDBackend}.
+ *
+ * The backend of managers created by {@link JADD#JADD()} is given by the
+ * {@code jadd.backend} system property (e.g., {@code -Djadd.backend=JAVA}),
+ * and defaults to CUDD.
+ */
+public enum ADDBackendType {
+    /**
+     * CUDD, through its native binding.
+     */
+    CUDD,
+    /**
+     * Pure-Java engine, which needs no native library.
+     */
+    JAVA;
+
+    public static final String SYSTEM_PROPERTY = "jadd.backend";
+
+    public ADDBackend create() {
+        switch (this) {
+        case JAVA:
+            return new JavaADDBackend();
+        case CUDD:
+        default:
+            return new CuddADDBackend();
+        }
+    }
+
+    /**
+     * @return the backend type given by the {@code jadd.backend} system
+     *      property, or CUDD if it is not set.
+     */
+    public static ADDBackendType getDefault() {
+        String name = System.getProperty(SYSTEM_PROPERTY);
+        if (name == null || name.trim().isEmpty()) {
+            return CUDD;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+
+}
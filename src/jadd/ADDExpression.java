@@ -0,0 +1,182 @@
+package jadd;
+
+import java.util.Arrays;
+
+import jadd.ADDBackend.Operator;
+
+/**
+ * Pointwise arithmetic over ADD operands, compiled into a flat postfix
+ * program, so that a backend may evaluate it as a whole (see
+ * {@link ADD#apply(ADDExpression, ADD...)}) instead of one operation at a
+ * time, with an ADD handle for each intermediate result.
+ *
+ * The result is the same as that of the corresponding sequence of ADD
+ * operations, including their special cases (e.g., a product by 0 is 0,
+ * even if the other factor is infinite). An ADDExpression is immutable,
+ * so it may be shared among threads and managers.
+ */
+public final class ADDExpression {
+    static final int PUSH_OPERAND = 0;
+    // Binary operations are coded after PUSH_OPERAND by Operator ordinal.
+    private static final Operator[] OPERATORS = Operator.values();
+    static final int NEGATE = OPERATORS.length + 1;
+    static final int COMPLEMENT = NEGATE + 1;
+    static final int ITE = NEGATE + 2;
+    static final int POWER = NEGATE + 3;
+
+    private static final int OPCODE_BITS = 4;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    /**
+     * Each instruction holds an opcode in its lower bits and, for pushes,
+     * the index of the operand (or, for powers, the exponent) in its upper bits.
+     */
+    private final int[] program;
+    private final int numberOfOperands;
+    private final int maxStackDepth;
+
+    private ADDExpression(int[] program, int numberOfOperands, int maxStackDepth) {
+        this.program = program;
+        this.numberOfOperands = numberOfOperands;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    /**
+     * @return the product of {@code count} operands, multiplied from left
+     *      to right.
+     */
+    public static ADDExpression product(int count) {
+        Builder builder = new Builder().operand(0);
+        for (int i = 1; i < count; i++) {
+            builder.operand(i).apply(Operator.TIMES);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the expression for {@code ite(operand 0, operand 1, operand 2) * operand 3}.
+     */
+    public static ADDExpression iteTimes() {
+        return new Builder()
+                .operand(0).operand(1).operand(2).ite()
+                .operand(3).apply(Operator.TIMES)
+                .build();
+    }
+
+    /**
+     * @return the number of operands, i.e., one plus the largest operand
+     *      index in the expression.
+     */
+    public int getNumberOfOperands() {
+        return numberOfOperands;
+    }
+
+    /**
+     * @return how many values are on the stack at most, while evaluating.
+     */
+    int maxStackDepth() {
+        return maxStackDepth;
+    }
+
+    int length() {
+        return program.length;
+    }
+
+    int opcodeAt(int instruction) {
+        return program[instruction] & OPCODE_MASK;
+    }
+
+    /**
+     * @return the operand index of a push or the exponent of a power.
+     */
+    int argumentAt(int instruction) {
+        return program[instruction] >>> OPCODE_BITS;
+    }
+
+    static Operator operatorOf(int opcode) {
+        return OPERATORS[opcode - 1];
+    }
+
+    /**
+     * Accumulates the program of an expression, in postfix order.
+     */
+    public static final class Builder {
+        private int[] program = new int[16];
+        private int programLength = 0;
+        private int numberOfOperands = 0;
+        private int stackDepth = 0;
+        private int maxStackDepth = 0;
+
+        /**
+         * Pushes the operand with the given index.
+         */
+        public Builder operand(int index) {
+            if (index < 0 || index > (Integer.MAX_VALUE >>> OPCODE_BITS)) {
+                throw new IllegalArgumentException("Invalid operand index: " + index);
+            }
+            append(PUSH_OPERAND | (index << OPCODE_BITS), 0, 1);
+            numberOfOperands = Math.max(numberOfOperands, index + 1);
+            return this;
+        }
+
+        public Builder apply(Operator operator) {
+            append(operator.ordinal() + 1, 2, 1);
+            return this;
+        }
+
+        public Builder negate() {
+            append(NEGATE, 1, 1);
+            return this;
+        }
+
+        public Builder complement() {
+            append(COMPLEMENT, 1, 1);
+            return this;
+        }
+
+        /**
+         * Pops a condition, then the values for when it holds and for when
+         * it does not (in the order they were pushed), as in {@link ADD#ite(ADD, ADD, ADD)}.
+         */
+        public Builder ite() {
+            append(ITE, 3, 1);
+            return this;
+        }
+
+        /**
+         * Raises the top of the stack to a (positive) integer power, by
+         * successive multiplications.
+         */
+        public Builder power(int exponent) {
+            if (exponent < 1 || exponent > (Integer.MAX_VALUE >>> OPCODE_BITS)) {
+                throw new IllegalArgumentException("Invalid exponent: " + exponent);
+            }
+            append(POWER | (exponent << OPCODE_BITS), 1, 1);
+            return this;
+        }
+
+        private void append(int instruction, int popped, int pushed) {
+            if (stackDepth < popped) {
+                throw new IllegalStateException("Not enough operands on the stack");
+            }
+            if (programLength == program.length) {
+                program = Arrays.copyOf(program, 2 * programLength);
+            }
+            program[programLength++] = instruction;
+            stackDepth += pushed - popped;
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+        }
+
+        /**
+         * @throws IllegalStateException unless the program leaves exactly
+         *      one value on the stack.
+         */
+        public ADDExpression build() {
+            if (stackDepth != 1) {
+                throw new IllegalStateException("Expression must yield exactly one value, but yields " + stackDepth);
+            }
+            return new ADDExpression(Arrays.copyOf(program, programLength), numberOfOperands, maxStackDepth);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package jadd;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Textual format of a single decision diagram, by which it may outlive
+ * the manager it was built with.
+ *
+ * Nodes are listed children first, one per line, and refer to each other
+ * by their position in the list: a terminal is written as {@code T <value>}
+ * and an internal node as {@code N <variable> <then> <else>}. The last node
+ * is the root. Variables are named, so a diagram may be read by a manager
+ * whose variables were created (or are ordered) differently.
+ */
+final class ADDFormat {
+    private static final String TERMINAL = "T";
+    private static final String INTERNAL = "N";
+
+    private ADDFormat() {
+        // NO-OP
+    }
+
+    static void write(ADDBackend backend, long function, VariableStore variableStore, Writer out) throws IOException {
+        Map<Long, Integer> ids = new HashMap<Long, Integer>();
+        long[] nodes = ValueDistribution.postOrder(backend, function, ids);
+        StringBuilder line = new StringBuilder();
+        for (long node : nodes) {
+            line.setLength(0);
+            if (backend.isConstant(node)) {
+                line.append(TERMINAL).append(' ').append(backend.value(node));
+            } else {
+                line.append(INTERNAL).append(' ')
+                    .append(variableStore.getName((short) backend.variableIndex(node))).append(' ')
+                    .append(ids.get(backend.thenChild(node))).append(' ')
+                    .append(ids.get(backend.elseChild(node)));
+            }
+            out.write(line.append('\n').toString());
+        }
+    }
+
+    /**
+     * Rebuilds a diagram written by {@link #write}.
+     *
+     * @param variables Maps a variable name to its (0,1-ADD) node, which
+     *      must stay referenced by the manager itself.
+     * @return the root of the diagram, referenced on behalf of the caller.
+     * @throws IOException if the input is not a well-formed diagram.
+     */
+    static long read(ADDBackend backend, ToLongFunction<String> variables, BufferedReader in) throws IOException {
+        List<Long> nodes = new ArrayList<Long>();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(" ");
+                long node;
+                try {
+                    if (TERMINAL.equals(fields[0]) && fields.length == 2) {
+                        node = backend.constant(Double.parseDouble(fields[1]));
+                    } else if (INTERNAL.equals(fields[0]) && fields.length == 4) {
+                        long variable = variables.applyAsLong(fields[1]);
+                        node = backend.ite(variable,
+                                           nodes.get(Integer.parseInt(fields[2])),
+                                           nodes.get(Integer.parseInt(fields[3])));
+                    } else {
+                        throw new IOException("Malformed decision diagram node: " + line);
+                    }
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    throw new IOException("Malformed decision diagram node: " + line, e);
+                }
+                backend.ref(node);
+                nodes.add(node);
+            }
+            if (nodes.isEmpty()) {
+                throw new IOException("Empty decision diagram");
+            }
+            long root = nodes.get(nodes.size() - 1);
+            // Outlives the release of the intermediate nodes below.
+            backend.ref(root);
+            return root;
+        } finally {
+            for (long node : nodes) {
+                backend.deref(node);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package jadd;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of selected features, encoded as a bitset over the indices of a
+ * {@link FeatureDictionary}.
+ *
+ * A Configuration is immutable. It honors the {@link java.util.Set} contract
+ * (so it may be compared to or looked up among other sets of feature names),
+ * but comparing two Configurations is a matter of comparing a few words, and
+ * its hash code is computed only once.
+ */
+public final class Configuration extends AbstractSet<String> {
+    static final int ADDRESS_BITS = 6;
+
+    private final FeatureDictionary dictionary;
+    private final long[] words;
+    private final int size;
+    private final int hash;
+
+    Configuration(FeatureDictionary dictionary, long[] words) {
+        this.dictionary = dictionary;
+        this.words = words;
+        int size = 0;
+        int hash = 0;
+        for (int index = nextSetBit(0); index >= 0; index = nextSetBit(index + 1)) {
+            size++;
+            hash += dictionary.getName(index).hashCode();
+        }
+        this.size = size;
+        this.hash = hash;
+    }
+
+    static int wordsFor(int numberOfFeatures) {
+        return (numberOfFeatures + 63) >>> ADDRESS_BITS;
+    }
+
+    public FeatureDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return whether the feature with the given index is selected.
+     */
+    public boolean isSelected(int index) {
+        int word = index >>> ADDRESS_BITS;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns a 0-1 int[] suitable for CUDD functions, as
+     * {@link VariableStore#toPresenceVector(String[])} does.
+     *
+     * @param numberOfVariables Length of the vector.
+     */
+    int[] toPresenceVector(int numberOfVariables) {
+        int[] presenceVector = new int[numberOfVariables];
+        for (int index = nextSetBit(0); index >= 0 && index < numberOfVariables; index = nextSetBit(index + 1)) {
+            presenceVector[index] = 1;
+        }
+        return presenceVector;
+    }
+
+    private int nextSetBit(int from) {
+        int word = from >>> ADDRESS_BITS;
+        if (word >= words.length) {
+            return -1;
+        }
+        long remaining = words[word] & (-1L << from);
+        while (remaining == 0) {
+            if (++word == words.length) {
+                return -1;
+            }
+            remaining = words[word];
+        }
+        return (word << ADDRESS_BITS) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    @Override
+    public boolean contains(Object feature) {
+        if (!(feature instanceof String)) {
+            return false;
+        }
+        int index = dictionary.indexOf((String) feature);
+        return index >= 0 && isSelected(index);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                String feature = dictionary.getName(next);
+                next = nextSetBit(next + 1);
+                return feature;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof Configuration) {
+            Configuration other = (Configuration) obj;
+            if (dictionary.isCompatibleWith(other.dictionary)) {
+                return hash == other.hash && sameWords(words, other.words);
+            }
+        }
+        return super.equals(obj);
+    }
+
+    /**
+     * Compares two bitsets, regardless of trailing zeroed words.
+     */
+    private static boolean sameWords(long[] some, long[] others) {
+        if (some.length > others.length) {
+            return sameWords(others, some);
+        }
+        for (int i = some.length; i < others.length; i++) {
+            if (others[i] != 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < some.length; i++) {
+            if (some[i] != others[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,439 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Boolean function over configurations, compiled from the decision diagram
+ * of an ADD into plain arrays. A configuration satisfies the predicate if the
+ * ADD evaluates to 1 for it (or to any value accepted by the criterion the
+ * predicate was compiled with).
+ *
+ * Testing a configuration amounts to following a single path in the diagram,
+ * without any call to the ADD backend. A predicate is immutable, so it may be shared
+ * among threads, and it stays valid regardless of what happens to the ADD
+ * it was compiled from (e.g., reordering or garbage collection).
+ */
+public final class ConfigurationPredicate {
+    private static final int TRUE = -1;
+    private static final int FALSE = -2;
+
+    // Branches of a node in a path being traversed.
+    private static final byte ELSE_BRANCH = 0;
+    private static final byte THEN_BRANCH = 1;
+    private static final byte NO_BRANCH = 2;
+    // The else branch was taken, but the then branch was handed over to
+    // another traversal.
+    private static final byte ELSE_BRANCH_ONLY = 3;
+
+    private final VariableStore variableStore;
+    private final int root;
+    // Internal nodes, by id. Children are either other nodes' ids or
+    // one of the TRUE and FALSE terminals.
+    private final int[] variables;
+    private final int[] thenChildren;
+    private final int[] elseChildren;
+
+    private ConfigurationPredicate(VariableStore variableStore, int root, int[] variables, int[] thenChildren, int[] elseChildren) {
+        this.variableStore = variableStore;
+        this.root = root;
+        this.variables = variables;
+        this.thenChildren = thenChildren;
+        this.elseChildren = elseChildren;
+    }
+
+    /**
+     * Compiles the decision diagram rooted at {@code function}, which is
+     * traversed iteratively. Terminals equal to 1 are the accepting ones.
+     */
+    static ConfigurationPredicate compile(ADDBackend backend, long function, VariableStore variableStore) {
+        return compile(backend, function, variableStore, value -> Double.compare(value, 1.0) == 0);
+    }
+
+    /**
+     * Compiles the decision diagram rooted at {@code function}, whose
+     * terminals are deemed accepting according to {@code accepts}.
+     */
+    static ConfigurationPredicate compile(ADDBackend backend, long function, VariableStore variableStore, DoublePredicate accepts) {
+        if (backend.isConstant(function)) {
+            return new ConfigurationPredicate(variableStore, terminalOf(backend, function, accepts), new int[0], new int[0], new int[0]);
+        }
+        Map<Long, Integer> ids = new HashMap<Long, Integer>();
+        Deque<Long> pending = new ArrayDeque<Long>();
+        int[] variables = new int[16];
+        int[] thenChildren = new int[16];
+        int[] elseChildren = new int[16];
+
+        ids.put(function, 0);
+        pending.add(function);
+        while (!pending.isEmpty()) {
+            long node = pending.poll();
+            int id = ids.get(node);
+            if (id >= variables.length) {
+                variables = Arrays.copyOf(variables, 2 * variables.length);
+                thenChildren = Arrays.copyOf(thenChildren, 2 * thenChildren.length);
+                elseChildren = Arrays.copyOf(elseChildren, 2 * elseChildren.length);
+            }
+            variables[id] = backend.variableIndex(node);
+            thenChildren[id] = idOf(backend, backend.thenChild(node), ids, pending, accepts);
+            elseChildren[id] = idOf(backend, backend.elseChild(node), ids, pending, accepts);
+        }
+        int size = ids.size();
+        return new ConfigurationPredicate(variableStore,
+                                          0,
+                                          Arrays.copyOf(variables, size),
+                                          Arrays.copyOf(thenChildren, size),
+                                          Arrays.copyOf(elseChildren, size));
+    }
+
+    private static int idOf(ADDBackend backend, long node, Map<Long, Integer> ids, Deque<Long> pending, DoublePredicate accepts) {
+        if (backend.isConstant(node)) {
+            return terminalOf(backend, node, accepts);
+        }
+        Integer id = ids.get(node);
+        if (id == null) {
+            id = ids.size();
+            ids.put(node, id);
+            pending.add(node);
+        }
+        return id;
+    }
+
+    private static int terminalOf(ADDBackend backend, long node, DoublePredicate accepts) {
+        return accepts.test(backend.value(node)) ? TRUE : FALSE;
+    }
+
+    /**
+     * @return the number of internal nodes of the compiled diagram.
+     */
+    public int getNodeCount() {
+        return variables.length;
+    }
+
+    /**
+     * Tests whether a configuration (i.e., the collection of selected
+     * features) satisfies this predicate.
+     *
+     * @throws UnrecognizedVariableException if the configuration refers
+     *      to a feature unknown to the ADD manager.
+     */
+    public boolean test(Collection<String> configuration) throws UnrecognizedVariableException {
+        Configuration encoded;
+        if (configuration instanceof Configuration
+                && ((Configuration) configuration).getDictionary().isTakenFrom(variableStore)) {
+            encoded = (Configuration) configuration;
+        } else {
+            encoded = variableStore.getFeatureDictionary().toConfiguration(configuration);
+        }
+        int node = root;
+        while (node >= 0) {
+            node = encoded.isSelected(variables[node]) ? thenChildren[node] : elseChildren[node];
+        }
+        return node == TRUE;
+    }
+
+    /**
+     * @return the number of configurations which satisfy this predicate,
+     *      over all the features known to the ADD manager at the time of
+     *      the call, or -1 if there are too many features for it to be
+     *      counted exactly (i.e., more than 62).
+     */
+    public long countSatisfyingConfigurations() {
+        int numVars = variableStore.getFeatureDictionary().size();
+        long[] counts = countConfigurations(numVars);
+        return (counts == null) ? -1 : countOf(root, numVars, counts);
+    }
+
+    /**
+     * Counts, for each node, the configurations (over {@code numVars}
+     * features) which satisfy the function rooted at it, as
+     * {@code Cudd_CountMinterm} does.
+     *
+     * @return the counts by node id or {@code null} if they may not fit
+     *      in a long.
+     */
+    private long[] countConfigurations(int numVars) {
+        if (numVars >= Long.SIZE - 1) {
+            return null;
+        }
+        long[] counts = new long[variables.length];
+        Arrays.fill(counts, -1);
+        for (int node = 0; node < variables.length; node++) {
+            countOf(node, numVars, counts);
+        }
+        return counts;
+    }
+
+    private long countOf(int node, int numVars, long[] counts) {
+        if (node == TRUE) {
+            return 1L << numVars;
+        } else if (node == FALSE) {
+            return 0;
+        }
+        if (counts[node] < 0) {
+            // Each branch fixes the node's variable, thus halving the
+            // count of its child. Counts below the root are always even.
+            counts[node] = (countOf(thenChildren[node], numVars, counts) >>> 1)
+                    + (countOf(elseChildren[node], numVars, counts) >>> 1);
+        }
+        return counts[node];
+    }
+
+    /**
+     * Returns a stream of the configurations which satisfy this predicate,
+     * over all the features known to the ADD manager at the time of the call.
+     *
+     * Each path to an accepting terminal is expanded into the configurations
+     * which agree with it, i.e., features not on the path ("don't care"
+     * variables) may be either selected or not. Configurations are generated
+     * lazily, as {@link Configuration}s, so the stream takes constant memory
+     * regardless of how many they are. It is sized exactly (up to 62
+     * features) and may be split among threads, by paths or, within a
+     * path, by ranges of its expansions.
+     */
+    public Stream<Collection<String>> getSatisfyingConfigurations() {
+        return StreamSupport.stream(new PathSpliterator(variableStore.getFeatureDictionary()), true);
+    }
+
+    /**
+     * Depth-first traversal of the paths to accepting terminals.
+     *
+     * Splitting hands over a prefix of the traversal, so that encounter
+     * order is kept: either everything up to the shallowest subtree yet to
+     * be traversed or half of the expansions of the current path.
+     */
+    private class PathSpliterator implements Spliterator<Collection<String>> {
+        private static final int CHARACTERISTICS = Spliterator.IMMUTABLE
+                | Spliterator.NONNULL
+                | Spliterator.ORDERED
+                | Spliterator.DISTINCT;
+
+        private final FeatureDictionary dictionary;
+        private final int numVars;
+        // Configuration counts by node id or null, if they cannot be exact.
+        private final long[] counts;
+        // Configurations yet to be generated, if counts are exact.
+        private long remaining;
+
+        // Current path: node ids and, for each, the next branch to be taken
+        // (ELSE_BRANCH, THEN_BRANCH or NO_BRANCH, if both were taken, or
+        // ELSE_BRANCH_ONLY, if the then branch is not to be taken at all).
+        private final int[] pathNodes;
+        private final byte[] pathBranches;
+        private int depth;
+
+        // Expansion of the current path: the words of its positive literals,
+        // the indices of its "don't care" variables and the range of their
+        // combinations yet to be generated. Combinations are enumerated in
+        // Gray code order, so that each one flips a single variable of the
+        // previous one, whose words are kept.
+        private long[] cubeWords;
+        private int[] dontCares;
+        private long nextCombination;
+        private long endCombination;
+        private long[] words;
+
+        PathSpliterator(FeatureDictionary dictionary) {
+            this.dictionary = dictionary;
+            this.numVars = dictionary.size();
+            this.counts = countConfigurations(numVars);
+            this.remaining = (counts == null) ? Long.MAX_VALUE : countOf(root, numVars, counts);
+            // A path visits each variable at most once, then a terminal.
+            this.pathNodes = new int[numVars + 1];
+            this.pathBranches = new byte[numVars + 1];
+            this.pathNodes[0] = root;
+            this.depth = 0;
+        }
+
+        private PathSpliterator(PathSpliterator other) {
+            this.dictionary = other.dictionary;
+            this.numVars = other.numVars;
+            this.counts = other.counts;
+            this.remaining = other.remaining;
+            this.pathNodes = other.pathNodes.clone();
+            this.pathBranches = other.pathBranches.clone();
+            this.depth = other.depth;
+            this.cubeWords = other.cubeWords;
+            this.dontCares = other.dontCares;
+            this.nextCombination = other.nextCombination;
+            this.endCombination = other.endCombination;
+            this.words = (other.words == null) ? null : other.words.clone();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Collection<String>> action) {
+            if (nextCombination == endCombination && !nextPath()) {
+                return false;
+            }
+            action.accept(nextExpandedConfiguration());
+            return true;
+        }
+
+        @Override
+        public Spliterator<Collection<String>> trySplit() {
+            for (int i = 0; i <= depth; i++) {
+                int node = pathNodes[i];
+                if (node >= 0 && (pathBranches[i] == ELSE_BRANCH || pathBranches[i] == THEN_BRANCH)) {
+                    return splitBefore(i);
+                }
+            }
+            long pendingCombinations = endCombination - nextCombination;
+            if (pendingCombinations > 1) {
+                return splitCombinations(nextCombination + pendingCombinations / 2);
+            }
+            return null;
+        }
+
+        /**
+         * Keeps the then-subtree of the node at the given depth, handing
+         * over everything before it.
+         */
+        private PathSpliterator splitBefore(int nodeDepth) {
+            int node = pathNodes[nodeDepth];
+            if (pathBranches[nodeDepth] == ELSE_BRANCH) {
+                pathBranches[nodeDepth] = THEN_BRANCH;
+                push(elseChildren[node]);
+            }
+            PathSpliterator prefix = new PathSpliterator(this);
+            prefix.pathBranches[nodeDepth] = ELSE_BRANCH_ONLY;
+
+            depth = nodeDepth;
+            pathBranches[nodeDepth] = NO_BRANCH;
+            push(thenChildren[node]);
+            nextCombination = endCombination;
+            if (counts != null) {
+                // The path down to the subtree fixes one variable per node.
+                remaining = countOf(thenChildren[node], numVars, counts) >>> (nodeDepth + 1);
+                prefix.remaining -= remaining;
+            }
+            return prefix;
+        }
+
+        /**
+         * Keeps the combinations of the current path from {@code middle} on,
+         * handing over the ones before it (and no other path).
+         */
+        private PathSpliterator splitCombinations(long middle) {
+            PathSpliterator prefix = new PathSpliterator(this);
+            prefix.depth = -1;
+            prefix.endCombination = middle;
+            prefix.remaining = middle - nextCombination;
+
+            nextCombination = middle;
+            words = cubeWords.clone();
+            long gray = middle ^ (middle >>> 1);
+            for (int i = 0; i < dontCares.length; i++) {
+                if ((gray & (1L << i)) != 0) {
+                    flip(dontCares[i]);
+                }
+            }
+            if (counts != null) {
+                remaining -= prefix.remaining;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return (counts == null) ? CHARACTERISTICS : CHARACTERISTICS | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        /**
+         * Moves on to the next path to an accepting terminal.
+         * @return false if there are no more paths.
+         */
+        private boolean nextPath() {
+            while (depth >= 0) {
+                int node = pathNodes[depth];
+                if (node < 0) {
+                    depth--;
+                    if (node == TRUE) {
+                        loadPath();
+                        return true;
+                    }
+                } else if (pathBranches[depth] == ELSE_BRANCH) {
+                    pathBranches[depth] = THEN_BRANCH;
+                    push(elseChildren[node]);
+                } else if (pathBranches[depth] == THEN_BRANCH) {
+                    pathBranches[depth] = NO_BRANCH;
+                    push(thenChildren[node]);
+                } else {
+                    depth--;
+                }
+            }
+            return false;
+        }
+
+        private void push(int node) {
+            depth++;
+            pathNodes[depth] = node;
+            pathBranches[depth] = ELSE_BRANCH;
+        }
+
+        /**
+         * Loads the path which led to the terminal just popped, i.e., the
+         * nodes up to the current depth. Each of them is in the branch
+         * previous to the one marked as next.
+         */
+        private void loadPath() {
+            cubeWords = new long[Configuration.wordsFor(numVars)];
+            boolean[] fixed = new boolean[numVars];
+            for (int i = 0; i <= depth; i++) {
+                int variable = variables[pathNodes[i]];
+                fixed[variable] = true;
+                if (pathBranches[i] == NO_BRANCH) {
+                    cubeWords[variable >>> Configuration.ADDRESS_BITS] |= 1L << variable;
+                }
+            }
+            int numDontCares = 0;
+            for (int i = 0; i < numVars; i++) {
+                if (!fixed[i]) {
+                    numDontCares++;
+                }
+            }
+            dontCares = new int[numDontCares];
+            numDontCares = 0;
+            for (int i = 0; i < numVars; i++) {
+                if (!fixed[i]) {
+                    dontCares[numDontCares++] = i;
+                }
+            }
+            nextCombination = 0;
+            endCombination = 1L << dontCares.length;
+            words = cubeWords.clone();
+        }
+
+        private Configuration nextExpandedConfiguration() {
+            Configuration configuration = new Configuration(dictionary, words.clone());
+            nextCombination++;
+            if (nextCombination < endCombination) {
+                // The Gray codes of consecutive combinations differ in the
+                // lowest bit set in the latter.
+                flip(dontCares[Long.numberOfTrailingZeros(nextCombination)]);
+            }
+            if (counts != null) {
+                remaining--;
+            }
+            return configuration;
+        }
+
+        private void flip(int variable) {
+            words[variable >>> Configuration.ADDRESS_BITS] ^= 1L << variable;
+        }
+    }
+
+}
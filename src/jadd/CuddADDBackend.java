@@ -0,0 +1,401 @@
+package jadd;
+
+import org.bridj.IntValuedEnum;
+import org.bridj.Pointer;
+import org.bridj.PointerIO;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdNode;
+
+/**
+ * Backend which delegates to CUDD, through the BridJ binding in jcudd.
+ * Handles are the addresses of CUDD nodes.
+ */
+public class CuddADDBackend implements ADDBackend {
+    private static final PointerIO<DdNode> DD_NODE_IO = PointerIO.getInstance(DdNode.class);
+
+    private Pointer<DdManager> dd;
+    private ReorderingPolicy reorderingPolicy = new ReorderingPolicy();
+
+    public CuddADDBackend() {
+        dd = BigcuddLibrary.Cudd_Init(0,
+                                      0,
+                                      BigcuddLibrary.CUDD_UNIQUE_SLOTS,
+                                      BigcuddLibrary.CUDD_CACHE_SLOTS,
+                                      0);
+    }
+
+    private static Pointer<DdNode> node(long handle) {
+        return Pointer.pointerToAddress(handle, DD_NODE_IO);
+    }
+
+    private static long handle(Pointer<DdNode> node) {
+        return node.getPeer();
+    }
+
+    @Override
+    public long constant(double value) {
+        return handle(BigcuddLibrary.Cudd_addConst(dd, value));
+    }
+
+    @Override
+    public long newVariable() {
+        return handle(BigcuddLibrary.Cudd_addNewVar(dd));
+    }
+
+    @Override
+    public long apply(Operator operator, long f, long g) {
+        return handle(BigcuddLibrary.Cudd_addApply(dd,
+                                                   Pointer.getPointer(callbackOf(operator)),
+                                                   node(f),
+                                                   node(g)));
+    }
+
+    @Override
+    public long negate(long f) {
+        return handle(BigcuddLibrary.Cudd_addNegate(dd, node(f)));
+    }
+
+    @Override
+    public long complement(long f) {
+        return handle(BigcuddLibrary.Cudd_addCmpl(dd, node(f)));
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        return handle(BigcuddLibrary.Cudd_addIte(dd, node(f), node(g), node(h)));
+    }
+
+    /**
+     * Runs the expression's program in a single pass, one CUDD operation
+     * per instruction. Intermediate results are referenced only while on
+     * the stack, as CUDD may reorder variables (and thus collect garbage)
+     * amidst any operation.
+     */
+    @Override
+    public long evaluate(ADDExpression expression, long[] operands) {
+        long[] stack = new long[expression.length()];
+        // Whether each stack entry is an intermediate result, owned (and
+        // referenced) by this evaluation.
+        boolean[] owned = new boolean[expression.length()];
+        int top = -1;
+        for (int i = 0; i < expression.length(); i++) {
+            int opcode = expression.opcodeAt(i);
+            if (opcode == ADDExpression.PUSH_OPERAND) {
+                stack[++top] = operands[expression.argumentAt(i)];
+                owned[top] = false;
+                continue;
+            }
+            long result;
+            int arity;
+            if (opcode == ADDExpression.NEGATE) {
+                result = negate(stack[top]);
+                arity = 1;
+            } else if (opcode == ADDExpression.COMPLEMENT) {
+                result = complement(stack[top]);
+                arity = 1;
+            } else if (opcode == ADDExpression.ITE) {
+                result = ite(stack[top - 2], stack[top - 1], stack[top]);
+                arity = 3;
+            } else if (opcode == ADDExpression.POWER) {
+                result = power(stack[top], expression.argumentAt(i));
+                arity = 1;
+            } else {
+                result = apply(ADDExpression.operatorOf(opcode), stack[top - 1], stack[top]);
+                arity = 2;
+            }
+            ref(result);
+            for (int j = 0; j < arity; j++) {
+                if (owned[top]) {
+                    deref(stack[top]);
+                }
+                top--;
+            }
+            stack[++top] = result;
+            owned[top] = true;
+        }
+        long result = stack[0];
+        if (owned[0]) {
+            // Hands the result over unreferenced, as any other operation.
+            BigcuddLibrary.Cudd_Deref(node(result));
+        }
+        return result;
+    }
+
+    private long power(long base, int exponent) {
+        long result = base;
+        for (int i = 1; i < exponent; i++) {
+            long partial = result;
+            if (partial != base) {
+                ref(partial);
+            }
+            result = apply(Operator.TIMES, partial, base);
+            if (partial != base) {
+                deref(partial);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void ref(long node) {
+        BigcuddLibrary.Cudd_Ref(node(node));
+    }
+
+    @Override
+    public void deref(long node) {
+        BigcuddLibrary.Cudd_RecursiveDeref(dd, node(node));
+    }
+
+    @Override
+    public boolean isConstant(long node) {
+        return 1 != BigcuddLibrary.Cudd_IsNonConstant(node(node));
+    }
+
+    @Override
+    public double value(long node) {
+        return node(node).get().type().value();
+    }
+
+    @Override
+    public int variableIndex(long node) {
+        return BigcuddLibrary.Cudd_NodeReadIndex(node(node));
+    }
+
+    @Override
+    public long thenChild(long node) {
+        return handle(node(node).get().type().kids().T());
+    }
+
+    @Override
+    public long elseChild(long node) {
+        return handle(node(node).get().type().kids().E());
+    }
+
+    @Override
+    public double eval(long f, int[] presenceVector) {
+        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
+                                                            node(f),
+                                                            Pointer.pointerToInts(presenceVector));
+        return terminal.get().type().value();
+    }
+
+    @Override
+    public boolean[] support(long f) {
+        Pointer<Integer> variablesPtr = BigcuddLibrary.Cudd_SupportIndex(dd, node(f));
+        int numVars = BigcuddLibrary.Cudd_ReadSize(dd);
+        int[] variablesPresence = variablesPtr.getInts(numVars);
+        boolean[] support = new boolean[numVars];
+        for (int i = 0; i < numVars; i++) {
+            support[i] = variablesPresence[i] == 1;
+        }
+        return support;
+    }
+
+    @Override
+    public int dagSize(long f) {
+        return BigcuddLibrary.Cudd_DagSize(node(f));
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        return BigcuddLibrary.Cudd_CountLeaves(node(f));
+    }
+
+    @Override
+    public double countPaths(long f) {
+        return BigcuddLibrary.Cudd_CountPath(node(f));
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return BigcuddLibrary.Cudd_CountPathsToNonZero(node(f));
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return BigcuddLibrary.Cudd_EqualSupNorm(dd, node(f), node(g), tolerance, 1) == 1;
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return BigcuddLibrary.Cudd_ReadSize(dd);
+    }
+
+    @Override
+    public int getVariableAtLevel(int level) {
+        return BigcuddLibrary.Cudd_ReadInvPerm(dd, level);
+    }
+
+    @Override
+    public void shuffle(int[] permutation) {
+        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutation));
+    }
+
+    @Override
+    public void setReorderingPolicy(ReorderingPolicy policy) {
+        BigcuddLibrary.Cudd_SetMaxGrowth(dd, policy.getMaxGrowth());
+        BigcuddLibrary.Cudd_SetMaxReorderings(dd, policy.getMaxReorderings());
+        if (policy.isDynamic()) {
+            BigcuddLibrary.Cudd_SetNextReordering(dd, policy.getFirstReorderingThreshold());
+            BigcuddLibrary.Cudd_AutodynEnable(dd, toCudd(policy.getHeuristic()));
+        } else {
+            BigcuddLibrary.Cudd_AutodynDisable(dd);
+        }
+        this.reorderingPolicy = policy;
+    }
+
+    @Override
+    public void reorder(ReorderingPolicy policy) {
+        long timeLimit = policy.getTimeLimit();
+        if (timeLimit > 0) {
+            BigcuddLibrary.Cudd_ResetStartTime(dd);
+            BigcuddLibrary.Cudd_SetTimeLimit(dd, timeLimit);
+        }
+        try {
+            BigcuddLibrary.Cudd_ReduceHeap(dd, toCudd(policy.getHeuristic()), 1);
+        } finally {
+            if (timeLimit > 0) {
+                BigcuddLibrary.Cudd_UnsetTimeLimit(dd);
+                // Running out of time is not an error for reordering,
+                // but CUDD turns dynamic reordering off when it happens.
+                BigcuddLibrary.Cudd_ClearErrorCode(dd);
+                if (reorderingPolicy.isDynamic()) {
+                    BigcuddLibrary.Cudd_AutodynEnable(dd, toCudd(reorderingPolicy.getHeuristic()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getReorderingsCount() {
+        return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    }
+
+    @Override
+    public long getReorderingTime() {
+        return BigcuddLibrary.Cudd_ReadReorderingTime(dd);
+    }
+
+    @Override
+    public int getGarbageCollectionsCount() {
+        return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    }
+
+    @Override
+    public int getDeadNodesCount() {
+        return BigcuddLibrary.Cudd_ReadDead(dd);
+    }
+
+    @Override
+    public long getMemoryInUse() {
+        return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    }
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        Pointer<Pointer<DdNode>> nodes = Pointer.allocatePointers(DdNode.class, functions.length);
+        for (int i = 0; i < functions.length; i++) {
+            nodes.set(i, node(functions[i]));
+        }
+        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+        BigcuddLibrary.Cudd_DumpDot(dd,
+                                    functions.length,
+                                    nodes,
+                                    Pointer.pointerToCStrings(variableNames),
+                                    Pointer.pointerToCStrings(functionNames),
+                                    output);
+        CUtils.fclose(output);
+    }
+
+    private static IntValuedEnum<Cudd_ReorderingType> toCudd(ReorderingHeuristic heuristic) {
+        switch (heuristic) {
+        case SIFT:
+            return Cudd_ReorderingType.CUDD_REORDER_SIFT;
+        case WINDOW:
+            return Cudd_ReorderingType.CUDD_REORDER_WINDOW4_CONV;
+        case ANNEALING:
+            return Cudd_ReorderingType.CUDD_REORDER_ANNEALING;
+        case GENETIC:
+            return Cudd_ReorderingType.CUDD_REORDER_GENETIC;
+        case SYMM_SIFT:
+        default:
+            return Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
+        }
+    }
+
+    private static BigcuddLibrary.Cudd_addApply_arg1_callback callbackOf(Operator operator) {
+        switch (operator) {
+        case PLUS:
+            return PLUS;
+        case MINUS:
+            return MINUS;
+        case TIMES:
+            return TIMES;
+        case DIVIDE:
+            return DIVIDE;
+        case OR:
+        default:
+            return LOGICAL_OR;
+        }
+    }
+
+    /**************************************************************
+     *** Operators definitions
+     *************************************************************/
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            // Cudd_addMinus negates the subtrahend when the minuend is 0,
+            // which may trigger a dynamic reordering amidst the apply and
+            // thus corrupt the manager. Recursing instead is just as good.
+            if (node1.get().getPeer() == BigcuddLibrary.Cudd_ReadZero(dd).getPeer()
+                    && 1 == BigcuddLibrary.Cudd_IsNonConstant(node2.get())) {
+                return null;
+            }
+            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
+        }
+    };
+
+}
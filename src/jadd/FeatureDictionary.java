@@ -0,0 +1,84 @@
+package jadd;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the variables (features) known to a {@link VariableStore},
+ * which maps each (interned) name to its variable index and back.
+ *
+ * Indices are those of the underlying ADD variables, which never change
+ * once assigned. Hence, dictionaries taken from the same store at different
+ * times agree on the indices they have in common.
+ */
+public final class FeatureDictionary {
+    private final VariableStore variableStore;
+    private final String[] names;
+    private final Map<String, Integer> indices;
+
+    FeatureDictionary(VariableStore variableStore, String[] names) {
+        this.variableStore = variableStore;
+        this.names = new String[names.length];
+        Map<String, Integer> indices = new HashMap<String, Integer>();
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].intern();
+            indices.put(this.names[i], i);
+        }
+        this.indices = Collections.unmodifiableMap(indices);
+    }
+
+    /**
+     * @return the number of features in this dictionary.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return the index of the given feature, or -1 if it is unknown.
+     */
+    public int indexOf(String feature) {
+        Integer index = indices.get(feature);
+        return (index == null) ? -1 : index;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Encodes a configuration (i.e., the collection of selected features)
+     * as a {@link Configuration}.
+     *
+     * @throws UnrecognizedVariableException if a feature is not in this dictionary.
+     */
+    public Configuration toConfiguration(Collection<String> features) throws UnrecognizedVariableException {
+        if (features instanceof Configuration && isCompatibleWith(((Configuration) features).getDictionary())) {
+            return (Configuration) features;
+        }
+        long[] words = new long[Configuration.wordsFor(names.length)];
+        for (String feature : features) {
+            int index = indexOf(feature);
+            if (index < 0) {
+                throw new UnrecognizedVariableException(feature);
+            }
+            words[index >>> Configuration.ADDRESS_BITS] |= 1L << index;
+        }
+        return new Configuration(this, words);
+    }
+
+    /**
+     * @return whether both dictionaries assign the same indices to the
+     *      features they have in common.
+     */
+    boolean isCompatibleWith(FeatureDictionary other) {
+        return this.variableStore == other.variableStore;
+    }
+
+    boolean isTakenFrom(VariableStore variableStore) {
+        return this.variableStore == variableStore;
+    }
+
+}
@@ -1,59 +1,145 @@
 package jadd;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-
-import org.bridj.IntValuedEnum;
-import org.bridj.Pointer;
-
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
-import bigcudd.DdNode;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Interface to basic ADD operations.
  *
+ * A JADD may be shared among threads: calls into its backend are
+ * serialized by synchronizing on the backend (see {@link ADD}).
+ *
  * @author thiago
  *
  */
 public class JADD {
+    private static final Logger LOGGER = Logger.getLogger(JADD.class.getName());
 
-    private Pointer<BigcuddLibrary.DdManager> dd;
+    private ADDBackend backend;
     private VariableStore variableStore = new VariableStore();
+    private ReorderingPolicy reorderingPolicy = new ReorderingPolicy();
 
+    /**
+     * Creates a manager on the default backend (see {@link ADDBackendType}).
+     */
     public JADD() {
-        dd = BigcuddLibrary.Cudd_Init(0,
-                                      0,
-                                      BigcuddLibrary.CUDD_UNIQUE_SLOTS,
-                                      BigcuddLibrary.CUDD_CACHE_SLOTS,
-                                      0);
-        IntValuedEnum<Cudd_ReorderingType> method = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-//        BigcuddLibrary.Cudd_AutodynEnable(dd, method);
+        this(ADDBackendType.getDefault());
+    }
+
+    /**
+     * Creates a manager on the given backend.
+     */
+    public JADD(ADDBackendType backendType) {
+        this(backendType.create());
+    }
+
+    public JADD(ADDBackend backend) {
+        this.backend = backend;
+        setReorderingPolicy(reorderingPolicy);
     }
 
     public ADD makeConstant(double constant) {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addConst(dd,  constant),
-                       variableStore);
+        synchronized (backend) {
+            return new ADD(backend,
+                           backend.constant(constant),
+                           variableStore);
+        }
     }
 
+    /**
+     * Returns the ADD for the given variable, which is created if needed.
+     *
+     * The returned ADD is a handle of its own, so closing it does not
+     * affect the variable itself.
+     */
     public ADD getVariable(String varName) {
-        if (variableStore.contains(varName)) {
-            return variableStore.get(varName);
-        } else {
-            Pointer<DdNode> var = BigcuddLibrary.Cudd_addNewVar(dd);
-            ADD varADD = new ADD(dd, var, variableStore);
-            variableStore.put(var.get().index(), varName, varADD);
-            return varADD;
+        synchronized (backend) {
+            ADD varADD = variableStore.get(varName);
+            if (varADD == null) {
+                long var = backend.newVariable();
+                varADD = new ADD(backend, var, variableStore);
+                variableStore.put((short) backend.variableIndex(var), varName, varADD);
+            }
+            return new ADD(backend, varADD.getUnderlyingNode(), variableStore);
         }
     }
 
+    /**
+     * @return a dictionary of the variables created so far, by which
+     *      configurations can be encoded as {@link Configuration}s.
+     */
+    public FeatureDictionary getFeatureDictionary() {
+        return variableStore.getFeatureDictionary();
+    }
+
+    /**
+     * Sets how variables are to be reordered, enabling or disabling dynamic
+     * reordering accordingly. Later changes to the policy only take effect
+     * if it is set again.
+     */
+    public void setReorderingPolicy(ReorderingPolicy policy) {
+        synchronized (backend) {
+            backend.setReorderingPolicy(policy);
+            this.reorderingPolicy = policy;
+        }
+    }
+
+    public ReorderingPolicy getReorderingPolicy() {
+        return reorderingPolicy;
+    }
+
     /**
     * Performs an optimal reordering of the variables for the managed ADDs
-    * based on the sifting heuristic.
+    * based on the heuristic of the reordering policy (symmetric sifting,
+    * by default), within its time limit, if any.
     */
     public void reorderVariables() {
-        IntValuedEnum<Cudd_ReorderingType> heuristic = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-        BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1);
+        synchronized (backend) {
+            backend.reorder(reorderingPolicy);
+        }
+    }
+
+    /**
+     * @return the number of reorderings so far, either explicit or dynamic.
+     */
+    public int getReorderingsCount() {
+        synchronized (backend) {
+            return backend.getReorderingsCount();
+        }
+    }
+
+    /**
+     * @return the time spent reordering variables so far, in milliseconds.
+     */
+    public long getReorderingTime() {
+        synchronized (backend) {
+            return backend.getReorderingTime();
+        }
+    }
+
+    /**
+     * @return the names of all variables, from the topmost one down.
+     */
+    public List<String> getVariableOrder() {
+        List<String> variables = new ArrayList<String>();
+        synchronized (backend) {
+            for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
+                int varIndex = backend.getVariableAtLevel(pos);
+                variables.add(variableStore.getName((short) varIndex));
+            }
+        }
+        return variables;
     }
 
     /**
@@ -64,29 +150,103 @@ public class JADD {
      */
     public void setVariableOrder(String[] orderedVariables) throws UnrecognizedVariableException {
         int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
-        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutationVector));
+        synchronized (backend) {
+            backend.shuffle(permutationVector);
+        }
     }
 
-    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
-        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+    /**
+     * Moves the given variables to the top, in the given order, while the
+     * remaining ones keep their relative order below them. Unknown variables
+     * are ignored, so an order may be reused even if the variables changed.
+     *
+     * @param orderedVariables
+     */
+    public void applyVariableOrder(List<String> orderedVariables) {
+        synchronized (backend) {
+            Set<String> order = new LinkedHashSet<String>();
+            for (String variable : orderedVariables) {
+                if (variableStore.contains(variable)) {
+                    order.add(variable);
+                } else {
+                    LOGGER.warning("Ignoring unknown variable <" + variable + "> in variable order");
+                }
+            }
+            order.addAll(getVariableOrder());
+            try {
+                setVariableOrder(order.toArray(new String[order.size()]));
+            } catch (UnrecognizedVariableException e) {
+                // Unreachable, since unknown variables were left out.
+                throw new IllegalStateException(e);
+            }
+        }
+    }
 
-        @SuppressWarnings("unchecked")
-        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[functions.length];
-        int i = 0;
-        for (ADD function : functions) {
-            nodes[i] = function.getUnderlyingNode();
-            i++;
+    /**
+     * Writes the current variable order to a file, one variable per line.
+     */
+    public void writeVariableOrder(Path file) throws IOException {
+        Files.write(file, getVariableOrder(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a variable order as written by {@link #writeVariableOrder(Path)},
+     * to be applied by {@link #applyVariableOrder(List)}.
+     */
+    public static List<String> readVariableOrder(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a decision diagram to a file, so that it may be read back by
+     * {@link #readADD(Path)}, even by another manager.
+     */
+    public void writeADD(ADD function, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeADD(function, out);
         }
+    }
 
-        String[] orderedVariableNames = variableStore.getOrderedNames();
-        BigcuddLibrary.Cudd_DumpDot(dd,
-                                    functions.length,
-                                    Pointer.pointerToPointers(nodes),
-                                    Pointer.pointerToCStrings(orderedVariableNames),
-                                    Pointer.pointerToCStrings(functionNames),
-                                    output);
+    /**
+     * Writes a decision diagram in the format read by {@link #readADD(Path)}.
+     */
+    public void writeADD(ADD function, Writer out) throws IOException {
+        synchronized (backend) {
+            ADDFormat.write(backend, function.getUnderlyingNode(), variableStore, out);
+        }
+    }
 
-        CUtils.fclose(output);
+    /**
+     * Reads a decision diagram written by {@link #writeADD(ADD, Path)}.
+     * Variables are matched by name and created if needed.
+     *
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public ADD readADD(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            synchronized (backend) {
+                long function = ADDFormat.read(backend, this::getVariableNode, in);
+                ADD read = new ADD(backend, function, variableStore);
+                backend.deref(function);
+                return read;
+            }
+        }
+    }
+
+    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
+        String[] orderedVariableNames = variableStore.getOrderedNames();
+        synchronized (backend) {
+            long[] nodes = new long[functions.length];
+            int i = 0;
+            for (ADD function : functions) {
+                nodes[i] = function.getUnderlyingNode();
+                i++;
+            }
+            backend.dumpDot(nodes, orderedVariableNames, functionNames, fileName);
+        }
     }
 
     public void dumpDot(Map<String, ADD> functions, String fileName) {
@@ -110,4 +270,15 @@ public class JADD {
                 fileName);
     }
 
+    /**
+     * @return the node of the given variable, which stays referenced by
+     *      the variable store.
+     */
+    private long getVariableNode(String varName) {
+        ADD variable = getVariable(varName);
+        long node = variable.getUnderlyingNode();
+        variable.close();
+        return node;
+    }
+
 }
@@ -0,0 +1,1246 @@
+package jadd;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Pure-Java ADD engine, which needs no native library.
+ *
+ * Nodes live in parallel primitive arrays, indexed by their handles:
+ * internal nodes hold a variable index and their (then, else) children
+ * packed into a long, while terminals hold their value. Nodes are kept
+ * unique by a hash table with open addressing (linear probing) over node
+ * handles, and results of operations are memoized in a lossy, direct-mapped
+ * computed table.
+ *
+ * Nodes are reclaimed by mark-and-sweep garbage collection, starting from the
+ * externally referenced ones. Collections (and dynamic reorderings) only take
+ * place upon entry to an operation, when every node of interest is referenced,
+ * so intermediate results of an operation need no bookkeeping at all.
+ *
+ * Variables are reordered by sifting, whichever the heuristic of the
+ * reordering policy. Swapping adjacent variables relabels nodes in place,
+ * so handles of referenced nodes are kept valid. While reordering, nodes are
+ * also listed by variable and reference-counted (as in CUDD), so that a swap
+ * only visits the nodes of the two variables involved and frees the ones it
+ * leaves dead right away.
+ */
+public class JavaADDBackend implements ADDBackend {
+    private static final Logger LOGGER = Logger.getLogger(JavaADDBackend.class.getName());
+
+    private static final int CONSTANT_INDEX = Integer.MAX_VALUE;
+    private static final int FREE = -1;
+    private static final int NONE = -1;
+
+    private static final int ZERO = 0;
+    private static final int ONE = 1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int MIN_GC_THRESHOLD = 1 << 12;
+    private static final int MAX_CACHE_SIZE = 1 << 20;
+    // Operands are traversed together only up to this many, since the
+    // number of their cofactor combinations may grow exponentially.
+    private static final int MAX_FUSED_OPERANDS = 8;
+
+    private static final Operator[] OPERATORS = Operator.values();
+    // Computed table codes of unary and ternary operations, after those
+    // of the binary ones (i.e., the ordinals of Operator).
+    private static final int NEGATE = OPERATORS.length;
+    private static final int COMPLEMENT = NEGATE + 1;
+    private static final int ITE = NEGATE + 2;
+
+    // Nodes, by handle. Children of a free node hold the next free one.
+    private int[] variables;
+    private long[] children;
+    private double[] values;
+    private int[] references;
+    private int allocated;
+    private int highWaterMark;
+    private int freeList = NONE;
+
+    // Unique table: handle + 1 of each node, or 0 for empty slots.
+    private int[] unique;
+    private int uniqueCount;
+
+    // Computed table: (operation, f) and (g, h) keys of each entry.
+    private long[] cacheFirstKeys;
+    private long[] cacheSecondKeys;
+    private int[] cacheResults;
+
+    // Levels by variable index and variable indices by level.
+    private int numVars;
+    private int[] perm = new int[16];
+    private int[] invPerm = new int[16];
+
+    // While reordering: references to each node (from other nodes as well as
+    // external ones) and the nodes of each variable, by variable index.
+    private int[] nodeReferences;
+    private int[][] variableNodes;
+    private int[] variableNodeCounts;
+
+    private int[] marks;
+    private int epoch;
+    private int[] stack = new int[64];
+
+    private ReorderingPolicy reorderingPolicy = new ReorderingPolicy();
+    private int nextReordering = Integer.MAX_VALUE;
+    private int gcThreshold = MIN_GC_THRESHOLD;
+    private int reorderings;
+    private long reorderingTime;
+    private int garbageCollections;
+
+    public JavaADDBackend() {
+        variables = new int[INITIAL_CAPACITY];
+        children = new long[INITIAL_CAPACITY];
+        values = new double[INITIAL_CAPACITY];
+        references = new int[INITIAL_CAPACITY];
+        marks = new int[INITIAL_CAPACITY];
+        unique = new int[2 * INITIAL_CAPACITY];
+        resizeCache(INITIAL_CAPACITY);
+
+        // Zero and one are always there, with the handles of their own.
+        makeConstant(0.0);
+        makeConstant(1.0);
+        references[ZERO]++;
+        references[ONE]++;
+    }
+
+    /**************************************************************
+     *** Operations
+     *************************************************************/
+
+    @Override
+    public long constant(double value) {
+        maintain();
+        return makeConstant(value);
+    }
+
+    @Override
+    public long newVariable() {
+        maintain();
+        if (numVars == perm.length) {
+            perm = Arrays.copyOf(perm, 2 * perm.length);
+            invPerm = Arrays.copyOf(invPerm, 2 * invPerm.length);
+        }
+        int variable = numVars++;
+        perm[variable] = variable;
+        invPerm[variable] = variable;
+        int node = makeNode(variable, ONE, ZERO);
+        // Projection functions are kept alive by the manager, as in CUDD.
+        references[node]++;
+        return node;
+    }
+
+    @Override
+    public long apply(Operator operator, long f, long g) {
+        maintain();
+        return apply(operator.ordinal(), (int) f, (int) g);
+    }
+
+    @Override
+    public long negate(long f) {
+        maintain();
+        return negate((int) f);
+    }
+
+    @Override
+    public long complement(long f) {
+        maintain();
+        return complement((int) f);
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        maintain();
+        return ite((int) f, (int) g, (int) h);
+    }
+
+    /**
+     * Evaluates the expression in a single traversal of all operands at
+     * once, so there are no intermediate ADDs at all. Terminal values are
+     * computed by the expression itself, as the ADD operations would.
+     */
+    @Override
+    public long evaluate(ADDExpression expression, long[] operands) {
+        maintain();
+        int[] nodes = new int[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            nodes[i] = (int) operands[i];
+        }
+        int[] stack = new int[expression.maxStackDepth()];
+        if (expression.getNumberOfOperands() > MAX_FUSED_OPERANDS) {
+            return evaluateStepwise(expression, nodes, stack);
+        }
+        return evaluate(expression, nodes, stack, new HashMap<OperandTuple, Integer>());
+    }
+
+    /**
+     * Evaluates one operation at a time, for expressions with too many
+     * operands to be traversed together. Intermediate results need no
+     * references, since nodes are only reclaimed between calls.
+     */
+    private int evaluateStepwise(ADDExpression expression, int[] operands, int[] stack) {
+        int top = -1;
+        for (int i = 0; i < expression.length(); i++) {
+            int opcode = expression.opcodeAt(i);
+            if (opcode == ADDExpression.PUSH_OPERAND) {
+                stack[++top] = operands[expression.argumentAt(i)];
+            } else if (opcode == ADDExpression.NEGATE) {
+                stack[top] = negate(stack[top]);
+            } else if (opcode == ADDExpression.COMPLEMENT) {
+                stack[top] = complement(stack[top]);
+            } else if (opcode == ADDExpression.ITE) {
+                top -= 2;
+                stack[top] = ite(stack[top], stack[top + 1], stack[top + 2]);
+            } else if (opcode == ADDExpression.POWER) {
+                int base = stack[top];
+                for (int j = 1; j < expression.argumentAt(i); j++) {
+                    stack[top] = apply(Operator.TIMES.ordinal(), stack[top], base);
+                }
+            } else {
+                top--;
+                stack[top] = apply(ADDExpression.operatorOf(opcode).ordinal(), stack[top], stack[top + 1]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates all operations of the expression in a single traversal of
+     * the operands, which are cofactored together until the terminal cases
+     * of the operations settle the result.
+     */
+    private int evaluate(ADDExpression expression, int[] operands, int[] stack, Map<OperandTuple, Integer> computed) {
+        int resolved = evaluateTerminal(expression, operands, stack);
+        if (resolved != NONE) {
+            return resolved;
+        }
+        OperandTuple key = new OperandTuple(operands);
+        Integer cached = computed.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int top = Integer.MAX_VALUE;
+        for (int operand : operands) {
+            top = Math.min(top, level(operand));
+        }
+        int variable = invPerm[top];
+        int[] thenOperands = new int[operands.length];
+        int[] elseOperands = new int[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            thenOperands[i] = thenCofactor(operands[i], variable);
+            elseOperands[i] = elseCofactor(operands[i], variable);
+        }
+        int thenResult = evaluate(expression, thenOperands, stack, computed);
+        int elseResult = evaluate(expression, elseOperands, stack, computed);
+        int result = makeNode(variable, thenResult, elseResult);
+        computed.put(key, result);
+        return result;
+    }
+
+    /**
+     * Runs the expression through the terminal cases of its operations,
+     * leaving as {@link #NONE} whatever they do not settle. Thus, the
+     * result is always settled if all operands are terminals, but also,
+     * e.g., when some factor of a product is 0.
+     */
+    private int evaluateTerminal(ADDExpression expression, int[] operands, int[] stack) {
+        int top = -1;
+        for (int i = 0; i < expression.length(); i++) {
+            int opcode = expression.opcodeAt(i);
+            if (opcode == ADDExpression.PUSH_OPERAND) {
+                stack[++top] = operands[expression.argumentAt(i)];
+            } else if (opcode == ADDExpression.NEGATE) {
+                int f = stack[top];
+                stack[top] = (f != NONE && isConstant(f)) ? negate(f) : NONE;
+            } else if (opcode == ADDExpression.COMPLEMENT) {
+                int f = stack[top];
+                stack[top] = (f != NONE && isConstant(f)) ? complement(f) : NONE;
+            } else if (opcode == ADDExpression.ITE) {
+                top -= 2;
+                int f = stack[top];
+                int g = stack[top + 1];
+                int h = stack[top + 2];
+                if (f != NONE && isConstant(f)) {
+                    stack[top] = (f == ZERO) ? h : g;
+                } else if (g == h) {
+                    stack[top] = g;
+                } else if (g == ONE && h == ZERO) {
+                    stack[top] = f;
+                } else {
+                    stack[top] = NONE;
+                }
+            } else if (opcode == ADDExpression.POWER) {
+                int base = stack[top];
+                if (base != NONE && isConstant(base)) {
+                    int result = base;
+                    for (int j = 1; j < expression.argumentAt(i); j++) {
+                        result = applyTerminal(Operator.TIMES.ordinal(), result, base);
+                    }
+                    stack[top] = result;
+                } else {
+                    stack[top] = NONE;
+                }
+            } else {
+                top--;
+                stack[top] = applyTerminalOrNone(ADDExpression.operatorOf(opcode), stack[top], stack[top + 1]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Terminal cases of the binary operations, for operands which may
+     * not be settled yet.
+     */
+    private int applyTerminalOrNone(Operator operator, int f, int g) {
+        if (f != NONE && g != NONE) {
+            return applyTerminal(operator.ordinal(), f, g);
+        } else if (operator == Operator.TIMES && (f == ZERO || g == ZERO)) {
+            return ZERO;
+        } else if (operator == Operator.DIVIDE && f == ZERO) {
+            return ZERO;
+        } else if (operator == Operator.OR && (f == ONE || g == ONE)) {
+            return ONE;
+        }
+        return NONE;
+    }
+
+    private int apply(int operation, int f, int g) {
+        int terminal = applyTerminal(operation, f, g);
+        if (terminal != NONE) {
+            return terminal;
+        }
+        if (operation != Operator.MINUS.ordinal() && operation != Operator.DIVIDE.ordinal() && f > g) {
+            int swap = f;
+            f = g;
+            g = swap;
+        }
+        int cached = cacheLookup(operation, f, g, 0);
+        if (cached != NONE) {
+            return cached;
+        }
+        int top = Math.min(level(f), level(g));
+        int variable = invPerm[top];
+        int thenResult = apply(operation, thenCofactor(f, variable), thenCofactor(g, variable));
+        int elseResult = apply(operation, elseCofactor(f, variable), elseCofactor(g, variable));
+        int result = makeNode(variable, thenResult, elseResult);
+        cacheInsert(operation, f, g, 0, result);
+        return result;
+    }
+
+    /**
+     * Terminal cases of the binary operations, as in CUDD.
+     */
+    private int applyTerminal(int operation, int f, int g) {
+        boolean constants = isConstant(f) && isConstant(g);
+        switch (OPERATORS[operation]) {
+        case PLUS:
+            if (f == ZERO) {
+                return g;
+            } else if (g == ZERO) {
+                return f;
+            } else if (constants) {
+                return makeConstant(values[f] + values[g]);
+            }
+            break;
+        case MINUS:
+            if (f == g) {
+                return ZERO;
+            } else if (g == ZERO) {
+                return f;
+            } else if (constants) {
+                return makeConstant(values[f] - values[g]);
+            }
+            break;
+        case TIMES:
+            if (f == ZERO || g == ZERO) {
+                return ZERO;
+            } else if (f == ONE) {
+                return g;
+            } else if (g == ONE) {
+                return f;
+            } else if (constants) {
+                return makeConstant(values[f] * values[g]);
+            }
+            break;
+        case DIVIDE:
+            if (f == ZERO) {
+                return ZERO;
+            } else if (g == ONE) {
+                return f;
+            } else if (constants) {
+                return makeConstant(values[f] / values[g]);
+            }
+            break;
+        case OR:
+        default:
+            if (f == ONE || g == ONE) {
+                return ONE;
+            } else if (isConstant(f)) {
+                return g;
+            } else if (isConstant(g)) {
+                return f;
+            } else if (f == g) {
+                return f;
+            }
+            break;
+        }
+        return NONE;
+    }
+
+    private int negate(int f) {
+        if (isConstant(f)) {
+            return makeConstant(-values[f]);
+        }
+        int cached = cacheLookup(NEGATE, f, 0, 0);
+        if (cached != NONE) {
+            return cached;
+        }
+        int result = makeNode(variables[f], negate(thenOf(f)), negate(elseOf(f)));
+        cacheInsert(NEGATE, f, 0, 0, result);
+        return result;
+    }
+
+    private int complement(int f) {
+        if (isConstant(f)) {
+            return (f == ZERO) ? ONE : ZERO;
+        }
+        int cached = cacheLookup(COMPLEMENT, f, 0, 0);
+        if (cached != NONE) {
+            return cached;
+        }
+        int result = makeNode(variables[f], complement(thenOf(f)), complement(elseOf(f)));
+        cacheInsert(COMPLEMENT, f, 0, 0, result);
+        return result;
+    }
+
+    private int ite(int f, int g, int h) {
+        if (isConstant(f)) {
+            return (f == ZERO) ? h : g;
+        } else if (g == h) {
+            return g;
+        } else if (g == ONE && h == ZERO) {
+            return f;
+        }
+        int cached = cacheLookup(ITE, f, g, h);
+        if (cached != NONE) {
+            return cached;
+        }
+        int top = Math.min(level(f), Math.min(level(g), level(h)));
+        int variable = invPerm[top];
+        int thenResult = ite(thenCofactor(f, variable), thenCofactor(g, variable), thenCofactor(h, variable));
+        int elseResult = ite(elseCofactor(f, variable), elseCofactor(g, variable), elseCofactor(h, variable));
+        int result = makeNode(variable, thenResult, elseResult);
+        cacheInsert(ITE, f, g, h, result);
+        return result;
+    }
+
+    @Override
+    public void ref(long node) {
+        references[(int) node]++;
+    }
+
+    @Override
+    public void deref(long node) {
+        if (references[(int) node] <= 0) {
+            throw new IllegalStateException("Node " + node + " is not referenced");
+        }
+        references[(int) node]--;
+    }
+
+    /**************************************************************
+     *** Queries
+     *************************************************************/
+
+    @Override
+    public boolean isConstant(long node) {
+        return isConstant((int) node);
+    }
+
+    @Override
+    public double value(long node) {
+        return values[(int) node];
+    }
+
+    @Override
+    public int variableIndex(long node) {
+        return variables[(int) node];
+    }
+
+    @Override
+    public long thenChild(long node) {
+        return thenOf((int) node);
+    }
+
+    @Override
+    public long elseChild(long node) {
+        return elseOf((int) node);
+    }
+
+    @Override
+    public double eval(long f, int[] presenceVector) {
+        int node = (int) f;
+        while (!isConstant(node)) {
+            int variable = variables[node];
+            boolean selected = variable < presenceVector.length && presenceVector[variable] == 1;
+            node = selected ? thenOf(node) : elseOf(node);
+        }
+        return values[node];
+    }
+
+    @Override
+    public boolean[] support(long f) {
+        boolean[] support = new boolean[numVars];
+        for (int node : reachable((int) f)) {
+            if (!isConstant(node)) {
+                support[variables[node]] = true;
+            }
+        }
+        return support;
+    }
+
+    @Override
+    public int dagSize(long f) {
+        return reachable((int) f).length;
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        int leaves = 0;
+        for (int node : reachable((int) f)) {
+            if (isConstant(node)) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    @Override
+    public double countPaths(long f) {
+        return countPaths((int) f, false);
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return countPaths((int) f, true);
+    }
+
+    /**
+     * Counts paths bottom-up, since {@link #reachable(int)} lists children
+     * before their parents.
+     */
+    private double countPaths(int f, boolean nonZeroOnly) {
+        int[] nodes = reachable(f);
+        double[] paths = new double[highWaterMark];
+        for (int node : nodes) {
+            if (isConstant(node)) {
+                paths[node] = (nonZeroOnly && node == ZERO) ? 0 : 1;
+            } else {
+                paths[node] = paths[thenOf(node)] + paths[elseOf(node)];
+            }
+        }
+        return paths[f];
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return equalSupNorm((int) f, (int) g, tolerance, new HashSet<Long>());
+    }
+
+    private boolean equalSupNorm(int f, int g, double tolerance, Set<Long> visited) {
+        if (f == g) {
+            return true;
+        }
+        if (isConstant(f) && isConstant(g)) {
+            return Math.abs(values[f] - values[g]) <= tolerance;
+        }
+        if (!visited.add(pack(f, g))) {
+            return true;
+        }
+        int variable = invPerm[Math.min(level(f), level(g))];
+        return equalSupNorm(thenCofactor(f, variable), thenCofactor(g, variable), tolerance, visited)
+                && equalSupNorm(elseCofactor(f, variable), elseCofactor(g, variable), tolerance, visited);
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return numVars;
+    }
+
+    @Override
+    public int getVariableAtLevel(int level) {
+        return invPerm[level];
+    }
+
+    /**************************************************************
+     *** Reordering
+     *************************************************************/
+
+    @Override
+    public void shuffle(int[] permutation) {
+        beginReordering();
+        for (int level = 0; level < permutation.length; level++) {
+            int variable = permutation[level];
+            while (perm[variable] > level) {
+                swap(perm[variable] - 1);
+            }
+        }
+        endReordering();
+    }
+
+    @Override
+    public void setReorderingPolicy(ReorderingPolicy policy) {
+        this.reorderingPolicy = policy;
+        nextReordering = policy.isDynamic() ? policy.getFirstReorderingThreshold() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void reorder(ReorderingPolicy policy) {
+        long start = System.currentTimeMillis();
+        long deadline = (policy.getTimeLimit() > 0) ? start + policy.getTimeLimit() : Long.MAX_VALUE;
+
+        garbageCollections++;
+        int size = beginReordering();
+        for (int variable : variablesBySize()) {
+            if (System.currentTimeMillis() > deadline) {
+                break;
+            }
+            size = siftVariable(variable, size, policy.getMaxGrowth());
+        }
+        endReordering();
+        reorderings++;
+        reorderingTime += System.currentTimeMillis() - start;
+    }
+
+    /**
+     * @return variable indices, from the one with the most nodes down.
+     */
+    private List<Integer> variablesBySize() {
+        List<Integer> order = new ArrayList<Integer>();
+        for (int variable = 0; variable < numVars; variable++) {
+            order.add(variable);
+        }
+        order.sort((a, b) -> Integer.compare(variableNodeCounts[b], variableNodeCounts[a]));
+        return order;
+    }
+
+    /**
+     * Collects garbage and then counts the references to each node and lists
+     * the nodes of each variable, which swaps keep up to date afterwards.
+     *
+     * @return the number of nodes.
+     */
+    private int beginReordering() {
+        int size = collect();
+        nodeReferences = Arrays.copyOf(references, variables.length);
+        variableNodes = new int[numVars][];
+        variableNodeCounts = new int[numVars];
+        for (int variable = 0; variable < numVars; variable++) {
+            variableNodes[variable] = new int[16];
+        }
+        for (int node = 0; node < highWaterMark; node++) {
+            if (variables[node] != FREE && !isConstant(node)) {
+                nodeReferences[thenOf(node)]++;
+                nodeReferences[elseOf(node)]++;
+                addVariableNode(variables[node], node);
+            }
+        }
+        return size;
+    }
+
+    private void endReordering() {
+        nodeReferences = null;
+        variableNodes = null;
+        variableNodeCounts = null;
+        // Handles of the nodes freed by swaps may have been reused.
+        Arrays.fill(cacheResults, NONE);
+    }
+
+    private void addVariableNode(int variable, int node) {
+        int count = variableNodeCounts[variable];
+        if (count == variableNodes[variable].length) {
+            variableNodes[variable] = Arrays.copyOf(variableNodes[variable], 2 * count);
+        }
+        variableNodes[variable][count] = node;
+        variableNodeCounts[variable] = count + 1;
+    }
+
+    /**
+     * Moves a variable all the way towards the closest end of the order and
+     * then towards the other end, each time until the number of nodes grows
+     * by more than {@code maxGrowth} times the best one so far, and then
+     * back to the level where there were the fewest nodes.
+     *
+     * @return the number of nodes in the end.
+     */
+    private int siftVariable(int variable, int size, double maxGrowth) {
+        int bestSize = size;
+        int bestLevel = perm[variable];
+        boolean downFirst = numVars - 1 - perm[variable] < perm[variable];
+        for (int pass = 0; pass < 2; pass++) {
+            boolean down = (pass == 0) == downFirst;
+            while (down ? perm[variable] < numVars - 1 : perm[variable] > 0) {
+                size = swap(down ? perm[variable] : perm[variable] - 1);
+                if (size < bestSize) {
+                    bestSize = size;
+                    bestLevel = perm[variable];
+                } else if (size > bestSize * maxGrowth) {
+                    break;
+                }
+            }
+        }
+        while (perm[variable] < bestLevel) {
+            size = swap(perm[variable]);
+        }
+        while (perm[variable] > bestLevel) {
+            size = swap(perm[variable] - 1);
+        }
+        return size;
+    }
+
+    /**
+     * Swaps the variables at {@code level} and the level below it. Nodes of
+     * the upper variable (x) which depend on the lower one (y) are relabeled
+     * in place into nodes of y, whose children are (new) nodes of x. Nodes of
+     * y which are no longer referenced are freed.
+     *
+     * Only the nodes of x and y are visited, and the unique table is updated
+     * entry by entry, so a swap takes time proportional to the size of these
+     * two levels rather than to the number of nodes.
+     *
+     * @return the number of nodes afterwards.
+     */
+    private int swap(int level) {
+        int x = invPerm[level];
+        int y = invPerm[level + 1];
+
+        int[] xNodes = variableNodes[x];
+        int xCount = variableNodeCounts[x];
+        variableNodes[x] = new int[Math.max(16, xCount)];
+        variableNodeCounts[x] = 0;
+        for (int i = 0; i < xCount; i++) {
+            int node = xNodes[i];
+            int thenNode = thenOf(node);
+            int elseNode = elseOf(node);
+            boolean thenOnY = variables[thenNode] == y;
+            boolean elseOnY = variables[elseNode] == y;
+            if (!thenOnY && !elseOnY) {
+                addVariableNode(x, node);
+                continue;
+            }
+            int f11 = thenOnY ? thenOf(thenNode) : thenNode;
+            int f10 = thenOnY ? elseOf(thenNode) : thenNode;
+            int f01 = elseOnY ? thenOf(elseNode) : elseNode;
+            int f00 = elseOnY ? elseOf(elseNode) : elseNode;
+            int newThen = makeReferencedNode(x, f11, f01);
+            int newElse = makeReferencedNode(x, f10, f00);
+            removeFromUniqueTable(node);
+            variables[node] = y;
+            children[node] = pack(newThen, newElse);
+            insertIntoUniqueTable(node);
+            addVariableNode(y, node);
+            nodeReferences[thenNode]--;
+            nodeReferences[elseNode]--;
+        }
+
+        // The children of a dead node of y are still referenced by the new
+        // nodes of x (or by the relabeled nodes), so they never die as well.
+        int[] yNodes = variableNodes[y];
+        int yCount = variableNodeCounts[y];
+        variableNodes[y] = new int[Math.max(16, yCount)];
+        variableNodeCounts[y] = 0;
+        for (int i = 0; i < yCount; i++) {
+            int node = yNodes[i];
+            if (nodeReferences[node] > 0) {
+                addVariableNode(y, node);
+            } else {
+                nodeReferences[thenOf(node)]--;
+                nodeReferences[elseOf(node)]--;
+                removeFromUniqueTable(node);
+                free(node);
+            }
+        }
+
+        perm[x] = level + 1;
+        perm[y] = level;
+        invPerm[level] = y;
+        invPerm[level + 1] = x;
+        return allocated;
+    }
+
+    /**
+     * Makes a node while reordering, keeping track of the references to it
+     * and to its children, if it is a new one.
+     *
+     * @return the node, with one more reference.
+     */
+    private int makeReferencedNode(int variable, int thenNode, int elseNode) {
+        int before = allocated;
+        int node = makeNode(variable, thenNode, elseNode);
+        if (allocated > before) {
+            nodeReferences[node] = 0;
+            nodeReferences[thenNode]++;
+            nodeReferences[elseNode]++;
+            addVariableNode(variable, node);
+        }
+        nodeReferences[node]++;
+        return node;
+    }
+
+    /**
+     * Collects garbage and then reorders variables, if it is time to.
+     * As in CUDD, dynamic reordering is due once the number of live
+     * (rather than allocated) nodes reaches the threshold.
+     */
+    private void maintain() {
+        boolean reorderingDue = reorderingPolicy.isDynamic()
+                && reorderings < reorderingPolicy.getMaxReorderings()
+                && allocated >= nextReordering;
+        if (!reorderingDue && allocated < gcThreshold) {
+            return;
+        }
+        garbageCollections++;
+        int live = collect();
+        if (reorderingDue && live >= nextReordering) {
+            reorder(reorderingPolicy);
+            nextReordering = Math.max(2 * allocated, reorderingPolicy.getFirstReorderingThreshold());
+        }
+        gcThreshold = Math.max(MIN_GC_THRESHOLD, 2 * allocated);
+    }
+
+    /**************************************************************
+     *** Statistics
+     *************************************************************/
+
+    @Override
+    public int getReorderingsCount() {
+        return reorderings;
+    }
+
+    @Override
+    public long getReorderingTime() {
+        return reorderingTime;
+    }
+
+    @Override
+    public int getGarbageCollectionsCount() {
+        return garbageCollections;
+    }
+
+    @Override
+    public int getDeadNodesCount() {
+        return allocated - mark();
+    }
+
+    @Override
+    public long getMemoryInUse() {
+        long nodeBytes = (long) variables.length * (Integer.BYTES + Long.BYTES + Double.BYTES + 2 * Integer.BYTES);
+        long uniqueBytes = (long) unique.length * Integer.BYTES;
+        long cacheBytes = (long) cacheResults.length * (2 * Long.BYTES + Integer.BYTES);
+        return nodeBytes + uniqueBytes + cacheBytes;
+    }
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        Set<Integer> nodes = new HashSet<Integer>();
+        for (long function : functions) {
+            for (int node : reachable((int) function)) {
+                nodes.add(node);
+            }
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8))) {
+            out.println("digraph \"DD\" {");
+            out.println("size = \"7.5,10\"");
+            out.println("center = true;");
+            out.println("edge [dir = none];");
+            out.println("{ node [shape = plaintext];");
+            out.println("  edge [style = invis];");
+            out.println("  \"CONST NODES\" [style = invis];");
+            for (int level = 0; level < numVars; level++) {
+                out.print("\" " + variableNames[invPerm[level]] + " \" -> ");
+            }
+            out.println("\"CONST NODES\"; ");
+            out.println("}");
+            out.println("{ rank = same; node [shape = box]; edge [style = invis];");
+            for (String functionName : functionNames) {
+                out.print("\"  " + functionName + "  \"; ");
+            }
+            out.println("}");
+            for (int level = 0; level < numVars; level++) {
+                out.println("{ rank = same; \" " + variableNames[invPerm[level]] + " \";");
+                for (int node : nodes) {
+                    if (!isConstant(node) && perm[variables[node]] == level) {
+                        out.println("\"" + Integer.toHexString(node) + "\";");
+                    }
+                }
+                out.println("}");
+            }
+            out.println("{ rank = same; \"CONST NODES\";");
+            out.println("{ node [shape = box]; ");
+            for (int node : nodes) {
+                if (isConstant(node)) {
+                    out.println("\"" + Integer.toHexString(node) + "\";");
+                }
+            }
+            out.println("}");
+            out.println("}");
+            for (int i = 0; i < functions.length; i++) {
+                out.println("\"  " + functionNames[i] + "  \" -> \"" + Long.toHexString(functions[i]) + "\" [style = solid];");
+            }
+            for (int node : nodes) {
+                if (isConstant(node)) {
+                    out.println("\"" + Integer.toHexString(node) + "\" [label = \"" + values[node] + "\"];");
+                } else {
+                    out.println("\"" + Integer.toHexString(node) + "\" -> \"" + Integer.toHexString(thenOf(node)) + "\";");
+                    out.println("\"" + Integer.toHexString(node) + "\" -> \"" + Integer.toHexString(elseOf(node)) + "\" [style = dashed];");
+                }
+            }
+            out.println("}");
+        } catch (IOException e) {
+            LOGGER.warning("Could not write DOT file " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**************************************************************
+     *** Nodes
+     *************************************************************/
+
+    private boolean isConstant(int node) {
+        return variables[node] == CONSTANT_INDEX;
+    }
+
+    private int level(int node) {
+        return isConstant(node) ? Integer.MAX_VALUE : perm[variables[node]];
+    }
+
+    private int thenOf(int node) {
+        return (int) (children[node] >>> 32);
+    }
+
+    private int elseOf(int node) {
+        return (int) children[node];
+    }
+
+    private int thenCofactor(int node, int variable) {
+        return (variables[node] == variable) ? thenOf(node) : node;
+    }
+
+    private int elseCofactor(int node, int variable) {
+        return (variables[node] == variable) ? elseOf(node) : node;
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    private int makeConstant(double value) {
+        // -0.0 and 0.0 must be the same terminal.
+        if (value == 0.0) {
+            value = 0.0;
+        }
+        return findOrAdd(CONSTANT_INDEX, Double.doubleToLongBits(value), value);
+    }
+
+    private int makeNode(int variable, int thenNode, int elseNode) {
+        if (thenNode == elseNode) {
+            return thenNode;
+        }
+        return findOrAdd(variable, pack(thenNode, elseNode), 0);
+    }
+
+    /**
+     * Looks a node up in the unique table, adding it if absent. Terminals
+     * are keyed by the bits of their values instead of children.
+     */
+    private int findOrAdd(int variable, long key, double value) {
+        int mask = unique.length - 1;
+        int slot = hash(variable, key) & mask;
+        int entry;
+        while ((entry = unique[slot]) != 0) {
+            int node = entry - 1;
+            if (variables[node] == variable && children[node] == key) {
+                return node;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int node = allocate(variable, key, value);
+        unique[slot] = node + 1;
+        uniqueCount++;
+        if (4 * uniqueCount > 3 * unique.length) {
+            rebuildUniqueTable();
+        }
+        return node;
+    }
+
+    private void insertIntoUniqueTable(int node) {
+        int mask = unique.length - 1;
+        int slot = hash(variables[node], children[node]) & mask;
+        while (unique[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        unique[slot] = node + 1;
+        uniqueCount++;
+    }
+
+    /**
+     * Removes a node from the unique table by backward-shift deletion, i.e.,
+     * moving up the entries after it which would be unreachable otherwise.
+     */
+    private void removeFromUniqueTable(int node) {
+        int mask = unique.length - 1;
+        int hole = hash(variables[node], children[node]) & mask;
+        while (unique[hole] != node + 1) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = (hole + 1) & mask;
+        while (unique[slot] != 0) {
+            int entry = unique[slot] - 1;
+            int home = hash(variables[entry], children[entry]) & mask;
+            // The entry may fill the hole if it lies between its home slot and it.
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                unique[hole] = unique[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        unique[hole] = 0;
+        uniqueCount--;
+    }
+
+    private static int hash(int variable, long key) {
+        long hash = (key ^ ((long) variable << 17)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private int allocate(int variable, long key, double value) {
+        int node;
+        if (freeList != NONE) {
+            node = freeList;
+            freeList = (int) children[node];
+        } else {
+            if (highWaterMark == variables.length) {
+                grow();
+            }
+            node = highWaterMark++;
+        }
+        variables[node] = variable;
+        children[node] = key;
+        values[node] = value;
+        references[node] = 0;
+        allocated++;
+        return node;
+    }
+
+    private void grow() {
+        int capacity = 2 * variables.length;
+        variables = Arrays.copyOf(variables, capacity);
+        children = Arrays.copyOf(children, capacity);
+        values = Arrays.copyOf(values, capacity);
+        references = Arrays.copyOf(references, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        if (nodeReferences != null) {
+            nodeReferences = Arrays.copyOf(nodeReferences, capacity);
+        }
+        resizeCache(capacity);
+    }
+
+    private void rebuildUniqueTable() {
+        int size = Integer.highestOneBit(Math.max(2 * INITIAL_CAPACITY, 2 * allocated)) << 1;
+        unique = new int[size];
+        uniqueCount = 0;
+        for (int node = 0; node < highWaterMark; node++) {
+            if (variables[node] != FREE) {
+                insertIntoUniqueTable(node);
+            }
+        }
+    }
+
+    /**************************************************************
+     *** Garbage collection
+     *************************************************************/
+
+    /**
+     * Marks the nodes reachable from the referenced ones.
+     * @return the number of marked nodes.
+     */
+    private int mark() {
+        epoch++;
+        int marked = 0;
+        for (int node = 0; node < highWaterMark; node++) {
+            if (variables[node] != FREE && references[node] > 0) {
+                marked += markFrom(node);
+            }
+        }
+        return marked;
+    }
+
+    private int markFrom(int root) {
+        if (marks[root] == epoch) {
+            return 0;
+        }
+        int marked = 0;
+        int top = 0;
+        stack[top++] = root;
+        marks[root] = epoch;
+        while (top > 0) {
+            int node = stack[--top];
+            marked++;
+            if (!isConstant(node)) {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                int thenNode = thenOf(node);
+                int elseNode = elseOf(node);
+                if (marks[thenNode] != epoch) {
+                    marks[thenNode] = epoch;
+                    stack[top++] = thenNode;
+                }
+                if (marks[elseNode] != epoch) {
+                    marks[elseNode] = epoch;
+                    stack[top++] = elseNode;
+                }
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Frees every node which is not reachable from a referenced one.
+     * @return the number of nodes left.
+     */
+    private int collect() {
+        mark();
+        boolean freed = false;
+        for (int node = 0; node < highWaterMark; node++) {
+            if (variables[node] != FREE && marks[node] != epoch) {
+                free(node);
+                freed = true;
+            }
+        }
+        if (freed) {
+            // Handles of freed nodes are about to be reused.
+            Arrays.fill(cacheResults, NONE);
+        }
+        rebuildUniqueTable();
+        return allocated;
+    }
+
+    private void free(int node) {
+        variables[node] = FREE;
+        children[node] = freeList;
+        freeList = node;
+        allocated--;
+    }
+
+    /**
+     * @return the nodes reachable from {@code f}, children before parents.
+     */
+    private int[] reachable(int f) {
+        epoch++;
+        int[] order = new int[16];
+        int count = 0;
+        // Each stack entry is a node, negated (minus one) once expanded.
+        int top = 0;
+        stack[top++] = f;
+        marks[f] = epoch;
+        while (top > 0) {
+            int entry = stack[--top];
+            if (entry < 0 || isConstant(entry)) {
+                if (count == order.length) {
+                    order = Arrays.copyOf(order, 2 * count);
+                }
+                order[count++] = (entry < 0) ? -entry - 1 : entry;
+                continue;
+            }
+            if (top + 3 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top++] = -entry - 1;
+            int thenNode = thenOf(entry);
+            int elseNode = elseOf(entry);
+            if (marks[thenNode] != epoch) {
+                marks[thenNode] = epoch;
+                stack[top++] = thenNode;
+            }
+            if (marks[elseNode] != epoch) {
+                marks[elseNode] = epoch;
+                stack[top++] = elseNode;
+            }
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    /**
+     * Key of the results of a fused evaluation, by operands.
+     */
+    private static final class OperandTuple {
+        private final int[] operands;
+        private final int hash;
+
+        OperandTuple(int[] operands) {
+            this.operands = operands;
+            this.hash = Arrays.hashCode(operands);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof OperandTuple && Arrays.equals(operands, ((OperandTuple) obj).operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**************************************************************
+     *** Computed table
+     *************************************************************/
+
+    private void resizeCache(int capacity) {
+        int size = Math.min(MAX_CACHE_SIZE, Integer.highestOneBit(capacity));
+        cacheFirstKeys = new long[size];
+        cacheSecondKeys = new long[size];
+        cacheResults = new int[size];
+        Arrays.fill(cacheResults, NONE);
+    }
+
+    private int cacheSlot(long firstKey, long secondKey) {
+        long hash = (firstKey * 0x9E3779B97F4A7C15L) ^ (secondKey * 0xC2B2AE3D27D4EB4FL);
+        return (int) (hash ^ (hash >>> 32)) & (cacheResults.length - 1);
+    }
+
+    private int cacheLookup(int operation, int f, int g, int h) {
+        long firstKey = pack(operation, f);
+        long secondKey = pack(g, h);
+        int slot = cacheSlot(firstKey, secondKey);
+        if (cacheResults[slot] != NONE
+                && cacheFirstKeys[slot] == firstKey
+                && cacheSecondKeys[slot] == secondKey) {
+            return cacheResults[slot];
+        }
+        return NONE;
+    }
+
+    private void cacheInsert(int operation, int f, int g, int h, int result) {
+        long firstKey = pack(operation, f);
+        long secondKey = pack(g, h);
+        int slot = cacheSlot(firstKey, secondKey);
+        cacheFirstKeys[slot] = firstKey;
+        cacheSecondKeys[slot] = secondKey;
+        cacheResults[slot] = result;
+    }
+
+}
@@ -0,0 +1,29 @@
+package jadd;
+
+/**
+ * Heuristics for reordering the variables of an ADD manager. They are
+ * those of CUDD; the pure-Java backend resorts to sifting for all of them.
+ */
+public enum ReorderingHeuristic {
+    /**
+     * Moves each variable to its best position, one at a time.
+     */
+    SIFT,
+    /**
+     * Sifting which keeps symmetric variables together.
+     */
+    SYMM_SIFT,
+    /**
+     * Permutes windows of (up to 4) adjacent variables until convergence.
+     */
+    WINDOW,
+    /**
+     * Simulated annealing.
+     */
+    ANNEALING,
+    /**
+     * Genetic algorithm.
+     */
+    GENETIC;
+
+}
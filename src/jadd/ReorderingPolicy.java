@@ -0,0 +1,133 @@
+package jadd;
+
+/**
+ * Settings for reordering the variables of an ADD manager, which take
+ * effect upon {@link JADD#setReorderingPolicy(ReorderingPolicy)}.
+ *
+ * Variables may be reordered explicitly ({@link JADD#reorderVariables()})
+ * or dynamically, i.e., whenever the number of nodes reaches a threshold.
+ * After each dynamic reordering, CUDD sets the next threshold to twice the
+ * number of nodes left.
+ */
+public class ReorderingPolicy {
+    /**
+     * Number of nodes which triggers the first dynamic reordering (CUDD's default).
+     */
+    public static final int DEFAULT_FIRST_REORDERING_THRESHOLD = 4004;
+    /**
+     * Growth allowed while moving a variable around (CUDD's default).
+     */
+    public static final double DEFAULT_MAX_GROWTH = 1.2;
+
+    private ReorderingHeuristic heuristic = ReorderingHeuristic.SYMM_SIFT;
+    private boolean dynamic = false;
+    private int firstReorderingThreshold = DEFAULT_FIRST_REORDERING_THRESHOLD;
+    private double maxGrowth = DEFAULT_MAX_GROWTH;
+    private int maxReorderings = Integer.MAX_VALUE;
+    private long timeLimit = 0;
+
+    public ReorderingHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public void setHeuristic(ReorderingHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * @return whether variables are reordered whenever the number of nodes
+     *      reaches a threshold.
+     */
+    public boolean isDynamic() {
+        return dynamic;
+    }
+
+    public void setDynamic(boolean dynamic) {
+        this.dynamic = dynamic;
+    }
+
+    public int getFirstReorderingThreshold() {
+        return firstReorderingThreshold;
+    }
+
+    /**
+     * @param firstReorderingThreshold Number of nodes which triggers the first
+     *      dynamic reordering.
+     */
+    public void setFirstReorderingThreshold(int firstReorderingThreshold) {
+        if (firstReorderingThreshold < 1) {
+            throw new IllegalArgumentException("The reordering threshold must be positive");
+        }
+        this.firstReorderingThreshold = firstReorderingThreshold;
+    }
+
+    public double getMaxGrowth() {
+        return maxGrowth;
+    }
+
+    /**
+     * @param maxGrowth Factor by which the number of nodes may grow while
+     *      a variable is moved around (e.g., 1.2 for 20%).
+     */
+    public void setMaxGrowth(double maxGrowth) {
+        if (maxGrowth < 1) {
+            throw new IllegalArgumentException("The maximum growth must be at least 1");
+        }
+        this.maxGrowth = maxGrowth;
+    }
+
+    public int getMaxReorderings() {
+        return maxReorderings;
+    }
+
+    /**
+     * @param maxReorderings Maximum number of dynamic reorderings, after
+     *      which the order is kept as it is.
+     */
+    public void setMaxReorderings(int maxReorderings) {
+        if (maxReorderings < 0) {
+            throw new IllegalArgumentException("The maximum number of reorderings must not be negative");
+        }
+        this.maxReorderings = maxReorderings;
+    }
+
+    /**
+     * @return the time budget for each explicit reordering, in milliseconds
+     *      (0 for none).
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Sets a time budget for each explicit reordering, after which the best
+     * order found so far is kept. It does not apply to dynamic reorderings,
+     * since CUDD would abort the operation which triggered them instead;
+     * these are bounded by {@link #setMaxReorderings(int)}.
+     *
+     * @param timeLimit Time budget in milliseconds, or 0 for none.
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("The time limit must not be negative");
+        }
+        this.timeLimit = timeLimit;
+    }
+
+    @Override
+    public String toString() {
+        String description = heuristic.toString();
+        if (dynamic) {
+            description += ", dynamic from " + firstReorderingThreshold + " nodes";
+            if (maxReorderings != Integer.MAX_VALUE) {
+                description += " (at most " + maxReorderings + " times)";
+            }
+        }
+        description += ", max growth " + maxGrowth;
+        if (timeLimit > 0) {
+            description += ", time limit " + timeLimit + " ms";
+        }
+        return description;
+    }
+
+}
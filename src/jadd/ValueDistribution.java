@@ -0,0 +1,304 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+
+/**
+ * Distribution of the values of an ADD over configurations, when each
+ * feature is selected independently with a given probability (by default,
+ * 1/2, so that all configurations are equally likely).
+ *
+ * It is computed by a single traversal of the decision diagram, which
+ * propagates the probability of reaching each node from the root down to
+ * the terminals. Thus, aggregate queries (e.g., how many configurations
+ * yield a non-zero value, or what their mean value is) take time linear
+ * in the size of the ADD, regardless of the number of configurations.
+ *
+ * A distribution is immutable and it stays valid regardless of what
+ * happens to the ADD it was computed from.
+ */
+public final class ValueDistribution {
+    private static final int TERMINAL = -1;
+
+    private final FeatureDictionary dictionary;
+    private final double[] selectionProbabilities;
+
+    // Terminals, by id, and the probability of reaching each of them.
+    private final int[] terminals;
+    private final double[] values;
+    private final double[] probabilities;
+
+    // Nodes, by id: the variable of internal nodes (or TERMINAL) and, for
+    // each node, the node from which it was first reached (-1 for the root)
+    // and whether it was through the then branch. These make up a path to
+    // any reachable terminal.
+    private final int[] variables;
+    private final int[] predecessors;
+    private final boolean[] reachedThroughThen;
+
+    private ValueDistribution(FeatureDictionary dictionary, double[] selectionProbabilities, int[] terminals,
+                              double[] values, double[] probabilities, int[] variables, int[] predecessors,
+                              boolean[] reachedThroughThen) {
+        this.dictionary = dictionary;
+        this.selectionProbabilities = selectionProbabilities;
+        this.terminals = terminals;
+        this.values = values;
+        this.probabilities = probabilities;
+        this.variables = variables;
+        this.predecessors = predecessors;
+        this.reachedThroughThen = reachedThroughThen;
+    }
+
+    /**
+     * Computes the distribution of {@code function}'s values.
+     *
+     * @param selectionProbabilities Probability of each feature (by name)
+     *      being selected. Features not mapped are selected with probability 1/2.
+     * @throws UnrecognizedVariableException if a feature is unknown to the manager.
+     */
+    static ValueDistribution compute(ADDBackend backend, long function, VariableStore variableStore,
+                                     Map<String, Double> selectionProbabilities) throws UnrecognizedVariableException {
+        FeatureDictionary dictionary = variableStore.getFeatureDictionary();
+        double[] probabilityOf = new double[dictionary.size()];
+        Arrays.fill(probabilityOf, 0.5);
+        for (Map.Entry<String, Double> entry : selectionProbabilities.entrySet()) {
+            int index = dictionary.indexOf(entry.getKey());
+            if (index < 0) {
+                throw new UnrecognizedVariableException(entry.getKey());
+            }
+            double probability = entry.getValue();
+            if (!(probability >= 0 && probability <= 1)) {
+                throw new IllegalArgumentException("Invalid probability for feature " + entry.getKey() + ": " + probability);
+            }
+            probabilityOf[index] = probability;
+        }
+
+        // Nodes in post-order, i.e., children before parents.
+        Map<Long, Integer> ids = new HashMap<Long, Integer>();
+        long[] nodes = postOrder(backend, function, ids);
+        int size = nodes.length;
+        int[] variables = new int[size];
+        int[] thenChildren = new int[size];
+        int[] elseChildren = new int[size];
+        int numTerminals = 0;
+        for (int id = 0; id < size; id++) {
+            if (backend.isConstant(nodes[id])) {
+                variables[id] = TERMINAL;
+                numTerminals++;
+            } else {
+                variables[id] = backend.variableIndex(nodes[id]);
+                thenChildren[id] = ids.get(backend.thenChild(nodes[id]));
+                elseChildren[id] = ids.get(backend.elseChild(nodes[id]));
+            }
+        }
+
+        // The root is the last node in post-order, and parents are always
+        // visited before their children in reverse post-order.
+        double[] reached = new double[size];
+        int[] predecessors = new int[size];
+        boolean[] reachedThroughThen = new boolean[size];
+        Arrays.fill(predecessors, -1);
+        reached[size - 1] = 1;
+        for (int id = size - 1; id >= 0; id--) {
+            if (variables[id] != TERMINAL && reached[id] > 0) {
+                double probability = probabilityOf[variables[id]];
+                propagate(id, thenChildren[id], reached[id] * probability, true, reached, predecessors, reachedThroughThen);
+                propagate(id, elseChildren[id], reached[id] * (1 - probability), false, reached, predecessors, reachedThroughThen);
+            }
+        }
+
+        int[] terminals = new int[numTerminals];
+        double[] values = new double[numTerminals];
+        double[] probabilities = new double[numTerminals];
+        numTerminals = 0;
+        for (int id = 0; id < size; id++) {
+            if (variables[id] == TERMINAL) {
+                terminals[numTerminals] = id;
+                values[numTerminals] = backend.value(nodes[id]);
+                probabilities[numTerminals] = reached[id];
+                numTerminals++;
+            }
+        }
+        return new ValueDistribution(dictionary, probabilityOf, terminals, values, probabilities,
+                                     variables, predecessors, reachedThroughThen);
+    }
+
+    private static void propagate(int parent, int child, double probability, boolean throughThen,
+                                  double[] reached, int[] predecessors, boolean[] reachedThroughThen) {
+        if (probability > 0 && reached[child] == 0) {
+            predecessors[child] = parent;
+            reachedThroughThen[child] = throughThen;
+        }
+        reached[child] += probability;
+    }
+
+    /**
+     * Lists the nodes of the diagram rooted at {@code function}, assigning
+     * each one its position in the list as id. The traversal is iterative.
+     */
+    static long[] postOrder(ADDBackend backend, long function, Map<Long, Integer> ids) {
+        long[] nodes = new long[16];
+        Deque<Long> pending = new ArrayDeque<Long>();
+        Deque<Boolean> expanded = new ArrayDeque<Boolean>();
+        pending.push(function);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            long node = pending.pop();
+            boolean childrenVisited = expanded.pop();
+            if (ids.containsKey(node)) {
+                continue;
+            }
+            if (childrenVisited || backend.isConstant(node)) {
+                if (ids.size() == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                }
+                nodes[ids.size()] = node;
+                ids.put(node, ids.size());
+            } else {
+                pending.push(node);
+                expanded.push(true);
+                pending.push(backend.elseChild(node));
+                expanded.push(false);
+                pending.push(backend.thenChild(node));
+                expanded.push(false);
+            }
+        }
+        return Arrays.copyOf(nodes, ids.size());
+    }
+
+    /**
+     * @return the probability of a configuration yielding a value accepted
+     *      by {@code accepts}.
+     */
+    public double getProbability(DoublePredicate accepts) {
+        double probability = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (accepts.test(values[i])) {
+                probability += probabilities[i];
+            }
+        }
+        return probability;
+    }
+
+    /**
+     * @return the number of configurations, over all the features known to
+     *      the ADD manager, which yield a value accepted by {@code accepts}.
+     *      This is only meaningful if all configurations are equally likely.
+     */
+    public double countConfigurations(DoublePredicate accepts) {
+        return Math.scalb(getProbability(accepts), dictionary.size());
+    }
+
+    /**
+     * @return the expected value, given that it is accepted by {@code accepts},
+     *      or NaN if no value is.
+     */
+    public double getMean(DoublePredicate accepts) {
+        double sum = 0;
+        double probability = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (accepts.test(values[i]) && probabilities[i] > 0) {
+                sum += values[i] * probabilities[i];
+                probability += probabilities[i];
+            }
+        }
+        return (probability > 0) ? sum / probability : Double.NaN;
+    }
+
+    /**
+     * @return the least value accepted by {@code accepts} which some
+     *      configuration yields, or NaN if there is none.
+     */
+    public double getMinimum(DoublePredicate accepts) {
+        int terminal = extremeTerminal(accepts, false);
+        return (terminal < 0) ? Double.NaN : values[terminal];
+    }
+
+    /**
+     * @return the greatest value accepted by {@code accepts} which some
+     *      configuration yields, or NaN if there is none.
+     */
+    public double getMaximum(DoublePredicate accepts) {
+        int terminal = extremeTerminal(accepts, true);
+        return (terminal < 0) ? Double.NaN : values[terminal];
+    }
+
+    /**
+     * @return a configuration which yields {@link #getMinimum(DoublePredicate)},
+     *      or {@code null} if there is none.
+     */
+    public Configuration getMinimumWitness(DoublePredicate accepts) {
+        int terminal = extremeTerminal(accepts, false);
+        return (terminal < 0) ? null : witnessOf(terminals[terminal]);
+    }
+
+    /**
+     * @return a configuration which yields {@link #getMaximum(DoublePredicate)},
+     *      or {@code null} if there is none.
+     */
+    public Configuration getMaximumWitness(DoublePredicate accepts) {
+        int terminal = extremeTerminal(accepts, true);
+        return (terminal < 0) ? null : witnessOf(terminals[terminal]);
+    }
+
+    private int extremeTerminal(DoublePredicate accepts, boolean greatest) {
+        int extreme = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (probabilities[i] > 0 && accepts.test(values[i])
+                    && (extreme < 0 || (greatest ? values[i] > values[extreme] : values[i] < values[extreme]))) {
+                extreme = i;
+            }
+        }
+        return extreme;
+    }
+
+    /**
+     * Follows the path by which a node was first reached. Features not on
+     * the path take their most likely value.
+     */
+    private Configuration witnessOf(int node) {
+        long[] words = new long[Configuration.wordsFor(dictionary.size())];
+        boolean[] onPath = new boolean[dictionary.size()];
+        for (int child = node, parent = predecessors[node]; parent >= 0; child = parent, parent = predecessors[parent]) {
+            int variable = variables[parent];
+            onPath[variable] = true;
+            if (reachedThroughThen[child]) {
+                words[variable >>> Configuration.ADDRESS_BITS] |= 1L << variable;
+            }
+        }
+        for (int variable = 0; variable < dictionary.size(); variable++) {
+            if (!onPath[variable] && selectionProbabilities[variable] > 0.5) {
+                words[variable >>> Configuration.ADDRESS_BITS] |= 1L << variable;
+            }
+        }
+        return new Configuration(dictionary, words);
+    }
+
+    /**
+     * Splits {@code [lowerBound, upperBound]} into bins of equal width and
+     * sums up the probabilities of the accepted values in each of them.
+     * Values out of bounds are left out.
+     *
+     * @return the probability of each bin, from the lowest one up.
+     */
+    public double[] getHistogram(DoublePredicate accepts, double lowerBound, double upperBound, int bins) {
+        if (bins < 1 || !(lowerBound < upperBound)) {
+            throw new IllegalArgumentException("Invalid histogram: " + bins + " bins over [" + lowerBound + ", " + upperBound + "]");
+        }
+        double[] histogram = new double[bins];
+        double width = (upperBound - lowerBound) / bins;
+        for (int i = 0; i < values.length; i++) {
+            if (accepts.test(values[i]) && values[i] >= lowerBound && values[i] <= upperBound) {
+                // The upper bound belongs to the last bin.
+                int bin = Math.min(bins - 1, (int) ((values[i] - lowerBound) / width));
+                histogram[bin] += probabilities[i];
+            }
+        }
+        return histogram;
+    }
+
+}
@@ -0,0 +1,269 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+
+/**
+ * Best-first traversal of the paths of a decision diagram, which yields the
+ * configurations whose values are accepted by some criterion in increasing
+ * order of value.
+ *
+ * Each node is bounded by the least accepted value below it, and partial
+ * paths are kept in a priority queue by the bound of the node they lead to.
+ * Hence, when a path to a terminal comes out of the queue, no configuration
+ * left has a lesser value, so the (don't care) expansions of the path may be
+ * generated right away. The diagram is only explored as far as the
+ * configurations which are actually consumed.
+ *
+ * The diagram is compiled into plain arrays beforehand (as in
+ * {@link ConfigurationPredicate}), so the traversal needs no calls to the
+ * ADD backend.
+ */
+final class ValueOrderedSpliterator implements Spliterator<Collection<String>> {
+    private static final int REJECTED = Integer.MIN_VALUE;
+
+    private final FeatureDictionary dictionary;
+    private final int numVars;
+
+    // Internal nodes, by id, and the least accepted value below each one.
+    // Children are either other nodes' ids, accepted terminals (as -1 minus
+    // their index in terminalValues) or REJECTED.
+    private final int[] variables;
+    private final int[] thenChildren;
+    private final int[] elseChildren;
+    private final double[] bounds;
+    private final double[] terminalValues;
+
+    private final PriorityQueue<PartialPath> pending;
+    private long pathsCreated;
+
+    // Expansion of the current path (see ConfigurationPredicate).
+    private int[] dontCares;
+    private long nextCombination;
+    private long endCombination;
+    private long[] words;
+
+    private ValueOrderedSpliterator(FeatureDictionary dictionary, int root, int[] variables, int[] thenChildren,
+                                    int[] elseChildren, double[] terminalValues) {
+        this.dictionary = dictionary;
+        this.numVars = dictionary.size();
+        this.variables = variables;
+        this.thenChildren = thenChildren;
+        this.elseChildren = elseChildren;
+        this.terminalValues = terminalValues;
+        this.bounds = new double[variables.length];
+        Arrays.fill(bounds, Double.NaN);
+        this.pending = new PriorityQueue<PartialPath>();
+        if (root != REJECTED) {
+            pending.add(new PartialPath(root, boundOf(root), null, 0, false, pathsCreated++));
+        }
+    }
+
+    /**
+     * Compiles the decision diagram rooted at {@code function}, whose
+     * terminals are to be yielded if accepted by {@code accepts}.
+     */
+    static ValueOrderedSpliterator compile(ADDBackend backend, long function, VariableStore variableStore, DoublePredicate accepts) {
+        FeatureDictionary dictionary = variableStore.getFeatureDictionary();
+        Map<Long, Integer> ids = new HashMap<Long, Integer>();
+        Map<Double, Integer> terminals = new HashMap<Double, Integer>();
+        Deque<Long> unvisited = new ArrayDeque<Long>();
+        int[] variables = new int[16];
+        int[] thenChildren = new int[16];
+        int[] elseChildren = new int[16];
+
+        int root = idOf(backend, function, ids, terminals, unvisited, accepts);
+        while (!unvisited.isEmpty()) {
+            long node = unvisited.poll();
+            int id = ids.get(node);
+            if (id >= variables.length) {
+                variables = Arrays.copyOf(variables, 2 * variables.length);
+                thenChildren = Arrays.copyOf(thenChildren, 2 * thenChildren.length);
+                elseChildren = Arrays.copyOf(elseChildren, 2 * elseChildren.length);
+            }
+            variables[id] = backend.variableIndex(node);
+            thenChildren[id] = idOf(backend, backend.thenChild(node), ids, terminals, unvisited, accepts);
+            elseChildren[id] = idOf(backend, backend.elseChild(node), ids, terminals, unvisited, accepts);
+        }
+        double[] terminalValues = new double[terminals.size()];
+        for (Map.Entry<Double, Integer> terminal : terminals.entrySet()) {
+            terminalValues[terminal.getValue()] = terminal.getKey();
+        }
+        int size = ids.size();
+        return new ValueOrderedSpliterator(dictionary,
+                                           root,
+                                           Arrays.copyOf(variables, size),
+                                           Arrays.copyOf(thenChildren, size),
+                                           Arrays.copyOf(elseChildren, size),
+                                           terminalValues);
+    }
+
+    private static int idOf(ADDBackend backend, long node, Map<Long, Integer> ids, Map<Double, Integer> terminals,
+                            Deque<Long> unvisited, DoublePredicate accepts) {
+        if (backend.isConstant(node)) {
+            double value = backend.value(node);
+            if (!accepts.test(value)) {
+                return REJECTED;
+            }
+            Integer index = terminals.get(value);
+            if (index == null) {
+                index = terminals.size();
+                terminals.put(value, index);
+            }
+            return -1 - index;
+        }
+        Integer id = ids.get(node);
+        if (id == null) {
+            id = ids.size();
+            ids.put(node, id);
+            unvisited.add(node);
+        }
+        return id;
+    }
+
+    /**
+     * @return the least accepted value below a node (or the value of an
+     *      accepted terminal), or infinity if there is none.
+     */
+    private double boundOf(int node) {
+        if (node == REJECTED) {
+            return Double.POSITIVE_INFINITY;
+        } else if (node < 0) {
+            return terminalValues[-1 - node];
+        }
+        if (Double.isNaN(bounds[node])) {
+            bounds[node] = Math.min(boundOf(thenChildren[node]), boundOf(elseChildren[node]));
+        }
+        return bounds[node];
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Collection<String>> action) {
+        if (nextCombination == endCombination && !nextPath()) {
+            return false;
+        }
+        action.accept(nextExpandedConfiguration());
+        return true;
+    }
+
+    /**
+     * Expands partial paths, in order, until one of them reaches a terminal.
+     * @return false if there are no more paths.
+     */
+    private boolean nextPath() {
+        while (!pending.isEmpty()) {
+            PartialPath path = pending.poll();
+            if (path.node < 0) {
+                loadPath(path);
+                return true;
+            }
+            extend(path, thenChildren[path.node], true);
+            extend(path, elseChildren[path.node], false);
+        }
+        return false;
+    }
+
+    private void extend(PartialPath path, int child, boolean selected) {
+        double bound = boundOf(child);
+        if (bound != Double.POSITIVE_INFINITY) {
+            pending.add(new PartialPath(child, bound, path, variables[path.node], selected, pathsCreated++));
+        }
+    }
+
+    private void loadPath(PartialPath path) {
+        long[] cubeWords = new long[Configuration.wordsFor(numVars)];
+        boolean[] fixed = new boolean[numVars];
+        for (PartialPath step = path; step.parent != null; step = step.parent) {
+            fixed[step.variable] = true;
+            if (step.selected) {
+                cubeWords[step.variable >>> Configuration.ADDRESS_BITS] |= 1L << step.variable;
+            }
+        }
+        int numDontCares = 0;
+        for (int i = 0; i < numVars; i++) {
+            if (!fixed[i]) {
+                numDontCares++;
+            }
+        }
+        dontCares = new int[numDontCares];
+        numDontCares = 0;
+        for (int i = 0; i < numVars; i++) {
+            if (!fixed[i]) {
+                dontCares[numDontCares++] = i;
+            }
+        }
+        nextCombination = 0;
+        endCombination = 1L << dontCares.length;
+        words = cubeWords;
+    }
+
+    /**
+     * Combinations of "don't care" variables are enumerated in Gray code
+     * order, so each one flips a single variable of the previous one.
+     */
+    private Configuration nextExpandedConfiguration() {
+        Configuration configuration = new Configuration(dictionary, words.clone());
+        nextCombination++;
+        if (nextCombination < endCombination) {
+            int variable = dontCares[Long.numberOfTrailingZeros(nextCombination)];
+            words[variable >>> Configuration.ADDRESS_BITS] ^= 1L << variable;
+        }
+        return configuration;
+    }
+
+    /**
+     * Paths come out in order, so the traversal cannot be split.
+     */
+    @Override
+    public Spliterator<Collection<String>> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED | Spliterator.DISTINCT;
+    }
+
+    /**
+     * Path from the root to a node, which shares its prefix with the path
+     * to the parent node. Ties between bounds are broken by creation order.
+     */
+    private static final class PartialPath implements Comparable<PartialPath> {
+        private final int node;
+        private final double bound;
+        private final PartialPath parent;
+        // Variable of the parent node and the branch taken from it.
+        private final int variable;
+        private final boolean selected;
+        private final long sequence;
+
+        PartialPath(int node, double bound, PartialPath parent, int variable, boolean selected, long sequence) {
+            this.node = node;
+            this.bound = bound;
+            this.parent = parent;
+            this.variable = variable;
+            this.selected = selected;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PartialPath other) {
+            int byBound = Double.compare(bound, other.bound);
+            return (byBound != 0) ? byBound : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -9,10 +9,15 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+/**
+ * Bookkeeping of the variables of an ADD manager. It is safe for use
+ * by many threads.
+ */
 public class VariableStore {
     private Map<String, ADD> variables;
     private SortedMap<Short, String> variableNames;
     private Map<String, Short> variableIndices;
+    private FeatureDictionary featureDictionary;
 
     public VariableStore() {
         variables = new HashMap<String, ADD>();
@@ -20,29 +25,40 @@ public class VariableStore {
         variableIndices = new HashMap<String, Short>();
     }
 
-    public int getNumberOfVariables() {
+    public synchronized int getNumberOfVariables() {
         return variables.size();
     }
 
-    public boolean contains(String varName) {
+    public synchronized boolean contains(String varName) {
         return variables.containsKey(varName);
     }
 
-    public ADD get(String varName) {
+    public synchronized ADD get(String varName) {
         return variables.get(varName);
     }
 
-    public String getName(short varIndex) {
+    public synchronized String getName(short varIndex) {
         return variableNames.get(varIndex);
     }
 
-    public void put(short varIndex, String varName, ADD varADD) {
+    public synchronized void put(short varIndex, String varName, ADD varADD) {
         variables.put(varName, varADD);
         variableNames.put(varIndex, varName);
         variableIndices.put(varName, varIndex);
     }
 
-    public String[] getOrderedNames() {
+    /**
+     * @return a dictionary of all variables known so far, indexed as in
+     *      the presence vectors.
+     */
+    public synchronized FeatureDictionary getFeatureDictionary() {
+        if (featureDictionary == null || featureDictionary.size() != variableNames.size()) {
+            featureDictionary = new FeatureDictionary(this, getOrderedNames());
+        }
+        return featureDictionary;
+    }
+
+    public synchronized String[] getOrderedNames() {
         Collection<String> values = variableNames.values();
         return values.toArray(new String[values.size()]);
     }
@@ -55,7 +71,7 @@ public class VariableStore {
      * @return an array with 1 in every position whose index is equal to that
      *          of a present variable and 0 in every other position.
      */
-    public int[] toPresenceVector(String[] variables) throws UnrecognizedVariableException {
+    public synchronized int[] toPresenceVector(String[] variables) throws UnrecognizedVariableException {
         int[] presenceVector = new int[variableIndices.size()];
         Arrays.fill(presenceVector, 0);
         for (String var: variables) {
@@ -79,7 +95,7 @@ public class VariableStore {
      *          literal, and 2 stands for don't care.
      * @return
      */
-    public List<String> fromPresenceVector(int[] presenceVector) {
+    public synchronized List<String> fromPresenceVector(int[] presenceVector) {
         List<String> varNames = new LinkedList<String>();
         for (short i = 0; i < presenceVector.length; i++) {
             if (presenceVector[i] == 1) {
@@ -99,7 +115,7 @@ public class VariableStore {
      * @return an array with the current index of each variable in the order
      *      specified by {@code variables}.
      */
-    public int[] toPermutationVector(String[] variables) throws UnrecognizedVariableException {
+    public synchronized int[] toPermutationVector(String[] variables) throws UnrecognizedVariableException {
         int[] permutationVector = new int[variableIndices.size()];
         int i = 0;
         for (String var: variables) {
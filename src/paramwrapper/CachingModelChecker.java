@@ -0,0 +1,174 @@
+package paramwrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+import fdtmc.FDTMCFingerprint;
+
+/**
+ * Decorator which persists the reliability expressions computed by another
+ * {@link ParametricModelChecker}, so that models that have already been
+ * checked (in this or in a previous run) are not checked again.
+ *
+ * Entries are addressed by the name of the decorated model checker (e.g.,
+ * PARAM or PRISM, whose formulae are not interchangeable) and the
+ * {@link FDTMCFingerprint} of the model, one file per entry in the cache
+ * directory. At most {@code maxEntries} entries are
+ * kept; the least recently used ones are evicted (and deleted from disk) first.
+ * Recency survives across runs by means of the files' modification times.
+ */
+public class CachingModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(CachingModelChecker.class.getName());
+    private static final String ENTRY_SUFFIX = ".formula";
+
+    private ParametricModelChecker modelChecker;
+    private String modelCheckerName;
+    private IModelCollector modelCollector;
+    private Path cacheDirectory;
+    private int maxEntries;
+    /**
+     * Access-ordered index from fingerprints to formulae (LRU first).
+     */
+    private LinkedHashMap<String, String> entries;
+
+    public CachingModelChecker(ParametricModelChecker modelChecker, String modelCheckerName, Path cacheDirectory, int maxEntries) {
+        this(modelChecker, modelCheckerName, cacheDirectory, maxEntries, new NoopModelCollector());
+    }
+
+    /**
+     * @param modelCheckerName Identifies the formulae yielded by {@code modelChecker},
+     *          so that those of other model checkers in the same directory are not reused.
+     *          It must be usable in file names.
+     */
+    public CachingModelChecker(ParametricModelChecker modelChecker, String modelCheckerName, Path cacheDirectory, int maxEntries, IModelCollector modelCollector) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The model cache must hold at least one entry");
+        }
+        this.modelChecker = modelChecker;
+        this.modelCheckerName = modelCheckerName;
+        this.cacheDirectory = cacheDirectory;
+        this.maxEntries = maxEntries;
+        this.modelCollector = modelCollector;
+        this.entries = new LinkedHashMap<String, String>(16, 0.75f, true);
+        loadEntries();
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        String key = modelCheckerName + "-" + FDTMCFingerprint.of(fdtmc);
+        String formula = lookup(key);
+        if (formula != null) {
+            modelCollector.collectCacheHit();
+            return formula;
+        }
+        modelCollector.collectCacheMiss();
+        formula = modelChecker.getReliability(fdtmc);
+        // Failed model checking yields an empty formula, which must not be remembered.
+        if (formula != null && !formula.isEmpty()) {
+            store(key, formula);
+        }
+        return formula;
+    }
+
+    /**
+     * Closes the decorated model checker. Entries are persisted as they
+     * are stored, so there is nothing else to be released.
+     */
+    @Override
+    public void close() {
+        modelChecker.close();
+    }
+
+    /**
+     * @return the number of entries currently in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized String lookup(String key) {
+        String formula = entries.get(key);
+        if (formula != null) {
+            try {
+                Files.setLastModifiedTime(entryPath(key), FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not touch model cache entry " + key, e);
+            }
+        }
+        return formula;
+    }
+
+    private synchronized void store(String key, String formula) {
+        try {
+            Path temporary = Files.createTempFile(cacheDirectory, key, ".tmp");
+            Files.write(temporary, formula.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, entryPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not persist model cache entry " + key, e);
+        }
+        entries.put(key, formula);
+        evictExceedingEntries();
+    }
+
+    private void evictExceedingEntries() {
+        Iterator<Map.Entry<String, String>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && leastRecentlyUsed.hasNext()) {
+            String key = leastRecentlyUsed.next().getKey();
+            leastRecentlyUsed.remove();
+            try {
+                Files.deleteIfExists(entryPath(key));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not evict model cache entry " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Indexes the entries persisted by previous runs, oldest first.
+     */
+    private void loadEntries() {
+        List<File> files = new ArrayList<File>();
+        try {
+            Files.createDirectories(cacheDirectory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory, "*" + ENTRY_SUFFIX)) {
+                for (Path path : stream) {
+                    files.add(path.toFile());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not read model cache at " + cacheDirectory, e);
+            return;
+        }
+        files.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            String key = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+            try {
+                String formula = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                entries.put(key, formula);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Skipping unreadable model cache entry " + key, e);
+            }
+        }
+        evictExceedingEntries();
+    }
+
+    private Path entryPath(String key) {
+        return cacheDirectory.resolve(key + ENTRY_SUFFIX);
+    }
+
+}
@@ -6,6 +6,9 @@ public interface IModelCollector {
 
     public void collectModel(int variables, int states);
     public void collectModelCheckingTime(long elapsedTimeNanos);
+    public void collectCacheHit();
+    public void collectCacheMiss();
+    public void collectBytesWritten(long bytes);
     public void printStats(PrintStream out);
 
 }
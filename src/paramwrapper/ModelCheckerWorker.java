@@ -0,0 +1,164 @@
+package paramwrapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Long-lived model-checker process to be pooled by {@link ProcessPoolModelChecker}.
+ *
+ * Reads requests ({@link WorkerProtocol}) from the standard input until it is
+ * closed, model checks them in order and writes the responses to the standard
+ * output. Models are expected in PARAM's input language (as produced by
+ * {@link ParamModel}) and are checked in-process by state elimination, so this
+ * class also serves as a self-contained stub checker for tests.
+ *
+ * Usage: {@code ModelCheckerWorker [--delay-millis N]}, where the optional
+ * delay is added to each request in order to simulate a slow checker.
+ */
+public class ModelCheckerWorker {
+    private static final Logger LOGGER = Logger.getLogger(ModelCheckerWorker.class.getName());
+
+    private static final Pattern STATE_VARIABLE = Pattern.compile("^\\s*\\w+\\s*:\\s*\\[\\s*(\\d+)\\s*\\.\\.\\s*(\\d+)\\s*\\]\\s*init\\s+(\\d+)\\s*;");
+    private static final Pattern COMMAND = Pattern.compile("^\\s*\\[\\w*\\]\\s*\\w+\\s*=\\s*(\\d+)\\s*->(.*);\\s*$");
+    private static final Pattern UPDATE_TARGET = Pattern.compile("^\\s*:\\s*\\(\\s*\\w+'\\s*=\\s*(\\d+)\\s*\\)\\s*");
+    private static final Pattern LABEL = Pattern.compile("^\\s*label\\s*\"([^\"]*)\"\\s*=(.*);\\s*$");
+    private static final Pattern LABELED_STATE = Pattern.compile("\\w+\\s*=\\s*(\\d+)");
+    private static final Pattern EVENTUALLY = Pattern.compile("F\\s*\"([^\"]*)\"");
+
+    private ModelCheckerWorker() {
+        // NO-OP
+    }
+
+    public static void main(String[] args) throws IOException {
+        long delayMillis = 0;
+        for (int i = 0; i < args.length; i++) {
+            if ("--delay-millis".equals(args[i]) && i + 1 < args.length) {
+                delayMillis = Long.parseLong(args[++i]);
+            }
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        while (true) {
+            long id;
+            try {
+                id = in.readLong();
+            } catch (EOFException e) {
+                // The pool closed our input: time to go.
+                break;
+            }
+            String model = WorkerProtocol.readString(in);
+            String property = WorkerProtocol.readString(in);
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                String formula = check(model, property);
+                WorkerProtocol.writeResponse(out, id, WorkerProtocol.STATUS_OK, formula);
+            } catch (RuntimeException | InterruptedException e) {
+                LOGGER.log(Level.SEVERE, e.toString(), e);
+                WorkerProtocol.writeResponse(out, id, WorkerProtocol.STATUS_ERROR, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Computes the probability of eventually reaching the states labeled as
+     * in {@code property} (which must be of the form {@code P=? [ F "label" ]}).
+     */
+    static String check(String model, String property) {
+        Matcher eventually = EVENTUALLY.matcher(property);
+        if (!eventually.find()) {
+            throw new IllegalArgumentException("Unsupported property: " + property);
+        }
+        String targetLabel = eventually.group(1);
+
+        StateEliminationModelChecker.Graph graph = null;
+        List<Integer> sources = new ArrayList<Integer>();
+        List<Integer> targets = new ArrayList<Integer>();
+        List<String> probabilities = new ArrayList<String>();
+        List<Integer> targetStates = new ArrayList<Integer>();
+        for (String line : model.split("\n")) {
+            Matcher matcher = STATE_VARIABLE.matcher(line);
+            if (matcher.find()) {
+                int rangeEnd = Integer.parseInt(matcher.group(2));
+                graph = new StateEliminationModelChecker.Graph(rangeEnd + 1, Integer.parseInt(matcher.group(3)));
+                continue;
+            }
+            matcher = COMMAND.matcher(line);
+            if (matcher.find()) {
+                int source = Integer.parseInt(matcher.group(1));
+                parseUpdates(matcher.group(2), source, sources, targets, probabilities);
+                continue;
+            }
+            matcher = LABEL.matcher(line);
+            if (matcher.find() && matcher.group(1).equals(targetLabel)) {
+                Matcher state = LABELED_STATE.matcher(matcher.group(2));
+                while (state.find()) {
+                    targetStates.add(Integer.parseInt(state.group(1)));
+                }
+            }
+        }
+        if (graph == null) {
+            throw new IllegalArgumentException("Missing state variable declaration");
+        }
+        for (Integer state : targetStates) {
+            graph.setTarget(state);
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            graph.addTransition(sources.get(i), targets.get(i), probabilities.get(i));
+        }
+        return graph.solve().toString();
+    }
+
+    /**
+     * Parses updates of the form {@code (p1) : (s'=t1) + (p2) : (s'=t2) + ...}.
+     */
+    private static void parseUpdates(String updates, int source, List<Integer> sources, List<Integer> targets, List<String> probabilities) {
+        int position = 0;
+        while (position < updates.length()) {
+            int open = updates.indexOf('(', position);
+            if (open < 0) {
+                break;
+            }
+            int close = findClosingParenthesis(updates, open);
+            String probability = updates.substring(open + 1, close);
+            Matcher target = UPDATE_TARGET.matcher(updates.substring(close + 1));
+            if (!target.find()) {
+                throw new IllegalArgumentException("Malformed update: " + updates);
+            }
+            sources.add(source);
+            targets.add(Integer.parseInt(target.group(1)));
+            probabilities.add(probability);
+            position = close + 1 + target.end();
+            int plus = updates.indexOf('+', position);
+            if (plus < 0) {
+                break;
+            }
+            position = plus + 1;
+        }
+    }
+
+    private static int findClosingParenthesis(String text, int open) {
+        int depth = 0;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unbalanced parentheses: " + text);
+    }
+}
@@ -1,9 +1,11 @@
 package paramwrapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,6 +22,27 @@ import fdtmc.Transition;
 
 
 class ParamModel {
+	/**
+	 * Input language in which the model is to be written.
+	 */
+	enum Dialect {
+		/**
+		 * PARAM's language, in which parameters are declared as {@code param double x;}.
+		 */
+		PARAM("param"),
+		/**
+		 * Prism's language, in which parameters are declared as undefined
+		 * constants ({@code const double x;}).
+		 */
+		PRISM("const");
+
+		private final String parameterKeyword;
+
+		private Dialect(String parameterKeyword) {
+			this.parameterKeyword = parameterKeyword;
+		}
+	}
+
 	private String stateVariable = "s";
 	// TODO Deixar nome do módulo PARAM configurável.
 	private String moduleName = "dummyModule";
@@ -109,40 +132,59 @@ class ParamModel {
 		return tmpParameters;
 	}
 
-	@Override
-	public String toString() {
-		String params = "";
+	/**
+	 * Writes this model to {@code out} in the given dialect, in time linear
+	 * on the model's size.
+	 */
+	public void writeTo(Appendable out, Dialect dialect) throws IOException {
+		out.append("dtmc\n\n");
 		for (String parameter : parameters) {
-			params += "param double "+parameter+";\n";
+			out.append(dialect.parameterKeyword).append(" double ").append(parameter).append(";\n");
 		}
-		String module =
-				"dtmc\n" +
-				"\n" +
-				params +
-				"\n" +
-				"module " + moduleName + "\n" +
-				"	"+stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";" +
-				"\n";
+		out.append("\n")
+		   .append("module ").append(moduleName).append("\n")
+		   .append("\t").append(stateVariable)
+		   .append(" : [").append(Integer.toString(stateRangeStart))
+		   .append("..").append(Integer.toString(stateRangeEnd))
+		   .append("] init ").append(Integer.toString(initialState)).append(";\n");
 		for (Command command : commands.values()) {
-			module += "	"+command.makeString(stateVariable) + "\n";
+			out.append("\t");
+			command.appendTo(out, stateVariable);
+			out.append("\n");
 		}
-		module += "endmodule\n\n";
+		out.append("endmodule\n\n");
 		for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
-			String label = entry.getKey();
-			module += "label \""+label+"\" = ";
-
-			Set<Integer> states = entry.getValue();
-			int count = 1;
-			for (Integer state : states) {
-				module += stateVariable+"="+state;
-				if (count < states.size()) {
-					module += " | ";
+			out.append("label \"").append(entry.getKey()).append("\" = ");
+			boolean needsSeparator = false;
+			for (Integer state : entry.getValue()) {
+				if (needsSeparator) {
+					out.append(" | ");
+				} else {
+					needsSeparator = true;
 				}
-				count++;
+				out.append(stateVariable).append("=").append(state.toString());
 			}
-			module += ";\n";
+			out.append(";\n");
 		}
-		return module;
+	}
+
+	/**
+	 * @return this model in the given dialect.
+	 */
+	public String toString(Dialect dialect) {
+		StringBuilder builder = new StringBuilder();
+		try {
+			writeTo(builder, dialect);
+		} catch (IOException e) {
+			// StringBuilder does not throw IOException.
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toString(Dialect.PARAM);
 	}
 }
 
@@ -153,8 +195,8 @@ class Command {
 
 	public Command(int initialState) {
 		this.initialState = initialState;
-        this.updatesProbabilities = new LinkedList<String>();
-        this.updatesActions = new LinkedList<Integer>();
+        this.updatesProbabilities = new ArrayList<String>();
+        this.updatesActions = new ArrayList<Integer>();
 	}
 
 	public void addUpdate(String probability, int update) {
@@ -166,17 +208,29 @@ class Command {
 		return updatesProbabilities;
 	}
 
-	public String makeString(String stateVariable) {
-		String command = "[] "+stateVariable+"="+initialState+" -> ";
+	public void appendTo(Appendable out, String stateVariable) throws IOException {
+		out.append("[] ").append(stateVariable).append("=").append(Integer.toString(initialState)).append(" -> ");
 		boolean needsPlus = false;
 		for (int i = 0; i < updatesProbabilities.size(); i++) {
 		    if (needsPlus) {
-		        command += " + ";
+		        out.append(" + ");
 		    } else {
 		        needsPlus = true;
 		    }
-			command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+updatesActions.get(i)+")";
+			out.append("(").append(updatesProbabilities.get(i)).append(") : (")
+			   .append(stateVariable).append("'=").append(updatesActions.get(i).toString()).append(")");
 		}
-		return command+";";
+		out.append(";");
 	}
-}
\ No newline at end of file
+
+	public String makeString(String stateVariable) {
+		StringBuilder builder = new StringBuilder();
+		try {
+			appendTo(builder, stateVariable);
+		} catch (IOException e) {
+			// StringBuilder does not throw IOException.
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+}
@@ -3,13 +3,13 @@
  */
 package paramwrapper;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,15 +18,26 @@ import fdtmc.FDTMC;
 /**
  * Façade to a PARAM executable.
  *
+ * Models, properties and results are exchanged through a set of scratch
+ * files per thread (see {@link ScratchFiles}), which are reused across calls
+ * and deleted upon {@link #close()} (e.g., once the {@link tool.Analyzer}
+ * which uses this wrapper is closed) or, at the latest, when the JVM exits.
+ *
  * @author Thiago
  *
  */
 public class ParamWrapper implements ParametricModelChecker {
     private static final Logger LOGGER = Logger.getLogger(ParamWrapper.class.getName());
+    /**
+     * Suffix which PARAM appends to the given results file path.
+     */
+    static final String PARAM_RESULTS_SUFFIX = ".out";
 
 	private String paramPath;
 	private IModelCollector modelCollector;
 	private boolean usePrism = false;
+	private Set<ScratchFiles> allScratchFiles = ConcurrentHashMap.newKeySet();
+	private ThreadLocal<ScratchFiles> scratchFiles = ThreadLocal.withInitial(this::createScratchFiles);
 
     public ParamWrapper(String paramPath) {
         this(paramPath, new NoopModelCollector());
@@ -34,7 +45,7 @@ public class ParamWrapper implements ParametricModelChecker {
 
     public ParamWrapper(String paramPath, IModelCollector modelCollector) {
         this.paramPath = paramPath;
-        this.usePrism = paramPath.contains("prism");
+        this.usePrism = usesPrism(paramPath);
         this.modelCollector = modelCollector;
     }
 
@@ -48,95 +59,87 @@ public class ParamWrapper implements ParametricModelChecker {
 	public String getReliability(FDTMC fdtmc) {
 	    ParamModel model = new ParamModel(fdtmc);
         modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
-		String modelString = model.toString();
-
-		if (usePrism) {
-		    modelString = modelString.replace("param", "const");
-		}
 		String reliabilityProperty = "P=? [ F \"success\" ]";
 
-		return evaluate(modelString, reliabilityProperty, model);
+		return evaluate(model, reliabilityProperty);
 	}
 
-	private String evaluate(String modelString, String property, ParamModel model) {
-		try {
-		    LOGGER.finer(modelString);
-			File modelFile = File.createTempFile("model", "param");
-			FileWriter modelWriter = new FileWriter(modelFile);
-			modelWriter.write(modelString);
-			modelWriter.flush();
-			modelWriter.close();
-
-			File propertyFile = File.createTempFile("property", "prop");
-			FileWriter propertyWriter = new FileWriter(propertyFile);
-			propertyWriter.write(property);
-			propertyWriter.flush();
-			propertyWriter.close();
+    /**
+     * @return whether the executable at {@code paramPath} is Prism's, rather than PARAM's.
+     */
+    public static boolean usesPrism(String paramPath) {
+        return paramPath.contains("prism");
+    }
 
-			File resultsFile = File.createTempFile("result", null);
+	private String evaluate(ParamModel model, String property) {
+		try {
+		    ParamModel.Dialect dialect = usePrism ? ParamModel.Dialect.PRISM : ParamModel.Dialect.PARAM;
+		    if (LOGGER.isLoggable(Level.FINER)) {
+		        LOGGER.finer(model.toString(dialect));
+		    }
+		    ScratchFiles scratch = scratchFiles.get();
+		    ScratchFiles.ChannelWriter writer = scratch.openWriter(scratch.getModelFile());
+		    try (Writer out = writer) {
+		        model.writeTo(out, dialect);
+		    }
+		    // The count is final once the writer is closed (i.e., flushed).
+		    long bytesWritten = writer.getBytesWritten();
+		    bytesWritten += scratch.write(scratch.getPropertyFile(), property);
+		    modelCollector.collectBytesWritten(bytesWritten);
 
 			String formula;
 			long startTime = System.nanoTime();
-			if (usePrism && !modelString.contains("const")) {
-			    formula = invokeModelChecker(modelFile.getAbsolutePath(),
-			                                 propertyFile.getAbsolutePath(),
-			                                 resultsFile.getAbsolutePath());
-			} else if(usePrism) {
-			    formula = invokeParametricPRISM(model,
-			                                    modelFile.getAbsolutePath(),
-                                                propertyFile.getAbsolutePath(),
-                                                resultsFile.getAbsolutePath());
-			} else {
-			    formula = invokeParametricModelChecker(modelFile.getAbsolutePath(),
-			                                           propertyFile.getAbsolutePath(),
-			                                           resultsFile.getAbsolutePath());
+			try {
+			    if (usePrism && model.getParametersNumber() == 0) {
+			        formula = invokeModelChecker(scratch);
+			    } else if(usePrism) {
+			        formula = invokeParametricPRISM(model, scratch);
+			    } else {
+			        formula = invokeParametricModelChecker(scratch);
+			    }
+			} finally {
+			    scratch.deleteResults(PARAM_RESULTS_SUFFIX);
 			}
 			long elapsedTime = System.nanoTime() - startTime;
             modelCollector.collectModelCheckingTime(elapsedTime);
 			return formula.trim().replaceAll("\\s+", "");
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			LOGGER.log(Level.SEVERE, e.toString(), e);
 		}
 		return "";
 	}
 
-	private String invokeParametricModelChecker(String modelPath,
-												String propertyPath,
-												String resultsPath) throws IOException {
+	private String invokeParametricModelChecker(ScratchFiles scratch) throws IOException {
+		String resultsPath = scratch.getResultsFile().toString();
 		String commandLine = paramPath+" "
-							 +modelPath+" "
-							 +propertyPath+" "
+							 +scratch.getModelFile()+" "
+							 +scratch.getPropertyFile()+" "
 							 +"--result-file "+resultsPath;
-		return invokeAndGetResult(commandLine, resultsPath+".out");
+		return invokeAndGetResult(commandLine, scratch, Paths.get(resultsPath + PARAM_RESULTS_SUFFIX));
 	}
 
-    private String invokeParametricPRISM(ParamModel model,
-                                         String modelPath,
-                                         String propertyPath,
-                                         String resultsPath) throws IOException {
+    private String invokeParametricPRISM(ParamModel model, ScratchFiles scratch) throws IOException {
         String commandLine = paramPath+" "
-                             +modelPath+" "
-                             +propertyPath+" "
-                             +"-exportresults "+resultsPath+" "
+                             +scratch.getModelFile()+" "
+                             +scratch.getPropertyFile()+" "
+                             +"-exportresults "+scratch.getResultsFile()+" "
                              +"-param "+String.join(",", model.getParameters());
-        String rawResult = invokeAndGetResult(commandLine, resultsPath);
+        String rawResult = invokeAndGetResult(commandLine, scratch, scratch.getResultsFile());
         int openBracket = rawResult.indexOf("{");
         int closeBracket = rawResult.indexOf("}");
         String expression = rawResult.substring(openBracket+1, closeBracket);
         return expression.trim().replace('|', '/');
     }
 
-	private String invokeModelChecker(String modelPath,
-									  String propertyPath,
-									  String resultsPath) throws IOException {
+	private String invokeModelChecker(ScratchFiles scratch) throws IOException {
 		String commandLine = paramPath+" "
-				 			 +modelPath+" "
-				 			 +propertyPath+" "
-				 			 +"-exportresults "+resultsPath;
-		return invokeAndGetResult(commandLine, resultsPath);
+				 			 +scratch.getModelFile()+" "
+				 			 +scratch.getPropertyFile()+" "
+				 			 +"-exportresults "+scratch.getResultsFile();
+		return invokeAndGetResult(commandLine, scratch, scratch.getResultsFile());
 	}
 
-	private String invokeAndGetResult(String commandLine, String resultsPath) throws IOException {
+	private String invokeAndGetResult(String commandLine, ScratchFiles scratch, Path resultsPath) throws IOException {
 	    LOGGER.fine(commandLine);
 		Process program = Runtime.getRuntime().exec(commandLine);
 		int exitCode = 0;
@@ -146,10 +149,35 @@ public class ParamWrapper implements ParametricModelChecker {
 			LOGGER.severe("Exit code: " + exitCode);
 			LOGGER.log(Level.SEVERE, e.toString(), e);
 		}
-		List<String> lines = Files.readAllLines(Paths.get(resultsPath), Charset.forName("UTF-8"));
-		lines.removeIf(String::isEmpty);
 		// Formula
-		return lines.get(lines.size()-1);
+		return scratch.readLastLine(resultsPath);
+	}
+
+	/**
+	 * Deletes the scratch files used so far. This wrapper may still be
+	 * used afterwards, in which case new scratch files are created.
+	 */
+	@Override
+	public void close() {
+	    for (ScratchFiles scratch : allScratchFiles) {
+	        try {
+	            scratch.close();
+	        } catch (IOException e) {
+	            LOGGER.log(Level.WARNING, e.toString(), e);
+	        }
+	    }
+	    allScratchFiles.clear();
+	    scratchFiles = ThreadLocal.withInitial(this::createScratchFiles);
+	}
+
+	private ScratchFiles createScratchFiles() {
+	    try {
+	        ScratchFiles scratch = new ScratchFiles();
+	        allScratchFiles.add(scratch);
+	        return scratch;
+	    } catch (IOException e) {
+	        throw new UncheckedIOException(e);
+	    }
 	}
 
 }
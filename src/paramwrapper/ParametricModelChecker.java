@@ -10,7 +10,7 @@ import fdtmc.FDTMC;
  * @author Thiago
  *
  */
-public interface ParametricModelChecker {
+public interface ParametricModelChecker extends AutoCloseable {
 
 	/**
 	 * Evaluates the (parametric) reliability of an FDTMC.
@@ -21,4 +21,13 @@ public interface ParametricModelChecker {
 	 * @return Formula parameterized on the transition probabilities.
 	 */
 	public String getReliability(FDTMC fdtmc);
+
+	/**
+	 * Releases the resources (e.g., processes or files) held by this
+	 * model checker. It does nothing by default.
+	 */
+	@Override
+	public default void close() {
+		// NO-OP
+	}
 }
@@ -0,0 +1,425 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable multivariate polynomial with integer coefficients.
+ *
+ * Terms are kept in graded lexicographic order (highest degree first),
+ * which is also the order in which PARAM prints them.
+ */
+final class Polynomial {
+    static final Polynomial ZERO = new Polynomial(new TreeMap<Monomial, BigInteger>(Collections.reverseOrder()));
+    static final Polynomial ONE = constant(BigInteger.ONE);
+
+    /**
+     * Bits of precision of a double.
+     */
+    private static final int DOUBLE_PRECISION = 53;
+
+    private final TreeMap<Monomial, BigInteger> terms;
+
+    private Polynomial(TreeMap<Monomial, BigInteger> terms) {
+        this.terms = terms;
+    }
+
+    static Polynomial constant(BigInteger value) {
+        return monomial(Monomial.UNIT, value);
+    }
+
+    static Polynomial variable(String name) {
+        return monomial(Monomial.of(name), BigInteger.ONE);
+    }
+
+    private static Polynomial monomial(Monomial monomial, BigInteger coefficient) {
+        TreeMap<Monomial, BigInteger> terms = newTerms();
+        if (coefficient.signum() != 0) {
+            terms.put(monomial, coefficient);
+        }
+        return new Polynomial(terms);
+    }
+
+    private static TreeMap<Monomial, BigInteger> newTerms() {
+        return new TreeMap<Monomial, BigInteger>(Collections.reverseOrder());
+    }
+
+    boolean isZero() {
+        return terms.isEmpty();
+    }
+
+    boolean isConstant() {
+        return terms.isEmpty() || (terms.size() == 1 && terms.firstKey().isUnit());
+    }
+
+    boolean isOne() {
+        return isConstant() && BigInteger.ONE.equals(getConstantValue());
+    }
+
+    BigInteger getConstantValue() {
+        BigInteger value = terms.get(Monomial.UNIT);
+        return (value != null) ? value : BigInteger.ZERO;
+    }
+
+    BigInteger getLeadingCoefficient() {
+        return terms.isEmpty() ? BigInteger.ZERO : terms.firstEntry().getValue();
+    }
+
+    /**
+     * Greatest common divisor of all coefficients, carrying the sign
+     * of the leading coefficient.
+     */
+    BigInteger getContent() {
+        BigInteger content = BigInteger.ZERO;
+        for (BigInteger coefficient : terms.values()) {
+            content = content.gcd(coefficient);
+            if (content.equals(BigInteger.ONE)) {
+                break;
+            }
+        }
+        if (content.signum() == 0) {
+            return BigInteger.ONE;
+        }
+        return getLeadingCoefficient().signum() < 0 ? content.negate() : content;
+    }
+
+    void collectVariables(Set<String> variables) {
+        for (Monomial monomial : terms.keySet()) {
+            monomial.collectVariables(variables);
+        }
+    }
+
+    Polynomial add(Polynomial other) {
+        if (other.isZero()) {
+            return this;
+        }
+        if (this.isZero()) {
+            return other;
+        }
+        TreeMap<Monomial, BigInteger> sum = new TreeMap<Monomial, BigInteger>(terms);
+        for (Map.Entry<Monomial, BigInteger> term : other.terms.entrySet()) {
+            addTerm(sum, term.getKey(), term.getValue());
+        }
+        return new Polynomial(sum);
+    }
+
+    Polynomial negate() {
+        return multiply(BigInteger.ONE.negate());
+    }
+
+    Polynomial subtract(Polynomial other) {
+        return add(other.negate());
+    }
+
+    Polynomial multiply(BigInteger factor) {
+        if (factor.signum() == 0) {
+            return ZERO;
+        }
+        if (factor.equals(BigInteger.ONE)) {
+            return this;
+        }
+        TreeMap<Monomial, BigInteger> product = newTerms();
+        for (Map.Entry<Monomial, BigInteger> term : terms.entrySet()) {
+            product.put(term.getKey(), term.getValue().multiply(factor));
+        }
+        return new Polynomial(product);
+    }
+
+    Polynomial multiply(Polynomial other) {
+        if (this.isConstant()) {
+            return other.multiply(this.getConstantValue());
+        }
+        if (other.isConstant()) {
+            return this.multiply(other.getConstantValue());
+        }
+        TreeMap<Monomial, BigInteger> product = newTerms();
+        for (Map.Entry<Monomial, BigInteger> left : terms.entrySet()) {
+            for (Map.Entry<Monomial, BigInteger> right : other.terms.entrySet()) {
+                addTerm(product,
+                        left.getKey().multiply(right.getKey()),
+                        left.getValue().multiply(right.getValue()));
+            }
+        }
+        return new Polynomial(product);
+    }
+
+    /**
+     * Divides every coefficient by {@code divisor}, which must divide
+     * all of them.
+     */
+    Polynomial divideExactly(BigInteger divisor) {
+        if (divisor.equals(BigInteger.ONE)) {
+            return this;
+        }
+        TreeMap<Monomial, BigInteger> quotient = newTerms();
+        for (Map.Entry<Monomial, BigInteger> term : terms.entrySet()) {
+            quotient.put(term.getKey(), term.getValue().divide(divisor));
+        }
+        return new Polynomial(quotient);
+    }
+
+    /**
+     * Exact multivariate division.
+     *
+     * @param divisor A primitive (content 1) non-zero polynomial.
+     * @return the quotient if {@code divisor} divides this polynomial
+     *      exactly, or null otherwise.
+     */
+    Polynomial divide(Polynomial divisor) {
+        if (divisor.isOne()) {
+            return this;
+        }
+        Monomial divisorLeading = divisor.terms.firstKey();
+        BigInteger divisorCoefficient = divisor.getLeadingCoefficient();
+
+        TreeMap<Monomial, BigInteger> quotient = newTerms();
+        Polynomial remainder = this;
+        while (!remainder.isZero()) {
+            Map.Entry<Monomial, BigInteger> leading = remainder.terms.firstEntry();
+            Monomial factor = leading.getKey().divide(divisorLeading);
+            if (factor == null) {
+                return null;
+            }
+            BigInteger[] division = leading.getValue().divideAndRemainder(divisorCoefficient);
+            if (division[1].signum() != 0) {
+                return null;
+            }
+            quotient.put(factor, division[0]);
+            remainder = remainder.subtract(divisor.multiply(monomial(factor, division[0])));
+        }
+        return new Polynomial(quotient);
+    }
+
+    private static void addTerm(TreeMap<Monomial, BigInteger> terms, Monomial monomial, BigInteger coefficient) {
+        BigInteger sum = terms.containsKey(monomial) ? terms.get(monomial).add(coefficient) : coefficient;
+        if (sum.signum() == 0) {
+            terms.remove(monomial);
+        } else {
+            terms.put(monomial, sum);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Polynomial && terms.equals(((Polynomial) obj).terms);
+    }
+
+    @Override
+    public int hashCode() {
+        return terms.hashCode();
+    }
+
+    /**
+     * @return whether all coefficients are exactly representable as doubles,
+     *      so that evaluating this polynomial in floating point does not overflow.
+     */
+    boolean hasDoubleCoefficients() {
+        for (BigInteger coefficient : terms.values()) {
+            if (coefficient.bitLength() > DOUBLE_PRECISION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prints this polynomial in PARAM's syntax, e.g., {@code -1*r0*rFail+1*r0}.
+     */
+    @Override
+    public String toString() {
+        if (isZero()) {
+            return "0";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Monomial, BigInteger> term : terms.entrySet()) {
+            appendTerm(builder, term.getValue().signum(), term.getValue().toString(), term.getKey());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Prints this polynomial multiplied by {@code scale}, with coefficients
+     * rounded to decimal numbers of double precision, e.g., {@code -0.5*r0+1.25}.
+     */
+    String toString(BigDecimal scale) {
+        if (isZero()) {
+            return "0";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Monomial, BigInteger> term : terms.entrySet()) {
+            BigDecimal coefficient = new BigDecimal(term.getValue()).multiply(scale, MathContext.DECIMAL64)
+                    .stripTrailingZeros();
+            if (coefficient.scale() < 0) {
+                coefficient = coefficient.setScale(0);
+            }
+            appendTerm(builder, coefficient.signum(), coefficient.toString(), term.getKey());
+        }
+        return builder.toString();
+    }
+
+    private static void appendTerm(StringBuilder builder, int sign, String coefficient, Monomial monomial) {
+        if (builder.length() > 0 && sign > 0) {
+            builder.append('+');
+        }
+        builder.append(coefficient);
+        monomial.appendTo(builder);
+    }
+}
+
+/**
+ * Power product of variables, e.g., {@code r0^2*rFail}.
+ */
+final class Monomial implements Comparable<Monomial> {
+    static final Monomial UNIT = new Monomial(new String[0], new int[0]);
+
+    private final String[] variables;
+    private final int[] exponents;
+    private final int degree;
+
+    private Monomial(String[] variables, int[] exponents) {
+        this.variables = variables;
+        this.exponents = exponents;
+        int sum = 0;
+        for (int exponent : exponents) {
+            sum += exponent;
+        }
+        this.degree = sum;
+    }
+
+    static Monomial of(String variable) {
+        return new Monomial(new String[] {variable}, new int[] {1});
+    }
+
+    boolean isUnit() {
+        return variables.length == 0;
+    }
+
+    void collectVariables(Set<String> collected) {
+        collected.addAll(Arrays.asList(variables));
+    }
+
+    Monomial multiply(Monomial other) {
+        if (other.isUnit()) {
+            return this;
+        }
+        if (this.isUnit()) {
+            return other;
+        }
+        String[] newVariables = new String[variables.length + other.variables.length];
+        int[] newExponents = new int[newVariables.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length || j < other.variables.length) {
+            int comparison = compareNames(i, other, j);
+            if (comparison < 0) {
+                newVariables[k] = variables[i];
+                newExponents[k++] = exponents[i++];
+            } else if (comparison > 0) {
+                newVariables[k] = other.variables[j];
+                newExponents[k++] = other.exponents[j++];
+            } else {
+                newVariables[k] = variables[i];
+                newExponents[k++] = exponents[i++] + other.exponents[j++];
+            }
+        }
+        return new Monomial(Arrays.copyOf(newVariables, k), Arrays.copyOf(newExponents, k));
+    }
+
+    /**
+     * @return this / {@code other}, or null if {@code other} does not divide this monomial.
+     */
+    Monomial divide(Monomial other) {
+        if (other.isUnit()) {
+            return this;
+        }
+        String[] newVariables = new String[variables.length];
+        int[] newExponents = new int[variables.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length || j < other.variables.length) {
+            int comparison = compareNames(i, other, j);
+            if (comparison < 0) {
+                newVariables[k] = variables[i];
+                newExponents[k++] = exponents[i++];
+            } else if (comparison > 0) {
+                return null;
+            } else {
+                int exponent = exponents[i] - other.exponents[j];
+                if (exponent < 0) {
+                    return null;
+                } else if (exponent > 0) {
+                    newVariables[k] = variables[i];
+                    newExponents[k++] = exponent;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new Monomial(Arrays.copyOf(newVariables, k), Arrays.copyOf(newExponents, k));
+    }
+
+    /**
+     * Compares variable names at the given positions, treating an exhausted
+     * monomial as having names greater than any other.
+     */
+    private int compareNames(int i, Monomial other, int j) {
+        if (i >= variables.length) {
+            return 1;
+        }
+        if (j >= other.variables.length) {
+            return -1;
+        }
+        return variables[i].compareTo(other.variables[j]);
+    }
+
+    /**
+     * Graded lexicographic order.
+     */
+    @Override
+    public int compareTo(Monomial other) {
+        if (degree != other.degree) {
+            return Integer.compare(degree, other.degree);
+        }
+        int i = 0, j = 0;
+        while (i < variables.length && j < other.variables.length) {
+            int comparison = variables[i].compareTo(other.variables[j]);
+            if (comparison != 0) {
+                // The monomial holding the lexicographically smaller variable is greater.
+                return comparison < 0 ? 1 : -1;
+            }
+            if (exponents[i] != other.exponents[j]) {
+                return Integer.compare(exponents[i], other.exponents[j]);
+            }
+            i++;
+            j++;
+        }
+        return Integer.compare(variables.length - i, other.variables.length - j);
+    }
+
+    void appendTo(StringBuilder builder) {
+        for (int i = 0; i < variables.length; i++) {
+            builder.append('*').append(variables[i]);
+            if (exponents[i] > 1) {
+                builder.append('^').append(exponents[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Monomial)) {
+            return false;
+        }
+        Monomial other = (Monomial) obj;
+        return Arrays.equals(variables, other.variables) && Arrays.equals(exponents, other.exponents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(variables) + Arrays.hashCode(exponents);
+    }
+}
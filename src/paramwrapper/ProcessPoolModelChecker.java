@@ -0,0 +1,376 @@
+package paramwrapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+
+/**
+ * Parametric model checker which keeps a pool of long-lived worker processes
+ * and streams models to them over their standard input and output, instead of
+ * forking a new checker (and writing temporary files) for each model.
+ *
+ * Each worker may have up to {@link #PIPELINE_DEPTH} requests in flight, so
+ * that it does not sit idle while the next model is being sent. Callers block
+ * (back-pressure) when all workers are saturated. A request which exceeds the
+ * timeout causes its worker process to be killed and replaced; the other
+ * requests which were pending on that process are resubmitted once. Since
+ * workers answer in order, the timeout of a request only starts counting once
+ * it has been written to its worker and the previous request has been answered.
+ *
+ * Workers must speak the {@link WorkerProtocol}. By default,
+ * {@link ModelCheckerWorker} is spawned in a new JVM with this JVM's classpath.
+ */
+public class ProcessPoolModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(ProcessPoolModelChecker.class.getName());
+
+    static final int PIPELINE_DEPTH = 2;
+    private static final String RELIABILITY_PROPERTY = "P=? [ F \"success\" ]";
+    private static final int MAX_ATTEMPTS = 2;
+
+    private List<String> workerCommand;
+    private long timeoutMillis;
+    private IModelCollector modelCollector;
+
+    private List<Worker> workers;
+    private Semaphore slots;
+    private AtomicLong nextRequestId = new AtomicLong();
+    private volatile boolean closed = false;
+    // Kills the workers if the pool is not closed before the JVM exits
+    private Thread shutdownHook;
+
+    /**
+     * @param workerCommand Command line which starts a worker process.
+     * @param workersNumber Number of worker processes to keep alive.
+     * @param timeoutMillis Maximum time to wait for a single result, or 0 to wait indefinitely.
+     * @param modelCollector Collector for model stats.
+     */
+    public ProcessPoolModelChecker(List<String> workerCommand, int workersNumber, long timeoutMillis, IModelCollector modelCollector) {
+        if (workersNumber < 1) {
+            throw new IllegalArgumentException("There must be at least one worker");
+        }
+        this.workerCommand = new ArrayList<String>(workerCommand);
+        this.timeoutMillis = timeoutMillis;
+        this.modelCollector = modelCollector;
+        this.slots = new Semaphore(workersNumber * PIPELINE_DEPTH, true);
+        this.workers = new ArrayList<Worker>(workersNumber);
+        for (int i = 0; i < workersNumber; i++) {
+            workers.add(new Worker());
+        }
+        shutdownHook = new Thread(this::close);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public ProcessPoolModelChecker(int workersNumber, long timeoutMillis, IModelCollector modelCollector) {
+        this(getDefaultWorkerCommand(), workersNumber, timeoutMillis, modelCollector);
+    }
+
+    /**
+     * @return the command line which starts a {@link ModelCheckerWorker} with this JVM's classpath.
+     */
+    public static List<String> getDefaultWorkerCommand() {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return Arrays.asList(java,
+                             "-cp",
+                             System.getProperty("java.class.path"),
+                             ModelCheckerWorker.class.getName());
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        ParamModel model = new ParamModel(fdtmc);
+        modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
+        String modelString = model.toString();
+        LOGGER.finer(modelString);
+        modelCollector.collectBytesWritten(modelString.getBytes(StandardCharsets.UTF_8).length);
+
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+            Thread.currentThread().interrupt();
+            return "";
+        }
+        try {
+            long startTime = System.nanoTime();
+            String formula = submit(modelString, RELIABILITY_PROPERTY);
+            long elapsedTime = System.nanoTime() - startTime;
+            modelCollector.collectModelCheckingTime(elapsedTime);
+            return formula.trim().replaceAll("\\s+", "");
+        } finally {
+            slots.release();
+        }
+    }
+
+    private String submit(String model, String property) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Worker worker = getLeastLoadedWorker();
+            Request request;
+            try {
+                request = worker.send(nextRequestId.incrementAndGet(), model, property);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not reach model checker worker", e);
+                continue;
+            }
+            try {
+                return request.get(timeoutMillis);
+            } catch (TimeoutException e) {
+                LOGGER.severe("Model checking timed out after " + timeoutMillis + " ms; restarting worker");
+                // The worker may have been respawned meanwhile, and the new process must be spared.
+                worker.kill(request.connection);
+                return "";
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof WorkerFailure) {
+                    LOGGER.log(Level.WARNING, "Model checker worker failed; resubmitting", e.getCause());
+                    continue;
+                }
+                LOGGER.log(Level.SEVERE, e.getCause().toString(), e.getCause());
+                return "";
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.SEVERE, e.toString(), e);
+                Thread.currentThread().interrupt();
+                return "";
+            }
+        }
+        LOGGER.severe("Giving up model checking after " + MAX_ATTEMPTS + " attempts");
+        return "";
+    }
+
+    private Worker getLeastLoadedWorker() {
+        Worker leastLoaded = workers.get(0);
+        for (Worker worker : workers) {
+            if (worker.getLoad() < leastLoaded.getLoad()) {
+                leastLoaded = worker;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * Terminates all worker processes. Requests still pending will fail.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Worker worker : workers) {
+            worker.shutdown();
+        }
+        // Otherwise, the hook would keep this pool reachable until the JVM exits.
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is shutting down (e.g., this is the hook itself).
+        }
+    }
+
+    /**
+     * Signals that a worker process died or was killed, as opposed to a
+     * model checking error reported by the worker itself.
+     */
+    private static class WorkerFailure extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        WorkerFailure(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A pool slot, which (re)spawns its worker process on demand.
+     */
+    private class Worker {
+        private volatile Connection connection;
+
+        synchronized Request send(long id, String model, String property) throws IOException {
+            if (closed) {
+                throw new IOException("Model checker pool is closed");
+            }
+            if (connection == null || !connection.isAlive()) {
+                connection = new Connection(workerCommand);
+            }
+            Connection current = connection;
+            try {
+                return current.send(id, model, property);
+            } catch (IOException e) {
+                kill(current);
+                throw e;
+            }
+        }
+
+        int getLoad() {
+            Connection current = connection;
+            return (current == null) ? 0 : current.pending.size();
+        }
+
+        /**
+         * Kills the given worker process, which is replaced on the next request
+         * if it is still the current one.
+         */
+        synchronized void kill(Connection target) {
+            if (connection == target) {
+                connection = null;
+            }
+            target.terminate(new WorkerFailure("Worker killed"), true);
+        }
+
+        synchronized void shutdown() {
+            if (connection != null) {
+                connection.terminate(new WorkerFailure("Model checker pool closed"), false);
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * A request written to a worker process.
+     */
+    private static class Request {
+        final Connection connection;
+        final CompletableFuture<String> result;
+        /**
+         * Result of the request written to the same process right before this one.
+         */
+        final CompletableFuture<String> previous;
+
+        Request(Connection connection, CompletableFuture<String> result, CompletableFuture<String> previous) {
+            this.connection = connection;
+            this.result = result;
+            this.previous = previous;
+        }
+
+        /**
+         * Waits for the result, giving the worker up to {@code timeoutMillis}
+         * (or indefinitely, if 0) from the moment it has answered the previous
+         * request, i.e., from when it actually starts on this one.
+         */
+        String get(long timeoutMillis) throws InterruptedException, ExecutionException, TimeoutException {
+            if (timeoutMillis <= 0) {
+                return result.get();
+            }
+            try {
+                previous.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                // Reported to the previous request's caller. If the worker
+                // died, this request has failed as well.
+            }
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * A running worker process, along with the requests it has yet to answer.
+     */
+    private static class Connection {
+        private final Process process;
+        private final DataOutputStream requests;
+        private final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<Long, CompletableFuture<String>>();
+        private CompletableFuture<String> lastSent = CompletableFuture.completedFuture(null);
+
+        Connection(List<String> command) throws IOException {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            LOGGER.fine("Starting model checker worker: " + command);
+            process = builder.start();
+            requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+
+            Thread reader = new Thread(this::readResponses, "model-checker-worker-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Not thread-safe: requests to a process are written by its {@link Worker}.
+         */
+        Request send(long id, String model, String property) throws IOException {
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            pending.put(id, result);
+            try {
+                WorkerProtocol.writeRequest(requests, id, model, property);
+            } catch (IOException e) {
+                pending.remove(id);
+                throw e;
+            }
+            Request request = new Request(this, result, lastSent);
+            lastSent = result;
+            return request;
+        }
+
+        private void readResponses() {
+            DataInputStream responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            try {
+                while (true) {
+                    long id = responses.readLong();
+                    byte status = responses.readByte();
+                    String payload = WorkerProtocol.readString(responses);
+                    CompletableFuture<String> result = pending.remove(id);
+                    if (result == null) {
+                        // Request was given up on (e.g., timeout).
+                        continue;
+                    }
+                    if (status == WorkerProtocol.STATUS_OK) {
+                        result.complete(payload);
+                    } else {
+                        result.completeExceptionally(new IllegalStateException(payload));
+                    }
+                }
+            } catch (IOException e) {
+                failPending(new WorkerFailure("Worker exited: " + e));
+            }
+        }
+
+        void terminate(WorkerFailure cause, boolean forcibly) {
+            try {
+                requests.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e.toString(), e);
+            }
+            if (forcibly) {
+                process.destroyForcibly();
+            } else {
+                try {
+                    if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            failPending(cause);
+        }
+
+        private void failPending(WorkerFailure cause) {
+            for (Long id : new ArrayList<Long>(pending.keySet())) {
+                CompletableFuture<String> result = pending.remove(id);
+                if (result != null) {
+                    result.completeExceptionally(cause);
+                }
+            }
+        }
+    }
+}
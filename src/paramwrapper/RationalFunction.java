@@ -0,0 +1,383 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Set;
+
+/**
+ * Immutable quotient of two polynomials, scaled by a rational constant:
+ * (scaleNumerator * numerator) / (scaleDenominator * denominator).
+ *
+ * Both polynomials are kept primitive (content 1, positive leading
+ * coefficient), so that constant factors live only in the scale and
+ * exact polynomial division can be attempted whenever the quotient changes.
+ * There is no general multivariate GCD, so a rational function is only
+ * guaranteed to be in lowest terms when one polynomial divides the other.
+ */
+final class RationalFunction {
+    static final RationalFunction ZERO = new RationalFunction(BigInteger.ZERO, BigInteger.ONE, Polynomial.ONE, Polynomial.ONE);
+    static final RationalFunction ONE = new RationalFunction(BigInteger.ONE, BigInteger.ONE, Polynomial.ONE, Polynomial.ONE);
+
+    private final BigInteger scaleNumerator;
+    private final BigInteger scaleDenominator;
+    private final Polynomial numerator;
+    private final Polynomial denominator;
+
+    private RationalFunction(BigInteger scaleNumerator, BigInteger scaleDenominator, Polynomial numerator, Polynomial denominator) {
+        this.scaleNumerator = scaleNumerator;
+        this.scaleDenominator = scaleDenominator;
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    static RationalFunction constant(BigInteger numerator, BigInteger denominator) {
+        return normalize(numerator, denominator, Polynomial.ONE, Polynomial.ONE);
+    }
+
+    static RationalFunction variable(String name) {
+        return new RationalFunction(BigInteger.ONE, BigInteger.ONE, Polynomial.variable(name), Polynomial.ONE);
+    }
+
+    /**
+     * Parses a transition probability, which may be any arithmetic expression
+     * over decimal numbers and parameters using +, -, *, /, ^ and parentheses.
+     *
+     * @throws IllegalArgumentException if the expression is malformed.
+     */
+    static RationalFunction parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    boolean isZero() {
+        return scaleNumerator.signum() == 0;
+    }
+
+    boolean isOne() {
+        return numerator.isOne() && denominator.isOne() && scaleNumerator.equals(scaleDenominator);
+    }
+
+    void collectVariables(Set<String> variables) {
+        numerator.collectVariables(variables);
+        denominator.collectVariables(variables);
+    }
+
+    RationalFunction add(RationalFunction other) {
+        if (other.isZero()) {
+            return this;
+        }
+        if (this.isZero()) {
+            return other;
+        }
+        BigInteger left = scaleNumerator.multiply(other.scaleDenominator);
+        BigInteger right = other.scaleNumerator.multiply(scaleDenominator);
+        BigInteger commonScale = scaleDenominator.multiply(other.scaleDenominator);
+        if (denominator.equals(other.denominator)) {
+            return normalize(BigInteger.ONE,
+                             commonScale,
+                             numerator.multiply(left).add(other.numerator.multiply(right)),
+                             denominator);
+        }
+        Polynomial otherOverThis = other.denominator.divide(denominator);
+        if (otherOverThis != null) {
+            return normalize(BigInteger.ONE,
+                             commonScale,
+                             numerator.multiply(otherOverThis).multiply(left).add(other.numerator.multiply(right)),
+                             other.denominator);
+        }
+        Polynomial thisOverOther = denominator.divide(other.denominator);
+        if (thisOverOther != null) {
+            return normalize(BigInteger.ONE,
+                             commonScale,
+                             numerator.multiply(left).add(other.numerator.multiply(thisOverOther).multiply(right)),
+                             denominator);
+        }
+        return normalize(BigInteger.ONE,
+                         commonScale,
+                         numerator.multiply(other.denominator).multiply(left)
+                             .add(other.numerator.multiply(denominator).multiply(right)),
+                         denominator.multiply(other.denominator));
+    }
+
+    RationalFunction negate() {
+        return new RationalFunction(scaleNumerator.negate(), scaleDenominator, numerator, denominator);
+    }
+
+    RationalFunction subtract(RationalFunction other) {
+        return add(other.negate());
+    }
+
+    RationalFunction multiply(RationalFunction other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        }
+        // Cross-cancellation keeps intermediate polynomials small.
+        Polynomial leftNumerator = numerator;
+        Polynomial rightNumerator = other.numerator;
+        Polynomial leftDenominator = denominator;
+        Polynomial rightDenominator = other.denominator;
+        Polynomial cancelled = leftNumerator.divide(rightDenominator);
+        if (cancelled != null) {
+            leftNumerator = cancelled;
+            rightDenominator = Polynomial.ONE;
+        }
+        cancelled = rightNumerator.divide(leftDenominator);
+        if (cancelled != null) {
+            rightNumerator = cancelled;
+            leftDenominator = Polynomial.ONE;
+        }
+        return normalize(scaleNumerator.multiply(other.scaleNumerator),
+                         scaleDenominator.multiply(other.scaleDenominator),
+                         leftNumerator.multiply(rightNumerator),
+                         leftDenominator.multiply(rightDenominator));
+    }
+
+    RationalFunction reciprocal() {
+        if (isZero()) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return normalize(scaleDenominator, scaleNumerator, denominator, numerator);
+    }
+
+    RationalFunction divide(RationalFunction other) {
+        return multiply(other.reciprocal());
+    }
+
+    RationalFunction pow(int exponent) {
+        RationalFunction result = ONE;
+        for (int i = 0; i < exponent; i++) {
+            result = result.multiply(this);
+        }
+        return result;
+    }
+
+    private static RationalFunction normalize(BigInteger scaleNumerator,
+                                              BigInteger scaleDenominator,
+                                              Polynomial numerator,
+                                              Polynomial denominator) {
+        if (scaleNumerator.signum() == 0 || numerator.isZero()) {
+            return ZERO;
+        }
+        BigInteger numeratorContent = numerator.getContent();
+        numerator = numerator.divideExactly(numeratorContent);
+        scaleNumerator = scaleNumerator.multiply(numeratorContent);
+
+        BigInteger denominatorContent = denominator.getContent();
+        denominator = denominator.divideExactly(denominatorContent);
+        scaleDenominator = scaleDenominator.multiply(denominatorContent);
+
+        if (!denominator.isOne()) {
+            Polynomial quotient = numerator.divide(denominator);
+            if (quotient != null) {
+                numerator = quotient;
+                denominator = Polynomial.ONE;
+            } else if (!numerator.isOne()) {
+                quotient = denominator.divide(numerator);
+                if (quotient != null) {
+                    numerator = Polynomial.ONE;
+                    denominator = quotient;
+                }
+            }
+        }
+
+        if (scaleDenominator.signum() < 0) {
+            scaleNumerator = scaleNumerator.negate();
+            scaleDenominator = scaleDenominator.negate();
+        }
+        BigInteger gcd = scaleNumerator.gcd(scaleDenominator);
+        return new RationalFunction(scaleNumerator.divide(gcd),
+                                    scaleDenominator.divide(gcd),
+                                    numerator,
+                                    denominator);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RationalFunction)) {
+            return false;
+        }
+        RationalFunction other = (RationalFunction) obj;
+        return scaleNumerator.equals(other.scaleNumerator)
+                && scaleDenominator.equals(other.scaleDenominator)
+                && numerator.equals(other.numerator)
+                && denominator.equals(other.denominator);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * scaleNumerator.hashCode() + scaleDenominator.hashCode()) + numerator.hashCode();
+    }
+
+    /**
+     * Prints this function the way PARAM does: a plain polynomial when the
+     * denominator is 1, {@code (numerator)/(denominator)} otherwise.
+     *
+     * Exact integer coefficients easily outgrow doubles (e.g., products of
+     * many decimal probabilities), in which case the scale is folded into
+     * decimal coefficients instead, so that the result can still be evaluated
+     * in floating point.
+     */
+    @Override
+    public String toString() {
+        Polynomial scaledNumerator = numerator.multiply(scaleNumerator);
+        Polynomial scaledDenominator = denominator.multiply(scaleDenominator);
+        if (scaledNumerator.hasDoubleCoefficients() && scaledDenominator.hasDoubleCoefficients()) {
+            if (denominator.isOne() && scaleDenominator.equals(BigInteger.ONE)) {
+                return scaledNumerator.toString();
+            }
+            return "(" + scaledNumerator + ")/(" + scaledDenominator + ")";
+        }
+        // Denominator is made monic, so that its coefficients stay close to 1.
+        BigDecimal leadingCoefficient = new BigDecimal(denominator.getLeadingCoefficient());
+        BigDecimal numeratorScale = new BigDecimal(scaleNumerator)
+                .divide(new BigDecimal(scaleDenominator).multiply(leadingCoefficient), MathContext.DECIMAL64);
+        if (denominator.isOne()) {
+            return numerator.toString(numeratorScale);
+        }
+        BigDecimal denominatorScale = BigDecimal.ONE.divide(leadingCoefficient, MathContext.DECIMAL64);
+        return "(" + numerator.toString(numeratorScale) + ")/(" + denominator.toString(denominatorScale) + ")";
+    }
+
+    /**
+     * Recursive-descent parser for transition probabilities.
+     */
+    private static class Parser {
+        private final String input;
+        private int position;
+
+        Parser(String input) {
+            this.input = input;
+            this.position = 0;
+        }
+
+        RationalFunction parse() {
+            RationalFunction result = parseSum();
+            skipWhitespace();
+            if (position < input.length()) {
+                throw error("Unexpected character '" + input.charAt(position) + "'");
+            }
+            return result;
+        }
+
+        private RationalFunction parseSum() {
+            RationalFunction result = parseProduct();
+            while (true) {
+                if (accept('+')) {
+                    result = result.add(parseProduct());
+                } else if (accept('-')) {
+                    result = result.subtract(parseProduct());
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private RationalFunction parseProduct() {
+            RationalFunction result = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    result = result.multiply(parseUnary());
+                } else if (accept('/')) {
+                    result = result.divide(parseUnary());
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private RationalFunction parseUnary() {
+            if (accept('-')) {
+                return parseUnary().negate();
+            }
+            if (accept('+')) {
+                return parseUnary();
+            }
+            RationalFunction base = parsePrimary();
+            if (accept('^')) {
+                skipWhitespace();
+                int start = position;
+                while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+                if (start == position) {
+                    throw error("Expected integer exponent");
+                }
+                return base.pow(Integer.parseInt(input.substring(start, position)));
+            }
+            return base;
+        }
+
+        private RationalFunction parsePrimary() {
+            skipWhitespace();
+            if (accept('(')) {
+                RationalFunction result = parseSum();
+                if (!accept(')')) {
+                    throw error("Expected ')'");
+                }
+                return result;
+            }
+            if (position >= input.length()) {
+                throw error("Unexpected end of expression");
+            }
+            char current = input.charAt(position);
+            if (Character.isDigit(current) || current == '.') {
+                return parseNumber();
+            }
+            if (Character.isLetter(current) || current == '_') {
+                int start = position;
+                while (position < input.length()
+                        && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_')) {
+                    position++;
+                }
+                return variable(input.substring(start, position));
+            }
+            throw error("Unexpected character '" + current + "'");
+        }
+
+        private RationalFunction parseNumber() {
+            int start = position;
+            while (position < input.length()
+                    && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+                position++;
+            }
+            if (position < input.length() && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+                position++;
+                if (position < input.length() && (input.charAt(position) == '-' || input.charAt(position) == '+')) {
+                    position++;
+                }
+                while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+            }
+            BigDecimal value;
+            try {
+                value = new BigDecimal(input.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("Malformed number");
+            }
+            if (value.scale() <= 0) {
+                return constant(value.toBigIntegerExact(), BigInteger.ONE);
+            }
+            return constant(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+        }
+
+        private boolean accept(char expected) {
+            skipWhitespace();
+            if (position < input.length() && input.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of \"" + input + "\"");
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package paramwrapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Set of files through which models, properties and results are exchanged
+ * with an external model checker, along with a reusable direct buffer for
+ * moving their contents.
+ *
+ * The files are created once (preferably on a memory-backed file system)
+ * and reused for every model checked by the owner, which must therefore
+ * confine a given instance to a single thread at a time.
+ */
+final class ScratchFiles implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+
+    private final Path modelFile;
+    private final Path propertyFile;
+    private final Path resultsFile;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    ScratchFiles() throws IOException {
+        Path directory = getScratchDirectory();
+        modelFile = Files.createTempFile(directory, "model", ".param");
+        propertyFile = Files.createTempFile(directory, "property", ".prop");
+        // Only a name is reserved for the results, which are written by the model checker.
+        resultsFile = Files.createTempFile(directory, "result", null);
+        Files.delete(resultsFile);
+        // Files are deleted on close(); this is only a fallback for owners which are never closed.
+        modelFile.toFile().deleteOnExit();
+        propertyFile.toFile().deleteOnExit();
+    }
+
+    /**
+     * @return tmpfs if available, so that no disk I/O is involved,
+     *      or the default temporary directory otherwise.
+     */
+    static Path getScratchDirectory() {
+        if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+            return SHARED_MEMORY;
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    Path getModelFile() {
+        return modelFile;
+    }
+
+    Path getPropertyFile() {
+        return propertyFile;
+    }
+
+    Path getResultsFile() {
+        return resultsFile;
+    }
+
+    /**
+     * Replaces the contents of {@code file} by {@code content}.
+     *
+     * @return the number of bytes written.
+     */
+    long write(Path file, CharSequence content) throws IOException {
+        ChannelWriter writer = openWriter(file);
+        try (Writer out = writer) {
+            out.append(content);
+        }
+        // The count is final once the writer is closed (i.e., flushed).
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * Opens a writer which replaces the contents of {@code file}, encoding
+     * characters straight into the reusable direct buffer.
+     */
+    ChannelWriter openWriter(Path file) throws IOException {
+        return new ChannelWriter(FileChannel.open(file,
+                                                  StandardOpenOption.WRITE,
+                                                  StandardOpenOption.CREATE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * @return the last non-empty line of {@code file}.
+     */
+    String readLastLine(Path file) throws IOException {
+        StringBuilder contents = new StringBuilder();
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        decoder.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(buffer) < 0;
+                buffer.flip();
+                CoderResult result;
+                do {
+                    result = decoder.decode(buffer, chars, endOfInput);
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    chars.flip();
+                    contents.append(chars);
+                    chars.clear();
+                } while (result.isOverflow());
+                buffer.compact();
+            }
+            decoder.flush(chars);
+            chars.flip();
+            contents.append(chars);
+        }
+        int end = contents.length();
+        while (end > 0 && isLineBreak(contents.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && !isLineBreak(contents.charAt(start - 1))) {
+            start--;
+        }
+        return contents.substring(start, end);
+    }
+
+    /**
+     * Deletes whatever results the model checker has written, so that
+     * they are neither left behind nor mistaken for the next ones.
+     *
+     * @param suffixes Suffixes appended by the model checker to the results path.
+     */
+    void deleteResults(String... suffixes) throws IOException {
+        Files.deleteIfExists(resultsFile);
+        for (String suffix : suffixes) {
+            Files.deleteIfExists(Paths.get(resultsFile.toString() + suffix));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(modelFile);
+        Files.deleteIfExists(propertyFile);
+        deleteResults(ParamWrapper.PARAM_RESULTS_SUFFIX);
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /**
+     * Writer which encodes characters into the reusable direct buffer and
+     * drains it to a file channel whenever it fills up.
+     */
+    final class ChannelWriter extends Writer {
+        private final FileChannel channel;
+        private long bytesWritten = 0;
+        private boolean closed = false;
+
+        private ChannelWriter(FileChannel channel) {
+            this.channel = channel;
+            buffer.clear();
+            encoder.reset();
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            encode(CharBuffer.wrap(chars, offset, length), false);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            encode(CharBuffer.wrap(string, offset, offset + length), false);
+        }
+
+        @Override
+        public Writer append(CharSequence sequence) throws IOException {
+            encode(CharBuffer.wrap(sequence), false);
+            return this;
+        }
+
+        private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, endOfInput);
+                if (result.isError()) {
+                    throw new CharacterCodingException();
+                }
+                if (!result.isOverflow()) {
+                    return;
+                }
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                encode(CharBuffer.allocate(0), true);
+                while (encoder.flush(buffer).isOverflow()) {
+                    drain();
+                }
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
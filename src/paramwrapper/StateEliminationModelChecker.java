@@ -0,0 +1,284 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * In-process parametric model checker.
+ *
+ * Computes the reachability probability of the "success" states
+ * (i.e., the property {@code P=? [ F "success" ]}) directly on the FDTMC
+ * graph by means of state elimination over rational functions, the same
+ * technique used by PARAM. Results are printed in PARAM's syntax, so that
+ * they can be handed to the {@link expressionsolver.ExpressionSolver}
+ * interchangeably with the ones obtained from {@link ParamWrapper}.
+ *
+ * Unlike {@link ParamWrapper}, no files are written and no process is
+ * forked, which pays off when analyzing many small models.
+ */
+public class StateEliminationModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(StateEliminationModelChecker.class.getName());
+
+    private IModelCollector modelCollector;
+
+    public StateEliminationModelChecker() {
+        this(new NoopModelCollector());
+    }
+
+    public StateEliminationModelChecker(IModelCollector modelCollector) {
+        this.modelCollector = modelCollector;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        long startTime = System.nanoTime();
+
+        Graph graph = new Graph(fdtmc);
+        modelCollector.collectModel(graph.getParametersNumber(), graph.getStatesNumber());
+        String formula = graph.solve().toString();
+
+        long elapsedTime = System.nanoTime() - startTime;
+        modelCollector.collectModelCheckingTime(elapsedTime);
+        LOGGER.finer(formula);
+        return formula;
+    }
+
+    /**
+     * Mutable transition graph on which states are eliminated.
+     * States are identified by integers in the range [0, statesNumber).
+     */
+    static class Graph {
+        private final int statesNumber;
+        private final List<Map<Integer, RationalFunction>> successors;
+        private final List<Set<Integer>> predecessors;
+        private final boolean[] targets;
+        private final Set<String> parameters = new HashSet<String>();
+        private final Map<String, RationalFunction> parsedProbabilities = new HashMap<String, RationalFunction>();
+        private int initialState;
+
+        Graph(int statesNumber, int initialState) {
+            this.statesNumber = statesNumber;
+            this.initialState = initialState;
+            successors = new ArrayList<Map<Integer, RationalFunction>>(statesNumber);
+            predecessors = new ArrayList<Set<Integer>>(statesNumber);
+            targets = new boolean[statesNumber];
+            for (int state = 0; state < statesNumber; state++) {
+                successors.add(new LinkedHashMap<Integer, RationalFunction>());
+                predecessors.add(new LinkedHashSet<Integer>());
+            }
+        }
+
+        /**
+         * Builds the graph of {@code fdtmc}, in which states are identified by
+         * their position in the FDTMC's state collection and the targets are the
+         * ones labeled "success".
+         */
+        Graph(FDTMC fdtmc) {
+            this(fdtmc.getStates().size(), 0);
+            Map<State, Integer> positions = new HashMap<State, Integer>();
+            for (State state : fdtmc.getStates()) {
+                int position = positions.size();
+                positions.put(state, position);
+                if (FDTMC.SUCCESS_LABEL.equals(state.getLabel())) {
+                    setTarget(position);
+                }
+            }
+            initialState = positions.get(fdtmc.getInitialState());
+
+            for (Map.Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
+                if (entry.getValue() == null) {
+                    // Absorbing state, just like the implicit self-loop given to PARAM.
+                    continue;
+                }
+                int source = positions.get(entry.getKey());
+                for (Transition transition : entry.getValue()) {
+                    addTransition(source, positions.get(transition.getTarget()), transition.getProbability());
+                }
+            }
+        }
+
+        void setTarget(int state) {
+            targets[state] = true;
+        }
+
+        void addTransition(int source, int target, String probability) {
+            RationalFunction parsed = parsedProbabilities.get(probability);
+            if (parsed == null) {
+                parsed = RationalFunction.parse(probability);
+                parsed.collectVariables(parameters);
+                parsedProbabilities.put(probability, parsed);
+            }
+            addTransition(source, target, parsed);
+        }
+
+        int getStatesNumber() {
+            return statesNumber;
+        }
+
+        int getParametersNumber() {
+            return parameters.size();
+        }
+
+        /**
+         * @return the probability of eventually reaching a target state
+         *      from the initial state.
+         */
+        RationalFunction solve() {
+            if (targets[initialState]) {
+                return RationalFunction.ONE;
+            }
+            // Target states are made absorbing, since only the first visit matters.
+            for (int state = 0; state < statesNumber; state++) {
+                if (targets[state]) {
+                    removeSuccessors(state);
+                }
+            }
+            boolean[] relevant = canReachTarget();
+            if (!relevant[initialState]) {
+                return RationalFunction.ZERO;
+            }
+            // States that cannot reach a target contribute nothing (probability 0).
+            for (int state = 0; state < statesNumber; state++) {
+                if (!relevant[state]) {
+                    removeState(state);
+                }
+            }
+            eliminateIntermediateStates(relevant);
+
+            RationalFunction reachability = RationalFunction.ZERO;
+            RationalFunction selfLoop = RationalFunction.ZERO;
+            for (Map.Entry<Integer, RationalFunction> edge : successors.get(initialState).entrySet()) {
+                if (edge.getKey() == initialState) {
+                    selfLoop = edge.getValue();
+                } else {
+                    reachability = reachability.add(edge.getValue());
+                }
+            }
+            if (!selfLoop.isZero()) {
+                reachability = reachability.divide(RationalFunction.ONE.subtract(selfLoop));
+            }
+            return reachability;
+        }
+
+        private void addTransition(int source, int target, RationalFunction probability) {
+            Map<Integer, RationalFunction> edges = successors.get(source);
+            RationalFunction existing = edges.get(target);
+            edges.put(target, (existing == null) ? probability : existing.add(probability));
+            predecessors.get(target).add(source);
+        }
+
+        private void removeSuccessors(int state) {
+            for (Integer successor : successors.get(state).keySet()) {
+                predecessors.get(successor).remove(state);
+            }
+            successors.get(state).clear();
+        }
+
+        private void removeState(int state) {
+            removeSuccessors(state);
+            for (Integer predecessor : predecessors.get(state)) {
+                successors.get(predecessor).remove(state);
+            }
+            predecessors.get(state).clear();
+        }
+
+        private boolean[] canReachTarget() {
+            boolean[] reached = new boolean[statesNumber];
+            Deque<Integer> pending = new ArrayDeque<Integer>();
+            for (int state = 0; state < statesNumber; state++) {
+                if (targets[state]) {
+                    reached[state] = true;
+                    pending.push(state);
+                }
+            }
+            while (!pending.isEmpty()) {
+                for (Integer predecessor : predecessors.get(pending.pop())) {
+                    if (!reached[predecessor]) {
+                        reached[predecessor] = true;
+                        pending.push(predecessor);
+                    }
+                }
+            }
+            return reached;
+        }
+
+        /**
+         * Eliminates every relevant state other than the initial and the
+         * target ones, cheapest first (fewest new transitions created).
+         */
+        private void eliminateIntermediateStates(boolean[] relevant) {
+            PriorityQueue<long[]> queue = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+            boolean[] eliminated = new boolean[statesNumber];
+            for (int state = 0; state < statesNumber; state++) {
+                if (relevant[state] && !targets[state] && state != initialState) {
+                    queue.add(new long[] {eliminationCost(state), state});
+                }
+            }
+            while (!queue.isEmpty()) {
+                long[] candidate = queue.poll();
+                int state = (int) candidate[1];
+                if (eliminated[state]) {
+                    continue;
+                }
+                long cost = eliminationCost(state);
+                if (cost != candidate[0]) {
+                    // Stale entry: neighbors have been eliminated in the meantime.
+                    queue.add(new long[] {cost, state});
+                    continue;
+                }
+                Set<Integer> neighbors = new HashSet<Integer>(predecessors.get(state));
+                neighbors.addAll(successors.get(state).keySet());
+                eliminate(state);
+                eliminated[state] = true;
+                for (Integer neighbor : neighbors) {
+                    if (!eliminated[neighbor] && !targets[neighbor] && neighbor != initialState) {
+                        queue.add(new long[] {eliminationCost(neighbor), neighbor});
+                    }
+                }
+            }
+        }
+
+        private long eliminationCost(int state) {
+            return (long) predecessors.get(state).size() * successors.get(state).size();
+        }
+
+        /**
+         * Bypasses {@code state}: each path u -> state -> v is replaced by
+         * a transition u -> v with probability P(u,state) * P(state,v) / (1 - P(state,state)).
+         */
+        private void eliminate(int state) {
+            Map<Integer, RationalFunction> outgoing = successors.get(state);
+            RationalFunction selfLoop = outgoing.remove(state);
+            predecessors.get(state).remove(state);
+            RationalFunction loopFactor = (selfLoop == null)
+                    ? RationalFunction.ONE
+                    : RationalFunction.ONE.subtract(selfLoop).reciprocal();
+
+            for (Integer successor : outgoing.keySet()) {
+                predecessors.get(successor).remove(state);
+            }
+            for (Integer predecessor : predecessors.get(state)) {
+                RationalFunction incoming = successors.get(predecessor).remove(state).multiply(loopFactor);
+                for (Map.Entry<Integer, RationalFunction> edge : outgoing.entrySet()) {
+                    addTransition(predecessor, edge.getKey(), incoming.multiply(edge.getValue()));
+                }
+            }
+            predecessors.get(state).clear();
+            outgoing.clear();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package paramwrapper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framing of the messages exchanged between {@link ProcessPoolModelChecker}
+ * and its worker processes over the workers' standard input and output.
+ *
+ * A request is a request id (long) followed by the model and the property,
+ * each as a length-prefixed (int) UTF-8 string. A response is the id of the
+ * request it answers, a status byte and a length-prefixed UTF-8 payload,
+ * which is the formula if the status is {@link #STATUS_OK} or an error
+ * message otherwise. Clients may send several requests before reading the
+ * responses (pipelining); responses are matched to requests by id.
+ */
+final class WorkerProtocol {
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    private WorkerProtocol() {
+        // NO-OP
+    }
+
+    static void writeRequest(DataOutputStream out, long id, String model, String property) throws IOException {
+        out.writeLong(id);
+        writeString(out, model);
+        writeString(out, property);
+        out.flush();
+    }
+
+    static void writeResponse(DataOutputStream out, long id, byte status, String payload) throws IOException {
+        out.writeLong(id);
+        out.writeByte(status);
+        writeString(out, payload);
+        out.flush();
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -4,10 +4,17 @@
 package tool;
 
 import jadd.ADD;
+import jadd.ADDBackendType;
+import jadd.Configuration;
 import jadd.JADD;
+import jadd.ReorderingPolicy;
+import jadd.UnrecognizedVariableException;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 
 import paramwrapper.IModelCollector;
@@ -15,12 +22,16 @@ import paramwrapper.ParamWrapper;
 import paramwrapper.ParametricModelChecker;
 import tool.analyzers.IPruningStrategy;
 import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.IncrementalStore;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.strategies.FamilyBasedAnalyzer;
 import tool.analyzers.strategies.FamilyProductBasedAnalyzer;
 import tool.analyzers.strategies.FeatureFamilyBasedAnalyzer;
 import tool.analyzers.strategies.FeatureProductBasedAnalyzer;
 import tool.analyzers.strategies.ProductBasedAnalyzer;
+import tool.ordering.IVariableOrdering;
+import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
 import tool.stats.NoopFormulaCollector;
@@ -35,11 +46,13 @@ import expressionsolver.ExpressionSolver;
  *
  * @author thiago
  */
-public class Analyzer {
+public class Analyzer implements AutoCloseable {
 
     private ADD featureModel;
     private ParametricModelChecker modelChecker;
     private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditions;
+    private IncrementalStore incrementalStore;
     private JADD jadd;
 
     private ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.PARALLEL;
@@ -62,7 +75,57 @@ public class Analyzer {
      * @throws IOException if there is a problem reading the file.
      */
     public Analyzer(String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
-        this(new JADD(), featureModel, paramPath, timeCollector, formulaCollector, modelCollector);
+        this(new JADD(),
+             featureModel,
+             ModelCheckerFactory.createModelChecker(ModelCheckingStrategy.PARAM, paramPath, modelCollector),
+             new ReorderingPolicy(),
+             null,
+             timeCollector,
+             formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer which will follow the logical rules
+     * encoded in the provided feature model file and delegate
+     * model checking to the given parametric model checker.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param modelChecker Parametric model checker to be used for
+     *          computing reliability expressions.
+     */
+    public Analyzer(String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(), featureModel, modelChecker, new ReorderingPolicy(), null, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer whose ADD variables are reordered according to
+     * the given policy.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param modelChecker Parametric model checker to be used for
+     *          computing reliability expressions.
+     * @param reorderingPolicy
+     * @param variableOrdering Heuristic for the initial order of the features,
+     *          computed from the feature model before any ADD is built
+     *          (see {@link VariableOrderingFactory}). If null (or if it yields
+     *          no order), variables are reordered by the policy's heuristic
+     *          right after parsing the feature model.
+     */
+    public Analyzer(String featureModel, ParametricModelChecker modelChecker, ReorderingPolicy reorderingPolicy, IVariableOrdering variableOrdering, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(ADDBackendType.getDefault(), featureModel, modelChecker, reorderingPolicy, variableOrdering, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer whose ADDs are handled by the given backend,
+     * regardless of the {@code jadd.backend} system property.
+     *
+     * @param addBackend Backend of the Analyzer's ADD manager.
+     * @see #Analyzer(String, ParametricModelChecker, ReorderingPolicy, IVariableOrdering, ITimeCollector, IFormulaCollector)
+     */
+    public Analyzer(ADDBackendType addBackend, String featureModel, ParametricModelChecker modelChecker, ReorderingPolicy reorderingPolicy, IVariableOrdering variableOrdering, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(addBackend), featureModel, modelChecker, reorderingPolicy, variableOrdering, timeCollector, formulaCollector);
     }
 
     /**
@@ -72,7 +135,7 @@ public class Analyzer {
      * @param featureModel
      */
     Analyzer(JADD jadd, String featureModel, String paramPath) {
-        this(jadd, featureModel, paramPath, null, null, null);
+        this(jadd, featureModel, new ParamWrapper(paramPath), new ReorderingPolicy(), null, null, null);
     }
 
 
@@ -81,17 +144,32 @@ public class Analyzer {
      * @param jadd
      * @param featureModel
      */
-    private Analyzer(JADD jadd, String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+    private Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker, ReorderingPolicy reorderingPolicy, IVariableOrdering variableOrdering, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this.timeCollector = (timeCollector != null) ? timeCollector : new NoopTimeCollector();
         this.jadd = jadd;
+        jadd.setReorderingPolicy(reorderingPolicy);
         this.expressionSolver = new ExpressionSolver(jadd);
+
+        this.timeCollector.startTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        List<String> variableOrder = (variableOrdering != null) ? variableOrdering.getVariableOrder(featureModel) : null;
+        this.timeCollector.stopTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+
         this.featureModel = expressionSolver.encodeFormula(featureModel);
-        // The feature model contains all used variables, so we expect to
-        // be able to generate an optimal ordering right after parsing it.
-        jadd.reorderVariables();
 
-        this.timeCollector = (timeCollector != null) ? timeCollector : new NoopTimeCollector();
+        this.timeCollector.startTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        if (variableOrder != null) {
+            jadd.applyVariableOrder(variableOrder);
+        } else {
+            // The feature model contains all used variables, so we expect to
+            // be able to generate an optimal ordering right after parsing it.
+            jadd.reorderVariables();
+        }
+        this.timeCollector.stopTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        // Shared by all analyzers, so that each presence condition is encoded once.
+        this.presenceConditions = new PresenceConditionCache(expressionSolver);
+
         this.formulaCollector = (formulaCollector != null) ? formulaCollector : new NoopFormulaCollector();
-        this.modelChecker = (modelCollector != null) ? new ParamWrapper(paramPath, modelCollector) : new ParamWrapper(paramPath);
+        this.modelChecker = modelChecker;
 
         this.featureFamilyBasedAnalyzerImpl = new FeatureFamilyBasedAnalyzer(this.jadd,
                                                                              this.featureModel,
@@ -100,10 +178,12 @@ public class Analyzer {
                                                                              this.formulaCollector);
         this.featureProductBasedAnalyzerImpl = new FeatureProductBasedAnalyzer(this.jadd,
                                                                                this.modelChecker,
+                                                                               this.presenceConditions,
                                                                                this.timeCollector,
                                                                                this.formulaCollector);
         this.productBasedAnalyzerImpl = new ProductBasedAnalyzer(this.jadd,
                                                                  this.modelChecker,
+                                                                 this.presenceConditions,
                                                                  this.timeCollector,
                                                                  this.formulaCollector);
         this.familyBasedAnalyzerImpl = new FamilyBasedAnalyzer(this.jadd,
@@ -113,18 +193,36 @@ public class Analyzer {
                                                                this.formulaCollector);
         this.familyProductBasedAnalyzerImpl = new FamilyProductBasedAnalyzer(this.jadd,
                                                                              this.modelChecker,
+                                                                             this.presenceConditions,
                                                                              this.timeCollector,
                                                                              this.formulaCollector);
     }
 
     /**
-     * Returns the set of all valid configurations according to the feature model.
+     * Returns the set of all valid configurations according to the feature model,
+     * encoded as {@link Configuration}s.
      * @return
      */
     public Stream<Collection<String>> getValidConfigurations() {
         return featureModel.getExpandedConfigurations();
     }
 
+    /**
+     * Encodes a configuration as a compact {@link Configuration}, which
+     * is cheaper to store, hash and evaluate than a collection of names.
+     *
+     * @return the encoded configuration or, if it refers to a feature
+     *      which is not in the feature model, the configuration itself
+     *      (so that the unknown feature is reported upon analysis).
+     */
+    public Collection<String> encodeConfiguration(Collection<String> configuration) {
+        try {
+            return jadd.getFeatureDictionary().toConfiguration(configuration);
+        } catch (UnrecognizedVariableException e) {
+            return configuration;
+        }
+    }
+
     /**
      * Returns true if and only if {@code configuration} is valid according
      * to the feature model.
@@ -149,10 +247,41 @@ public class Analyzer {
         this.featureFamilyBasedAnalyzerImpl.setPruningStrategy(pruningStrategy);
     }
 
+    /**
+     * Makes feature-family-based analyses incremental, keeping their state in
+     * the given directory. Subsequent analyses (in this or in later runs) only
+     * evaluate the RDG nodes affected by changes to the models since the
+     * previous one.
+     * @see IncrementalStore
+     */
+    public void setIncrementalAnalysis(Path directory) {
+        this.incrementalStore = new IncrementalStore(directory, jadd);
+        this.featureFamilyBasedAnalyzerImpl.setIncrementalStore(incrementalStore);
+    }
+
+    /**
+     * Writes the current order of the features to a file, so that it may
+     * be reused by later runs.
+     * @see JADD#writeVariableOrder(Path)
+     */
+    public void exportVariableOrder(Path file) throws IOException {
+        jadd.writeVariableOrder(file);
+    }
+
     public void setConcurrencyStrategy(ConcurrencyStrategy concurrencyStrategy) {
         this.concurrencyStrategy = concurrencyStrategy;
     }
 
+    /**
+     * Closes the model checker, which thus releases its resources
+     * (e.g., worker processes or scratch files) deterministically.
+     * No analysis may be carried out afterwards.
+     */
+    @Override
+    public void close() {
+        modelChecker.close();
+    }
+
     /**
      * Evaluates the feature-family-based reliability function of an RDG node, based
      * on the reliabilities of the nodes on which it depends.
@@ -231,6 +360,17 @@ public class Analyzer {
         return familyProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
+    /**
+     * Prints statistics about the analyses performed so far
+     * (e.g., reuse of encoded presence conditions).
+     */
+    public void printStats(PrintStream output) {
+        presenceConditions.printStats(output);
+        if (incrementalStore != null) {
+            incrementalStore.printStats(output);
+        }
+    }
+
     /**
      * Dumps the computed family reliability function to the output file
      * in the specified path.
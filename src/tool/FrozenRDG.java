@@ -0,0 +1,161 @@
+package tool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the RDG below a given node (its root).
+ *
+ * Each node is identified by a dense integer id, which is its position in
+ * topological order (dependencies first, so the root is the last one), and
+ * dependencies are kept as arrays of such ids. Thus, traversals take time
+ * linear in the size of the RDG and do not hash any node. The hash code of
+ * each node is kept as well, as of the time the snapshot was taken. It is
+ * computed from those of its dependencies, so that the RDG below each node
+ * is not hashed over and over.
+ *
+ * Later changes to the nodes (e.g., new dependencies) are not reflected
+ * in the snapshot.
+ */
+public final class FrozenRDG {
+    // Mark of the nodes whose dependencies are still being visited
+    private static final int VISITING = -1;
+
+    private final RDGNode[] nodes;
+    private final int[][] dependencies;
+    private final int[] hashes;
+    private final Map<RDGNode, Integer> ids;
+
+    private FrozenRDG(RDGNode[] nodes, int[][] dependencies, int[] hashes, Map<RDGNode, Integer> ids) {
+        this.nodes = nodes;
+        this.dependencies = dependencies;
+        this.hashes = hashes;
+        this.ids = ids;
+    }
+
+    /**
+     * Takes a snapshot of the RDG below {@code root}.
+     *
+     * Nodes are sorted by Cormen et al.'s topological sort algorithm, visiting
+     * dependencies in iteration order, but without recursion.
+     *
+     * @throws CyclicRdgException if there is a path with a cycle starting from the root.
+     */
+    public static FrozenRDG of(RDGNode root) throws CyclicRdgException {
+        Map<RDGNode, Integer> ids = new IdentityHashMap<RDGNode, Integer>();
+        List<RDGNode> sorted = new ArrayList<RDGNode>();
+
+        Deque<RDGNode> path = new ArrayDeque<RDGNode>();
+        Deque<Iterator<RDGNode>> pendingDependencies = new ArrayDeque<Iterator<RDGNode>>();
+        ids.put(root, VISITING);
+        path.push(root);
+        pendingDependencies.push(root.getDependencies().iterator());
+        while (!path.isEmpty()) {
+            Iterator<RDGNode> pending = pendingDependencies.peek();
+            if (pending.hasNext()) {
+                RDGNode dependency = pending.next();
+                Integer id = ids.get(dependency);
+                if (id == null) {
+                    ids.put(dependency, VISITING);
+                    path.push(dependency);
+                    pendingDependencies.push(dependency.getDependencies().iterator());
+                } else if (id == VISITING) {
+                    throw new CyclicRdgException();
+                }
+            } else {
+                pendingDependencies.pop();
+                RDGNode node = path.pop();
+                ids.put(node, sorted.size());
+                sorted.add(node);
+            }
+        }
+
+        int size = sorted.size();
+        RDGNode[] nodes = sorted.toArray(new RDGNode[size]);
+        int[][] dependencies = new int[size][];
+        int[] hashes = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] adjacent = new int[nodes[i].getDependencies().size()];
+            int j = 0;
+            for (RDGNode dependency : nodes[i].getDependencies()) {
+                adjacent[j++] = ids.get(dependency);
+            }
+            dependencies[i] = adjacent;
+            // Dependencies come first, so their hash codes are already known.
+            // As with RDGNode#hashCode(), a set of them hashes to their sum.
+            int hash = nodes[i].getOwnHashCode();
+            for (int dependency : adjacent) {
+                hash += hashes[dependency];
+            }
+            hashes[i] = hash;
+        }
+        return new FrozenRDG(nodes, dependencies, hashes, ids);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public RDGNode getRoot() {
+        return nodes[nodes.length - 1];
+    }
+
+    public RDGNode getNode(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @return the id of the given node, or -1 if it is not part of this RDG.
+     */
+    public int getId(RDGNode node) {
+        Integer id = ids.get(node);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * @return the ids of the nodes on which the given one depends.
+     */
+    public int[] getDependencies(int id) {
+        return dependencies[id].clone();
+    }
+
+    /**
+     * @return the hash code of the given node as of the snapshot.
+     */
+    public int getHash(int id) {
+        return hashes[id];
+    }
+
+    /**
+     * @return the nodes ordered bottom-up (depended-upon to dependent), i.e., by id.
+     */
+    public List<RDGNode> getNodesInTopologicalOrder() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    /**
+     * Computes the number of paths from the root to every node, by adding
+     * the count of each node to its dependencies', from the root down.
+     *
+     * @return the number of paths leading to each node, by id.
+     */
+    public int[] getNumberOfPaths() {
+        int[] numberOfPaths = new int[nodes.length];
+        // A node always has a path to itself.
+        numberOfPaths[nodes.length - 1] = 1;
+        for (int id = nodes.length - 1; id >= 0; id--) {
+            for (int dependency : dependencies[id]) {
+                numberOfPaths[dependency] += numberOfPaths[id];
+            }
+        }
+        return numberOfPaths;
+    }
+
+}
@@ -0,0 +1,76 @@
+package tool;
+
+import java.util.List;
+
+import paramwrapper.IModelCollector;
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParamWrapper;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.ProcessPoolModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+
+public class ModelCheckerFactory {
+
+    private ModelCheckerFactory() {
+        // NO-OP
+    }
+
+    /**
+     * @param strategySelection Which model checker to use.
+     * @param paramPath Path to the PARAM or Prism executable (ignored for in-process model checking).
+     * @param modelCollector Collector for model stats. May be null.
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector) {
+        return createModelChecker(strategySelection,
+                                  paramPath,
+                                  Runtime.getRuntime().availableProcessors(),
+                                  0,
+                                  null,
+                                  modelCollector);
+    }
+
+    /**
+     * @param strategySelection Which model checker to use.
+     * @param paramPath Path to the PARAM or Prism executable (ignored for in-process model checking).
+     * @param workers Number of worker processes (only for the worker pool).
+     * @param timeoutMillis Per-model timeout, or 0 for none (only for the worker pool).
+     * @param workerCommand Command line which starts a worker process, or null for the
+     *          default one (only for the worker pool).
+     * @param modelCollector Collector for model stats. May be null.
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            int workers,
+                                                            long timeoutMillis,
+                                                            List<String> workerCommand,
+                                                            IModelCollector modelCollector) {
+        IModelCollector collector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+        switch (strategySelection) {
+        case STATE_ELIMINATION:
+            return new StateEliminationModelChecker(collector);
+        case WORKER_POOL:
+            List<String> command = (workerCommand != null) ? workerCommand : ProcessPoolModelChecker.getDefaultWorkerCommand();
+            return new ProcessPoolModelChecker(command, workers, timeoutMillis, collector);
+        case PARAM:
+        default:
+            return new ParamWrapper(paramPath, collector);
+        }
+    }
+
+    /**
+     * @param strategySelection Which model checker is used.
+     * @param paramPath Path to the PARAM or Prism executable (ignored for in-process model checking).
+     * @return the name of the model checker created for the same arguments
+     *      (PARAM, PRISM, STATE_ELIMINATION or WORKER_POOL), which tells
+     *      its formulae apart from those of the other ones.
+     */
+    public static String getModelCheckerName(ModelCheckingStrategy strategySelection, String paramPath) {
+        if (strategySelection == ModelCheckingStrategy.PARAM && ParamWrapper.usesPrism(paramPath)) {
+            return "PRISM";
+        }
+        return strategySelection.name();
+    }
+
+}
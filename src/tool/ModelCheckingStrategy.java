@@ -0,0 +1,16 @@
+package tool;
+
+public enum ModelCheckingStrategy {
+    /**
+     * External PARAM (or Prism) executable.
+     */
+    PARAM,
+    /**
+     * In-process state elimination.
+     */
+    STATE_ELIMINATION,
+    /**
+     * Pool of long-lived model-checker worker processes.
+     */
+    WORKER_POOL
+}
@@ -1,23 +1,37 @@
 package tool;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import tool.analyzers.buildingblocks.Component;
 import fdtmc.FDTMC;
+import fdtmc.FDTMCFingerprint;
 
 
 public class RDGNode {
 
 	//This reference is used to store all the RDGnodes created during the evaluation
 	private static Map<String, RDGNode> rdgNodes = new HashMap<String, RDGNode>();
-	private static List<RDGNode> nodesInCreationOrder = new LinkedList<RDGNode>();
+	/**
+	 * Candidates for {@link #getSimilarNode(RDGNode)}, by {@link #getSimilarityKey()
+	 * similarity key}, each list being sorted in creation order.
+	 */
+	private static Map<String, List<RDGNode>> indexedNodes = new HashMap<String, List<RDGNode>>();
+	// Nodes which changed since they were last indexed (if ever), by presence condition
+	private static Map<String, Set<RDGNode>> outdatedNodes = new HashMap<String, Set<RDGNode>>();
 
     private static int lastNodeIndex = 0;
+    private static int createdNodes = 0;
 
 	// Node identifier
 	private String id;
@@ -34,6 +48,14 @@ public class RDGNode {
 	 * Height of the RDGNode.
 	 */
 	private int height;
+	// Nodes which depend on this one
+	private List<RDGNode> dependents;
+	// Position of this node in creation order
+	private int creationIndex;
+	// Key under which the node is indexed, if it is
+	private String similarityKey;
+	// Digest of the presence condition and model, if up to date
+	private String structureKey;
 
 
 	/**
@@ -51,10 +73,13 @@ public class RDGNode {
 	    this.presenceCondition = presenceCondition;
 	    this.fdtmc = fdtmc;
 		this.dependencies = new HashSet<RDGNode>();
+		this.dependents = new ArrayList<RDGNode>();
 		this.height = 0;
 
 		rdgNodes.put(id, this);
-		nodesInCreationOrder.add(this);
+		this.creationIndex = createdNodes++;
+		fdtmc.addChangeListener(this::modelChanged);
+		markOutdated();
 	}
 
     public FDTMC getFDTMC() {
@@ -62,8 +87,11 @@ public class RDGNode {
     }
 
     public void addDependency(RDGNode child) {
-        this.dependencies.add(child);
+        if (this.dependencies.add(child)) {
+            child.dependents.add(this);
+        }
         height = Math.max(height, child.height + 1);
+        markOutdated();
     }
 
     public Collection<RDGNode> getDependencies() {
@@ -102,6 +130,9 @@ public class RDGNode {
      */
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (obj != null && obj instanceof RDGNode) {
             RDGNode other = (RDGNode) obj;
             boolean validatePresenceCondition = this.getPresenceCondition().equals(other.getPresenceCondition());
@@ -114,7 +145,15 @@ public class RDGNode {
 
     @Override
     public int hashCode() {
-        return id.hashCode() + presenceCondition.hashCode() + fdtmc.hashCode() + dependencies.hashCode();
+        return getOwnHashCode() + dependencies.hashCode();
+    }
+
+    /**
+     * Part of the hash code which does not depend on the dependencies,
+     * whose hash codes are added to it (see {@link FrozenRDG}).
+     */
+    int getOwnHashCode() {
+        return id.hashCode() + presenceCondition.hashCode() + fdtmc.hashCode();
     }
 
     @Override
@@ -128,114 +167,132 @@ public class RDGNode {
      *
      * It implements the Cormen et al.'s topological sort algorithm.
      *
+     * @see FrozenRDG
      * @return The descendant RDG nodes ordered bottom-up (depended-upon to dependent).
      * @throws CyclicRdgException if there is a path with a cycle starting from this node.
      */
     public List<RDGNode> getDependenciesTransitiveClosure() throws CyclicRdgException {
-        List<RDGNode> transitiveDependencies = new LinkedList<RDGNode>();
-        topoSortVisit(this, new HashMap<RDGNode, Boolean>(), transitiveDependencies);
-        return transitiveDependencies;
+        return new LinkedList<RDGNode>(FrozenRDG.of(this).getNodesInTopologicalOrder());
     }
 
-    private static boolean hasCycle(RDGNode node,Map<RDGNode, Boolean> marks){
-        return marks.containsKey(node) && marks.get(node) == false;
+    /**
+     * Computes the number of paths from source nodes to every known node.
+     * @return A map associating an RDGNode to the corresponding number
+     *      of paths from a source node which lead to it. Nodes are compared
+     *      by identity, so that they are not hashed (i.e., along with the
+     *      whole RDG below them).
+     * @throws CyclicRdgException
+     */
+    public Map<RDGNode, Integer> getNumberOfPaths() throws CyclicRdgException {
+        FrozenRDG rdg = FrozenRDG.of(this);
+        int[] numberOfPaths = rdg.getNumberOfPaths();
+        Map<RDGNode, Integer> result = new IdentityHashMap<RDGNode, Integer>();
+        for (int id = 0; id < rdg.size(); id++) {
+            result.put(rdg.getNode(id), numberOfPaths[id]);
+        }
+        return result;
     }
 
     /**
-     * Topological sort {@code visit} function (Cormen et al.'s algorithm).
-     * @param node
-     * @param marks
-     * @param sorted
-     * @throws CyclicRdgException
+     * Returns the first RDG node (in crescent order of creation time) which is similar
+     * to the one provided.
+     *
+     * A similar RDG node is one for which equals() returns true. Only the nodes with
+     * the same {@link #getSimilarityKey() similarity key} are compared. Nodes are
+     * indexed by this key lazily: those which changed since they were last indexed
+     * (e.g., which are still under construction) are indexed again upon the first
+     * lookup of a node with the same presence condition.
+     *
+     * @param rdgNode
+     * @return a similar RDG node or null in case there is none.
      */
-    private void topoSortVisit(RDGNode node, Map<RDGNode, Boolean> marks, List<RDGNode> sorted) throws CyclicRdgException {
-    	if ( hasCycle(node,marks) ) {
-            throw new CyclicRdgException();
-        } else if (!marks.containsKey(node)) {
-            // Mark node temporarily (cycle detection)
-            marks.put(node, false);
-            for (RDGNode child: node.getDependencies()) {
-                topoSortVisit(child, marks, sorted);
+    public static RDGNode getSimilarNode(RDGNode target) {
+        Set<RDGNode> outdated = outdatedNodes.remove(target.getPresenceCondition());
+        if (outdated != null) {
+            for (RDGNode node : outdated) {
+                node.index(node.getSimilarityKey());
+            }
+        }
+        for (RDGNode candidate: indexedNodes.get(target.similarityKey)) {
+            if (candidate.isNotTargetAndEquals(target)) {
+                return candidate;
             }
-            // Mark node permanently (finished sorting branch)
-            marks.put(node, true);
-            sorted.add(node);
         }
+        return null;
     }
 
     /**
-     * Computes the number of paths from source nodes to every known node.
-     * @return A map associating an RDGNode to the corresponding number
-     *      of paths from a source node which lead to it.
-     * @throws CyclicRdgException
+     * Digest of the presence condition, the model and the dependencies of this
+     * node, regardless of its id. Equal nodes (as in {@link #equals(Object)})
+     * yield the same key.
+     *
+     * Dependencies are represented by their own presence conditions and models
+     * (see {@link FDTMCFingerprint#ofStructure(FDTMC)}), but not by theirs,
+     * so that changes further down the RDG do not affect this key.
      */
-    public Map<RDGNode, Integer> getNumberOfPaths() throws CyclicRdgException {
-    	return sumPaths(new HashMap<RDGNode, Integer>(), numPathsVisit(this,
-    																	new HashMap<RDGNode, Boolean>(),
-    																	new HashMap<RDGNode, Map<RDGNode,Integer>>()));
-
+    private String getSimilarityKey() {
+        SortedSet<String> dependencyKeys = new TreeSet<String>();
+        for (RDGNode dependency : dependencies) {
+            dependencyKeys.add(dependency.getStructureKey());
+        }
+        StringBuilder key = new StringBuilder(getStructureKey());
+        for (String dependencyKey : dependencyKeys) {
+            key.append('\n').append(dependencyKey);
+        }
+        return key.toString();
     }
 
-    // TODO Parameterize topological sort of RDG.
-    private static Map<RDGNode, Integer> numPathsVisit(RDGNode node, Map<RDGNode, Boolean> marks, Map<RDGNode, Map<RDGNode, Integer>> cache) throws CyclicRdgException {
-        if ( hasCycle(node,marks) ) {
-            throw new CyclicRdgException();
-        } else if (!marks.containsKey(node)) {
-            // Mark node temporarily (cycle detection)
-            marks.put(node, false);
-
-            Map<RDGNode, Integer> numberOfPaths = new HashMap<RDGNode, Integer>();
-            // A node always has a path to itself.
-            numberOfPaths.put(node, 1);
-            // The number of paths from a node X to a node Y is equal to the
-            // sum of the numbers of paths from each of its descendants to Y.
-            for (RDGNode child: node.getDependencies()) {
-                Map<RDGNode, Integer> tmpNumberOfPaths = numPathsVisit(child, marks, cache);
-                numberOfPaths = sumPaths(numberOfPaths, tmpNumberOfPaths);
-            }
-            // Mark node permanently (finished sorting branch)
-            marks.put(node, true);
-            cache.put(node, numberOfPaths);
-            return numberOfPaths;
+    private String getStructureKey() {
+        if (structureKey == null) {
+            structureKey = presenceCondition + '\n' + FDTMCFingerprint.ofStructure(fdtmc);
         }
-        // Otherwise, the node has already been visited.
-        return cache.get(node);
+        return structureKey;
     }
 
     /**
-     * Sums two paths-counting maps
-     * @param pathsCountA
-     * @param pathsCountB
-     * @return
+     * Outdates the similarity keys of this node and of its dependents,
+     * which are derived from the model.
      */
-    private static Map<RDGNode, Integer> sumPaths(Map<RDGNode, Integer> pathsCountA, Map<RDGNode, Integer> pathsCountB) {
-        Map<RDGNode, Integer> numberOfPaths = new HashMap<RDGNode, Integer>(pathsCountA);
-        for (Map.Entry<RDGNode, Integer> entry: pathsCountB.entrySet()) {
-            RDGNode node = entry.getKey();
-            Integer count = entry.getValue();
-            if (numberOfPaths.containsKey(node)) {
-                count += numberOfPaths.get(node);
-            }
-            numberOfPaths.put(node, count);
+    private void modelChanged() {
+        structureKey = null;
+        markOutdated();
+        for (RDGNode dependent : dependents) {
+            dependent.markOutdated();
+        }
+    }
+
+    private void markOutdated() {
+        Set<RDGNode> outdated = outdatedNodes.get(presenceCondition);
+        if (outdated == null) {
+            // By identity, since the hash codes of nodes change along with them.
+            outdated = Collections.newSetFromMap(new IdentityHashMap<RDGNode, Boolean>());
+            outdatedNodes.put(presenceCondition, outdated);
         }
-        return numberOfPaths;
+        outdated.add(this);
     }
 
     /**
-     * Returns the first RDG node (in crescent order of creation time) which is similar
-     * to the one provided.
-     *
-     * A similar RDG node is one for which equals() returns true.
-     * @param rdgNode
-     * @return a similar RDG node or null in case there is none.
+     * Indexes this node under the given key, moving it there if it was
+     * already indexed under another one.
      */
-    public static RDGNode getSimilarNode(RDGNode target) {
-        for (RDGNode candidate: nodesInCreationOrder) {
-            if (candidate.isNotTargetAndEquals(target)) {
-                return candidate;
+    private void index(String similarityKey) {
+        if (similarityKey.equals(this.similarityKey)) {
+            return;
+        }
+        if (this.similarityKey != null) {
+            List<RDGNode> similarNodes = indexedNodes.get(this.similarityKey);
+            similarNodes.removeIf(n -> n == this);
+            if (similarNodes.isEmpty()) {
+                indexedNodes.remove(this.similarityKey);
             }
         }
-        return null;
+        this.similarityKey = similarityKey;
+        List<RDGNode> similarNodes = indexedNodes.computeIfAbsent(similarityKey, k -> new ArrayList<RDGNode>(1));
+        int position = similarNodes.size();
+        while (position > 0 && similarNodes.get(position - 1).creationIndex > creationIndex) {
+            position--;
+        }
+        similarNodes.add(position, this);
     }
 
     private boolean isNotTargetAndEquals(RDGNode target){
@@ -0,0 +1,33 @@
+package tool;
+
+import tool.ordering.BandwidthOrdering;
+import tool.ordering.FeatureTreeOrdering;
+import tool.ordering.ForceOrdering;
+import tool.ordering.IVariableOrdering;
+
+public class VariableOrderingFactory {
+
+    private VariableOrderingFactory() {
+        // NO-OP
+    }
+
+    /**
+     * @return the static ordering heuristic for the given strategy, or null
+     *      for {@link VariableOrderingStrategy#SIFTING}, which is carried out
+     *      on the ADDs themselves.
+     */
+    public static IVariableOrdering createVariableOrdering(VariableOrderingStrategy strategySelection) {
+        switch (strategySelection) {
+        case FEATURE_TREE:
+            return new FeatureTreeOrdering();
+        case FORCE:
+            return new ForceOrdering();
+        case BANDWIDTH:
+            return new BandwidthOrdering();
+        case SIFTING:
+        default:
+            return null;
+        }
+    }
+
+}
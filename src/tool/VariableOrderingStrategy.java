@@ -0,0 +1,21 @@
+package tool;
+
+public enum VariableOrderingStrategy {
+    /**
+     * Reordering of the feature model ADD by the reordering policy's
+     * heuristic (symmetric sifting, by default).
+     */
+    SIFTING,
+    /**
+     * Depth-first traversal of the feature tree.
+     */
+    FEATURE_TREE,
+    /**
+     * FORCE heuristic over the clauses of the feature model.
+     */
+    FORCE,
+    /**
+     * Bandwidth minimization (reverse Cuthill-McKee) of the clause graph.
+     */
+    BANDWIDTH
+}
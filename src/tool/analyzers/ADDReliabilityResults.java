@@ -1,17 +1,45 @@
 package tool.analyzers;
 
 import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.stream.Stream;
 
 import tool.UnknownFeatureException;
 import jadd.ADD;
+import jadd.ReorderingPolicy;
 import jadd.UnrecognizedVariableException;
+import jadd.ValueDistribution;
 
+/**
+ * Reliabilities of all configurations at once, as an ADD in which invalid
+ * configurations yield 0.
+ *
+ * Aggregate queries over the valid configurations (e.g., how many of them
+ * there are, or their mean reliability) are answered from the ADD itself,
+ * in time linear in its size, rather than by evaluating each configuration.
+ * Unless told otherwise, all configurations are deemed equally likely.
+ */
 public class ADDReliabilityResults implements IReliabilityAnalysisResults {
+    private static final DoublePredicate VALID = reliability -> reliability != 0;
 
     private ADD results;
+    private ReorderingPolicy reorderingPolicy;
+    // Computed on demand, since the results never change.
+    private ValueDistribution distribution;
 
     public ADDReliabilityResults(ADD results) {
+        this(results, null);
+    }
+
+    /**
+     * @param reorderingPolicy Policy under which the results were computed,
+     *          to be reported along with the stats.
+     */
+    public ADDReliabilityResults(ADD results, ReorderingPolicy reorderingPolicy) {
         this.results = results;
+        this.reorderingPolicy = reorderingPolicy;
     }
 
     @Override
@@ -23,6 +51,109 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         }
     }
 
+    /**
+     * Configurations are found by a best-first search over the ADD, which
+     * only explores as much of it as the configurations consumed take.
+     */
+    @Override
+    public Stream<Collection<String>> getConfigurationsBelow(double threshold) {
+        return results.getConfigurationsByValue(VALID.and(reliability -> reliability < threshold));
+    }
+
+    /**
+     * @return the number of valid configurations.
+     */
+    public double getValidConfigurationsCount() {
+        return getDistribution().countConfigurations(VALID);
+    }
+
+    /**
+     * @return the number of valid configurations whose reliability is
+     *      below the given threshold.
+     */
+    public double countConfigurationsBelow(double threshold) {
+        return getDistribution().countConfigurations(VALID.and(reliability -> reliability < threshold));
+    }
+
+    /**
+     * @return the mean reliability of valid configurations, or NaN if
+     *      there is none.
+     */
+    public double getMeanReliability() {
+        return getDistribution().getMean(VALID);
+    }
+
+    /**
+     * @return the least reliability of a valid configuration, or NaN if
+     *      there is none.
+     */
+    public double getMinimumReliability() {
+        return getDistribution().getMinimum(VALID);
+    }
+
+    /**
+     * @return the greatest reliability of a valid configuration, or NaN if
+     *      there is none.
+     */
+    public double getMaximumReliability() {
+        return getDistribution().getMaximum(VALID);
+    }
+
+    /**
+     * @return a valid configuration with the least reliability, or
+     *      {@code null} if there is none.
+     */
+    public Collection<String> getLeastReliableConfiguration() {
+        return getDistribution().getMinimumWitness(VALID);
+    }
+
+    /**
+     * @return a valid configuration with the greatest reliability, or
+     *      {@code null} if there is none.
+     */
+    public Collection<String> getMostReliableConfiguration() {
+        return getDistribution().getMaximumWitness(VALID);
+    }
+
+    /**
+     * Splits [0, 1] into bins of equal width and counts the valid
+     * configurations whose reliabilities fall into each of them.
+     *
+     * @return the number of configurations in each bin, from the lowest one up.
+     */
+    public double[] getReliabilityHistogram(int bins) {
+        double[] histogram = getDistribution().getHistogram(VALID, 0, 1, bins);
+        double configurations = getDistribution().countConfigurations(reliability -> true);
+        for (int i = 0; i < bins; i++) {
+            histogram[i] *= configurations;
+        }
+        return histogram;
+    }
+
+    /**
+     * Alternative to the queries above for when features are not equally
+     * likely to be selected, e.g., to weigh reliabilities by how often each
+     * feature is deployed. Values of invalid configurations are 0.
+     *
+     * @param selectionProbabilities Probability of each feature (by name)
+     *      being selected. Features not mapped are selected with probability 1/2.
+     * @throws UnknownFeatureException if a feature is unknown.
+     */
+    public ValueDistribution getReliabilityDistribution(Map<String, Double> selectionProbabilities) throws UnknownFeatureException {
+        try {
+            return results.getDistribution(selectionProbabilities);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    private synchronized ValueDistribution getDistribution() {
+        if (distribution == null) {
+            distribution = results.getDistribution();
+        }
+        return distribution;
+    }
+
     @Override
     public void printStats(PrintStream output) {
         int numVariables = results.getVariables().size();
@@ -32,6 +163,7 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         double numPathsToNonZeroTerminals = results.getPathsToNonZeroTerminalsCount();
         double numPathsToZeroTerminal = results.getPathsToZeroTerminalCount();
         int numReorderings = results.getReorderingsCount();
+        long reorderingTime = results.getReorderingTime();
         int numGarbageCollections = results.getGarbageCollectionsCount();
         long numBytesADD = results.getAddSizeInBytes();
 
@@ -41,7 +173,15 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         output.println("# terminals different than zero: " + numTerminalsNonZero);
         output.println("# paths to non-zero terminals: " + numPathsToNonZeroTerminals);
         output.println("# paths to zero terminal: " + numPathsToZeroTerminal);
+        output.println("# valid configurations: " + getValidConfigurationsCount());
+        output.println("Mean reliability: " + getMeanReliability());
+        output.println("Minimum reliability: " + getMinimumReliability() + " " + getLeastReliableConfiguration());
+        output.println("Maximum reliability: " + getMaximumReliability() + " " + getMostReliableConfiguration());
+        if (reorderingPolicy != null) {
+            output.println("Reordering policy: " + reorderingPolicy);
+        }
         output.println("# reorderings: " + numReorderings);
+        output.println("Reordering time: " + reorderingTime + " ms");
         output.println("# garbage collections: " + numGarbageCollections);
         output.println("ADD's size in # of bytes: " + numBytesADD);
 
@@ -1,6 +1,8 @@
 package tool.analyzers;
 
 import java.io.PrintStream;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import tool.UnknownFeatureException;
 
@@ -18,6 +20,17 @@ public interface IReliabilityAnalysisResults {
      */
     public Double getResult(String[] configuration) throws UnknownFeatureException;
 
+    /**
+     * Streams the valid configurations (i.e., those with a non-zero result)
+     * whose results are below the given threshold, from the least reliable
+     * one up. Thus, the k least reliable configurations are the first k
+     * ones for an infinite threshold.
+     *
+     * @param threshold
+     * @return
+     */
+    public Stream<Collection<String>> getConfigurationsBelow(double threshold);
+
     public void printStats(PrintStream output);
 
 }
@@ -0,0 +1,275 @@
+package tool.analyzers;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tool.RDGNode;
+import fdtmc.FDTMCFingerprint;
+
+/**
+ * Persistent state of a feature-family-based analysis, by which a later
+ * analysis of an edited model only recomputes what the edit affects.
+ *
+ * It keeps the RDG of the last analysis, the reliability expression of each
+ * node (addressed by the {@link FDTMCFingerprint} of its model) and the ADD
+ * derived for each node. Derived ADDs are addressed by a key which covers the
+ * node's model and presence condition and, recursively, the keys of the nodes
+ * on which it depends. Thus, a node whose key is found was not affected by the
+ * edit, whereas editing a node changes the keys of all its transitive dependents.
+ * An edited node must be model-checked again, but its dependents only have to
+ * be lifted and solved again, since their expressions are still valid.
+ *
+ * Derived ADDs also depend on the analysis context (feature model and pruning
+ * strategy), so they are all discarded whenever it changes. Entries which are
+ * not part of the latest RDG are deleted when it is saved.
+ */
+public class IncrementalStore {
+    private static final Logger LOGGER = Logger.getLogger(IncrementalStore.class.getName());
+    private static final String INDEX_FILE = "rdg.index";
+    private static final String CONTEXT_PREFIX = "context ";
+    private static final String EXPRESSION_SUFFIX = ".formula";
+    private static final String VALUE_SUFFIX = ".add";
+
+    private Path directory;
+    private JADD jadd;
+
+    private Map<String, String> expressionKeys = new HashMap<String, String>();
+    private Map<String, String> valueKeys = new HashMap<String, String>();
+    private List<String> nodeIds = new ArrayList<String>();
+    private Set<String> previousValueKeys = new HashSet<String>();
+    private String contextKey;
+
+    private int checkedNodes;
+    private int solvedNodes;
+
+    /**
+     * @param directory Directory in which the state is kept. It is created if needed.
+     * @param jadd Manager by which derived ADDs are read.
+     */
+    public IncrementalStore(Path directory, JADD jadd) {
+        this.directory = directory;
+        this.jadd = jadd;
+    }
+
+    /**
+     * Compares an RDG to the one of the previous analysis, which is discarded
+     * if it was made in another context.
+     *
+     * @param context Description of everything other than the RDG which the
+     *          derived values depend on.
+     * @param nodes RDG nodes in topological order (dependencies first).
+     */
+    public void load(String context, List<RDGNode> nodes) {
+        expressionKeys.clear();
+        valueKeys.clear();
+        nodeIds.clear();
+        previousValueKeys.clear();
+        checkedNodes = 0;
+        solvedNodes = 0;
+
+        contextKey = digest(context);
+        for (RDGNode node : nodes) {
+            String expressionKey = FDTMCFingerprint.of(node.getFDTMC());
+            expressionKeys.put(node.getId(), expressionKey);
+            valueKeys.put(node.getId(), valueKeyOf(node, expressionKey));
+            nodeIds.add(node.getId());
+        }
+
+        Path index = directory.resolve(INDEX_FILE);
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(index)) {
+                List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && lines.get(0).equals(CONTEXT_PREFIX + contextKey)) {
+                    for (String line : lines.subList(1, lines.size())) {
+                        String[] fields = line.split(" ");
+                        if (fields.length == 3) {
+                            previousValueKeys.add(fields[1]);
+                        }
+                    }
+                } else {
+                    LOGGER.info("Analysis context changed: discarding the values derived by the previous analysis.");
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the previous analysis at " + directory, e);
+        }
+        int changed = (int) valueKeys.values().stream()
+                .filter(key -> !previousValueKeys.contains(key))
+                .count();
+        LOGGER.info(changed + " out of " + nodes.size() + " RDG nodes changed since the previous analysis.");
+    }
+
+    /**
+     * @return whether the value of the node was derived by a previous
+     *      analysis and is still valid.
+     */
+    public boolean hasValue(RDGNode node) {
+        String key = valueKeys.get(node.getId());
+        return previousValueKeys.contains(key) && Files.exists(valuePath(key));
+    }
+
+    /**
+     * @return the value derived for the node by a previous analysis, or null
+     *      if it cannot be read.
+     */
+    public ADD getValue(RDGNode node) {
+        String key = valueKeys.get(node.getId());
+        try {
+            return jadd.readADD(valuePath(key));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the value derived for " + node.getId(), e);
+            return null;
+        }
+    }
+
+    public void putValue(RDGNode node, ADD value) {
+        String key = valueKeys.get(node.getId());
+        solvedNodes++;
+        try {
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            jadd.writeADD(value, temporary);
+            Files.move(temporary, valuePath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not persist the value derived for " + node.getId(), e);
+        }
+    }
+
+    /**
+     * @return the reliability expression of the node's model, if it was
+     *      computed by a previous analysis, or null otherwise.
+     */
+    public String getExpression(RDGNode node) {
+        Path path = expressionPath(expressionKeys.get(node.getId()));
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the expression of " + node.getId(), e);
+            return null;
+        }
+    }
+
+    public void putExpression(RDGNode node, String expression) {
+        checkedNodes++;
+        // Failed model checking yields an empty formula, which must not be remembered.
+        if (expression == null || expression.isEmpty()) {
+            return;
+        }
+        String key = expressionKeys.get(node.getId());
+        try {
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, expression.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, expressionPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not persist the expression of " + node.getId(), e);
+        }
+    }
+
+    /**
+     * Records the RDG given to {@link #load(String, List)} as the one of the
+     * latest analysis, deleting the entries of nodes which are not part of it.
+     */
+    public void save() {
+        List<String> lines = new ArrayList<String>();
+        lines.add(CONTEXT_PREFIX + contextKey);
+        for (String id : nodeIds) {
+            lines.add(id + " " + valueKeys.get(id) + " " + expressionKeys.get(id));
+        }
+        try {
+            Path temporary = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteStaleEntries();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not persist the analysis at " + directory, e);
+        }
+    }
+
+    public void printStats(PrintStream output) {
+        output.println("Incremental analysis: " + checkedNodes + " model-checked and "
+                + solvedNodes + " solved out of " + nodeIds.size() + " RDG nodes");
+    }
+
+    private void deleteStaleEntries() throws IOException {
+        Set<String> live = new HashSet<String>();
+        for (String key : expressionKeys.values()) {
+            live.add(key + EXPRESSION_SUFFIX);
+        }
+        for (String key : valueKeys.values()) {
+            live.add(key + VALUE_SUFFIX);
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*{" + EXPRESSION_SUFFIX + "," + VALUE_SUFFIX + "}")) {
+            for (Path entry : entries) {
+                if (!live.contains(entry.getFileName().toString())) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * The value of a node depends on its own expression and presence
+     * condition, on the values of its dependencies (by id, since ids are
+     * the variables of the expression) and on the analysis context.
+     */
+    private String valueKeyOf(RDGNode node, String expressionKey) {
+        List<RDGNode> dependencies = new ArrayList<RDGNode>(node.getDependencies());
+        dependencies.sort((a, b) -> a.getId().compareTo(b.getId()));
+        StringBuilder content = new StringBuilder()
+                .append(contextKey).append('\n')
+                .append(expressionKey).append('\n')
+                .append(node.getPresenceCondition()).append('\n');
+        for (RDGNode dependency : dependencies) {
+            content.append(dependency.getId()).append(' ')
+                   .append(valueKeys.get(dependency.getId())).append('\n');
+        }
+        return digest(content.toString());
+    }
+
+    private static String digest(String content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private Path expressionPath(String key) {
+        return directory.resolve(key + EXPRESSION_SUFFIX);
+    }
+
+    private Path valuePath(String key) {
+        return directory.resolve(key + VALUE_SUFFIX);
+    }
+
+}
@@ -1,6 +1,7 @@
 package tool.analyzers;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -8,8 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import tool.UnknownFeatureException;
 
@@ -20,17 +20,17 @@ public class MapBasedReliabilityResults implements IReliabilityAnalysisResults {
 
     public MapBasedReliabilityResults() {
         this.results = new HashMap<Set<String>, Double>();
-        this.features = new HashSet<String>();
     }
 
+    /**
+     * Configurations which are already sets (e.g., {@link jadd.Configuration})
+     * are kept as they are, instead of being copied into new sets.
+     */
     public MapBasedReliabilityResults(Map<Collection<String>, Double> backup) {
-        this.results = backup.entrySet().stream()
-                .collect(Collectors.toMap(e -> new HashSet<String>(e.getKey()),
-                                          e -> e.getValue()));
-        this.features = backup.keySet().stream()
-                .map(Collection::stream)
-                .flatMap(Function.identity())
-                .collect(Collectors.toSet());
+        this.results = new HashMap<Set<String>, Double>(backup.size() * 4 / 3 + 1);
+        for (Map.Entry<Collection<String>, Double> entry : backup.entrySet()) {
+            results.put(toSet(entry.getKey()), entry.getValue());
+        }
     }
 
     @Override
@@ -44,11 +44,24 @@ public class MapBasedReliabilityResults implements IReliabilityAnalysisResults {
         return 0.0;
     }
 
+    @Override
+    public synchronized Stream<Collection<String>> getConfigurationsBelow(double threshold) {
+        List<Map.Entry<Set<String>, Double>> below = new ArrayList<Map.Entry<Set<String>, Double>>();
+        for (Map.Entry<Set<String>, Double> result : results.entrySet()) {
+            if (result.getValue() != 0 && result.getValue() < threshold) {
+                below.add(result);
+            }
+        }
+        below.sort(Map.Entry.comparingByValue());
+        return below.stream().map(Map.Entry::getKey);
+    }
+
     public synchronized void putResult(List<String> configuration, Double value) {
         Set<String> configurationAsSet = new HashSet<String>(configuration);
         results.put(configurationAsSet, value);
-        features.addAll(configurationAsSet);
-
+        if (features != null) {
+            features.addAll(configurationAsSet);
+        }
     }
 
     /**
@@ -68,8 +81,23 @@ public class MapBasedReliabilityResults implements IReliabilityAnalysisResults {
         output.println("Result's size in bytes: " + size);
     }
 
-    private boolean hasUnknownFeature(Set<String> configuration) {
+    private synchronized boolean hasUnknownFeature(Set<String> configuration) {
+        if (features == null) {
+            // Only needed for configurations without a result, so it is
+            // computed on demand.
+            features = new HashSet<String>();
+            for (Set<String> result : results.keySet()) {
+                features.addAll(result);
+            }
+        }
         return features.containsAll(configuration);
     }
 
+    private static Set<String> toSet(Collection<String> configuration) {
+        if (configuration instanceof Set) {
+            return (Set<String>) configuration;
+        }
+        return new HashSet<String>(configuration);
+    }
+
 }
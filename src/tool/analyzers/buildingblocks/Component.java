@@ -71,7 +71,20 @@ public class Component<T> {
     public static <P, A, V> V deriveFromMany(List<Component<A>> dependencies,
                                              DerivationFunction<P, A, V> derive,
                                              IsPresent<A, P> isPresent) {
-        Map<String, V> derivedModels = new HashMap<String, V>();
+        return deriveFromMany(dependencies, derive, isPresent, new HashMap<String, V>());
+    }
+
+    /**
+     * Derives the values of the given components, in order, into {@code derivedModels},
+     * which may already hold the values of components derived elsewhere (e.g., in a
+     * previous analysis) on which the given ones depend.
+     *
+     * @return the value derived for the last component.
+     */
+    public static <P, A, V> V deriveFromMany(List<Component<A>> dependencies,
+                                             DerivationFunction<P, A, V> derive,
+                                             IsPresent<A, P> isPresent,
+                                             Map<String, V> derivedModels) {
         return dependencies.stream()
                 .map(c -> deriveSingle(c, isPresent, derive, derivedModels))
                 .reduce((first, actual) -> actual)
@@ -0,0 +1,113 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel alternative to {@link Component#deriveFromMany}, which derives
+ * each component as soon as the values of the components it depends on
+ * have been derived. Thus, independent sub-graphs of the dependency graph
+ * (e.g., sibling sub-trees of an RDG) are derived concurrently, by at most
+ * {@code parallelism} threads.
+ *
+ * The derivation function and the presence function must be thread-safe.
+ * As in the sequential derivation, values may be null.
+ *
+ * Only derivations which may actually run concurrently are worth scheduling:
+ * those which are mostly ADD operations are serialized by the ADD manager,
+ * so they are better off derived sequentially.
+ */
+public class DerivationScheduler {
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private int parallelism;
+
+    public DerivationScheduler() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public DerivationScheduler(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Derivation needs at least one thread");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public <P, A, V> V deriveFromMany(List<Component<A>> dependencies,
+                                      DerivationFunction<P, A, V> derive,
+                                      IsPresent<A, P> isPresent) {
+        return deriveFromMany(dependencies, derive, isPresent, Collections.synchronizedMap(new HashMap<String, V>()));
+    }
+
+    /**
+     * Derives the values of the given components into {@code derivedModels},
+     * which may already hold the values of components derived elsewhere on which
+     * the given ones depend.
+     *
+     * @param dependencies Components in topological order (dependencies first).
+     * @param derivedModels Thread-safe map from component ids to derived values.
+     *          It must accept null values if the derivation function may yield them
+     *          (e.g., a {@link Collections#synchronizedMap synchronized} HashMap).
+     * @return the value derived for the last component.
+     * @throws IllegalArgumentException if a component depends on another one
+     *          which is neither in {@code derivedModels} nor listed before it.
+     */
+    public <P, A, V> V deriveFromMany(List<Component<A>> dependencies,
+                                      DerivationFunction<P, A, V> derive,
+                                      IsPresent<A, P> isPresent,
+                                      Map<String, V> derivedModels) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Map<String, CompletableFuture<V>> scheduled = new HashMap<String, CompletableFuture<V>>();
+            CompletableFuture<V> last = null;
+            for (Component<A> component : dependencies) {
+                List<CompletableFuture<V>> prerequisites = new ArrayList<CompletableFuture<V>>();
+                for (Component<A> dependency : component.getDependencies()) {
+                    CompletableFuture<V> prerequisite = scheduled.get(dependency.getId());
+                    if (prerequisite != null) {
+                        prerequisites.add(prerequisite);
+                    } else if (!derivedModels.containsKey(dependency.getId())) {
+                        throw new IllegalArgumentException("Component " + component.getId()
+                                + " depends on " + dependency.getId() + ", which is not derived before it");
+                    }
+                }
+                last = CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[prerequisites.size()]))
+                        .thenApplyAsync(ready -> deriveSingle(component, isPresent, derive, derivedModels), pool);
+                scheduled.put(component.getId(), last);
+            }
+            if (last == null) {
+                throw new IllegalArgumentException("There must be at least one component to derive");
+            }
+            // Failures surface only after every running derivation is over.
+            CompletableFuture.allOf(scheduled.values().toArray(new CompletableFuture<?>[scheduled.size()])).join();
+            return last.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static <P, A, V> V deriveSingle(Component<A> component,
+                                            IsPresent<A, P> isPresent,
+                                            DerivationFunction<P, A, V> derive,
+                                            Map<String, V> derivedModels) {
+        P presence = isPresent.apply(component);
+        V derived = derive.apply(presence, component.getAsset(), derivedModels);
+        derivedModels.put(component.getId(), derived);
+        return derived;
+    }
+
+}
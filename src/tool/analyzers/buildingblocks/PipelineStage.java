@@ -0,0 +1,114 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import tool.stats.ITimeCollector;
+
+/**
+ * Stage of a pipelined analysis, whose tasks run on a pool of its own as
+ * soon as the results they need (e.g., of tasks of a previous stage) are
+ * ready. Thus, each stage works on some components while other stages are
+ * still busy with others.
+ *
+ * A stage keeps track of the time its workers spend running tasks and of
+ * the number of tasks waiting for a worker, which it samples whenever a
+ * task becomes ready. These are reported to an {@link ITimeCollector}
+ * when the stage is closed.
+ */
+public class PipelineStage implements AutoCloseable {
+    private String name;
+    private int workers;
+    private ForkJoinPool pool;
+    private ITimeCollector timeCollector;
+
+    private long openedAt;
+    private AtomicLong busyTime = new AtomicLong();
+    private AtomicInteger queueDepth = new AtomicInteger();
+    private AtomicLong queueDepthSum = new AtomicLong();
+    private AtomicInteger queueDepthSamples = new AtomicInteger();
+    private AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public PipelineStage(String name, int workers, ITimeCollector timeCollector) {
+        this.name = name;
+        this.workers = workers;
+        this.pool = new ForkJoinPool(workers);
+        this.timeCollector = timeCollector;
+        this.openedAt = System.nanoTime();
+    }
+
+    /**
+     * Runs a task once the given futures are complete.
+     *
+     * @return the future result of the task, which fails if either the task
+     *      or any of the prerequisites does.
+     */
+    public <T> CompletableFuture<T> after(CompletableFuture<?>[] prerequisites, Supplier<T> task) {
+        return CompletableFuture.allOf(prerequisites)
+                .thenRun(this::enqueue)
+                .thenApplyAsync(ready -> run(task), pool);
+    }
+
+    public <T> CompletableFuture<T> after(CompletableFuture<?> prerequisite, Supplier<T> task) {
+        return after(new CompletableFuture<?>[] {prerequisite}, task);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return after(new CompletableFuture<?>[0], task);
+    }
+
+    /**
+     * Shuts the workers down and reports the stage's utilization (i.e., the
+     * fraction of the time since it was opened in which its workers were
+     * busy) and queue depth.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        long elapsedTime = System.nanoTime() - openedAt;
+        double utilization = elapsedTime > 0 ? busyTime.get() / ((double) elapsedTime * workers) : 0;
+        int samples = queueDepthSamples.get();
+        double meanQueueDepth = samples > 0 ? queueDepthSum.get() / (double) samples : 0;
+        timeCollector.collectStageStats(name, utilization, meanQueueDepth, maxQueueDepth.get());
+    }
+
+    /**
+     * Waits for a result of the pipeline, rethrowing the failure of the
+     * task which yielded it (or of any task it needed) as is.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void enqueue() {
+        int depth = queueDepth.incrementAndGet();
+        queueDepthSum.addAndGet(depth);
+        queueDepthSamples.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private <T> T run(Supplier<T> task) {
+        queueDepth.decrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            busyTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.ADD;
+import jadd.ConfigurationPredicate;
+import jadd.UnrecognizedVariableException;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tool.UnknownFeatureException;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Bounded cache of presence conditions, each one encoded (as an ADD) only
+ * once and then compiled into a {@link ConfigurationPredicate}, so that
+ * checking presence in a configuration does not involve parsing nor CUDD.
+ *
+ * Presence conditions are keyed by their text without whitespace. When the
+ * cache is full, the oldest entries are evicted first. The cache may be used
+ * by many threads at once, but encoding of new entries is serialized, since
+ * it resorts to the (shared) ADD manager.
+ *
+ * @see PresenceConditions#isPresent(String, Collection, ExpressionSolver)
+ */
+public class PresenceConditionCache {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private ExpressionSolver expressionSolver;
+    private int maxEntries;
+
+    private Map<String, ConfigurationPredicate> entries = new ConcurrentHashMap<String, ConfigurationPredicate>();
+    /**
+     * Keys in insertion order, oldest first.
+     */
+    private Queue<String> insertionOrder = new ConcurrentLinkedQueue<String>();
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+
+    public PresenceConditionCache(ExpressionSolver expressionSolver) {
+        this(expressionSolver, DEFAULT_MAX_ENTRIES);
+    }
+
+    public PresenceConditionCache(ExpressionSolver expressionSolver, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The presence condition cache must hold at least one entry");
+        }
+        this.expressionSolver = expressionSolver;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Checks whether a presence condition holds for a configuration.
+     *
+     * @throws UnknownFeatureException if the configuration relies on a feature
+     *      unknown to the ADD manager.
+     */
+    public boolean isPresent(String presenceCondition, Collection<String> configuration) {
+        try {
+            return get(presenceCondition).test(configuration);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    /**
+     * @return the compiled predicate for the given presence condition.
+     * @throws IllegalArgumentException if the presence condition cannot be parsed.
+     */
+    public ConfigurationPredicate get(String presenceCondition) {
+        String key = normalize(presenceCondition);
+        ConfigurationPredicate predicate = entries.get(key);
+        if (predicate != null) {
+            hits.incrementAndGet();
+            return predicate;
+        }
+        return load(key);
+    }
+
+    private synchronized ConfigurationPredicate load(String key) {
+        ConfigurationPredicate predicate = entries.get(key);
+        if (predicate != null) {
+            // Loaded by another thread in the meantime.
+            hits.incrementAndGet();
+            return predicate;
+        }
+        misses.incrementAndGet();
+        ADD encoded = expressionSolver.encodeFormula(key);
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid presence condition: " + key);
+        }
+        predicate = encoded.toPredicate();
+        entries.put(key, predicate);
+        insertionOrder.add(key);
+        while (entries.size() > maxEntries) {
+            entries.remove(insertionOrder.poll());
+        }
+        return predicate;
+    }
+
+    static String normalize(String presenceCondition) {
+        return presenceCondition.replaceAll("\\s+", "");
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the ratio of lookups which were served from the cache
+     *      (0 if there were none).
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    public void printStats(PrintStream out) {
+        out.println("Presence condition cache stats:");
+        out.println("    entries: " + size() + " (at most " + maxEntries + ")");
+        out.println("    hits: " + getHits() + " | misses: " + getMisses());
+        out.println("    hit rate: " + getHitRate());
+    }
+
+}
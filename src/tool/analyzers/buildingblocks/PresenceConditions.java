@@ -1,6 +1,7 @@
 package tool.analyzers.buildingblocks;
 
 import jadd.ADD;
+import jadd.Configuration;
 import jadd.UnrecognizedVariableException;
 
 import java.util.Collection;
@@ -17,7 +18,11 @@ public class PresenceConditions {
         ADD encodedPresenceCondition = expressionSolver.encodeFormula(presenceCondition);
         Double presenceValue;
         try {
-            presenceValue = encodedPresenceCondition.eval(configuration.toArray(new String[configuration.size()]));
+            if (configuration instanceof Configuration) {
+                presenceValue = encodedPresenceCondition.eval((Configuration) configuration);
+            } else {
+                presenceValue = encodedPresenceCondition.eval(configuration.toArray(new String[configuration.size()]));
+            }
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
         }
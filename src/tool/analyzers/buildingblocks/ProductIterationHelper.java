@@ -1,13 +1,25 @@
 package tool.analyzers.buildingblocks;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ProductIterationHelper {
 
+    /**
+     * Number of configurations evaluated at once by {@link #evaluateInBatches}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
     public static <T> Map<Collection<String>, Double> evaluate(Function<Collection<String>, Double> eval,
                                                                Stream<Collection<String>> configurations,
                                                                ConcurrencyStrategy concurrencyStrategy) {
@@ -21,4 +33,76 @@ public class ProductIterationHelper {
         return results;
     }
 
+    /**
+     * Alternative to {@link #evaluate(Function, Stream, ConcurrencyStrategy)}
+     * which chunks the configurations into batches, so that evaluation
+     * functions can process many configurations at once (e.g., column-wise).
+     * In the parallel strategy, batches are evaluated concurrently.
+     *
+     * @param eval Function which yields the values for a batch of configurations,
+     *          in the same order.
+     */
+    public static Map<Collection<String>, Double> evaluateInBatches(Function<List<Collection<String>>, double[]> eval,
+                                                                    Stream<Collection<String>> configurations,
+                                                                    ConcurrencyStrategy concurrencyStrategy) {
+        return evaluateInBatches(eval, configurations, concurrencyStrategy, DEFAULT_BATCH_SIZE);
+    }
+
+    public static Map<Collection<String>, Double> evaluateInBatches(Function<List<Collection<String>>, double[]> eval,
+                                                                    Stream<Collection<String>> configurations,
+                                                                    ConcurrencyStrategy concurrencyStrategy,
+                                                                    int batchSize) {
+        Stream<List<Collection<String>>> batches = StreamSupport.stream(new Batches<Collection<String>>(configurations.spliterator(),
+                                                                                                      batchSize),
+                                                                        concurrencyStrategy == ConcurrencyStrategy.PARALLEL);
+        return batches
+                .flatMap(batch -> {
+                    double[] values = eval.apply(batch);
+                    return IntStream.range(0, batch.size())
+                            .mapToObj(i -> new Result(batch.get(i), values[i]));
+                })
+                .collect(Collectors.toMap(r -> r.configuration,
+                                          r -> r.value));
+    }
+
+    private static class Result {
+        private final Collection<String> configuration;
+        private final Double value;
+
+        Result(Collection<String> configuration, Double value) {
+            this.configuration = configuration;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Groups the elements of a spliterator into lists of (at most) a given size.
+     */
+    private static class Batches<E> extends Spliterators.AbstractSpliterator<List<E>> {
+        private final Spliterator<E> elements;
+        private final int batchSize;
+
+        Batches(Spliterator<E> elements, int batchSize) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batches must not be empty");
+            }
+            this.elements = elements;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<E>> action) {
+            List<E> batch = new ArrayList<E>(batchSize);
+            while (batch.size() < batchSize && elements.tryAdvance(batch::add)) {
+                // Keep filling the batch.
+            }
+            if (batch.isEmpty()) {
+                return false;
+            }
+            action.accept(batch);
+            return true;
+        }
+    }
+
 }
@@ -30,6 +30,7 @@ public class FamilyBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FamilyBasedAnalyzer.class.getName());
 
     private ADD featureModel;
+    private JADD jadd;
     private ExpressionSolver expressionSolver;
     ParametricModelChecker modelChecker;
 
@@ -45,6 +46,7 @@ public class FamilyBasedAnalyzer {
                                ITimeCollector timeCollector,
                                IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.jadd = jadd;
         this.featureModel = featureModel;
         this.modelChecker = modelChecker;
 
@@ -64,12 +66,14 @@ public class FamilyBasedAnalyzer {
      * @throws CyclicRdgException
      */
     public IReliabilityAnalysisResults evaluateReliability(RDGNode node, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
-        LOGGER.warning("Family-based analysis does not support parallel execution.");
+        if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            LOGGER.info("Deriving independent parts of the 150% model in parallel.");
+        }
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Lambda_v + alpha_v
-        String expression = firstPhase.getReliabilityExpression(dependencies);
+        String expression = firstPhase.getReliabilityExpression(dependencies, concurrencyStrategy);
         formulaCollector.collectFormula(node, expression);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
@@ -93,11 +97,13 @@ public class FamilyBasedAnalyzer {
         // Sigma'_v
         ADD reliability = liftedExpression.solve(values);
         ADD result = featureModel.times(reliability);
+        reliability.close();
+        values.values().forEach(ADD::close);
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formula evaluation ok...");
 
-        return new ADDReliabilityResults(result);
+        return new ADDReliabilityResults(result, jadd.getReorderingPolicy());
     }
 
 }
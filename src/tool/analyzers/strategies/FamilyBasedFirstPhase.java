@@ -9,7 +9,10 @@ import paramwrapper.ParametricModelChecker;
 import tool.Analyzer;
 import tool.RDGNode;
 import tool.analyzers.buildingblocks.Component;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
+import tool.analyzers.buildingblocks.DerivationScheduler;
+import tool.analyzers.buildingblocks.IsPresent;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import fdtmc.FDTMC;
 
@@ -22,6 +25,7 @@ public class FamilyBasedFirstPhase {
      * LAMBDA_v
      */
     private DerivationFunction<String, FDTMC, FDTMC> derive150Model;
+    private DerivationScheduler derivationScheduler = new DerivationScheduler();
 
 
     public FamilyBasedFirstPhase(ParametricModelChecker modelChecker) {
@@ -43,18 +47,21 @@ public class FamilyBasedFirstPhase {
      *
      * @see {@link Analyzer.getReliabilityExpression}
      * @param node
+     * @param concurrencyStrategy Whether to derive independent parts of the
+     *          150% model in parallel.
      * @return
      */
-    public String getReliabilityExpression(List<RDGNode> dependencies) {
+    public String getReliabilityExpression(List<RDGNode> dependencies, ConcurrencyStrategy concurrencyStrategy) {
         List<Component<FDTMC>> components = RDGNode.toComponentList(dependencies);
         List<String> presenceConditions = components.stream()
                 .map(Component::getPresenceCondition)
                 .collect(Collectors.toList());
 
         Map<String, String> pcEquivalence = PresenceConditions.toEquivalenceClasses(presenceConditions);
-        FDTMC derived150Model = Component.deriveFromMany(components,
-                                                         derive150Model,
-                                                         c -> pcEquivalence.get(c.getPresenceCondition()));
+        IsPresent<FDTMC, String> isPresent = c -> pcEquivalence.get(c.getPresenceCondition());
+        FDTMC derived150Model = (concurrencyStrategy == ConcurrencyStrategy.PARALLEL)
+                ? derivationScheduler.deriveFromMany(components, derive150Model, isPresent)
+                : Component.deriveFromMany(components, derive150Model, isPresent);
         String expression = modelChecker.getReliability(derived150Model);
         LOGGER.info("Parametric model-checking ok...");
         return expression;
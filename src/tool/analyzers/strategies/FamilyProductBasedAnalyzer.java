@@ -1,11 +1,12 @@
 package tool.analyzers.strategies;
 
+import jadd.ConfigurationPredicate;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -13,15 +14,17 @@ import java.util.stream.Stream;
 import paramwrapper.ParametricModelChecker;
 import tool.CyclicRdgException;
 import tool.RDGNode;
+import tool.UnknownFeatureException;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
-import expressionsolver.Expression;
+import expressionsolver.CompiledExpression;
 import expressionsolver.ExpressionSolver;
 
 /**
@@ -31,6 +34,7 @@ public class FamilyProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FamilyProductBasedAnalyzer.class.getName());
 
     private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditions;
 
     private FamilyBasedFirstPhase firstPhase;
 
@@ -39,9 +43,11 @@ public class FamilyProductBasedAnalyzer {
 
     public FamilyProductBasedAnalyzer(JADD jadd,
                                ParametricModelChecker modelChecker,
+                               PresenceConditionCache presenceConditions,
                                ITimeCollector timeCollector,
                                IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditions = presenceConditions;
 
         this.firstPhase = new FamilyBasedFirstPhase(modelChecker);
 
@@ -64,7 +70,7 @@ public class FamilyProductBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Lambda_v + alpha_v
-        String expression = firstPhase.getReliabilityExpression(dependencies);
+        String expression = firstPhase.getReliabilityExpression(dependencies, concurrencyStrategy);
         formulaCollector.collectFormula(node, expression);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
@@ -79,42 +85,41 @@ public class FamilyProductBasedAnalyzer {
                                           e -> e.getKey(),
                                           (a, b) -> a));
 
-        Map<Collection<String>, Double> results;
-        if (concurrencyStrategy == ConcurrencyStrategy.SEQUENTIAL) {
-            Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(parsedExpression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        } else {
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(expression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        }
+        // The compiled expression is thread-safe, so it is shared by all products.
+        CompiledExpression compiledExpression = expressionSolver.compileExpression(expression);
+        ConfigurationPredicate[] presenceBySlot = compiledExpression.getVariables().stream()
+                .map(eqClassToPC::get)
+                .map(this.presenceConditions::get)
+                .toArray(ConfigurationPredicate[]::new);
+        Map<Collection<String>, Double> results = ProductIterationHelper.evaluateInBatches(batch -> evaluateBatch(compiledExpression,
+                                                                                                                 batch,
+                                                                                                                 presenceBySlot),
+                                                                                           configurations,
+                                                                                           concurrencyStrategy);
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formulae evaluation ok...");
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(Expression<Double> expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-        Function<Map.Entry<String, String>, Boolean> isPresent = e -> PresenceConditions.isPresent(e.getValue(),
-                                                                                                   configuration,
-                                                                                                   expressionSolver);
-        Map<String, Double> values = eqClassToPC.entrySet().stream()
-            .collect(Collectors.toMap(e -> e.getKey(),
-                                      isPresent.andThen(present -> present ? 1.0 : 0.0)));
-
-        return expression.solve(values);
-
-    }
-
-    private Double evaluateSingle(String expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-        Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-        return evaluateSingle(parsedExpression, configuration, eqClassToPC);
+    /**
+     * Evaluates the expression for a batch of products at once.
+     *
+     * @param presenceBySlot Presence condition which determines the value
+     *          of each of the expression's variables.
+     */
+    private double[] evaluateBatch(CompiledExpression expression, List<Collection<String>> configurations, ConfigurationPredicate[] presenceBySlot) {
+        double[][] columns = new double[presenceBySlot.length][configurations.size()];
+        try {
+            for (int slot = 0; slot < columns.length; slot++) {
+                for (int i = 0; i < configurations.size(); i++) {
+                    columns[slot][i] = presenceBySlot[slot].test(configurations.get(i)) ? 1.0 : 0.0;
+                }
+            }
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+        return expression.evaluate(columns, configurations.size());
     }
 
 }
@@ -3,7 +3,16 @@ package tool.analyzers.strategies;
 import jadd.ADD;
 import jadd.JADD;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import paramwrapper.ParametricModelChecker;
@@ -11,13 +20,16 @@ import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IPruningStrategy;
+import tool.analyzers.IncrementalStore;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.NoPruningStrategy;
-import tool.analyzers.buildingblocks.AssetProcessor;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
+import tool.analyzers.buildingblocks.DerivationScheduler;
 import tool.analyzers.buildingblocks.FamilyBasedHelper;
+import tool.analyzers.buildingblocks.IsPresent;
+import tool.analyzers.buildingblocks.PipelineStage;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
@@ -28,11 +40,13 @@ import expressionsolver.ExpressionSolver;
  * Orchestrator of feature-family-based analyses.
  */
 public class FeatureFamilyBasedAnalyzer {
+    private static final Logger LOGGER = Logger.getLogger(FeatureFamilyBasedAnalyzer.class.getName());
 
     private ADD featureModel;
     private JADD jadd;
     private ExpressionSolver expressionSolver;
     private IPruningStrategy pruningStrategy;
+    private IncrementalStore incrementalStore;
 
     private FeatureBasedFirstPhase firstPhase;
     private FamilyBasedHelper helper;
@@ -61,14 +75,21 @@ public class FeatureFamilyBasedAnalyzer {
                                                      formulaCollector);
         this.helper = new FamilyBasedHelper(expressionSolver);
 
-        AssetProcessor<Expression<ADD>, ADD> evalAndPrune = (expr, values) -> {
-            return this.pruningStrategy.pruneInvalidConfigurations(null,
-                                                                   expr.solve(values),
-                                                                   featureModel);
+        ADD absentReliability = jadd.makeConstant(1.0);
+        // Intermediate ADDs are released as soon as possible. This includes
+        // the presence conditions, which are encoded for each component, but
+        // not the values derived for other components, which may be reused.
+        solve = (presence, expr, values) -> {
+            ADD reliability = expr.solve(values);
+            ADD pruned = this.pruningStrategy.pruneInvalidConfigurations(null,
+                                                                         reliability,
+                                                                         featureModel);
+            ADD derived = ADD.ite(presence, pruned, absentReliability);
+            releaseUnlessDerived(reliability, expr, values);
+            releaseUnlessDerived(pruned, expr, values);
+            presence.close();
+            return derived;
         };
-        solve = DerivationFunction.abstractDerivation(ADD::ite,
-                                                      evalAndPrune,
-                                                      jadd.makeConstant(1.0));
     }
 
     /**
@@ -87,26 +108,34 @@ public class FeatureFamilyBasedAnalyzer {
     public IReliabilityAnalysisResults evaluateReliability(RDGNode node, ConcurrencyStrategy concurrencyStrategy, String dotOutput) throws CyclicRdgException {
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
-        timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
-        // Alpha_v
-        List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
-        timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+        ADD reliability;
+        if (incrementalStore != null) {
+            reliability = evaluateIncrementally(dependencies, concurrencyStrategy);
+        } else if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            reliability = evaluatePipelined(dependencies);
+        } else {
+            timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+            // Alpha_v
+            List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
+            timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
-        timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
-        // Lift
-        List<Component<Expression<ADD>>> liftedExpressions = expressions.stream()
-                .map(helper::lift)
-                .collect(Collectors.toList());
-        // Sigma_v
-        ADD reliability = solveFromMany(liftedExpressions);
+            timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+            // Lift
+            List<Component<Expression<ADD>>> liftedExpressions = expressions.stream()
+                    .map(helper::lift)
+                    .collect(Collectors.toList());
+            // Sigma_v
+            reliability = solveFromMany(liftedExpressions, new HashMap<String, ADD>());
+        }
         ADD result = featureModel.times(reliability);
+        reliability.close();
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
 
         if (dotOutput != null) {
             generateDotFile(result, dotOutput);
         }
 
-        return new ADDReliabilityResults(result);
+        return new ADDReliabilityResults(result, jadd.getReorderingPolicy());
     }
 
     /**
@@ -123,6 +152,18 @@ public class FeatureFamilyBasedAnalyzer {
         this.pruningStrategy = pruningStrategy;
     }
 
+    /**
+     * Makes subsequent analyses incremental: only the RDG nodes which changed
+     * since the analysis recorded in the store (and the nodes which depend on
+     * them) are evaluated, while the values of the others are read from it.
+     *
+     * @param incrementalStore the store to keep the analyses in, or null for
+     *          non-incremental analyses.
+     */
+    public void setIncrementalStore(IncrementalStore incrementalStore) {
+        this.incrementalStore = incrementalStore;
+    }
+
     /**
      * Dumps the computed family reliability function to the output file
      * in the specified path.
@@ -135,10 +176,199 @@ public class FeatureFamilyBasedAnalyzer {
         jadd.dumpDot("Family Reliability", familyReliability, outputFile);
     }
 
-    private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies) {
-        return Component.deriveFromMany(dependencies,
-                                        solve,
-                                        c -> expressionSolver.encodeFormula(c.getPresenceCondition()));
+    /**
+     * Closes an intermediate ADD, unless it is the feature model itself or
+     * the value derived for some component (e.g., if the expression amounts
+     * to a single variable and there is no pruning).
+     *
+     * An expression only yields a derived value as is if it refers to it, so
+     * only the values of its own variables are looked at, rather than all of them.
+     */
+    private void releaseUnlessDerived(ADD intermediate, Expression<ADD> expression, Map<String, ADD> derivedValues) {
+        if (intermediate == featureModel) {
+            return;
+        }
+        for (String variable : expression.getVariables()) {
+            if (derivedValues.get(variable) == intermediate) {
+                return;
+            }
+        }
+        intermediate.close();
+    }
+
+    /**
+     * Derives the values of the given components in topological order.
+     *
+     * Derivation is not parallelized (e.g., by a {@link DerivationScheduler}),
+     * even in the parallel strategy: it consists of ADD operations, which are
+     * serialized by the ADD manager anyway.
+     */
+    private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies,
+                              Map<String, ADD> derivedValues) {
+        IsPresent<Expression<ADD>, ADD> isPresent = c -> expressionSolver.encodeFormula(c.getPresenceCondition());
+        return Component.deriveFromMany(dependencies, solve, isPresent, derivedValues);
+    }
+
+    /**
+     * Evaluates the reliability of the last of the given nodes in a pipeline:
+     * each node is lifted as soon as it is model-checked, and solved as soon as
+     * it is lifted and its dependencies are solved. Thus, ADD operations on some
+     * nodes overlap with the (possibly subprocess-bound) model checking of others.
+     *
+     * Model checking time spans the model checking stage, while expression
+     * solving time spans only what is left of the pipeline after it.
+     */
+    private ADD evaluatePipelined(List<RDGNode> dependencies) {
+        LOGGER.info("Lifting and solving expressions while model checking the remaining FDTMCs.");
+        ConcurrentHashMap<String, ADD> derivedValues = new ConcurrentHashMap<String, ADD>();
+        Map<String, CompletableFuture<ADD>> values = new HashMap<String, CompletableFuture<ADD>>();
+        List<CompletableFuture<String>> expressions = new ArrayList<CompletableFuture<String>>();
+        CompletableFuture<ADD> reliability = null;
+
+        timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+        try (PipelineStage modelChecking = new PipelineStage("Model checking", DerivationScheduler.DEFAULT_PARALLELISM, timeCollector);
+             PipelineStage lifting = new PipelineStage("Lifting", DerivationScheduler.DEFAULT_PARALLELISM, timeCollector);
+             PipelineStage solving = new PipelineStage("Expression solving", DerivationScheduler.DEFAULT_PARALLELISM, timeCollector)) {
+            for (RDGNode node : dependencies) {
+                // Alpha_v
+                CompletableFuture<String> expression = modelChecking.submit(() -> firstPhase.getReliabilityExpression(node));
+                // Lift
+                CompletableFuture<Expression<ADD>> lifted = lifting.after(expression, () -> helper.lift(expression.join()));
+                // Sigma_v
+                List<CompletableFuture<?>> prerequisites = new ArrayList<CompletableFuture<?>>();
+                prerequisites.add(lifted);
+                for (RDGNode dependency : node.getDependencies()) {
+                    prerequisites.add(values.get(dependency.getId()));
+                }
+                reliability = solving.after(prerequisites.toArray(new CompletableFuture<?>[prerequisites.size()]), () -> {
+                    ADD presence = expressionSolver.encodeFormula(node.getPresenceCondition());
+                    ADD derived = solve.apply(presence, lifted.join(), derivedValues);
+                    derivedValues.put(node.getId(), derived);
+                    return derived;
+                });
+                expressions.add(expression);
+                values.put(node.getId(), reliability);
+            }
+            PipelineStage.join(CompletableFuture.allOf(expressions.toArray(new CompletableFuture<?>[expressions.size()])));
+            timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+
+            timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+            // Failures surface only after every running task is over.
+            PipelineStage.join(CompletableFuture.allOf(values.values().toArray(new CompletableFuture<?>[values.size()])));
+            return PipelineStage.join(reliability);
+        }
+    }
+
+    /**
+     * Evaluates the reliability of the last of the given nodes, reusing the
+     * values recorded in the incremental store for the nodes not affected by
+     * changes since the previous analysis. Affected nodes are model-checked
+     * only if their own models changed; otherwise, they are just solved again.
+     */
+    private ADD evaluateIncrementally(List<RDGNode> dependencies, ConcurrencyStrategy concurrencyStrategy) {
+        RDGNode root = dependencies.get(dependencies.size() - 1);
+        incrementalStore.load(getAnalysisContext(), dependencies);
+
+        List<RDGNode> affected = dependencies.stream()
+                .filter(n -> !incrementalStore.hasValue(n))
+                .collect(Collectors.toList());
+        Map<String, ADD> derivedValues = loadReusedValues(root, affected);
+        if (derivedValues == null) {
+            LOGGER.warning("Could not reuse the values of the previous analysis. Evaluating all RDG nodes.");
+            affected = dependencies;
+            derivedValues = new HashMap<String, ADD>();
+        }
+
+        timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+        Map<String, String> expressions = new HashMap<String, String>();
+        List<RDGNode> changed = new ArrayList<RDGNode>();
+        for (RDGNode node : affected) {
+            String expression = incrementalStore.getExpression(node);
+            if (expression != null) {
+                expressions.put(node.getId(), expression);
+            } else {
+                changed.add(node);
+            }
+        }
+        // Alpha_v
+        for (Component<String> checked : firstPhase.getReliabilityExpressions(changed, concurrencyStrategy)) {
+            expressions.put(checked.getId(), checked.getAsset());
+        }
+        changed.forEach(n -> incrementalStore.putExpression(n, expressions.get(n.getId())));
+        timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+
+        timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        if (!affected.isEmpty()) {
+            // Lift. Derivation only takes the dependencies' ids (for scheduling)
+            // and values, so these stand for the dependencies themselves.
+            List<Component<Expression<ADD>>> liftedExpressions = affected.stream()
+                    .map(n -> new Component<Expression<ADD>>(n.getId(),
+                                                             n.getPresenceCondition(),
+                                                             helper.lift(expressions.get(n.getId())),
+                                                             n.getDependencies().stream()
+                                                                     .map(d -> new Component<Expression<ADD>>(d.getId(), d.getPresenceCondition(), null))
+                                                                     .collect(Collectors.toList())))
+                    .collect(Collectors.toList());
+            // Sigma_v
+            solveFromMany(liftedExpressions, derivedValues);
+            for (RDGNode node : affected) {
+                incrementalStore.putValue(node, derivedValues.get(node.getId()));
+            }
+        }
+        incrementalStore.save();
+        return derivedValues.get(root.getId());
+    }
+
+    /**
+     * Reads the recorded values needed for evaluating the affected nodes,
+     * i.e., those of their unaffected dependencies (or that of the root,
+     * if it is itself unaffected).
+     *
+     * @return the values by node id, or null if some of them could not be read.
+     */
+    private Map<String, ADD> loadReusedValues(RDGNode root, List<RDGNode> affected) {
+        Set<String> affectedIds = affected.stream()
+                .map(RDGNode::getId)
+                .collect(Collectors.toSet());
+        Map<String, RDGNode> reused = new HashMap<String, RDGNode>();
+        if (!affectedIds.contains(root.getId())) {
+            reused.put(root.getId(), root);
+        }
+        for (RDGNode node : affected) {
+            for (RDGNode dependency : node.getDependencies()) {
+                if (!affectedIds.contains(dependency.getId())) {
+                    reused.put(dependency.getId(), dependency);
+                }
+            }
+        }
+
+        Map<String, ADD> values = new HashMap<String, ADD>();
+        for (RDGNode node : reused.values()) {
+            ADD value = incrementalStore.getValue(node);
+            if (value == null) {
+                values.values().forEach(ADD::close);
+                return null;
+            }
+            values.put(node.getId(), value);
+        }
+        return values;
+    }
+
+    /**
+     * Everything other than the RDG on which the derived values depend: the
+     * pruning strategy and the feature model.
+     */
+    private String getAnalysisContext() {
+        StringWriter context = new StringWriter();
+        context.write(pruningStrategy.getClass().getName());
+        context.write('\n');
+        try {
+            jadd.writeADD(featureModel, context);
+        } catch (IOException e) {
+            // Unreachable, since nothing is actually written out.
+            throw new IllegalStateException(e);
+        }
+        return context.toString();
     }
 
 }
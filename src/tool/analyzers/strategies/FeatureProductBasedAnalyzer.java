@@ -1,11 +1,18 @@
 package tool.analyzers.strategies;
 
+import jadd.ConfigurationPredicate;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import paramwrapper.ParametricModelChecker;
@@ -17,13 +24,17 @@ import tool.analyzers.MapBasedReliabilityResults;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
-import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
+import tool.analyzers.buildingblocks.DerivationScheduler;
+import tool.analyzers.buildingblocks.IfThenElse;
+import tool.analyzers.buildingblocks.PipelineStage;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
+import expressionsolver.CompiledExpression;
 import expressionsolver.ExpressionSolver;
+import fdtmc.FDTMC;
 
 /**
  * Orchestrator of feature-product-based analyses.
@@ -31,31 +42,35 @@ import expressionsolver.ExpressionSolver;
 public class FeatureProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FeatureProductBasedAnalyzer.class.getName());
 
-    private ExpressionSolver expressionSolver;
-    private FeatureBasedFirstPhase firstPhase;
-
     /**
-     * Sigma
+     * Element-wise if-then-else operator for batches of products.
      */
-    private DerivationFunction<Boolean, String, Double> solve;
+    private static final IfThenElse<boolean[], double[]> BATCH_IF_OPERATOR = (presence, ifPresent, ifAbsent) -> {
+        double[] result = new double[presence.length];
+        for (int i = 0; i < presence.length; i++) {
+            result[i] = presence[i] ? ifPresent[i] : ifAbsent[i];
+        }
+        return result;
+    };
+
+    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditions;
+    private FeatureBasedFirstPhase firstPhase;
 
     private ITimeCollector timeCollector;
 
     public FeatureProductBasedAnalyzer(JADD jadd,
                                        ParametricModelChecker modelChecker,
+                                       PresenceConditionCache presenceConditions,
                                        ITimeCollector timeCollector,
                                        IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditions = presenceConditions;
 
         this.timeCollector = timeCollector;
 
         this.firstPhase = new FeatureBasedFirstPhase(modelChecker,
                                                      formulaCollector);
-
-
-        solve = DerivationFunction.abstractDerivation(new IfOperator<Double>(),
-                                                      expressionSolver::solveExpression,
-                                                      1.0);
     }
 
     /**
@@ -70,32 +85,103 @@ public class FeatureProductBasedAnalyzer {
     public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
-        timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
-        // Alpha_v
-        List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
-        timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
-
-        timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        List<Component<CompiledExpression>> compiled;
+        if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            compiled = compilePipelined(dependencies);
+        } else {
+            timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+            // Alpha_v
+            List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
+            timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+
+            timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+
+            // Each expression is compiled once and then shared by all products.
+            Map<String, CompiledExpression> compiledExpressions = new HashMap<String, CompiledExpression>();
+            compiled = expressions.stream()
+                    .map(c -> c.fmap((String e) -> compiledExpressions.computeIfAbsent(e, expressionSolver::compileExpression)))
+                    .collect(Collectors.toList());
+        }
 
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Evaluating all expressions for each product in parallel.");
         }
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
-                                                                                                                  configuration,
-                                                                                                                  expressions),
-                                                                                  configurations,
-                                                                                  concurrencyStrategy);
+        Map<Collection<String>, Double> results = ProductIterationHelper.evaluateInBatches(batch -> evaluateBatch(batch,
+                                                                                                                 compiled),
+                                                                                           configurations,
+                                                                                           concurrencyStrategy);
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<Component<String>> expressions) {
+    /**
+     * Model-checks the given nodes and compiles their expressions in a pipeline,
+     * so that each expression is compiled while the remaining FDTMCs are still
+     * being model-checked. Products can only be evaluated afterwards, since each
+     * one needs the expressions of all nodes.
+     *
+     * Model checking time spans the model checking stage, after which the
+     * expression solving timer is started.
+     */
+    private List<Component<CompiledExpression>> compilePipelined(List<RDGNode> nodes) {
+        LOGGER.info("Compiling expressions while model checking the remaining FDTMCs.");
+        // Each expression is compiled once and then shared by all products.
+        Map<String, CompiledExpression> compiledExpressions = new ConcurrentHashMap<String, CompiledExpression>();
+        Map<String, CompletableFuture<CompiledExpression>> compiledByNode = new HashMap<String, CompletableFuture<CompiledExpression>>();
+
+        timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+        try (PipelineStage modelChecking = new PipelineStage("Model checking", DerivationScheduler.DEFAULT_PARALLELISM, timeCollector);
+             PipelineStage compiling = new PipelineStage("Compiling", DerivationScheduler.DEFAULT_PARALLELISM, timeCollector)) {
+            for (RDGNode node : nodes) {
+                // Alpha_v
+                CompletableFuture<String> expression = modelChecking.submit(() -> firstPhase.getReliabilityExpression(node));
+                compiledByNode.put(node.getId(),
+                                   compiling.after(expression,
+                                                   () -> compiledExpressions.computeIfAbsent(expression.join(),
+                                                                                             expressionSolver::compileExpression)));
+            }
+            // Failures surface only after every running task is over.
+            PipelineStage.join(CompletableFuture.allOf(compiledByNode.values().toArray(new CompletableFuture<?>[compiledByNode.size()])));
+        }
+        timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+
+        timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        return nodes.stream()
+                .map(RDGNode::toComponent)
+                .map(c -> c.fmap((FDTMC f) -> compiledByNode.get(c.getId()).join()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Derives the reliabilities of a batch of products at once. Values are
+     * derived column-wise, i.e., each component's expression is evaluated
+     * once for all products in the batch.
+     */
+    private double[] evaluateBatch(List<Collection<String>> configurations, List<Component<CompiledExpression>> expressions) {
+        int count = configurations.size();
+        double[] absent = new double[count];
+        Arrays.fill(absent, 1.0);
+        // Sigma
+        DerivationFunction<boolean[], CompiledExpression, double[]> solve = DerivationFunction.abstractDerivation(BATCH_IF_OPERATOR,
+                                                                                                                  (expression, values) -> expression.solve(values, count),
+                                                                                                                  absent);
         return Component.deriveFromMany(expressions,
                                         solve,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+                                        c -> isPresent(c.getPresenceCondition(), configurations));
+    }
+
+    private boolean[] isPresent(String presenceCondition, List<Collection<String>> configurations) {
+        ConfigurationPredicate predicate = presenceConditions.get(presenceCondition);
+        boolean[] presence = new boolean[configurations.size()];
+        try {
+            for (int i = 0; i < presence.length; i++) {
+                presence[i] = predicate.test(configurations.get(i));
+            }
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+        return presence;
     }
 
 }
@@ -18,7 +18,7 @@ import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
@@ -34,6 +34,7 @@ public class ProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(ProductBasedAnalyzer.class.getName());
 
     private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditions;
     ParametricModelChecker modelChecker;
     /**
      * LAMBDA
@@ -46,9 +47,11 @@ public class ProductBasedAnalyzer {
 
     public ProductBasedAnalyzer(JADD jadd,
                                 ParametricModelChecker modelChecker,
+                                PresenceConditionCache presenceConditions,
                                 ITimeCollector timeCollector,
                                 IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditions = presenceConditions;
         this.modelChecker = modelChecker;
 
         this.timeCollector = timeCollector;
@@ -99,9 +102,8 @@ public class ProductBasedAnalyzer {
     private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Collection<String> configuration) {
         return Component.deriveFromMany(dependencies,
                                         derive,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+                                        c -> presenceConditions.isPresent(c.getPresenceCondition(),
+                                                                          configuration));
     }
 
     private FDTMC trivialFdtmc() {
@@ -0,0 +1,64 @@
+package tool.ordering;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bandwidth minimization of the clause graph (in which two variables are
+ * adjacent if they occur in the same clause) by the reverse Cuthill-McKee
+ * algorithm, so that adjacent variables are close in the order.
+ *
+ * Each connected component is traversed breadth-first from one of its
+ * variables of least degree, visiting neighbors by increasing degree;
+ * the resulting order is then reversed.
+ */
+public class BandwidthOrdering implements IVariableOrdering {
+
+    @Override
+    public List<String> getVariableOrder(String featureModel) {
+        CnfFormula cnf = CnfFormula.parse(featureModel);
+        if (cnf == null) {
+            return null;
+        }
+        int numVars = cnf.getNumberOfVariables();
+        List<List<Integer>> neighbors = cnf.getNeighbors();
+        Comparator<Integer> byDegree = Comparator.comparingInt(v -> neighbors.get(v).size());
+
+        List<Integer> starts = new ArrayList<Integer>();
+        for (int variable = 0; variable < numVars; variable++) {
+            starts.add(variable);
+        }
+        // Stable, so ties are broken by order of appearance.
+        Collections.sort(starts, byDegree);
+
+        boolean[] visited = new boolean[numVars];
+        List<String> order = new ArrayList<String>(numVars);
+        Deque<Integer> queue = new ArrayDeque<Integer>();
+        for (int start : starts) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int variable = queue.poll();
+                order.add(cnf.getVariables().get(variable));
+                List<Integer> adjacent = new ArrayList<Integer>(neighbors.get(variable));
+                Collections.sort(adjacent, byDegree);
+                for (int neighbor : adjacent) {
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+}
@@ -0,0 +1,148 @@
+package tool.ordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Clausal view of a feature model in conjunctive normal form, as found in
+ * the {@code cnf_*.txt} files (e.g., {@code R && (!R || G) && (!G || R)}).
+ *
+ * Variables are numbered in order of first appearance. Each clause is an
+ * array of literals, which are the number of the variable plus one, negated
+ * if the variable is (as in the DIMACS format). The {@code True} and
+ * {@code False} constants are simplified away.
+ */
+public class CnfFormula {
+    private static final Logger LOGGER = Logger.getLogger(CnfFormula.class.getName());
+
+    private final List<String> variables;
+    private final List<int[]> clauses;
+
+    private CnfFormula(List<String> variables, List<int[]> clauses) {
+        this.variables = variables;
+        this.clauses = clauses;
+    }
+
+    /**
+     * Parses a formula in conjunctive normal form.
+     *
+     * @return the parsed formula or, if it is not in conjunctive normal form,
+     *      null.
+     */
+    public static CnfFormula parse(String formula) {
+        Map<String, Integer> indices = new LinkedHashMap<String, Integer>();
+        List<int[]> clauses = new ArrayList<int[]>();
+        for (String rawClause : formula.split("&&")) {
+            String clause = rawClause.trim();
+            if (clause.startsWith("(") && clause.endsWith(")")) {
+                clause = clause.substring(1, clause.length() - 1);
+            }
+            List<Integer> literals = new ArrayList<Integer>();
+            boolean tautology = false;
+            for (String rawLiteral : clause.split("\\|\\|")) {
+                String literal = rawLiteral.trim();
+                boolean negated = literal.startsWith("!");
+                String variable = negated ? literal.substring(1).trim() : literal;
+                if (!isIdentifier(variable)) {
+                    LOGGER.warning("Not a formula in conjunctive normal form: unexpected <" + literal + ">");
+                    return null;
+                }
+                if (isConstant(variable)) {
+                    tautology |= (Boolean.parseBoolean(variable.toLowerCase()) != negated);
+                    continue;
+                }
+                Integer index = indices.get(variable);
+                if (index == null) {
+                    index = indices.size();
+                    indices.put(variable, index);
+                }
+                literals.add(negated ? -(index + 1) : index + 1);
+            }
+            if (!tautology) {
+                clauses.add(literals.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return new CnfFormula(Collections.unmodifiableList(new ArrayList<String>(indices.keySet())),
+                              Collections.unmodifiableList(clauses));
+    }
+
+    private static boolean isIdentifier(String token) {
+        if (token.isEmpty() || !Character.isJavaIdentifierStart(token.charAt(0))) {
+            return false;
+        }
+        return token.chars().allMatch(Character::isJavaIdentifierPart);
+    }
+
+    private static boolean isConstant(String variable) {
+        return variable.equalsIgnoreCase("true") || variable.equalsIgnoreCase("false");
+    }
+
+    /**
+     * @return the names of the variables, in order of first appearance.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public int getNumberOfVariables() {
+        return variables.size();
+    }
+
+    /**
+     * @return the clauses, as arrays of (signed, 1-based) literals.
+     */
+    public List<int[]> getClauses() {
+        return clauses;
+    }
+
+    /**
+     * @return the (0-based) variable of a literal.
+     */
+    public static int variableOf(int literal) {
+        return Math.abs(literal) - 1;
+    }
+
+    /**
+     * @return the variables of each clause, without repetitions.
+     */
+    List<int[]> getClauseVariables() {
+        List<int[]> result = new ArrayList<int[]>(clauses.size());
+        for (int[] clause : clauses) {
+            result.add(Arrays.stream(clause).map(CnfFormula::variableOf).distinct().toArray());
+        }
+        return result;
+    }
+
+    /**
+     * @return for each variable, the other variables with which it shares
+     *      a clause, in order of first appearance.
+     */
+    List<List<Integer>> getNeighbors() {
+        List<Set<Integer>> neighbors = new ArrayList<Set<Integer>>();
+        for (int i = 0; i < variables.size(); i++) {
+            neighbors.add(new LinkedHashSet<Integer>());
+        }
+        for (int[] clause : getClauseVariables()) {
+            for (int variable : clause) {
+                for (int other : clause) {
+                    if (other != variable) {
+                        neighbors.get(variable).add(other);
+                    }
+                }
+            }
+        }
+        List<List<Integer>> result = new ArrayList<List<Integer>>();
+        for (Set<Integer> adjacent : neighbors) {
+            result.add(new ArrayList<Integer>(adjacent));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,119 @@
+package tool.ordering;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import splar.core.fm.FeatureGroup;
+import splar.core.fm.FeatureModel;
+import splar.core.fm.FeatureTreeNode;
+
+/**
+ * Orders variables as a depth-first (pre-order) traversal of the feature
+ * tree, so that each feature is close to its parent and siblings, which
+ * are the ones it shares constraints with.
+ *
+ * The tree is taken from a SPLGenerator (SPLAR) {@link FeatureModel} if
+ * one is given. Otherwise, it is recovered from the CNF itself: the root
+ * is the first unit clause, and children are the features which share a
+ * binary clause (e.g., {@code !child || parent}) with their parent.
+ * Features not reached from the root (if any) go last.
+ */
+public class FeatureTreeOrdering implements IVariableOrdering {
+
+    private FeatureModel featureTree;
+
+    public FeatureTreeOrdering() {
+        this(null);
+    }
+
+    /**
+     * @param featureTree Feature model whose tree is to be traversed,
+     *      or null for recovering the tree from the CNF.
+     */
+    public FeatureTreeOrdering(FeatureModel featureTree) {
+        this.featureTree = featureTree;
+    }
+
+    @Override
+    public List<String> getVariableOrder(String featureModel) {
+        CnfFormula cnf = CnfFormula.parse(featureModel);
+        if (cnf == null) {
+            return null;
+        }
+        Set<String> order = new LinkedHashSet<String>();
+        if (featureTree != null) {
+            order.addAll(traverse(featureTree));
+        } else {
+            for (int variable : traverse(cnf)) {
+                order.add(cnf.getVariables().get(variable));
+            }
+        }
+        // Features which are only in the CNF (e.g., in cross-tree constraints).
+        order.addAll(cnf.getVariables());
+        return new ArrayList<String>(order);
+    }
+
+    private static List<String> traverse(FeatureModel featureTree) {
+        List<String> features = new ArrayList<String>();
+        FeatureTreeNode root = featureTree.getRoot();
+        @SuppressWarnings("unchecked")
+        Enumeration<FeatureTreeNode> nodes = (Enumeration<FeatureTreeNode>) (Enumeration<?>) root.preorderEnumeration();
+        for (FeatureTreeNode node : Collections.list(nodes)) {
+            // Groups are not features by themselves.
+            if (!(node instanceof FeatureGroup)) {
+                features.add(node.getID());
+            }
+        }
+        return features;
+    }
+
+    private static List<Integer> traverse(CnfFormula cnf) {
+        int numVars = cnf.getNumberOfVariables();
+        List<List<Integer>> children = new ArrayList<List<Integer>>();
+        for (int i = 0; i < numVars; i++) {
+            children.add(new ArrayList<Integer>());
+        }
+        int root = -1;
+        for (int[] clause : cnf.getClauses()) {
+            if (clause.length == 1 && clause[0] > 0 && root < 0) {
+                root = CnfFormula.variableOf(clause[0]);
+            } else if (clause.length == 2 && (clause[0] > 0) != (clause[1] > 0)) {
+                int first = CnfFormula.variableOf(clause[0]);
+                int second = CnfFormula.variableOf(clause[1]);
+                children.get(first).add(second);
+                children.get(second).add(first);
+            }
+        }
+
+        List<Integer> order = new ArrayList<Integer>();
+        if (root < 0) {
+            return order;
+        }
+        boolean[] visited = new boolean[numVars];
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            int variable = pending.pop();
+            if (visited[variable]) {
+                continue;
+            }
+            visited[variable] = true;
+            order.add(variable);
+            List<Integer> adjacent = children.get(variable);
+            // Pushed backwards, so that children are visited in CNF order.
+            for (int i = adjacent.size() - 1; i >= 0; i--) {
+                if (!visited[adjacent.get(i)]) {
+                    pending.push(adjacent.get(i));
+                }
+            }
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,110 @@
+package tool.ordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * FORCE heuristic (Aloul, Markov and Sakallah, 2003): variables are
+ * iteratively moved to the center of gravity of the clauses they occur in,
+ * so that the variables of each clause end up close to each other.
+ *
+ * Starts from the order of appearance in the CNF and keeps the order with
+ * the smallest total span (sum of the distances between the first and the
+ * last variable of each clause) found within a number of iterations.
+ */
+public class ForceOrdering implements IVariableOrdering {
+    public static final int DEFAULT_MAX_ITERATIONS = 50;
+
+    private int maxIterations;
+
+    public ForceOrdering() {
+        this(DEFAULT_MAX_ITERATIONS);
+    }
+
+    public ForceOrdering(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public List<String> getVariableOrder(String featureModel) {
+        CnfFormula cnf = CnfFormula.parse(featureModel);
+        if (cnf == null) {
+            return null;
+        }
+        int numVars = cnf.getNumberOfVariables();
+        List<int[]> clauses = cnf.getClauseVariables();
+
+        // positions[v] = position of variable v in the order.
+        int[] positions = IntStream.range(0, numVars).toArray();
+        int[] best = positions.clone();
+        long bestSpan = span(clauses, positions);
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] gravity = new double[numVars];
+            int[] occurrences = new int[numVars];
+            for (int[] clause : clauses) {
+                if (clause.length == 0) {
+                    continue;
+                }
+                double center = 0;
+                for (int variable : clause) {
+                    center += positions[variable];
+                }
+                center /= clause.length;
+                for (int variable : clause) {
+                    gravity[variable] += center;
+                    occurrences[variable]++;
+                }
+            }
+            final double[] tentative = new double[numVars];
+            for (int variable = 0; variable < numVars; variable++) {
+                tentative[variable] = (occurrences[variable] == 0)
+                        ? positions[variable]
+                        : gravity[variable] / occurrences[variable];
+            }
+            final int[] current = positions;
+            Integer[] sorted = IntStream.range(0, numVars).boxed().toArray(Integer[]::new);
+            // Ties are broken by the current order, so that it is stable.
+            Arrays.sort(sorted, Comparator.<Integer>comparingDouble(v -> tentative[v])
+                                          .thenComparingInt(v -> current[v]));
+            int[] next = new int[numVars];
+            for (int position = 0; position < numVars; position++) {
+                next[sorted[position]] = position;
+            }
+            if (Arrays.equals(next, positions)) {
+                break;
+            }
+            positions = next;
+            long currentSpan = span(clauses, positions);
+            if (currentSpan < bestSpan) {
+                bestSpan = currentSpan;
+                best = positions.clone();
+            }
+        }
+
+        String[] order = new String[numVars];
+        for (int variable = 0; variable < numVars; variable++) {
+            order[best[variable]] = cnf.getVariables().get(variable);
+        }
+        return new ArrayList<String>(Arrays.asList(order));
+    }
+
+    static long span(List<int[]> clauses, int[] positions) {
+        long span = 0;
+        for (int[] clause : clauses) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int variable : clause) {
+                min = Math.min(min, positions[variable]);
+                max = Math.max(max, positions[variable]);
+            }
+            if (clause.length > 0) {
+                span += max - min;
+            }
+        }
+        return span;
+    }
+
+}
@@ -0,0 +1,20 @@
+package tool.ordering;
+
+import java.util.List;
+
+/**
+ * Interface for heuristics which compute an order for the ADD variables
+ * from the feature model alone, i.e., before any ADD is built.
+ */
+public interface IVariableOrdering {
+
+    /**
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @return the features, from the topmost variable down, or null if no
+     *          order could be computed (e.g., the feature model is not in
+     *          conjunctive normal form).
+     */
+    public List<String> getVariableOrder(String featureModel);
+
+}
@@ -3,6 +3,7 @@ package tool.stats;
 public interface CollectibleTimers {
 
     public static final String PARSING_TIME = "Parsing time";
+    public static final String VARIABLE_ORDERING_TIME = "Variable ordering time";
     public static final String MODEL_CHECKING_TIME = "Model checking time";
     public static final String EXPRESSION_SOLVING_TIME = "Expression solving time";
 
@@ -17,6 +17,18 @@ public interface ITimeCollector {
      */
     public long getCumulativeTime(String id);
 
+    /**
+     * Records the activity of a stage of a pipelined analysis, whose
+     * tasks run concurrently (and thus cannot share a timer).
+     *
+     * @param stage Name of the stage.
+     * @param utilization Fraction of the stage's duration in which its
+     *          workers were busy.
+     * @param meanQueueDepth Mean number of tasks waiting for a worker.
+     * @param maxQueueDepth Maximum number of tasks waiting for a worker.
+     */
+    public void collectStageStats(String stage, double utilization, double meanQueueDepth, int maxQueueDepth);
+
     public void printStats(PrintStream out);
 
 }
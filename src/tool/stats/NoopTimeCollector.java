@@ -25,4 +25,9 @@ public class NoopTimeCollector implements ITimeCollector {
         return 0;
     }
 
+    @Override
+    public void collectStageStats(String stage, double utilization, double meanQueueDepth, int maxQueueDepth) {
+        // No-op
+    }
+
 }
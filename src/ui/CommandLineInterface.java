@@ -3,6 +3,8 @@
  */
 package ui;
 
+import jadd.JADD;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -15,6 +17,7 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +42,10 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import paramwrapper.CachingModelChecker;
 import paramwrapper.IModelCollector;
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParametricModelChecker;
 import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
 import parsing.exceptions.InvalidNodeClassException;
 import parsing.exceptions.InvalidNodeType;
@@ -48,10 +54,13 @@ import parsing.exceptions.InvalidTagException;
 import parsing.exceptions.UnsupportedFragmentTypeException;
 import tool.Analyzer;
 import tool.CyclicRdgException;
+import tool.ModelCheckerFactory;
 import tool.PruningStrategyFactory;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
+import tool.VariableOrderingFactory;
 import tool.analyzers.IReliabilityAnalysisResults;
+import tool.ordering.IVariableOrdering;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.IMemoryCollector;
@@ -94,30 +103,41 @@ public class CommandLineInterface {
         memoryCollector.takeSnapshot("after model parsing");
 
         Analyzer analyzer = makeAnalyzer(options);
-        Stream<Collection<String>> targetConfigurations = getTargetConfigurations(options, analyzer);
-
-        memoryCollector.takeSnapshot("before evaluation");
-        long analysisStartTime = System.currentTimeMillis();
-        Stream<Collection<String>> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
-        IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer,
-                                                                            rdgRoot,
-                                                                            validConfigs,
-                                                                            options);
-        long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
-        memoryCollector.takeSnapshot("after evaluation");
-
-        if (!options.hasSuppressReport()) {
-            Map<Boolean, List<Collection<String>>> splitConfigs = getTargetConfigurations(options, analyzer)
-                    .collect(Collectors.partitioningBy(analyzer::isValidConfiguration));
-            printAnalysisResults(splitConfigs, familyReliability);
-        }
+        try {
+            Stream<Collection<String>> targetConfigurations = getTargetConfigurations(options, analyzer);
+
+            memoryCollector.takeSnapshot("before evaluation");
+            long analysisStartTime = System.currentTimeMillis();
+            Stream<Collection<String>> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
+            IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer,
+                                                                                rdgRoot,
+                                                                                validConfigs,
+                                                                                options);
+            long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
+            memoryCollector.takeSnapshot("after evaluation");
+
+            if (options.getVariableOrderOutputPath() != null) {
+                analyzer.exportVariableOrder(Paths.get(options.getVariableOrderOutputPath()));
+            }
 
-        if (options.hasStatsEnabled()) {
-            printStats(OUTPUT, familyReliability, rdgRoot);
+            if (!options.hasSuppressReport() && options.hasRankedReport()) {
+                printRankedConfigurations(familyReliability, options);
+            } else if (!options.hasSuppressReport()) {
+                Map<Boolean, List<Collection<String>>> splitConfigs = getTargetConfigurations(options, analyzer)
+                        .collect(Collectors.partitioningBy(analyzer::isValidConfiguration));
+                printAnalysisResults(splitConfigs, familyReliability);
+            }
+
+            if (options.hasStatsEnabled()) {
+                printStats(OUTPUT, analyzer, familyReliability, rdgRoot);
+            }
+            long totalRunningTime = System.currentTimeMillis() - startTime;
+            OUTPUT.println("Total analysis time: " +  totalAnalysisTime + " ms");
+            OUTPUT.println("Total running time: " +  totalRunningTime + " ms");
+        } finally {
+            // Terminates model checker processes and deletes scratch files.
+            analyzer.close();
         }
-        long totalRunningTime = System.currentTimeMillis() - startTime;
-        OUTPUT.println("Total analysis time: " +  totalAnalysisTime + " ms");
-        OUTPUT.println("Total running time: " +  totalRunningTime + " ms");
     }
 
     /**
@@ -194,17 +214,42 @@ public class CommandLineInterface {
      * @param options
      * @return
      */
-    private static Analyzer makeAnalyzer(Options options) {
+    private static Analyzer makeAnalyzer(Options options) throws IOException {
         File featureModelFile = new File(options.getFeatureModelFilePath());
         String featureModel = readFeatureModel(featureModelFile);
 
         String paramPath = options.getParamPath();
-        Analyzer analyzer = new Analyzer(featureModel,
-                                         paramPath,
+        ParametricModelChecker modelChecker = ModelCheckerFactory.createModelChecker(options.getModelCheckingStrategy(),
+                                                                                    paramPath,
+                                                                                    options.getWorkers(),
+                                                                                    options.getModelCheckingTimeout() * 1000,
+                                                                                    options.getWorkerCommand(),
+                                                                                    modelCollector);
+        if (options.getModelCacheDirectory() != null) {
+            modelChecker = new CachingModelChecker(modelChecker,
+                                                   ModelCheckerFactory.getModelCheckerName(options.getModelCheckingStrategy(), paramPath),
+                                                   Paths.get(options.getModelCacheDirectory()),
+                                                   options.getModelCacheSize(),
+                                                   (modelCollector != null) ? modelCollector : new NoopModelCollector());
+        }
+        IVariableOrdering variableOrdering;
+        if (options.getVariableOrderInputPath() != null) {
+            List<String> variableOrder = JADD.readVariableOrder(Paths.get(options.getVariableOrderInputPath()));
+            variableOrdering = fm -> variableOrder;
+        } else {
+            variableOrdering = VariableOrderingFactory.createVariableOrdering(options.getVariableOrderingStrategy());
+        }
+        Analyzer analyzer = new Analyzer(options.getAddBackend(),
+                                         featureModel,
+                                         modelChecker,
+                                         options.getReorderingPolicy(),
+                                         variableOrdering,
                                          timeCollector,
-                                         formulaCollector,
-                                         modelCollector);
+                                         formulaCollector);
         analyzer.setConcurrencyStrategy(options.getConcurrencyStrategy());
+        if (options.getIncrementalDirectory() != null) {
+            analyzer.setIncrementalAnalysis(Paths.get(options.getIncrementalDirectory()));
+        }
         return analyzer;
     }
 
@@ -220,7 +265,7 @@ public class CommandLineInterface {
     }
 
     private static Stream<Collection<String>> getTargetConfigurations(Options options, Analyzer analyzer) {
-        if (options.hasPrintAllConfigurations()) {
+        if (options.hasPrintAllConfigurations() || options.hasRankedReport()) {
             return analyzer.getValidConfigurations();
         } else {
             Set<Collection<String>> configurations = new HashSet<Collection<String>>();
@@ -240,7 +285,7 @@ public class CommandLineInterface {
 
             for (String rawConfiguration: rawConfigurations) {
                 String[] variables = rawConfiguration.split(",");
-                configurations.add(Arrays.asList(variables));
+                configurations.add(analyzer.encodeConfiguration(Arrays.asList(variables)));
             }
 
             return configurations.stream();
@@ -273,6 +318,37 @@ public class CommandLineInterface {
         OUTPUT.println(">>>> Total valid configurations: " + splitConfigs.get(true).size());
     }
 
+    /**
+     * Prints the least reliable configurations (as many as asked for) or those
+     * below a reliability threshold, from the least reliable one up.
+     */
+    private static void printRankedConfigurations(IReliabilityAnalysisResults familyReliability, Options options) {
+        double threshold = (options.getReliabilityThreshold() != null) ? options.getReliabilityThreshold() : Double.POSITIVE_INFINITY;
+        Stream<Collection<String>> rankedConfigs = familyReliability.getConfigurationsBelow(threshold);
+        if (options.getLeastReliableCount() != null) {
+            rankedConfigs = rankedConfigs.limit(options.getLeastReliableCount());
+        }
+
+        OUTPUT.println("Configurations by increasing reliability:");
+        OUTPUT.println("=========================================");
+        int printed = 0;
+        Iterator<Collection<String>> iterator = rankedConfigs.iterator();
+        while (iterator.hasNext()) {
+            Collection<String> rankedConfig = iterator.next();
+            try {
+                String[] configurationAsArray = rankedConfig.toArray(new String[rankedConfig.size()]);
+                printSingleConfiguration(rankedConfig.toString(),
+                                         familyReliability.getResult(configurationAsArray));
+                printed++;
+            } catch (UnknownFeatureException e) {
+                LOGGER.severe("Unrecognized feature: " + e.getFeatureName());
+                LOGGER.log(Level.SEVERE, e.toString(), e);
+            }
+        }
+        OUTPUT.println("=========================================");
+        OUTPUT.println(">>>> Total listed configurations: " + printed);
+    }
+
     private static void printSingleConfiguration(String configuration, double reliability) {
         String message = configuration + " --> ";
         if (Double.doubleToRawLongBits(reliability) != 0) {
@@ -282,7 +358,7 @@ public class CommandLineInterface {
         }
     }
 
-    private static void printStats(PrintStream out, IReliabilityAnalysisResults familyReliability, RDGNode rdgRoot) {
+    private static void printStats(PrintStream out, Analyzer analyzer, IReliabilityAnalysisResults familyReliability, RDGNode rdgRoot) {
         out.println("-----------------------------");
         out.println("Stats:");
         out.println("------");
@@ -290,6 +366,7 @@ public class CommandLineInterface {
         formulaCollector.printStats(out);
         modelCollector.printStats(out);
         memoryCollector.printStats(out);
+        analyzer.printStats(out);
         printEvaluationReuse(rdgRoot);
         familyReliability.printStats(out);
     }
@@ -1,11 +1,19 @@
 package ui;
 
+import jadd.ADDBackendType;
+import jadd.ReorderingHeuristic;
+import jadd.ReorderingPolicy;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import tool.ModelCheckingStrategy;
 import tool.PruningStrategy;
+import tool.VariableOrderingStrategy;
 import tool.analyzers.AnalysisStrategy;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 
@@ -22,11 +30,25 @@ class Options {
     private String configuration;
     private String configurationsFilePath;
     private boolean printAllConfigurations;
+    private Integer leastReliableCount;
+    private Double reliabilityThreshold;
     private boolean suppressReport;
     private boolean statsEnabled;
     private ConcurrencyStrategy concurrencyStrategy;
     private PruningStrategy pruningStrategy;
     private AnalysisStrategy analysisStrategy;
+    private ModelCheckingStrategy modelCheckingStrategy;
+    private String modelCacheDirectory;
+    private int modelCacheSize;
+    private String incrementalDirectory;
+    private int workers;
+    private long modelCheckingTimeout;
+    private List<String> workerCommand;
+    private ReorderingPolicy reorderingPolicy;
+    private VariableOrderingStrategy variableOrderingStrategy;
+    private String variableOrderInputPath;
+    private String variableOrderOutputPath;
+    private ADDBackendType addBackend;
 
     static Options parseOptions(String[] args) throws IOException {
         OptionParser optionParser = new OptionParser();
@@ -58,6 +80,18 @@ class Options {
         OptionSpec<Void> allConfigurationsOption = optionParser
                 .accepts("all-configurations",
                          "Print the reliabilities of all valid configurations");
+        OptionSpec<Integer> leastReliableOption = optionParser
+                .accepts("least-reliable",
+                         "Print the reliabilities of the given number of least reliable valid configurations, from the least reliable one up")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .describedAs("Number");
+        OptionSpec<Double> reliabilityBelowOption = optionParser
+                .accepts("reliability-below",
+                         "Print the reliabilities of all valid configurations below the given threshold, from the least reliable one up")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .describedAs("Reliability");
         OptionSpec<Void> suppressReportOption = optionParser
                 .accepts("suppress-report",
                          "Suppress reliabilities report for all evaluated configurations");
@@ -93,6 +127,122 @@ class Options {
                 .defaultsTo(AnalysisStrategy.FEATURE_FAMILY)
                 .describedAs("FEATURE_FAMILY | FEATURE_PRODUCT | FAMILY | FAMILY_PRODUCT | PRODUCT");
 
+        OptionSpec<ModelCheckingStrategy> modelCheckingStrategyOption = optionParser
+                .accepts("model-checker",
+                         "The parametric model checker to be used. Can be one of: "
+                                 + "PARAM (external PARAM or Prism executable at --param-path); "
+                                 + "STATE_ELIMINATION (in-process state elimination); "
+                                 + "WORKER_POOL (pool of long-lived model-checker processes).")
+                .withRequiredArg()
+                .ofType(ModelCheckingStrategy.class)
+                .defaultsTo(ModelCheckingStrategy.PARAM)
+                .describedAs("PARAM | STATE_ELIMINATION | WORKER_POOL");
+        OptionSpec<Integer> workersOption = optionParser
+                .accepts("workers",
+                         "Number of model-checker worker processes (WORKER_POOL only). "
+                                 + "Defaults to the number of available processors if the concurrency strategy is PARALLEL, or 1 otherwise")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .describedAs("Number");
+        OptionSpec<Long> modelCheckingTimeoutOption = optionParser
+                .accepts("model-checking-timeout",
+                         "Maximum time to wait for the result of a single model (WORKER_POOL only). 0 means no timeout")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(0L)
+                .describedAs("Seconds");
+        OptionSpec<String> workerCommandOption = optionParser
+                .accepts("worker-command",
+                         "Command line which starts a model-checker worker process (WORKER_POOL only). "
+                                 + "Defaults to running paramwrapper.ModelCheckerWorker with this tool's classpath")
+                .withRequiredArg()
+                .describedAs("Command");
+
+        OptionSpec<String> modelCacheDirectoryOption = optionParser
+                .accepts("model-cache-dir",
+                         "Directory in which to persist the reliability expressions of model-checked FDTMCs, "
+                                 + "so that unchanged models are not checked again in subsequent runs")
+                .withRequiredArg()
+                .describedAs("Directory");
+        OptionSpec<Integer> modelCacheSizeOption = optionParser
+                .accepts("model-cache-size",
+                         "Maximum number of entries kept in the model cache (least recently used ones are evicted)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(10000)
+                .describedAs("Entries");
+
+        OptionSpec<String> incrementalDirectoryOption = optionParser
+                .accepts("incremental-dir",
+                         "Directory in which to keep the state of feature-family-based analyses, "
+                                 + "so that subsequent runs only evaluate the parts of the models which changed")
+                .withRequiredArg()
+                .describedAs("Directory");
+
+        OptionSpec<ReorderingHeuristic> reorderingHeuristicOption = optionParser
+                .accepts("reordering-heuristic",
+                         "Heuristic for reordering the variables of decision diagrams")
+                .withRequiredArg()
+                .ofType(ReorderingHeuristic.class)
+                .defaultsTo(ReorderingHeuristic.SYMM_SIFT)
+                .describedAs("SIFT | SYMM_SIFT | WINDOW | ANNEALING | GENETIC");
+        OptionSpec<Void> dynamicReorderingOption = optionParser
+                .accepts("dynamic-reordering",
+                         "Reorder variables whenever decision diagrams grow past a threshold (which doubles after each reordering)");
+        OptionSpec<Integer> reorderingThresholdOption = optionParser
+                .accepts("reordering-threshold",
+                         "Number of nodes which triggers the first dynamic reordering")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(ReorderingPolicy.DEFAULT_FIRST_REORDERING_THRESHOLD)
+                .describedAs("Nodes");
+        OptionSpec<Double> reorderingMaxGrowthOption = optionParser
+                .accepts("reordering-max-growth",
+                         "Factor by which decision diagrams may grow while a variable is being moved")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .defaultsTo(ReorderingPolicy.DEFAULT_MAX_GROWTH)
+                .describedAs("Factor");
+        OptionSpec<Integer> maxReorderingsOption = optionParser
+                .accepts("max-reorderings",
+                         "Maximum number of dynamic reorderings")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .describedAs("Number");
+        OptionSpec<Long> reorderingTimeLimitOption = optionParser
+                .accepts("reordering-time-limit",
+                         "Time budget for reordering the variables after parsing the feature model. 0 means no limit")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(0L)
+                .describedAs("Milliseconds");
+        OptionSpec<VariableOrderingStrategy> variableOrderingOption = optionParser
+                .accepts("variable-ordering",
+                         "How to order the variables of decision diagrams before analysis: by reordering the feature model's (SIFTING), "
+                         + "or beforehand, from the feature model's structure, by a depth-first traversal of the feature tree (FEATURE_TREE), "
+                         + "the FORCE heuristic (FORCE) or bandwidth minimization of the clause graph (BANDWIDTH)")
+                .withRequiredArg()
+                .ofType(VariableOrderingStrategy.class)
+                .defaultsTo(VariableOrderingStrategy.SIFTING)
+                .describedAs("SIFTING | FEATURE_TREE | FORCE | BANDWIDTH");
+        OptionSpec<String> variableOrderInputOption = optionParser
+                .accepts("variable-order-in",
+                         "File with a variable order (one feature per line) to be used instead of the one given by --variable-ordering")
+                .withRequiredArg()
+                .describedAs("File");
+        OptionSpec<String> variableOrderOutputOption = optionParser
+                .accepts("variable-order-out",
+                         "File to which the final variable order is written, so that it may be reused with --variable-order-in")
+                .withRequiredArg()
+                .describedAs("File");
+        OptionSpec<ADDBackendType> addBackendOption = optionParser
+                .accepts("add-backend",
+                         "Engine for decision diagrams: CUDD, through its native library, or a pure-Java one (JAVA)")
+                .withRequiredArg()
+                .ofType(ADDBackendType.class)
+                .defaultsTo(ADDBackendType.getDefault())
+                .describedAs("CUDD | JAVA");
+
         OptionSpec<Void> helpOption = optionParser
                 .accepts("help")
                 .forHelp();
@@ -110,11 +260,41 @@ class Options {
         result.configuration = options.valueOf(configurationOption);
         result.configurationsFilePath = options.valueOf(configurationsFileOption);
         result.printAllConfigurations = options.has(allConfigurationsOption);
+        result.leastReliableCount = options.valueOf(leastReliableOption);
+        result.reliabilityThreshold = options.valueOf(reliabilityBelowOption);
         result.suppressReport = options.has(suppressReportOption);
         result.statsEnabled = options.has(statsEnabledOption);
         result.concurrencyStrategy = options.valueOf(concurrencyStrategyOption);
         result.pruningStrategy = options.valueOf(pruningStrategyOption);
         result.analysisStrategy = options.valueOf(analysisStrategyOption);
+        result.modelCheckingStrategy = options.valueOf(modelCheckingStrategyOption);
+        result.modelCacheDirectory = options.valueOf(modelCacheDirectoryOption);
+        result.modelCacheSize = options.valueOf(modelCacheSizeOption);
+        result.incrementalDirectory = options.valueOf(incrementalDirectoryOption);
+        if (options.has(workersOption)) {
+            result.workers = options.valueOf(workersOption);
+        } else if (result.concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            result.workers = Runtime.getRuntime().availableProcessors();
+        } else {
+            result.workers = 1;
+        }
+        result.modelCheckingTimeout = options.valueOf(modelCheckingTimeoutOption);
+        if (options.has(workerCommandOption)) {
+            result.workerCommand = Arrays.asList(options.valueOf(workerCommandOption).trim().split("\\s+"));
+        }
+        result.reorderingPolicy = new ReorderingPolicy();
+        result.reorderingPolicy.setHeuristic(options.valueOf(reorderingHeuristicOption));
+        result.reorderingPolicy.setDynamic(options.has(dynamicReorderingOption));
+        result.reorderingPolicy.setFirstReorderingThreshold(options.valueOf(reorderingThresholdOption));
+        result.reorderingPolicy.setMaxGrowth(options.valueOf(reorderingMaxGrowthOption));
+        if (options.has(maxReorderingsOption)) {
+            result.reorderingPolicy.setMaxReorderings(options.valueOf(maxReorderingsOption));
+        }
+        result.reorderingPolicy.setTimeLimit(options.valueOf(reorderingTimeLimitOption));
+        result.variableOrderingStrategy = options.valueOf(variableOrderingOption);
+        result.variableOrderInputPath = options.valueOf(variableOrderInputOption);
+        result.variableOrderOutputPath = options.valueOf(variableOrderOutputOption);
+        result.addBackend = options.valueOf(addBackendOption);
 
         return result;
     }
@@ -139,6 +319,29 @@ class Options {
         return printAllConfigurations;
     }
 
+    /**
+     * @return whether configurations are to be reported by increasing
+     *      reliability, as given by {@link #getLeastReliableCount()} and
+     *      {@link #getReliabilityThreshold()}.
+     */
+    public boolean hasRankedReport() {
+        return leastReliableCount != null || reliabilityThreshold != null;
+    }
+
+    /**
+     * @return how many of the least reliable configurations to report, or null for all of them.
+     */
+    public Integer getLeastReliableCount() {
+        return leastReliableCount;
+    }
+
+    /**
+     * @return the reliability below which configurations are reported, or null for no threshold.
+     */
+    public Double getReliabilityThreshold() {
+        return reliabilityThreshold;
+    }
+
     public boolean hasSuppressReport() {
         return suppressReport;
     }
@@ -163,4 +366,67 @@ class Options {
         return analysisStrategy;
     }
 
+    public ModelCheckingStrategy getModelCheckingStrategy() {
+        return modelCheckingStrategy;
+    }
+
+    public String getModelCacheDirectory() {
+        return modelCacheDirectory;
+    }
+
+    public int getModelCacheSize() {
+        return modelCacheSize;
+    }
+
+    /**
+     * @return the directory in which to keep the state of incremental analyses, or null.
+     */
+    public String getIncrementalDirectory() {
+        return incrementalDirectory;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return the timeout for model checking a single model, in seconds (0 for none).
+     */
+    public long getModelCheckingTimeout() {
+        return modelCheckingTimeout;
+    }
+
+    /**
+     * @return the command line for starting worker processes, or null for the default one.
+     */
+    public List<String> getWorkerCommand() {
+        return workerCommand;
+    }
+
+    public ReorderingPolicy getReorderingPolicy() {
+        return reorderingPolicy;
+    }
+
+    public VariableOrderingStrategy getVariableOrderingStrategy() {
+        return variableOrderingStrategy;
+    }
+
+    /**
+     * @return the file from which to read the initial variable order, or null.
+     */
+    public String getVariableOrderInputPath() {
+        return variableOrderInputPath;
+    }
+
+    /**
+     * @return the file to which to write the final variable order, or null.
+     */
+    public String getVariableOrderOutputPath() {
+        return variableOrderOutputPath;
+    }
+
+    public ADDBackendType getAddBackend() {
+        return addBackend;
+    }
+
 }
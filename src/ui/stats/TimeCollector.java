@@ -9,10 +9,12 @@ import tool.stats.ITimeCollector;
 public class TimeCollector implements ITimeCollector {
 
     private Map<String, WallClockStopWatch> timers;
+    private Map<String, String> stageStats;
 
     public TimeCollector() {
         // A LinkedHashMap preserves insertion order while iterating.
         timers = new LinkedHashMap<String, WallClockStopWatch>();
+        stageStats = new LinkedHashMap<String, String>();
     }
 
     @Override
@@ -39,6 +41,17 @@ public class TimeCollector implements ITimeCollector {
             WallClockStopWatch timer = entry.getValue();
             out.println(entry.getKey() + ": " + timer.getCumulativeTime()/1E+6 + " ms");
         }
+        for (Map.Entry<String, String> entry: stageStats.entrySet()) {
+            out.println(entry.getKey() + " stage: " + entry.getValue());
+        }
+    }
+
+    @Override
+    public void collectStageStats(String stage, double utilization, double meanQueueDepth, int maxQueueDepth) {
+        stageStats.put(stage, String.format("%.1f%% utilization, queue depth %.2f on average (max %d)",
+                                            utilization * 100,
+                                            meanQueueDepth,
+                                            maxQueueDepth));
     }
 
     private WallClockStopWatch getTimer(String id) {
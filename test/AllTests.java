@@ -1,14 +1,34 @@
 
 import jadd.ADDConfigurationsTest;
+import jadd.ADDExpressionTest;
+import jadd.ADDFormatTest;
+import jadd.ADDSoakTest;
+import jadd.ConfigurationTest;
+import jadd.JADDConcurrencyTest;
+import jadd.JADDReorderingTest;
+import jadd.JavaBackendTests;
+import jadd.ValueDistributionTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import paramwrapper.CachingModelCheckerTest;
 import paramwrapper.FDTMCToParamTest;
+import paramwrapper.ParamWrapperTest;
+import paramwrapper.ProcessPoolModelCheckerTest;
 import paramwrapper.ReliabilityFormulaTest;
+import paramwrapper.ScratchFilesTest;
+import paramwrapper.StateEliminationModelCheckerTest;
 import tool.AnalyzerTest;
+import tool.FrozenRDGTest;
 import tool.RDGNodeTest;
+import tool.analyzers.IncrementalStoreTest;
+import tool.analyzers.buildingblocks.DerivationSchedulerTest;
+import tool.analyzers.buildingblocks.PipelineStageTest;
+import tool.analyzers.buildingblocks.PresenceConditionCacheTest;
+import tool.ordering.VariableOrderingTest;
+import expressionsolver.CompiledExpressionTest;
 import expressionsolver.ExpressionSolverTest;
 import fdtmc.FDTMCTest;
 
@@ -17,10 +37,30 @@ import fdtmc.FDTMCTest;
     FDTMCTest.class,
     FDTMCToParamTest.class,
     ReliabilityFormulaTest.class,
+    ScratchFilesTest.class,
+    ParamWrapperTest.class,
+    StateEliminationModelCheckerTest.class,
+    CachingModelCheckerTest.class,
+    ProcessPoolModelCheckerTest.class,
     ExpressionSolverTest.class,
+    CompiledExpressionTest.class,
     AnalyzerTest.class,
     RDGNodeTest.class,
-    ADDConfigurationsTest.class
+    FrozenRDGTest.class,
+    IncrementalStoreTest.class,
+    PresenceConditionCacheTest.class,
+    DerivationSchedulerTest.class,
+    PipelineStageTest.class,
+    VariableOrderingTest.class,
+    ADDConfigurationsTest.class,
+    ConfigurationTest.class,
+    JADDConcurrencyTest.class,
+    JADDReorderingTest.class,
+    ADDSoakTest.class,
+    ADDExpressionTest.class,
+    ADDFormatTest.class,
+    ValueDistributionTest.class,
+    JavaBackendTests.class
 })
 public class AllTests {
 
@@ -0,0 +1,166 @@
+package expressionsolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import jadd.JADD;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+    private ExpressionSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new ExpressionSolver(new JADD());
+    }
+
+    @Test
+    public void testSameResultsAsJEP() {
+        String[] expressions = {"0.42 + 0.53",
+                                "0.4 - 0.8 * 3",
+                                "-0.4 / 0.3",
+                                "2^10 % 7",
+                                "(-1*r0*rFail+1*r0)/(1*rRetry-1)",
+                                "0.999*r0^2 - 0.001*(r0 - rFail)^3/rRetry"};
+        Map<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("r0", 0.97);
+        interpretation.put("rFail", 0.01);
+        interpretation.put("rRetry", 0.3);
+
+        for (String expression : expressions) {
+            Double expected = solver.parseExpression(expression).solve(interpretation);
+            Double result = solver.compileExpression(expression).solve(interpretation);
+            assertEquals(expression, expected, result);
+        }
+    }
+
+    @Test
+    public void testReuseAcrossInterpretations() {
+        CompiledExpression expression = solver.compileExpression("a + b * c - a");
+        assertEquals(3, expression.getVariables().size());
+        int a = expression.getVariableIndex("a");
+        int b = expression.getVariableIndex("b");
+        int c = expression.getVariableIndex("c");
+        assertEquals(-1, expression.getVariableIndex("d"));
+
+        double[] values = new double[3];
+        values[a] = 3.0;
+        values[b] = 4.0;
+        values[c] = 4.0;
+        assertEquals(16.0, expression.evaluate(values), 0);
+
+        values[b] = 3.0;
+        values[c] = 7.0;
+        assertEquals(21.0, expression.evaluate(values), 0);
+    }
+
+    @Test
+    public void testBatchEvaluation() {
+        String expression = "(-1*r0*rFail+1*r0)/(1*rRetry-1) - r0^2 % 0.3";
+        CompiledExpression compiled = solver.compileExpression(expression);
+        int count = 50;
+        Map<String, double[]> interpretations = new HashMap<String, double[]>();
+        interpretations.put("r0", new double[count]);
+        interpretations.put("rFail", new double[count]);
+        interpretations.put("rRetry", new double[count]);
+        for (int i = 0; i < count; i++) {
+            interpretations.get("r0")[i] = i / 50.0;
+            interpretations.get("rFail")[i] = 1 - i / 50.0;
+            interpretations.get("rRetry")[i] = i % 2;
+        }
+
+        double[] results = solver.solveExpressionForBatch(expression, interpretations, count);
+        assertEquals(count, results.length);
+        for (int i = 0; i < count; i++) {
+            Map<String, Double> interpretation = new HashMap<String, Double>();
+            for (Map.Entry<String, double[]> variable : interpretations.entrySet()) {
+                interpretation.put(variable.getKey(), variable.getValue()[i]);
+            }
+            assertEquals(compiled.solve(interpretation), results[i], 0);
+        }
+
+        interpretations.remove("rRetry");
+        assertNull(compiled.solve(interpretations, count));
+    }
+
+    /**
+     * Family-wide expressions may have thousands of terms, which JEP parses
+     * into trees too deep to be evaluated recursively.
+     */
+    @Test
+    public void testLongExpression() {
+        StringBuilder expression = new StringBuilder("0");
+        for (int i = 0; i < 20000; i++) {
+            expression.append(" + 0.5*s").append(i % 10);
+        }
+        Map<String, Double> interpretation = new HashMap<String, Double>();
+        for (int i = 0; i < 10; i++) {
+            interpretation.put("s" + i, (i % 2 == 0) ? 1.0 : 0.0);
+        }
+        assertEquals(5000.0, solver.compileExpression(expression.toString()).solve(interpretation), 0);
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        CompiledExpression expression = solver.compileExpression("x^2 - 2*x*y + y^2");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Double>> results = new ArrayList<Future<Double>>();
+            for (int i = 0; i < 200; i++) {
+                double x = i;
+                results.add(executor.submit(() -> expression.evaluate(new double[] {x, x + 3})));
+            }
+            for (Future<Double> result : results) {
+                assertEquals(9.0, result.get(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnsupportedExpressions() {
+        assertNull(solver.compileExpression("0.5 +* 2"));
+        assertNull(solver.compileExpression("a && b"));
+    }
+
+    /**
+     * Logical and relational operators are not compiled, so expressions
+     * which use them must still be solved (by JEP).
+     */
+    @Test
+    public void testUnsupportedExpressionsAreSolvedByJEP() {
+        String[] expressions = {"a && b",
+                                "a || !b",
+                                "(a > b) * 0.5 + (a <= b)",
+                                "(a == 1) && (b != 1) || c < 0.5"};
+        Map<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("a", 1.0);
+        interpretation.put("b", 0.0);
+        interpretation.put("c", 0.3);
+
+        for (String expression : expressions) {
+            Double expected = solver.parseExpression(expression).solve(interpretation);
+            assertEquals(expression, expected, solver.solveExpression(expression, interpretation));
+        }
+        assertEquals(1.0, solver.solveExpression("a && b || c < 0.5", interpretation), 0);
+        assertEquals(0.5, solver.solveExpression("(a > b) * 0.5 + (a <= b)", interpretation), 0);
+
+        Map<String, double[]> interpretations = new HashMap<String, double[]>();
+        interpretations.put("a", new double[] {1.0, 0.0});
+        interpretations.put("b", new double[] {0.0, 0.0});
+        double[] results = solver.solveExpressionForBatch("a > b", interpretations, 2);
+        assertEquals(1.0, results[0], 0);
+        assertEquals(0.0, results[1], 0);
+    }
+
+}
@@ -8,6 +8,9 @@ import jadd.JADD;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -227,4 +230,34 @@ public class ExpressionSolverTest {
         assertEquals(24.0, result, 1E+10);
     }
 
+    @Test
+    public void testLowLevelAPIIsSharedAmongThreads() {
+        Expression<Double> expression = solver.parseExpression("a + b * c - a / (b + 1)");
+
+        List<Double> results = IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> {
+                    HashMap<String, Double> interpretation = new HashMap<String, Double>();
+                    interpretation.put("a", (double) i);
+                    interpretation.put("b", 2.0);
+                    interpretation.put("c", (double) -i);
+                    return expression.solve(interpretation);
+                })
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Concurrent evaluations must not interfere with each other",
+                         i + 2.0 * -i - i / 3.0, results.get(i), 0);
+        }
+    }
+
+    @Test
+    public void testLowLevelAPIWithoutInterpretation() {
+        Expression<Double> expression = solver.parseExpression("a + b");
+        HashMap<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("a", 3.0);
+
+        assertNull("Expressions with variables must have interpretations for them",
+                   expression.solve(interpretation));
+    }
+
 }
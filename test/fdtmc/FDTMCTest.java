@@ -286,4 +286,44 @@ public class FDTMCTest {
                 fdtmc1, fdtmc2);
 	}
 
+	@Test
+	public void testFingerprintTellsNullFromEmptyLabels() {
+		FDTMC unlabeled = new FDTMC();
+		unlabeled.createState();
+		FDTMC emptyLabeled = new FDTMC();
+		emptyLabeled.createState("");
+
+		Assert.assertEquals(FDTMCFingerprint.of(unlabeled), FDTMCFingerprint.of(unlabeled));
+		Assert.assertNotEquals(FDTMCFingerprint.of(unlabeled), FDTMCFingerprint.of(emptyLabeled));
+	}
+
+	@Test
+	public void testStructureFingerprintOfEqualFDTMCs() {
+		FDTMC first = new FDTMC();
+		State initial = first.createInitialState();
+		State success = first.createSuccessState();
+		State error = first.createErrorState();
+		State message = first.createState("first");
+		first.createTransition(initial, message, "first", "rFirst");
+		first.createTransition(initial, error, "first", "0.5");
+		first.createTransition(message, success, "first", "1");
+
+		FDTMC second = new FDTMC();
+		initial = second.createInitialState();
+		success = second.createSuccessState();
+		error = second.createErrorState();
+		message = second.createState("second");
+		second.createTransition(initial, message, "second", "rSecond");
+		second.createTransition(initial, error, "second", "0.50");
+		second.createTransition(message, success, "second", "1.0");
+
+		Assert.assertEquals("FDTMCs which differ only in labels, variable names and number formatting should be equal",
+				first, second);
+		Assert.assertEquals(FDTMCFingerprint.ofStructure(first), FDTMCFingerprint.ofStructure(second));
+		Assert.assertNotEquals(FDTMCFingerprint.of(first), FDTMCFingerprint.of(second));
+
+		second.createTransition(success, success, "second", "1");
+		Assert.assertNotEquals(FDTMCFingerprint.ofStructure(first), FDTMCFingerprint.ofStructure(second));
+	}
+
 }
@@ -0,0 +1,138 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jadd.ADDBackend.Operator;
+
+/**
+ * Fused operations must yield the same ADDs as the corresponding sequences
+ * of single operations, on every backend.
+ */
+public class ADDExpressionTest {
+    private static final int VARIABLES = 6;
+    private static final int FACTORS = 12;
+
+    @Test
+    public void testMultiplyAll() throws UnrecognizedVariableException {
+        for (ADDBackendType backend : ADDBackendType.values()) {
+            // Few factors are traversed together, but many are not.
+            for (int count : new int[] {3, FACTORS}) {
+                JADD jadd = newManager(backend);
+                List<ADD> factors = randomFunctions(jadd, count, new Random(1));
+
+                ADD expected = factors.get(0);
+                for (ADD factor : factors.subList(1, factors.size())) {
+                    expected = expected.times(factor);
+                }
+                assertSameValues(expected, ADD.multiplyAll(factors));
+            }
+        }
+    }
+
+    @Test
+    public void testIteTimes() throws UnrecognizedVariableException {
+        for (ADDBackendType backend : ADDBackendType.values()) {
+            JADD jadd = newManager(backend);
+            List<ADD> operands = randomFunctions(jadd, 3, new Random(2));
+            ADD condition = jadd.getVariable("F0").and(jadd.getVariable("F3").complement());
+
+            ADD expected = ADD.ite(condition, operands.get(0), operands.get(1)).times(operands.get(2));
+            assertSameValues(expected,
+                             ADD.iteTimes(condition, operands.get(0), operands.get(1), operands.get(2)));
+        }
+    }
+
+    /**
+     * Special cases of single operations (e.g., 0 times infinity is 0) hold
+     * for fused ones as well.
+     */
+    @Test
+    public void testSpecialCases() throws UnrecognizedVariableException {
+        ADDExpression expression = new ADDExpression.Builder()
+                .operand(0).operand(1).apply(Operator.TIMES)
+                .operand(0).operand(2).apply(Operator.MINUS)
+                .apply(Operator.PLUS)
+                .operand(0).complement().apply(Operator.DIVIDE)
+                .build();
+        for (ADDBackendType backend : ADDBackendType.values()) {
+            JADD jadd = newManager(backend);
+            ADD variable = jadd.getVariable("F0");
+            ADD infinity = jadd.makeConstant(Double.POSITIVE_INFINITY);
+
+            ADD expected = variable.times(infinity)
+                    .plus(variable.minus(variable))
+                    .dividedBy(variable.complement());
+            ADD fused = ADD.apply(expression, variable, infinity, variable);
+            assertSameValues(expected, fused);
+            Assert.assertEquals(0, fused.eval(new String[]{}), 0);
+        }
+    }
+
+    @Test
+    public void testPower() throws UnrecognizedVariableException {
+        ADDExpression cube = new ADDExpression.Builder().operand(0).power(3).build();
+        for (ADDBackendType backend : ADDBackendType.values()) {
+            JADD jadd = newManager(backend);
+            ADD base = randomFunctions(jadd, 1, new Random(3)).get(0);
+
+            assertSameValues(base.times(base).times(base), ADD.apply(cube, base));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingOperands() {
+        JADD jadd = new JADD();
+        ADD.apply(ADDExpression.iteTimes(), jadd.getVariable("F0"), jadd.getVariable("F1"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncompleteExpression() {
+        new ADDExpression.Builder().operand(0).operand(1).build();
+    }
+
+    private static JADD newManager(ADDBackendType backend) {
+        JADD jadd = new JADD(backend.create());
+        for (int i = 0; i < VARIABLES; i++) {
+            jadd.getVariable("F" + i);
+        }
+        return jadd;
+    }
+
+    /**
+     * @return functions of up to {@link #VARIABLES} variables, with a few
+     *      distinct values each.
+     */
+    private static List<ADD> randomFunctions(JADD jadd, int count, Random random) {
+        List<ADD> functions = new ArrayList<ADD>();
+        for (int i = 0; i < count; i++) {
+            ADD function = jadd.makeConstant(0.5 + random.nextDouble());
+            for (int j = 0; j < 3; j++) {
+                ADD variable = jadd.getVariable("F" + random.nextInt(VARIABLES));
+                function = ADD.ite(variable, function, jadd.makeConstant(random.nextDouble()));
+            }
+            functions.add(function);
+        }
+        return functions;
+    }
+
+    private static void assertSameValues(ADD expected, ADD actual) throws UnrecognizedVariableException {
+        for (int assignment = 0; assignment < (1 << VARIABLES); assignment++) {
+            List<String> selected = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES; i++) {
+                if ((assignment & (1 << i)) != 0) {
+                    selected.add("F" + i);
+                }
+            }
+            String[] variables = selected.toArray(new String[selected.size()]);
+            Assert.assertEquals(Arrays.toString(variables),
+                                expected.eval(variables), actual.eval(variables), 0);
+        }
+    }
+
+}
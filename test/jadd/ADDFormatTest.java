@@ -0,0 +1,103 @@
+package jadd;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Decision diagrams written to a file must be read back as the same
+ * function, even by a manager whose variables differ.
+ */
+public class ADDFormatTest {
+    private static final String[] FEATURES = {"Root", "A", "B", "C"};
+
+    private JADD jadd;
+    private ADD function;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD();
+        ExpressionSolver solver = new ExpressionSolver(jadd);
+        ADD featureModel = solver.encodeFormula("Root && (A || B) && (!C || A)");
+        ADD a = ADD.ite(jadd.getVariable("A"), jadd.makeConstant(0.9), jadd.makeConstant(1));
+        ADD c = ADD.ite(jadd.getVariable("C"), jadd.makeConstant(0.8), jadd.makeConstant(0.95));
+        function = featureModel.times(a).times(c);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = Files.createTempFile("function", ".add");
+        try {
+            jadd.writeADD(function, file);
+            ADD read = jadd.readADD(file);
+            Assert.assertEquals(function, read);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadByAnotherManager() throws IOException, UnrecognizedVariableException {
+        Path file = Files.createTempFile("function", ".add");
+        try {
+            jadd.writeADD(function, file);
+            JADD other = new JADD();
+            // Variables are created in another order (and one more of them).
+            other.getVariable("D");
+            other.getVariable("C");
+            other.getVariable("A");
+            ADD read = other.readADD(file);
+            for (List<String> configuration : allConfigurations()) {
+                Assert.assertEquals(configuration.toString(),
+                                    function.eval(configuration),
+                                    read.eval(configuration),
+                                    0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testConstant() throws IOException {
+        StringWriter out = new StringWriter();
+        jadd.writeADD(jadd.makeConstant(0.5), out);
+        Assert.assertEquals("T 0.5\n", out.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedFile() throws IOException {
+        Path file = Files.createTempFile("function", ".add");
+        try {
+            Files.write(file, Arrays.asList("T 1.0", "N A 0 3"));
+            jadd.readADD(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<List<String>> allConfigurations() {
+        List<List<String>> configurations = new ArrayList<List<String>>();
+        for (int mask = 0; mask < (1 << FEATURES.length); mask++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < FEATURES.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    configuration.add(FEATURES[i]);
+                }
+            }
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+}
@@ -0,0 +1,117 @@
+package jadd;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.Expression;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Long-running lifting of expressions over the 30-feature model
+ * (the CNF view of fm_30.xml), so as to check that CUDD is able to
+ * reclaim the nodes of released ADDs.
+ */
+public class ADDSoakTest {
+    private static final String FEATURE_MODEL = "src/testModels/cnf_30.txt";
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 500;
+    private static final int MAX_DEAD_NODES = 100000;
+
+    private JADD jadd;
+    private ExpressionSolver solver;
+    private ADD featureModel;
+    private List<String> features;
+
+    @Before
+    public void setUp() throws IOException {
+        jadd = new JADD();
+        solver = new ExpressionSolver(jadd);
+        String cnf = new String(Files.readAllBytes(Paths.get(FEATURE_MODEL)));
+        featureModel = solver.encodeFormula(cnf);
+        jadd.reorderVariables();
+        features = new ArrayList<String>(featureModel.getVariables());
+    }
+
+    @Test
+    public void testReleasedNodesAreReclaimed() {
+        Expression<ADD> expression = solver.parseExpressionForFunctions("0.99*x*y + (1 - x)*0.95");
+
+        long memoryAfterWarmUp = 0;
+        long peakMemory = 0;
+        int peakDeadNodes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            liftRound(expression, round);
+
+            long memory = featureModel.getAddSizeInBytes();
+            if (round == WARM_UP_ROUNDS) {
+                memoryAfterWarmUp = memory;
+            } else if (round > WARM_UP_ROUNDS) {
+                peakMemory = Math.max(peakMemory, memory);
+                peakDeadNodes = Math.max(peakDeadNodes, featureModel.getDeadNodesCount());
+            }
+        }
+        // Each round yields new nodes (its constant is unique), so memory
+        // would grow linearly if they were never released.
+        Assert.assertTrue("Garbage collection must take place",
+                          featureModel.getGarbageCollectionsCount() > 0);
+        Assert.assertTrue("Memory in use grew from " + memoryAfterWarmUp + " to " + peakMemory + " bytes",
+                          peakMemory <= memoryAfterWarmUp * 5 / 4);
+        Assert.assertTrue("Too many dead nodes: " + peakDeadNodes,
+                          peakDeadNodes <= MAX_DEAD_NODES);
+    }
+
+    @Test
+    public void testClose() throws UnrecognizedVariableException {
+        ADD variable = jadd.getVariable("R");
+        ADD negated = variable.complement();
+        variable.close();
+        variable.close();
+        try {
+            variable.plus(negated);
+            Assert.fail("Closed ADDs must not be operated on");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        // Other handles to the same variable are still valid.
+        try (ADD sum = jadd.getVariable("R").plus(negated)) {
+            Assert.assertEquals(1, sum.eval(new String[] {"R"}), 0);
+            Assert.assertEquals(1, sum.eval(new String[] {}), 0);
+        }
+        negated.close();
+    }
+
+    /**
+     * Lifts the expression once per feature, chaining the results as in
+     * a feature-family-based derivation, and prunes the final result.
+     */
+    private void liftRound(Expression<ADD> expression, int round) {
+        ADD accumulated = jadd.makeConstant(1);
+        for (int i = 0; i < features.size(); i++) {
+            String feature = features.get((i + round) % features.size());
+            Map<String, ADD> values = new HashMap<String, ADD>();
+            try (ADD presence = jadd.getVariable(feature);
+                 ADD reliability = jadd.makeConstant(0.5 + round / (2.0 * ROUNDS))) {
+                values.put("x", presence);
+                values.put("y", accumulated);
+                ADD lifted = expression.solve(values);
+                accumulated.close();
+                accumulated = presence.ifThenElse(lifted, reliability);
+                lifted.close();
+            }
+        }
+        try (ADD pruned = featureModel.times(accumulated)) {
+            accumulated.close();
+            Assert.assertFalse(pruned.isConstant());
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+
+public class ConfigurationTest {
+    private JADD jadd;
+    private ADD featureModel;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+        featureModel = new ExpressionSolver(jadd).encodeFormula("Root && (A || B) && (!C || A)");
+    }
+
+    @Test
+    public void testExpandedConfigurations() {
+        List<Collection<String>> configurations = featureModel.getExpandedConfigurations()
+                .collect(Collectors.toList());
+
+        Set<Set<String>> expected = new HashSet<Set<String>>();
+        expected.add(asSet("Root", "A"));
+        expected.add(asSet("Root", "A", "C"));
+        expected.add(asSet("Root", "B"));
+        expected.add(asSet("Root", "A", "B"));
+        expected.add(asSet("Root", "A", "B", "C"));
+
+        Assert.assertEquals(expected.size(), configurations.size());
+        for (Collection<String> configuration : configurations) {
+            Assert.assertTrue(configuration instanceof Configuration);
+            Assert.assertTrue(configuration + " must be a valid configuration",
+                              expected.contains(configuration));
+        }
+        Assert.assertEquals(expected, new HashSet<Collection<String>>(configurations));
+    }
+
+    @Test
+    public void testSetContract() throws UnrecognizedVariableException {
+        FeatureDictionary dictionary = jadd.getFeatureDictionary();
+        Configuration configuration = dictionary.toConfiguration(Arrays.asList("C", "Root", "A"));
+        Set<String> names = asSet("Root", "A", "C");
+
+        Assert.assertEquals(names, configuration);
+        Assert.assertEquals(configuration, names);
+        Assert.assertEquals(names.hashCode(), configuration.hashCode());
+        Assert.assertEquals(3, configuration.size());
+        Assert.assertTrue(configuration.contains("C"));
+        Assert.assertFalse(configuration.contains("B"));
+        Assert.assertFalse(configuration.contains("Unknown"));
+        Assert.assertEquals(configuration, dictionary.toConfiguration(names));
+        Assert.assertNotEquals(configuration, dictionary.toConfiguration(asSet("Root", "A")));
+    }
+
+    @Test
+    public void testEvaluation() throws UnrecognizedVariableException {
+        FeatureDictionary dictionary = jadd.getFeatureDictionary();
+        String[][] configurations = {{"Root", "A"}, {"Root", "C"}, {"A", "B"}, {}};
+        for (String[] configuration : configurations) {
+            Assert.assertEquals(featureModel.eval(configuration),
+                                featureModel.eval(dictionary.toConfiguration(Arrays.asList(configuration))),
+                                0);
+        }
+    }
+
+    @Test
+    public void testPredicate() throws UnrecognizedVariableException {
+        ConfigurationPredicate predicate = featureModel.toPredicate();
+        String[] features = {"Root", "A", "B", "C"};
+        for (int subset = 0; subset < (1 << features.length); subset++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < features.length; i++) {
+                if ((subset & (1 << i)) != 0) {
+                    configuration.add(features[i]);
+                }
+            }
+            boolean expected = featureModel.eval(configuration) == 1.0;
+            Assert.assertEquals(configuration.toString(), expected, predicate.test(configuration));
+            Assert.assertEquals(configuration.toString(),
+                                expected,
+                                predicate.test(jadd.getFeatureDictionary().toConfiguration(configuration)));
+        }
+        Assert.assertTrue(jadd.makeConstant(1).toPredicate().test(Arrays.asList("A")));
+        Assert.assertFalse(jadd.makeConstant(0).toPredicate().test(Arrays.asList("A")));
+    }
+
+    /**
+     * However a stream of configurations is split, its parts must be
+     * exactly sized and, together, yield the same configurations in the
+     * same order.
+     */
+    @Test
+    public void testSplitConfigurations() {
+        // Features not in the formula are "don't care" variables.
+        jadd.getVariable("D");
+        jadd.getVariable("E");
+        ConfigurationPredicate predicate = featureModel.toPredicate();
+        List<Collection<String>> sequential = predicate.getSatisfyingConfigurations()
+                .sequential()
+                .collect(Collectors.toList());
+        Assert.assertEquals(5 * 4, sequential.size());
+        Assert.assertEquals(sequential.size(), predicate.countSatisfyingConfigurations());
+        Assert.assertEquals(sequential.size(), new HashSet<Collection<String>>(sequential).size());
+
+        List<Collection<String>> split = new ArrayList<Collection<String>>();
+        splitAll(predicate.getSatisfyingConfigurations().spliterator(), split);
+        Assert.assertEquals(sequential, split);
+        Assert.assertEquals(sequential.size(), predicate.getSatisfyingConfigurations().count());
+    }
+
+    @Test
+    public void testConstantConfigurations() {
+        jadd.getVariable("D");
+        Assert.assertEquals(32, jadd.makeConstant(1).toPredicate().countSatisfyingConfigurations());
+        Assert.assertEquals(32, jadd.makeConstant(1).getExpandedConfigurations().distinct().count());
+        Assert.assertEquals(0, jadd.makeConstant(0).toPredicate().countSatisfyingConfigurations());
+        Assert.assertEquals(0, jadd.makeConstant(0).getExpandedConfigurations().count());
+    }
+
+    private static void splitAll(Spliterator<Collection<String>> spliterator, List<Collection<String>> configurations) {
+        Spliterator<Collection<String>> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            splitAll(prefix, configurations);
+            splitAll(spliterator, configurations);
+        } else {
+            long size = spliterator.estimateSize();
+            int before = configurations.size();
+            spliterator.forEachRemaining(configurations::add);
+            Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+            Assert.assertEquals(size, configurations.size() - before);
+        }
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownFeature() throws UnrecognizedVariableException {
+        jadd.getFeatureDictionary().toConfiguration(Arrays.asList("Root", "D"));
+    }
+
+    private static Set<String> asSet(String... features) {
+        return new HashSet<String>(Arrays.asList(features));
+    }
+
+}
@@ -0,0 +1,62 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+
+public class JADDConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int FORMULAS = 2000;
+    private static final int VARIABLES = 97;
+
+    /**
+     * Encodes and evaluates formulas (over variables which are also created
+     * concurrently) from many threads at once, sharing a single manager.
+     */
+    @Test
+    public void testSharedManager() throws Exception {
+        JADD jadd = new JADD();
+        ExpressionSolver solver = new ExpressionSolver(jadd);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Double>> results = new ArrayList<Future<Double>>();
+            for (int i = 0; i < FORMULAS; i++) {
+                final int n = i;
+                results.add(executor.submit(new Callable<Double>() {
+                    @Override
+                    public Double call() throws Exception {
+                        String a = "F" + (n % VARIABLES);
+                        String b = "F" + ((n / 3) % VARIABLES);
+                        String c = "F" + ((n / 7) % VARIABLES);
+                        ADD formula = solver.encodeFormula("(" + a + " && !" + b + ") || (" + c + " && " + b + ")");
+                        return formula.eval(new String[] {a});
+                    }
+                }));
+            }
+            for (int i = 0; i < FORMULAS; i++) {
+                int a = i % VARIABLES;
+                int b = (i / 3) % VARIABLES;
+                int c = (i / 7) % VARIABLES;
+                double expected = (b != a || c == a) ? 1 : 0;
+                Assert.assertEquals(expected, results.get(i).get(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        FeatureDictionary dictionary = jadd.getFeatureDictionary();
+        Assert.assertEquals(VARIABLES, dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            Assert.assertEquals(i, dictionary.indexOf(dictionary.getName(i)));
+        }
+    }
+
+}
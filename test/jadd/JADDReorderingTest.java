@@ -0,0 +1,151 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JADDReorderingTest {
+    private static final int VARIABLES = 8;
+    private static final int MAX_OPERANDS = 60;
+    private static final int SUBTRACTIONS = 2000;
+
+    private JADD jadd;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD();
+        for (int i = 0; i < VARIABLES; i++) {
+            jadd.getVariable("F" + i);
+        }
+    }
+
+    @Test
+    public void testApplyVariableOrder() {
+        jadd.applyVariableOrder(Arrays.asList("F7", "Unknown", "F2"));
+
+        List<String> order = jadd.getVariableOrder();
+        Assert.assertEquals(VARIABLES, order.size());
+        Assert.assertEquals(Arrays.asList("F7", "F2", "F0", "F1", "F3"), order.subList(0, 5));
+    }
+
+    /**
+     * Subtractions from 0 used to trigger dynamic reorderings amidst
+     * the apply operation, which left CUDD's reference counts inconsistent
+     * (and the process aborted in the next garbage collection).
+     */
+    @Test
+    public void testDynamicReorderingWithSubtraction() throws UnrecognizedVariableException {
+        ReorderingPolicy policy = new ReorderingPolicy();
+        policy.setDynamic(true);
+        policy.setFirstReorderingThreshold(50);
+        jadd.setReorderingPolicy(policy);
+
+        Random random = new Random(1);
+        List<ADD> operands = new ArrayList<ADD>();
+        for (int i = 0; i < VARIABLES; i++) {
+            operands.add(jadd.getVariable("F" + i));
+        }
+        for (int i = 0; i < SUBTRACTIONS; i++) {
+            ADD minuend = operands.get(random.nextInt(operands.size()));
+            ADD subtrahend = operands.get(random.nextInt(operands.size()));
+            ADD difference = minuend.minus(subtrahend);
+            if (operands.size() < MAX_OPERANDS) {
+                operands.add(difference);
+            } else {
+                operands.set(VARIABLES + random.nextInt(MAX_OPERANDS - VARIABLES), difference).close();
+            }
+        }
+        Assert.assertTrue(jadd.getReorderingsCount() > 0);
+
+        try (ADD negated = jadd.makeConstant(0).minus(operands.get(0))) {
+            Assert.assertEquals(-1, negated.eval(new String[] {"F0"}), 0);
+            Assert.assertEquals(0, negated.eval(new String[] {}), 0);
+        }
+    }
+
+    /**
+     * Reordering must keep the functions as they were and their diagrams
+     * reduced, i.e., as large as if they were built in the final order.
+     * Nodes must also be unique afterwards, so that building the functions
+     * again yields the very same nodes.
+     */
+    @Test
+    public void testReorderingPreservesFunctions() {
+        List<ADD> functions = makeFunctions(jadd);
+        double[][] values = evalAll(functions);
+
+        List<String> reversed = new ArrayList<String>(jadd.getVariableOrder());
+        Collections.reverse(reversed);
+        jadd.applyVariableOrder(reversed);
+        jadd.reorderVariables();
+        Assert.assertArrayEquals(values, evalAll(functions));
+        List<ADD> rebuilt = makeFunctions(jadd);
+        for (int i = 0; i < functions.size(); i++) {
+            Assert.assertEquals(functions.get(i).getUnderlyingNode(), rebuilt.get(i).getUnderlyingNode());
+        }
+
+        JADD reference = new JADD();
+        for (int i = 0; i < VARIABLES; i++) {
+            reference.getVariable("F" + i);
+        }
+        reference.applyVariableOrder(jadd.getVariableOrder());
+        List<ADD> referenceFunctions = makeFunctions(reference);
+        Assert.assertEquals(jadd.getVariableOrder(), reference.getVariableOrder());
+        for (int i = 0; i < functions.size(); i++) {
+            Assert.assertEquals(referenceFunctions.get(i).getNodeCount(), functions.get(i).getNodeCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() {
+        new ReorderingPolicy().setFirstReorderingThreshold(0);
+    }
+
+    /**
+     * Sums of products of variables and constants, the same ones for
+     * every manager.
+     */
+    private static List<ADD> makeFunctions(JADD jadd) {
+        Random random = new Random(2);
+        List<ADD> functions = new ArrayList<ADD>();
+        for (int i = 0; i < 10; i++) {
+            ADD sum = jadd.makeConstant(0);
+            for (int j = 0; j < 4; j++) {
+                ADD product = jadd.makeConstant(random.nextInt(5) + 1);
+                for (int k = 0; k < 3; k++) {
+                    product = product.times(jadd.getVariable("F" + random.nextInt(VARIABLES)));
+                }
+                sum = sum.plus(product);
+            }
+            functions.add(sum);
+        }
+        return functions;
+    }
+
+    private double[][] evalAll(List<ADD> functions) {
+        double[][] values = new double[functions.size()][1 << VARIABLES];
+        for (int i = 0; i < functions.size(); i++) {
+            for (int assignment = 0; assignment < (1 << VARIABLES); assignment++) {
+                List<String> selected = new ArrayList<String>();
+                for (int variable = 0; variable < VARIABLES; variable++) {
+                    if ((assignment & (1 << variable)) != 0) {
+                        selected.add("F" + variable);
+                    }
+                }
+                try {
+                    values[i][assignment] = functions.get(i).eval(selected.toArray(new String[selected.size()]));
+                } catch (UnrecognizedVariableException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return values;
+    }
+
+}
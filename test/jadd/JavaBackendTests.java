@@ -0,0 +1,45 @@
+package jadd;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+import expressionsolver.CompiledExpressionTest;
+import expressionsolver.ExpressionSolverTest;
+
+/**
+ * Runs the ADD and expression solver tests once more, on the pure-Java
+ * backend (they run on CUDD, the default one, by themselves).
+ */
+@RunWith(Suite.class)
+@SuiteClasses({
+    ExpressionSolverTest.class,
+    CompiledExpressionTest.class,
+    ADDConfigurationsTest.class,
+    ConfigurationTest.class,
+    JADDConcurrencyTest.class,
+    JADDReorderingTest.class,
+    ADDSoakTest.class,
+    ValueDistributionTest.class,
+    ADDFormatTest.class
+})
+public class JavaBackendTests {
+    private static String previousBackend;
+
+    @BeforeClass
+    public static void useJavaBackend() {
+        previousBackend = System.setProperty(ADDBackendType.SYSTEM_PROPERTY, ADDBackendType.JAVA.name());
+    }
+
+    @AfterClass
+    public static void restoreBackend() {
+        if (previousBackend == null) {
+            System.clearProperty(ADDBackendType.SYSTEM_PROPERTY);
+        } else {
+            System.setProperty(ADDBackendType.SYSTEM_PROPERTY, previousBackend);
+        }
+    }
+
+}
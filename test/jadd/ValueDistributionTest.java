@@ -0,0 +1,158 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Aggregates (and configurations by value) must match those obtained by
+ * evaluating every configuration.
+ */
+public class ValueDistributionTest {
+    private static final String[] FEATURES = {"Root", "A", "B", "C", "D"};
+    private static final DoublePredicate NON_ZERO = value -> value != 0;
+    private static final double DELTA = 1E-12;
+
+    private JADD jadd;
+    private ADD function;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD();
+        ExpressionSolver solver = new ExpressionSolver(jadd);
+        ADD featureModel = solver.encodeFormula("Root && (A || B) && (!C || A)");
+        Map<String, ADD> interpretation = new HashMap<String, ADD>();
+        interpretation.put("a", ADD.ite(jadd.getVariable("A"), jadd.makeConstant(0.9), jadd.makeConstant(1)));
+        interpretation.put("c", ADD.ite(jadd.getVariable("C"), jadd.makeConstant(0.8), jadd.makeConstant(1)));
+        interpretation.put("d", ADD.ite(jadd.getVariable("D"), jadd.makeConstant(0.95), jadd.makeConstant(0.7)));
+        interpretation.put("fm", featureModel);
+        function = solver.solveExpressionAsFunction("fm * a * c * d", interpretation);
+    }
+
+    @Test
+    public void testUniformDistribution() throws UnrecognizedVariableException {
+        ValueDistribution distribution = function.getDistribution();
+        List<Double> values = new ArrayList<Double>();
+        for (List<String> configuration : allConfigurations()) {
+            double value = function.eval(configuration);
+            if (value != 0) {
+                values.add(value);
+            }
+        }
+        double mean = values.stream().mapToDouble(Double::doubleValue).average().getAsDouble();
+        double minimum = values.stream().mapToDouble(Double::doubleValue).min().getAsDouble();
+        double maximum = values.stream().mapToDouble(Double::doubleValue).max().getAsDouble();
+
+        Assert.assertEquals(values.size(), distribution.countConfigurations(NON_ZERO), 0);
+        Assert.assertEquals(5 * 2, values.size());
+        Assert.assertEquals(mean, distribution.getMean(NON_ZERO), DELTA);
+        Assert.assertEquals(minimum, distribution.getMinimum(NON_ZERO), 0);
+        Assert.assertEquals(maximum, distribution.getMaximum(NON_ZERO), 0);
+        Assert.assertEquals(minimum, function.eval(distribution.getMinimumWitness(NON_ZERO)), 0);
+        Assert.assertEquals(maximum, function.eval(distribution.getMaximumWitness(NON_ZERO)), 0);
+
+        long below = values.stream().filter(value -> value < 0.7).count();
+        Assert.assertEquals(below, distribution.countConfigurations(NON_ZERO.and(value -> value < 0.7)), 0);
+
+        double[] histogram = distribution.getHistogram(NON_ZERO, 0, 1, 10);
+        Assert.assertEquals(values.size() / 32.0, histogram[5] + histogram[6] + histogram[7] + histogram[8] + histogram[9], DELTA);
+        Assert.assertEquals(values.stream().filter(value -> value >= 0.9).count() / 32.0, histogram[9], DELTA);
+    }
+
+    @Test
+    public void testWeightedDistribution() throws UnrecognizedVariableException {
+        Map<String, Double> probabilities = new HashMap<String, Double>();
+        probabilities.put("Root", 1.0);
+        probabilities.put("A", 0.2);
+        probabilities.put("D", 0.9);
+        ValueDistribution distribution = function.getDistribution(probabilities);
+
+        double expected = 0;
+        double valid = 0;
+        for (List<String> configuration : allConfigurations()) {
+            double weight = 1;
+            for (String feature : FEATURES) {
+                double probability = probabilities.getOrDefault(feature, 0.5);
+                weight *= configuration.contains(feature) ? probability : 1 - probability;
+            }
+            double value = function.eval(configuration);
+            if (value != 0) {
+                expected += weight * value;
+                valid += weight;
+            }
+        }
+        Assert.assertEquals(valid, distribution.getProbability(NON_ZERO), DELTA);
+        Assert.assertEquals(expected / valid, distribution.getMean(NON_ZERO), DELTA);
+        Collection<String> witness = distribution.getMaximumWitness(NON_ZERO);
+        Assert.assertTrue(witness.contains("Root"));
+        Assert.assertTrue(witness.contains("D"));
+    }
+
+    @Test
+    public void testConfigurationsByValue() throws UnrecognizedVariableException {
+        List<Double> expected = new ArrayList<Double>();
+        for (List<String> configuration : allConfigurations()) {
+            double value = function.eval(configuration);
+            if (value != 0 && value < 0.8) {
+                expected.add(value);
+            }
+        }
+        expected.sort(null);
+
+        List<Collection<String>> configurations = function
+                .getConfigurationsByValue(NON_ZERO.and(value -> value < 0.8))
+                .collect(Collectors.toList());
+        List<Double> values = new ArrayList<Double>();
+        for (Collection<String> configuration : configurations) {
+            values.add(function.eval((Configuration) configuration));
+        }
+        Assert.assertEquals(expected, values);
+        Assert.assertEquals(configurations.size(), new HashSet<Collection<String>>(configurations).size());
+
+        Collection<String> leastValued = function.getConfigurationsByValue(NON_ZERO).findFirst().get();
+        Assert.assertEquals(function.getDistribution().getMinimum(NON_ZERO),
+                            function.eval((Configuration) leastValued),
+                            0);
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownFeature() throws UnrecognizedVariableException {
+        Map<String, Double> probabilities = new HashMap<String, Double>();
+        probabilities.put("Unknown", 0.5);
+        function.getDistribution(probabilities);
+    }
+
+    @Test
+    public void testConstant() {
+        ValueDistribution distribution = jadd.makeConstant(0).getDistribution();
+        Assert.assertEquals(0, distribution.countConfigurations(NON_ZERO), 0);
+        Assert.assertTrue(Double.isNaN(distribution.getMean(NON_ZERO)));
+        Assert.assertNull(distribution.getMinimumWitness(NON_ZERO));
+    }
+
+    private static List<List<String>> allConfigurations() {
+        List<List<String>> configurations = new ArrayList<List<String>>();
+        for (int subset = 0; subset < (1 << FEATURES.length); subset++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < FEATURES.length; i++) {
+                if ((subset & (1 << i)) != 0) {
+                    configuration.add(FEATURES[i]);
+                }
+            }
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+}
@@ -0,0 +1,130 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class CachingModelCheckerTest {
+	private static final String CHECKER = "STATE_ELIMINATION";
+
+	Path cacheDirectory;
+	CountingModelChecker delegate;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDirectory = Files.createTempDirectory("model-cache");
+		delegate = new CountingModelChecker();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : cacheDirectory.toFile().listFiles()) {
+			file.delete();
+		}
+		Files.delete(cacheDirectory);
+	}
+
+	@Test
+	public void testRepeatedModelIsCheckedOnce() {
+		CachingModelChecker cache = new CachingModelChecker(delegate, CHECKER, cacheDirectory, 10);
+		assertEquals("1*r0", cache.getReliability(makeFDTMC("r0")));
+		assertEquals("1*r0", cache.getReliability(makeFDTMC("r0")));
+		assertEquals(1, delegate.calls);
+
+		assertEquals("1*r1", cache.getReliability(makeFDTMC("r1")));
+		assertEquals(2, delegate.calls);
+	}
+
+	@Test
+	public void testEntriesSurviveAcrossInstances() {
+		new CachingModelChecker(delegate, CHECKER, cacheDirectory, 10).getReliability(makeFDTMC("r0"));
+
+		CachingModelChecker cache = new CachingModelChecker(delegate, CHECKER, cacheDirectory, 10);
+		assertEquals(1, cache.size());
+		assertEquals("1*r0", cache.getReliability(makeFDTMC("r0")));
+		assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws IOException {
+		CachingModelChecker cache = new CachingModelChecker(delegate, CHECKER, cacheDirectory, 2);
+		cache.getReliability(makeFDTMC("r0"));
+		cache.getReliability(makeFDTMC("r1"));
+		cache.getReliability(makeFDTMC("r0"));
+		cache.getReliability(makeFDTMC("r2"));
+		assertEquals(3, delegate.calls);
+		assertEquals(2, cache.size());
+		assertEquals(2, cacheDirectory.toFile().listFiles().length);
+
+		// r0 was used more recently than r1, so it must still be cached.
+		cache.getReliability(makeFDTMC("r0"));
+		assertEquals(3, delegate.calls);
+		cache.getReliability(makeFDTMC("r1"));
+		assertEquals(4, delegate.calls);
+	}
+
+	@Test
+	public void testEntriesAreNotSharedAcrossModelCheckers() {
+		new CachingModelChecker(delegate, "PARAM", cacheDirectory, 10).getReliability(makeFDTMC("r0"));
+
+		CachingModelChecker cache = new CachingModelChecker(delegate, "PRISM", cacheDirectory, 10);
+		cache.getReliability(makeFDTMC("r0"));
+		assertEquals(2, delegate.calls);
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testFailedModelCheckingIsNotCached() {
+		delegate.result = "";
+		CachingModelChecker cache = new CachingModelChecker(delegate, CHECKER, cacheDirectory, 10);
+		cache.getReliability(makeFDTMC("r0"));
+		cache.getReliability(makeFDTMC("r0"));
+		assertEquals(2, delegate.calls);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testClosingClosesDecoratedModelChecker() {
+		CachingModelChecker cache = new CachingModelChecker(delegate, CHECKER, cacheDirectory, 10);
+		cache.close();
+		assertTrue(delegate.closed);
+	}
+
+	private FDTMC makeFDTMC(String reliability) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, reliability);
+		fdtmc.createTransition(s0, s2, null, "1-" + reliability);
+		return fdtmc;
+	}
+
+	private static class CountingModelChecker implements ParametricModelChecker {
+		int calls = 0;
+		String result = null;
+		boolean closed = false;
+
+		@Override
+		public String getReliability(FDTMC fdtmc) {
+			calls++;
+			return (result != null) ? result : new StateEliminationModelChecker().getReliability(fdtmc);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+/**
+ * Models are written to scratch files even if the model checker cannot
+ * be run, so these tests resort to a missing executable.
+ */
+public class ParamWrapperTest {
+	private static final String MISSING_PARAM_PATH = "/nonexistent/param";
+	private static final String RELIABILITY_PROPERTY = "P=? [ F \"success\" ]";
+
+	@Test
+	public void testBytesWrittenAreCollected() {
+		BytesWrittenCollector collector = new BytesWrittenCollector();
+		FDTMC fdtmc = makeFDTMC();
+		ParamWrapper paramWrapper = new ParamWrapper(MISSING_PARAM_PATH, collector);
+		try {
+			assertEquals("", paramWrapper.getReliability(fdtmc));
+		} finally {
+			paramWrapper.close();
+		}
+
+		String model = new ParamModel(fdtmc).toString(ParamModel.Dialect.PARAM);
+		long expected = model.getBytes(StandardCharsets.UTF_8).length
+				+ RELIABILITY_PROPERTY.getBytes(StandardCharsets.UTF_8).length;
+		assertEquals(expected, collector.bytesWritten);
+	}
+
+	@Test
+	public void testCloseDeletesScratchFiles() throws IOException {
+		Set<Path> previousFiles = listModelFiles();
+		ParamWrapper paramWrapper = new ParamWrapper(MISSING_PARAM_PATH);
+		paramWrapper.getReliability(makeFDTMC());
+		paramWrapper.getReliability(makeFDTMC());
+
+		Set<Path> scratchFiles = listModelFiles();
+		scratchFiles.removeAll(previousFiles);
+		// Files are reused across calls.
+		assertEquals(1, scratchFiles.size());
+
+		paramWrapper.close();
+		for (Path file : scratchFiles) {
+			assertFalse(Files.exists(file));
+		}
+	}
+
+	private static Set<Path> listModelFiles() throws IOException {
+		Set<Path> files = new HashSet<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(ScratchFiles.getScratchDirectory(), "model*.param")) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	private FDTMC makeFDTMC() {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s0, s2, null, "1-r0");
+		return fdtmc;
+	}
+
+	private static class BytesWrittenCollector extends NoopModelCollector {
+		long bytesWritten = 0;
+
+		@Override
+		public void collectBytesWritten(long bytes) {
+			bytesWritten += bytes;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class ProcessPoolModelCheckerTest {
+
+	@Test
+	public void testPooledResultsMatchInProcessOnes() throws Exception {
+		StateEliminationModelChecker inProcess = new StateEliminationModelChecker();
+		try (ProcessPoolModelChecker pool = new ProcessPoolModelChecker(2, 0, new NoopModelCollector())) {
+			ExecutorService executor = Executors.newFixedThreadPool(8);
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 20; i++) {
+				FDTMC fdtmc = makeFDTMC("r" + i);
+				results.add(executor.submit(() -> pool.getReliability(fdtmc)));
+			}
+			for (int i = 0; i < 20; i++) {
+				assertEquals(inProcess.getReliability(makeFDTMC("r" + i)), results.get(i).get());
+			}
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testTimedOutModelYieldsEmptyFormula() {
+		List<String> slowWorker = new ArrayList<String>(ProcessPoolModelChecker.getDefaultWorkerCommand());
+		slowWorker.add("--delay-millis");
+		slowWorker.add("10000");
+		try (ProcessPoolModelChecker pool = new ProcessPoolModelChecker(slowWorker, 1, 500, new NoopModelCollector())) {
+			long startTime = System.currentTimeMillis();
+			assertEquals("", pool.getReliability(makeFDTMC("r0")));
+			assertTrue(System.currentTimeMillis() - startTime < 10000);
+		}
+	}
+
+	@Test
+	public void testTimeoutStartsWhenWorkerStartsOnModel() throws Exception {
+		// Each model takes most of the timeout, so the second one (which is
+		// pipelined to the same worker) would time out if its clock started
+		// while the worker was still busy with the first one.
+		List<String> slowWorker = new ArrayList<String>(ProcessPoolModelChecker.getDefaultWorkerCommand());
+		slowWorker.add("--delay-millis");
+		slowWorker.add("1500");
+		try (ProcessPoolModelChecker pool = new ProcessPoolModelChecker(slowWorker, 1, 2500, new NoopModelCollector())) {
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			Future<String> first = executor.submit(() -> pool.getReliability(makeFDTMC("r0")));
+			Future<String> second = executor.submit(() -> pool.getReliability(makeFDTMC("r1")));
+			assertNotEquals("", first.get());
+			assertNotEquals("", second.get());
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testWorkerIsRespawnedAfterCrash() {
+		List<String> brokenWorker = new ArrayList<String>();
+		brokenWorker.add("false");
+		try (ProcessPoolModelChecker pool = new ProcessPoolModelChecker(brokenWorker, 1, 5000, new NoopModelCollector())) {
+			assertEquals("", pool.getReliability(makeFDTMC("r0")));
+		}
+	}
+
+	@Test
+	public void testClosedPoolYieldsEmptyFormula() {
+		ProcessPoolModelChecker pool = new ProcessPoolModelChecker(1, 0, new NoopModelCollector());
+		assertNotEquals("", pool.getReliability(makeFDTMC("r0")));
+		pool.close();
+		assertEquals("", pool.getReliability(makeFDTMC("r0")));
+		// Closing is idempotent, even though the shutdown hook is gone.
+		pool.close();
+	}
+
+	private FDTMC makeFDTMC(String reliability) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, reliability);
+		fdtmc.createTransition(s0, s3, null, "1-" + reliability);
+		fdtmc.createTransition(s1, s2, null, "0.99");
+		fdtmc.createTransition(s1, s3, null, "0.01");
+		return fdtmc;
+	}
+}
@@ -0,0 +1,73 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScratchFilesTest {
+
+	ScratchFiles scratch;
+
+	@Before
+	public void setUp() throws Exception {
+		scratch = new ScratchFiles();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scratch.close();
+	}
+
+	@Test
+	public void testFilesAreReused() throws IOException {
+		Path modelFile = scratch.getModelFile();
+		scratch.write(modelFile, "first model\nwith two lines");
+		scratch.write(modelFile, "second");
+
+		assertEquals(modelFile, scratch.getModelFile());
+		assertEquals("second", new String(Files.readAllBytes(modelFile), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testBytesWrittenAreEncodedOnes() throws IOException {
+		// Multi-byte characters, spread over more than one buffer.
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			content.append("\u00e91");
+		}
+		long bytesWritten = scratch.write(scratch.getPropertyFile(), content);
+
+		assertEquals(150000, bytesWritten);
+		assertEquals(bytesWritten, Files.size(scratch.getPropertyFile()));
+	}
+
+	@Test
+	public void testReadLastLine() throws IOException {
+		Path resultsFile = scratch.getResultsFile();
+		Files.write(resultsFile, "Result:\n1*r0\n\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals("1*r0", scratch.readLastLine(resultsFile));
+	}
+
+	@Test
+	public void testCloseDeletesFiles() throws IOException {
+		Path resultsFile = scratch.getResultsFile();
+		Path paramResultsFile = Paths.get(resultsFile + ParamWrapper.PARAM_RESULTS_SUFFIX);
+		Files.write(resultsFile, new byte[] {'1'});
+		Files.write(paramResultsFile, new byte[] {'1'});
+
+		scratch.close();
+		assertFalse(Files.exists(scratch.getModelFile()));
+		assertFalse(Files.exists(scratch.getPropertyFile()));
+		assertFalse(Files.exists(resultsFile));
+		assertFalse(Files.exists(paramResultsFile));
+	}
+
+}
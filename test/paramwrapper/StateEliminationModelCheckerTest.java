@@ -0,0 +1,156 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class StateEliminationModelCheckerTest {
+
+	StateEliminationModelChecker modelChecker;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		modelChecker = new StateEliminationModelChecker();
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testReliabilityWithOneSuccessState() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("-1*r0*rFail+1*r0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithTwoSuccessStates() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1*r0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithNoSuccessState() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithNoParameters() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "0.01");
+		fdtmc.createTransition(s0, s1, null, "0.99");
+		fdtmc.createTransition(s1, s2, null, "0.99");
+		fdtmc.createTransition(s1, s3, null, "0.01");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("(9801)/(10000)", formula);
+	}
+
+	@Test
+	public void testReliabilityWithRetryLoop() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "1");
+		fdtmc.createTransition(s1, s0, null, "rRetry");
+		fdtmc.createTransition(s1, s2, null, "rOk");
+		fdtmc.createTransition(s1, s3, null, "1-rRetry-rOk");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("(-1*rOk)/(1*rRetry-1)", formula);
+	}
+
+	@Test
+	public void testReliabilityWithCertainLoopExit() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		fdtmc.createTransition(s0, s0, null, "rLoop");
+		fdtmc.createTransition(s0, s1, null, "1-rLoop");
+		fdtmc.createTransition(s1, s1, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1", formula);
+	}
+
+	@Test
+	public void testReliabilityOfInterface() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createInterface("sqlite", s0, s1, s2);
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1*sqlite", formula);
+	}
+
+	/**
+	 * Exact coefficients of long chains of decimal probabilities do not fit
+	 * in a double, so they must be printed as decimal numbers instead.
+	 */
+	@Test
+	public void testReliabilityOfLongChainFitsInDouble() {
+		State previous = fdtmc.createState();
+		State error = fdtmc.createState("error");
+		for (int i = 0; i < 100; i++) {
+			State next = fdtmc.createState();
+			fdtmc.createTransition(previous, next, null, "0.999");
+			fdtmc.createTransition(previous, error, null, "0.001");
+			previous = next;
+		}
+		State success = fdtmc.createState("success");
+		fdtmc.createTransition(previous, success, null, "rLast");
+		fdtmc.createTransition(previous, error, null, "1-rLast");
+		fdtmc.createTransition(success, success, null, "1");
+		fdtmc.createTransition(error, error, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertTrue(formula, formula.endsWith("*rLast"));
+		double coefficient = Double.parseDouble(formula.substring(0, formula.length() - "*rLast".length()));
+		assertEquals(Math.pow(0.999, 100), coefficient, 1E-12);
+	}
+}
@@ -0,0 +1,65 @@
+package tool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+
+public class FrozenRDGTest {
+
+    @Test
+    public void testIdsAreTopological() throws CyclicRdgException {
+        FrozenRDG rdg = FrozenRDG.of(BSNNodes.getSituationRDGNode());
+
+        Assert.assertEquals(6, rdg.size());
+        Assert.assertSame(BSNNodes.getSituationRDGNode(), rdg.getRoot());
+        for (int id = 0; id < rdg.size(); id++) {
+            Assert.assertEquals(id, rdg.getId(rdg.getNode(id)));
+            Assert.assertEquals(rdg.getNode(id).hashCode(), rdg.getHash(id));
+            for (int dependency : rdg.getDependencies(id)) {
+                Assert.assertTrue("Dependencies should come first", dependency < id);
+            }
+        }
+
+        int pulseRate = rdg.getId(BSNNodes.getPulseRateRDGNode());
+        Assert.assertEquals(3, rdg.getDependencies(pulseRate).length);
+        Assert.assertEquals(BSNNodes.getPulseRateRDGNode().hashCode(), rdg.getHash(pulseRate));
+    }
+
+    @Test
+    public void testSameOrderAsTransitiveClosure() throws CyclicRdgException {
+        RDGNode situation = BSNNodes.getSituationRDGNode();
+        Assert.assertEquals(situation.getDependenciesTransitiveClosure(),
+                            FrozenRDG.of(situation).getNodesInTopologicalOrder());
+    }
+
+    @Test
+    public void testGetNumberOfPaths() throws CyclicRdgException {
+        FrozenRDG rdg = FrozenRDG.of(BSNNodes.getSituationRDGNode());
+        int[] numberOfPaths = rdg.getNumberOfPaths();
+
+        Assert.assertEquals(1, numberOfPaths[rdg.getId(BSNNodes.getSituationRDGNode())]);
+        Assert.assertEquals(1, numberOfPaths[rdg.getId(BSNNodes.getPulseRateRDGNode())]);
+        Assert.assertEquals(2, numberOfPaths[rdg.getId(BSNNodes.getSQLiteRDGNode())]);
+    }
+
+    @Test
+    public void testNodesOutsideOfSnapshot() throws CyclicRdgException {
+        FrozenRDG rdg = FrozenRDG.of(BSNNodes.getPulseRateRDGNode());
+        Assert.assertEquals(-1, rdg.getId(BSNNodes.getSituationRDGNode()));
+    }
+
+    @Test(expected = CyclicRdgException.class)
+    public void testCycle() throws CyclicRdgException {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.createInitialState();
+        fdtmc.createSuccessState();
+        fdtmc.createErrorState();
+        RDGNode first = new RDGNode(RDGNode.getNextId(), "true", fdtmc);
+        RDGNode second = new RDGNode(RDGNode.getNextId(), "true", fdtmc);
+        first.addDependency(second);
+        second.addDependency(first);
+        FrozenRDG.of(first);
+    }
+
+}
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import fdtmc.FDTMC;
+import fdtmc.State;
 
 public class RDGNodeTest {
 
@@ -116,4 +117,63 @@ public class RDGNodeTest {
                 first, similarCandidate);
     }
 
+    @Test
+    public void testSimilarNodesChangedAfterOtherLookups() {
+        // The first node's model has a success state early on, but it is
+        // only finished after some other node is looked up.
+        FDTMC firstFDTMC = new FDTMC();
+        State initial = firstFDTMC.createInitialState();
+        State success = firstFDTMC.createSuccessState();
+        State error = firstFDTMC.createErrorState();
+        RDGNode first = new RDGNode(RDGNode.getNextId(), "Changed", firstFDTMC);
+        RDGNode.getSimilarNode(new RDGNode(RDGNode.getNextId(), "Changed", FDTMCStub.createMemoryFDTMC()));
+        firstFDTMC.createTransition(initial, success, "changed", "0.9");
+        firstFDTMC.createTransition(initial, error, "changed", "0.1");
+
+        FDTMC secondFDTMC = new FDTMC();
+        initial = secondFDTMC.createInitialState();
+        success = secondFDTMC.createSuccessState();
+        error = secondFDTMC.createErrorState();
+        secondFDTMC.createTransition(initial, success, "changed", "0.9");
+        secondFDTMC.createTransition(initial, error, "changed", "0.1");
+        RDGNode second = new RDGNode(RDGNode.getNextId(), "Changed", secondFDTMC);
+        Assert.assertSame(first, RDGNode.getSimilarNode(second));
+    }
+
+    @Test
+    public void testSimilarNodesWithOtherVariables() {
+        // Variable probabilities are all equal, whatever their names.
+        FDTMC firstFDTMC = new FDTMC();
+        State initial = firstFDTMC.createInitialState();
+        State success = firstFDTMC.createSuccessState();
+        State error = firstFDTMC.createErrorState();
+        firstFDTMC.createTransition(initial, success, "first", "rFirst");
+        firstFDTMC.createTransition(initial, error, "first", "1-rFirst");
+        RDGNode first = new RDGNode(RDGNode.getNextId(), "Variables", firstFDTMC);
+        Assert.assertNull(RDGNode.getSimilarNode(first));
+
+        FDTMC secondFDTMC = new FDTMC();
+        initial = secondFDTMC.createInitialState();
+        success = secondFDTMC.createSuccessState();
+        error = secondFDTMC.createErrorState();
+        secondFDTMC.createTransition(initial, success, "second", "rSecond");
+        secondFDTMC.createTransition(initial, error, "second", "1-rSecond");
+        RDGNode second = new RDGNode(RDGNode.getNextId(), "Variables", secondFDTMC);
+        Assert.assertEquals(first, second);
+        Assert.assertSame(first, RDGNode.getSimilarNode(second));
+    }
+
+    @Test
+    public void testSimilarNodesInCreationOrder() {
+        RDGNode first = new RDGNode(RDGNode.getNextId(), "Ordered", FDTMCStub.createOxygenationFDTMC());
+        RDGNode second = new RDGNode(RDGNode.getNextId(), "Ordered", FDTMCStub.createOxygenationFDTMC());
+        RDGNode third = new RDGNode(RDGNode.getNextId(), "Ordered", FDTMCStub.createOxygenationFDTMC());
+
+        // Whether they have been looked up before or not, the earliest one comes first.
+        Assert.assertSame(first, RDGNode.getSimilarNode(third));
+        Assert.assertSame(first, RDGNode.getSimilarNode(second));
+        Assert.assertSame(second, RDGNode.getSimilarNode(first));
+        Assert.assertSame(first, RDGNode.getSimilarNode(third));
+    }
+
 }
@@ -0,0 +1,252 @@
+package tool.analyzers;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import paramwrapper.StateEliminationModelChecker;
+import tool.CyclicRdgException;
+import tool.RDGNode;
+import tool.UnknownFeatureException;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.strategies.FeatureFamilyBasedAnalyzer;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+import expressionsolver.ExpressionSolver;
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+/**
+ * Incremental feature-family-based analyses of the RDG
+ *
+ *     incRoot (true) -> incA (A) -> incC (C)
+ *                    -> incB (B)
+ *
+ * in which each node's model is a chain of transitions to success, whose
+ * reliability is thus the product of the transitions' probabilities.
+ */
+public class IncrementalStoreTest {
+    private static final String FEATURE_MODEL = "(A || !A) && (B || !B) && (C || !C)";
+    private static final String[] ALL_FEATURES = {"A", "B", "C"};
+    private static final Set<String> ALL_NODES = new HashSet<String>(Arrays.asList("incC", "incA", "incB", "incRoot"));
+
+    private Path directory;
+    private JADD jadd;
+    private ExpressionSolver expressionSolver;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("incremental");
+        jadd = new JADD();
+        expressionSolver = new ExpressionSolver(jadd);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testUnchangedRDGIsNeitherCheckedNorSolved() throws CyclicRdgException, UnknownFeatureException {
+        RecordingStore first = new RecordingStore();
+        Assert.assertEquals(0.684, analyze(first, buildRDG("0.9")), 1E-9);
+        Assert.assertEquals(ALL_NODES, first.checked);
+        Assert.assertEquals(ALL_NODES, first.solved);
+
+        // An equal RDG, even if made of other node objects, is not analyzed again.
+        RecordingStore second = new RecordingStore();
+        Assert.assertEquals(0.684, analyze(second, buildRDG("0.9")), 1E-9);
+        Assert.assertTrue(second.checked.isEmpty());
+        Assert.assertTrue(second.solved.isEmpty());
+    }
+
+    @Test
+    public void testEditedNodeIsCheckedAndItsDependentsSolved() throws CyclicRdgException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+
+        RecordingStore store = new RecordingStore();
+        Assert.assertEquals(0.38, analyze(store, buildRDG("0.5")), 1E-9);
+        Assert.assertEquals(setOf("incC"), store.checked);
+        Assert.assertEquals(setOf("incC", "incA", "incRoot"), store.solved);
+    }
+
+    @Test
+    public void testFeatureModelChangeDiscardsValues() throws CyclicRdgException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+
+        RecordingStore store = new RecordingStore();
+        ADD featureModel = expressionSolver.encodeFormula("(A || !A) && B && (C || !C)");
+        FeatureFamilyBasedAnalyzer analyzer = makeAnalyzer(featureModel, store);
+        IReliabilityAnalysisResults results = analyzer.evaluateReliability(buildRDG("0.9"), ConcurrencyStrategy.SEQUENTIAL, null);
+
+        Assert.assertEquals(0.684, results.getResult(ALL_FEATURES), 1E-9);
+        Assert.assertEquals(0.0, results.getResult(new String[] {"A", "C"}), 1E-9);
+        // Expressions do not depend on the feature model, so they are reused.
+        Assert.assertTrue(store.checked.isEmpty());
+        Assert.assertEquals(ALL_NODES, store.solved);
+    }
+
+    @Test
+    public void testPruningStrategyChangeDiscardsValues() throws CyclicRdgException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+
+        RecordingStore store = new RecordingStore();
+        FeatureFamilyBasedAnalyzer analyzer = makeAnalyzer(expressionSolver.encodeFormula(FEATURE_MODEL), store);
+        analyzer.setPruningStrategy(new FeatureModelPruningStrategy());
+        IReliabilityAnalysisResults results = analyzer.evaluateReliability(buildRDG("0.9"), ConcurrencyStrategy.SEQUENTIAL, null);
+
+        Assert.assertEquals(0.684, results.getResult(ALL_FEATURES), 1E-9);
+        Assert.assertTrue(store.checked.isEmpty());
+        Assert.assertEquals(ALL_NODES, store.solved);
+    }
+
+    @Test
+    public void testMissingValueIsSolvedAgain() throws CyclicRdgException, IOException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+        for (Path value : list("*.add")) {
+            Files.delete(value);
+        }
+
+        RecordingStore store = new RecordingStore();
+        Assert.assertEquals(0.684, analyze(store, buildRDG("0.9")), 1E-9);
+        Assert.assertTrue(store.checked.isEmpty());
+        Assert.assertEquals(ALL_NODES, store.solved);
+    }
+
+    @Test
+    public void testUnreadableValueFallsBackToFullEvaluation() throws CyclicRdgException, IOException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+        for (Path value : list("*.add")) {
+            Files.write(value, "not a decision diagram".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Only incC is affected by the edit, but the values of its
+        // dependents' other dependencies cannot be read.
+        RecordingStore store = new RecordingStore();
+        Assert.assertEquals(0.38, analyze(store, buildRDG("0.5")), 1E-9);
+        Assert.assertEquals(setOf("incC"), store.checked);
+        Assert.assertEquals(ALL_NODES, store.solved);
+    }
+
+    @Test
+    public void testStaleEntriesAreDeleted() throws CyclicRdgException, IOException, UnknownFeatureException {
+        analyze(new RecordingStore(), buildRDG("0.9"));
+        Set<Path> previousExpressions = list("*.formula");
+        Set<Path> previousValues = list("*.add");
+        Assert.assertEquals(4, previousExpressions.size());
+        Assert.assertEquals(4, previousValues.size());
+
+        analyze(new RecordingStore(), buildRDG("0.5"));
+        Set<Path> expressions = list("*.formula");
+        Set<Path> values = list("*.add");
+        Assert.assertEquals(4, expressions.size());
+        Assert.assertEquals(4, values.size());
+
+        // Only incC's expression and the values of incC, incA and incRoot changed.
+        previousExpressions.removeAll(expressions);
+        previousValues.removeAll(values);
+        Assert.assertEquals(1, previousExpressions.size());
+        Assert.assertEquals(3, previousValues.size());
+    }
+
+    private double analyze(IncrementalStore store, RDGNode root) throws CyclicRdgException, UnknownFeatureException {
+        FeatureFamilyBasedAnalyzer analyzer = makeAnalyzer(expressionSolver.encodeFormula(FEATURE_MODEL), store);
+        return analyzer.evaluateReliability(root, ConcurrencyStrategy.SEQUENTIAL, null).getResult(ALL_FEATURES);
+    }
+
+    private FeatureFamilyBasedAnalyzer makeAnalyzer(ADD featureModel, IncrementalStore store) {
+        FeatureFamilyBasedAnalyzer analyzer = new FeatureFamilyBasedAnalyzer(jadd,
+                                                                             featureModel,
+                                                                             new StateEliminationModelChecker(),
+                                                                             new NoopTimeCollector(),
+                                                                             new NoopFormulaCollector());
+        analyzer.setIncrementalStore(store);
+        return analyzer;
+    }
+
+    /**
+     * Builds the RDG anew, so that nothing but its contents is shared
+     * between analyses.
+     */
+    private static RDGNode buildRDG(String reliabilityOfC) {
+        RDGNode c = new RDGNode("incC", "C", makeChain(reliabilityOfC));
+        RDGNode a = new RDGNode("incA", "A", makeChain("0.95", "incC"));
+        a.addDependency(c);
+        RDGNode b = new RDGNode("incB", "B", makeChain("0.8"));
+        RDGNode root = new RDGNode("incRoot", "true", makeChain("incA", "incB"));
+        root.addDependency(a);
+        root.addDependency(b);
+        return root;
+    }
+
+    private static FDTMC makeChain(String... reliabilities) {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("s");
+        State source = fdtmc.createInitialState();
+        State success = fdtmc.createSuccessState();
+        State error = fdtmc.createErrorState();
+        for (int i = 0; i < reliabilities.length; i++) {
+            State target = (i == reliabilities.length - 1) ? success : fdtmc.createState();
+            fdtmc.createTransition(source, target, null, reliabilities[i]);
+            fdtmc.createTransition(source, error, null, "1-" + reliabilities[i]);
+            source = target;
+        }
+        return fdtmc;
+    }
+
+    private Set<Path> list(String glob) throws IOException {
+        Set<Path> files = new HashSet<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static Set<String> setOf(String... ids) {
+        return new HashSet<String>(Arrays.asList(ids));
+    }
+
+    /**
+     * Records which nodes are model-checked and which ones are solved.
+     */
+    private class RecordingStore extends IncrementalStore {
+        Set<String> checked = new HashSet<String>();
+        Set<String> solved = new HashSet<String>();
+
+        RecordingStore() {
+            super(directory, jadd);
+        }
+
+        @Override
+        public void putExpression(RDGNode node, String expression) {
+            checked.add(node.getId());
+            super.putExpression(node, expression);
+        }
+
+        @Override
+        public void putValue(RDGNode node, ADD value) {
+            solved.add(node.getId());
+            super.putValue(node, value);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Parallel derivation must yield the same values as the sequential one,
+ * while deriving independent components concurrently.
+ */
+public class DerivationSchedulerTest {
+    /**
+     * Concatenates the (sorted) values of the dependencies to the asset.
+     */
+    private static final DerivationFunction<Boolean, String, String> CONCATENATE = (presence, asset, values) -> {
+        if (!presence) {
+            return "";
+        }
+        String[] ids = asset.split(",");
+        StringBuilder derived = new StringBuilder(ids[0]);
+        for (int i = 1; i < ids.length; i++) {
+            String value = values.get(ids[i]);
+            if (value == null) {
+                throw new IllegalStateException(ids[0] + " derived before " + ids[i]);
+            }
+            derived.append('(').append(value).append(')');
+        }
+        return derived.toString();
+    };
+
+    @Test
+    public void testSameValuesAsSequentialDerivation() {
+        List<Component<String>> components = diamond();
+
+        String sequential = Component.deriveFromMany(components, CONCATENATE, c -> true);
+        String parallel = new DerivationScheduler(4).deriveFromMany(components, CONCATENATE, c -> true);
+
+        Assert.assertEquals(sequential, parallel);
+        Assert.assertEquals("root(left(leaf))(right(leaf))", parallel);
+    }
+
+    @Test
+    public void testSiblingsAreDerivedConcurrently() {
+        // Each sibling waits for the other one to start, so the derivation
+        // only finishes if they are derived at the same time.
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        DerivationFunction<Boolean, String, String> rendezvous = (presence, asset, values) -> {
+            if (asset.startsWith("left") || asset.startsWith("right")) {
+                bothStarted.countDown();
+                try {
+                    Assert.assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return CONCATENATE.apply(presence, asset, values);
+        };
+
+        String derived = new DerivationScheduler(2).deriveFromMany(diamond(), rendezvous, c -> true);
+        Assert.assertEquals("root(left(leaf))(right(leaf))", derived);
+    }
+
+    @Test
+    public void testPreviouslyDerivedValues() {
+        Component<String> leaf = new Component<String>("leaf", "true", "leaf");
+        Component<String> root = new Component<String>("root", "true", "root,leaf", Collections.singleton(leaf));
+        ConcurrentHashMap<String, String> values = new ConcurrentHashMap<String, String>();
+        values.put("leaf", "reused");
+
+        String derived = new DerivationScheduler(2).deriveFromMany(Arrays.asList(root), CONCATENATE, c -> true, values);
+        Assert.assertEquals("root(reused)", derived);
+        Assert.assertEquals("root(reused)", values.get("root"));
+    }
+
+    @Test
+    public void testNullValues() {
+        Component<String> leaf = new Component<String>("leaf", "true", "leaf");
+        Component<String> root = new Component<String>("root", "true", "root,leaf", Collections.singleton(leaf));
+        DerivationFunction<Boolean, String, String> nullLeaf = (presence, asset, values) -> {
+            if (asset.equals("leaf")) {
+                return null;
+            }
+            Assert.assertTrue(values.containsKey("leaf"));
+            return asset + "(" + values.get("leaf") + ")";
+        };
+
+        String derived = new DerivationScheduler(2).deriveFromMany(Arrays.asList(leaf, root), nullLeaf, c -> true);
+        Assert.assertEquals("root,leaf(null)", derived);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingDependency() {
+        Component<String> leaf = new Component<String>("leaf", "true", "leaf");
+        Component<String> root = new Component<String>("root", "true", "root,leaf", Collections.singleton(leaf));
+        new DerivationScheduler(2).deriveFromMany(Arrays.asList(root), CONCATENATE, c -> true);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFailuresArePropagated() {
+        DerivationFunction<Boolean, String, String> failing = (presence, asset, values) -> {
+            if (asset.startsWith("right")) {
+                throw new UnsupportedOperationException(asset);
+            }
+            return CONCATENATE.apply(presence, asset, values);
+        };
+        new DerivationScheduler(2).deriveFromMany(diamond(), failing, c -> true);
+    }
+
+    /**
+     * @return leaf, left, right and root components, where both left and
+     *      right depend on leaf and root depends on both of them. Assets
+     *      are the components' ids followed by their dependencies' ones.
+     */
+    private static List<Component<String>> diamond() {
+        Component<String> leaf = new Component<String>("leaf", "true", "leaf");
+        Component<String> left = new Component<String>("left", "true", "left,leaf", Collections.singleton(leaf));
+        Component<String> right = new Component<String>("right", "true", "right,leaf", Collections.singleton(leaf));
+        Component<String> root = new Component<String>("root", "true", "root,left,right", Arrays.asList(left, right));
+        return Arrays.asList(leaf, left, right, root);
+    }
+
+}
@@ -0,0 +1,57 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tool.stats.NoopTimeCollector;
+
+/**
+ * Tasks of a pipeline stage must wait for their prerequisites, and
+ * the stage's activity must be reported when it is closed.
+ */
+public class PipelineStageTest {
+
+    private static class StageStatsCollector extends NoopTimeCollector {
+        String stage;
+        double utilization = -1;
+        int maxQueueDepth = -1;
+
+        @Override
+        public void collectStageStats(String stage, double utilization, double meanQueueDepth, int maxQueueDepth) {
+            this.stage = stage;
+            this.utilization = utilization;
+            this.maxQueueDepth = maxQueueDepth;
+        }
+    }
+
+    @Test
+    public void testTasksRunAfterPrerequisites() {
+        StageStatsCollector stats = new StageStatsCollector();
+        CompletableFuture<Integer> sum;
+        try (PipelineStage first = new PipelineStage("First", 2, stats);
+             PipelineStage second = new PipelineStage("Second", 2, stats)) {
+            CompletableFuture<Integer> one = first.submit(() -> 1);
+            CompletableFuture<Integer> two = first.submit(() -> 2);
+            sum = second.after(new CompletableFuture<?>[] {one, two}, () -> one.join() + two.join());
+            Assert.assertEquals(Integer.valueOf(3), PipelineStage.join(sum));
+        }
+        // Stages are closed in reverse order.
+        Assert.assertEquals("First", stats.stage);
+        Assert.assertTrue(stats.utilization >= 0 && stats.utilization <= 1);
+        Assert.assertTrue(stats.maxQueueDepth >= 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFailuresArePropagated() {
+        try (PipelineStage first = new PipelineStage("First", 1, new NoopTimeCollector());
+             PipelineStage second = new PipelineStage("Second", 1, new NoopTimeCollector())) {
+            CompletableFuture<Integer> failed = first.submit(() -> {
+                throw new UnsupportedOperationException();
+            });
+            PipelineStage.join(second.after(failed, () -> failed.join() + 1));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package tool.analyzers.buildingblocks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import jadd.JADD;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.UnknownFeatureException;
+import expressionsolver.ExpressionSolver;
+
+public class PresenceConditionCacheTest {
+    private ExpressionSolver expressionSolver;
+
+    @Before
+    public void setUp() throws Exception {
+        expressionSolver = new ExpressionSolver(new JADD());
+        expressionSolver.encodeFormula("A && (B || C)");
+    }
+
+    @Test
+    public void testSameResultsAsPresenceConditions() {
+        PresenceConditionCache cache = new PresenceConditionCache(expressionSolver);
+        String[] presenceConditions = {"true", "A", "!A", "A && B", "B || !C", "(A && !B) || (!A && C)"};
+        String[][] configurations = {{}, {"A"}, {"A", "B"}, {"B", "C"}, {"A", "B", "C"}};
+        for (String presenceCondition : presenceConditions) {
+            for (String[] configuration : configurations) {
+                assertEquals(presenceCondition + " in " + Arrays.toString(configuration),
+                             PresenceConditions.isPresent(presenceCondition, Arrays.asList(configuration), expressionSolver),
+                             cache.isPresent(presenceCondition, Arrays.asList(configuration)));
+            }
+        }
+        assertEquals(presenceConditions.length, cache.getMisses());
+        assertEquals(presenceConditions.length * (configurations.length - 1), cache.getHits());
+    }
+
+    @Test
+    public void testNormalizedKeys() {
+        PresenceConditionCache cache = new PresenceConditionCache(expressionSolver);
+        assertSame(cache.get("A && B"), cache.get(" A&&B "));
+        assertEquals(1, cache.size());
+        assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testEviction() {
+        PresenceConditionCache cache = new PresenceConditionCache(expressionSolver, 2);
+        cache.get("A");
+        cache.get("B");
+        cache.get("C");
+        assertEquals(2, cache.size());
+        cache.get("A");
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test(expected = UnknownFeatureException.class)
+    public void testUnknownFeature() {
+        PresenceConditionCache cache = new PresenceConditionCache(expressionSolver);
+        cache.isPresent("A", Arrays.asList("A", "Unknown"));
+    }
+
+    @Test
+    public void testConstantPresenceConditions() {
+        PresenceConditionCache cache = new PresenceConditionCache(expressionSolver);
+        assertTrue(cache.isPresent("true", Arrays.asList("A")));
+        assertFalse(cache.isPresent("false", Arrays.asList("A")));
+    }
+
+}
@@ -0,0 +1,84 @@
+package tool.ordering;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VariableOrderingTest {
+    // Same shape as the cnf_*.txt feature models: mandatory groups of
+    // alternative features (G1, G2) and an optional feature (O).
+    private static final String FEATURE_MODEL = "R  &&  (!R  ||  G1)  &&  (!R  ||  G2)  &&  (!G1  ||  R)  &&  (!G2  ||  R)  &&  (!O  ||  R)"
+            + "  &&  (!G2  ||  b1  ||  b2)  &&  (!b1  ||  G2)  &&  (!b2  ||  G2)"
+            + "  &&  (!G1  ||  a1  ||  a2)  &&  (!a1  ||  G1)  &&  (!a2  ||  G1)"
+            + "  &&  True  &&  !False  &&  (a1  ||  b2  ||  O  ||  True)";
+
+    @Test
+    public void testParseCnf() {
+        CnfFormula cnf = CnfFormula.parse(FEATURE_MODEL);
+        Assert.assertEquals(Arrays.asList("R", "G1", "G2", "O", "b1", "b2", "a1", "a2"), cnf.getVariables());
+        // Clauses with True (or !False) are left out.
+        Assert.assertEquals(12, cnf.getClauses().size());
+        Assert.assertArrayEquals(new int[] {-3, 5, 6}, cnf.getClauses().get(6));
+
+        Assert.assertNull(CnfFormula.parse("(a && b) || c"));
+    }
+
+    @Test
+    public void testFeatureTreeOrdering() {
+        List<String> order = new FeatureTreeOrdering().getVariableOrder(FEATURE_MODEL);
+        Assert.assertEquals(Arrays.asList("R", "G1", "a1", "a2", "G2", "b1", "b2", "O"), order);
+    }
+
+    @Test
+    public void testForceOrdering() {
+        List<String> order = new ForceOrdering().getVariableOrder(FEATURE_MODEL);
+        assertPermutation(order);
+        // Each group ends up next to its alternatives.
+        Assert.assertEquals(1, Math.abs(order.indexOf("a1") - order.indexOf("a2")));
+        Assert.assertEquals(1, Math.abs(order.indexOf("b1") - order.indexOf("b2")));
+    }
+
+    @Test
+    public void testBandwidthOrdering() {
+        List<String> order = new BandwidthOrdering().getVariableOrder(FEATURE_MODEL);
+        assertPermutation(order);
+        CnfFormula cnf = CnfFormula.parse(FEATURE_MODEL);
+        // In order of appearance, G1 and a2 are 6 positions apart.
+        Assert.assertEquals(6, bandwidth(cnf, cnf.getVariables()));
+        // Groups and their alternatives are brought together.
+        Assert.assertEquals(4, bandwidth(cnf, order));
+    }
+
+    @Test
+    public void testNotCnf() {
+        Assert.assertNull(new FeatureTreeOrdering().getVariableOrder("a || (b && c)"));
+        Assert.assertNull(new ForceOrdering().getVariableOrder("a || (b && c)"));
+        Assert.assertNull(new BandwidthOrdering().getVariableOrder("a || (b && c)"));
+    }
+
+    /**
+     * @return the largest distance in the order between variables which
+     *      share a clause.
+     */
+    private static int bandwidth(CnfFormula cnf, List<String> order) {
+        int bandwidth = 0;
+        List<List<Integer>> neighbors = cnf.getNeighbors();
+        for (int variable = 0; variable < neighbors.size(); variable++) {
+            int position = order.indexOf(cnf.getVariables().get(variable));
+            for (int neighbor : neighbors.get(variable)) {
+                bandwidth = Math.max(bandwidth, Math.abs(position - order.indexOf(cnf.getVariables().get(neighbor))));
+            }
+        }
+        return bandwidth;
+    }
+
+    private static void assertPermutation(List<String> order) {
+        Assert.assertEquals(8, order.size());
+        Assert.assertEquals(new HashSet<String>(CnfFormula.parse(FEATURE_MODEL).getVariables()),
+                            new HashSet<String>(order));
+    }
+
+}